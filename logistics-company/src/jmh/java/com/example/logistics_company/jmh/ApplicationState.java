@@ -0,0 +1,98 @@
+package com.example.logistics_company.jmh;
+
+import com.example.logistics_company.LogisticsCompanyApplication;
+import com.example.logistics_company.services.ShipmentStatsService;
+import com.example.logistics_company.services.TariffService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Приложението върху H2 в MySQL режим (тестовите настройки, сървър на случаен порт), стартирано
+ * веднъж за всеки JMH fork и споделено от всички нишки на бенчмарка.
+ *
+ * При старт добавя jmh.rows пратки (по подразбиране 20 000; за fork-а се подава с
+ * -jvmArgsAppend -Djmh.rows=...) за 2024 г. – половината доставени,
+ * с цена – и преизчислява дневния агрегат, за да работят справките за приходи.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    static final int ROWS = Integer.getInteger("jmh.rows", 20_000);
+    static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    ConfigurableApplicationContext context;
+    Long senderId;
+    Long receiverId;
+    Long maxShipmentId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // Аргументи от командния ред – с по-висок приоритет от application.properties
+        context = new SpringApplicationBuilder(LogisticsCompanyApplication.class)
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--app.shipments.price-backfill.enabled=false");
+        seed(bean(JdbcTemplate.class), bean(TariffService.class));
+        bean(ShipmentStatsService.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * @return портът, на който слуша приложението
+     */
+    int port() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private void seed(JdbcTemplate jdbc, TariffService tariffs) {
+        senderId = jdbc.queryForObject("SELECT MIN(id) FROM clients", Long.class);
+        receiverId = jdbc.queryForObject("SELECT MAX(id) FROM clients", Long.class);
+        Long employee = jdbc.queryForObject("SELECT MIN(id) FROM employees", Long.class);
+
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            LocalDate registered = FIRST_DAY.plusDays(i % 365);
+            boolean delivered = i % 2 == 0;
+            double weight = 0.5 + i % 40;
+            boolean toOffice = i % 3 == 0;
+            batch.add(new Object[]{senderId, receiverId, "адрес " + i, weight, toOffice,
+                    delivered ? "DELIVERED" : "SHIPPED", Date.valueOf(registered),
+                    delivered ? Date.valueOf(registered.plusDays(2)) : null,
+                    tariffs.price(weight, toOffice, null, registered), employee});
+            if (batch.size() == 5_000) {
+                insert(jdbc, batch);
+            }
+        }
+        insert(jdbc, batch);
+        maxShipmentId = jdbc.queryForObject("SELECT MAX(id) FROM shipments", Long.class);
+    }
+
+    private static void insert(JdbcTemplate jdbc, List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO shipments (sender_id, receiver_id, delivery_address, weight, to_office, " +
+                "status, registration_date, delivery_date, price, registered_by_employee_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.logistics_company.jmh;
+
+import com.example.logistics_company.models.AuthenticatedUser;
+import com.example.logistics_company.repositories.UserRepository;
+import com.example.logistics_company.services.CustomUserDetailsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цената на вход с парола: CustomUserDetailsService.loadUserByUsername (от кеша на principal-ите
+ * и директно от базата) и BCrypt проверката, която доминира при HTTP Basic и /api/auth/login.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+
+    private static final String USERNAME = "georgi";
+    private static final String PASSWORD = "password123";
+
+    private CustomUserDetailsService userDetailsService;
+    private UserRepository userRepository;
+    private PasswordEncoder passwordEncoder;
+    private String passwordHash;
+
+    @Setup
+    public void setup(ApplicationState app) {
+        userDetailsService = app.bean(CustomUserDetailsService.class);
+        userRepository = app.bean(UserRepository.class);
+        passwordEncoder = app.bean(PasswordEncoder.class);
+        passwordHash = userDetailsService.loadUserByUsername(USERNAME).getPassword();
+    }
+
+    @Benchmark
+    public AuthenticatedUser loadUserCached() {
+        return userDetailsService.loadUserByUsername(USERNAME);
+    }
+
+    @Benchmark
+    public AuthenticatedUser loadUserFromDatabase() {
+        return userRepository.findPrincipalByUsername(USERNAME).orElseThrow();
+    }
+
+    @Benchmark
+    public boolean bcryptMatches() {
+        return passwordEncoder.matches(PASSWORD, passwordHash);
+    }
+
+    /**
+     * Целият вход с парола: зареждане на principal-а и проверка на паролата.
+     */
+    @Benchmark
+    public boolean loadUserAndVerifyPassword() {
+        return passwordEncoder.matches(PASSWORD, userDetailsService.loadUserByUsername(USERNAME).getPassword());
+    }
+}
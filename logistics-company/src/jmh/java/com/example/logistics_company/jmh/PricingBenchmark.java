@@ -0,0 +1,63 @@
+package com.example.logistics_company.jmh;
+
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.services.ShipmentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена на пратка (ShipmentService.calculatePrice) и справка за приходи
+ * (ShipmentService.calculateRevenue върху дневния агрегат) за месец и за година.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PricingBenchmark {
+
+    private static final int SHIPMENTS = 1_024;
+
+    private Shipment[] shipments;
+    private ShipmentService shipmentService;
+
+    @Setup
+    public void setup(ApplicationState app) {
+        shipmentService = app.bean(ShipmentService.class);
+        shipments = new Shipment[SHIPMENTS];
+        for (int i = 0; i < SHIPMENTS; i++) {
+            Shipment shipment = new Shipment();
+            shipment.setWeight(0.5 + i % 40);
+            shipment.setToOffice(i % 3 == 0);
+            shipment.setRegistrationDate(ApplicationState.FIRST_DAY.plusDays(i % 365));
+            shipments[i] = shipment;
+        }
+    }
+
+    /**
+     * Цена на 1024 пратки; времето е за целия масив.
+     */
+    @Benchmark
+    public void calculatePrice(Blackhole bh) {
+        for (Shipment shipment : shipments) {
+            bh.consume(shipmentService.calculatePrice(shipment));
+        }
+    }
+
+    @Benchmark
+    public double calculateRevenueMonth() {
+        return shipmentService.calculateRevenue(ApplicationState.FIRST_DAY, ApplicationState.FIRST_DAY.plusMonths(1));
+    }
+
+    @Benchmark
+    public double calculateRevenueYear() {
+        return shipmentService.calculateRevenue(ApplicationState.FIRST_DAY, LocalDate.of(2024, 12, 31));
+    }
+}
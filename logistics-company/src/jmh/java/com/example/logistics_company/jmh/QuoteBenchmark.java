@@ -0,0 +1,132 @@
+package com.example.logistics_company.jmh;
+
+import com.example.logistics_company.dto.Quote;
+import com.example.logistics_company.dto.TariffDefinition;
+import com.example.logistics_company.services.TariffService;
+import com.example.logistics_company.services.TariffTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Оферти по тарифата: компилираната TariffTable (1024 цени за извикване),
+ * TariffService.quote и целият GET /api/quote през HTTP от 16 нишки.
+ *
+ * Таблицата за първите два бенчмарка е реалистична – 4 версии, по 6 теглови диапазона
+ * и 8 градски добавки. Заделената памет се вижда с -Djmh.args="... -prof gc"
+ * (gc.alloc.rate.norm; за tariffTable се очаква 0 B/op).
+ */
+@State(Scope.Benchmark)
+public class QuoteBenchmark {
+
+    private static final int QUOTES = 1_024;
+    private static final String[] CITIES =
+            {"София", "Пловдив", "Варна", "Бургас", "Русе", "Стара Загора", "Плевен", "Сливен", "Видин"};
+
+    private TariffTable table;
+    private TariffService tariffService;
+    private double[] weights;
+    private boolean[] toOffice;
+    private String[] cities;
+    private long[] days;
+
+    private HttpClient http;
+    private HttpRequest quoteRequest;
+
+    @Setup
+    public void setup(ApplicationState app) throws IOException, InterruptedException {
+        table = TariffTable.compile(definitions());
+        tariffService = app.bean(TariffService.class);
+        weights = new double[QUOTES];
+        toOffice = new boolean[QUOTES];
+        cities = new String[QUOTES];
+        days = new long[QUOTES];
+        for (int i = 0; i < QUOTES; i++) {
+            weights[i] = 0.25 + (i * 37 % 1000) / 20.0;
+            toOffice[i] = i % 3 == 0;
+            cities[i] = CITIES[i % CITIES.length];
+            days[i] = ApplicationState.FIRST_DAY.plusDays(i % 730).toEpochDay();
+        }
+
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String base = "http://localhost:" + app.port();
+        HttpResponse<String> login = http.send(HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString("username=georgi&password=password123"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        String token = app.bean(ObjectMapper.class).readTree(login.body()).get("accessToken").asText();
+        quoteRequest = HttpRequest.newBuilder(URI.create(base + "/api/quote?weight=12.5&toOffice=true"))
+                .header("Authorization", "Bearer " + token)
+                .GET().build();
+    }
+
+    /**
+     * 1024 цени от компилираната таблица; времето е за целия масив.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void tariffTable(Blackhole bh) {
+        for (int i = 0; i < QUOTES; i++) {
+            bh.consume(table.price(weights[i], toOffice[i], cities[i], days[i]));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Quote quoteService() {
+        return tariffService.quote(12.5, true, "София", ApplicationState.FIRST_DAY);
+    }
+
+    /**
+     * Оферти в секунда през HTTP – включва токена, филтрите, контролера и JSON-а.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(16)
+    public int quoteHttp() throws IOException, InterruptedException {
+        return http.send(quoteRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static List<TariffDefinition> definitions() {
+        List<TariffDefinition> definitions = new ArrayList<>();
+        double[] limits = {1, 3, 5, 10, 30};
+        for (int v = 0; v < 4; v++) {
+            TariffDefinition definition = new TariffDefinition();
+            definition.setVersion("v" + v);
+            definition.setEffectiveFrom(LocalDate.of(2023 + v / 2, 1 + 6 * (v % 2), 1));
+            double previous = 0;
+            for (double limit : limits) {
+                definition.getBands().add(new TariffDefinition.WeightBand(limit,
+                        4 + v + previous, 1.1, 6 + v + previous, 1.6));
+                previous = limit;
+            }
+            definition.getBands().add(new TariffDefinition.WeightBand(null, 40 + v, 1.0, 55 + v, 1.4));
+            for (int c = 0; c < 8; c++) {
+                definition.getCitySurcharges().put(CITIES[c], 0.5 * (c + v));
+            }
+            definitions.add(definition);
+        }
+        return definitions;
+    }
+}
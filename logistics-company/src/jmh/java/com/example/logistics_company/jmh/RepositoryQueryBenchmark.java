@@ -0,0 +1,66 @@
+package com.example.logistics_company.jmh;
+
+import com.example.logistics_company.dto.ShipmentCursor;
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Заявките от ShipmentRepository зад най-използваните списъци и детайла на пратка,
+ * срещу вградената база с jmh.rows пратки.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RepositoryQueryBenchmark {
+
+    private static final Limit PAGE = Limit.of(50);
+
+    private ShipmentRepository shipmentRepository;
+    private Long senderId;
+    private Long minId;
+    private Long maxId;
+
+    @Setup
+    public void setup(ApplicationState app) {
+        shipmentRepository = app.bean(ShipmentRepository.class);
+        senderId = app.senderId;
+        maxId = app.maxShipmentId;
+        minId = maxId - ApplicationState.ROWS + 1;
+    }
+
+    @Benchmark
+    public List<Shipment> firstPage() {
+        ShipmentCursor start = ShipmentCursor.START;
+        return shipmentRepository.findPage(start.getRegistrationDate(), start.getId(), PAGE);
+    }
+
+    @Benchmark
+    public List<Shipment> notDeliveredFirstPage() {
+        ShipmentCursor start = ShipmentCursor.START;
+        return shipmentRepository.findNotDeliveredPage(start.getRegistrationDate(), start.getId(), PAGE);
+    }
+
+    @Benchmark
+    public List<Shipment> sentByClientFirstPage() {
+        ShipmentCursor start = ShipmentCursor.START;
+        return shipmentRepository.findPageSentByClient(senderId, start.getRegistrationDate(), start.getId(), PAGE);
+    }
+
+    @Benchmark
+    public Shipment findWithDetailsById() {
+        return shipmentRepository.findWithDetailsById(ThreadLocalRandom.current().nextLong(minId, maxId + 1))
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.logistics_company.jmh;
+
+import com.example.logistics_company.dto.CursorPage;
+import com.example.logistics_company.models.Client;
+import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.models.Office;
+import com.example.logistics_company.models.Role;
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.models.ShipmentStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON сериализация на пратки с целия им граф (подател, получател, служител и неговия офис)
+ * с ObjectMapper-а на приложението (включително Hibernate6Module) – една пратка
+ * и страница, каквато връща GET /api/shipments/all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ShipmentSerializationBenchmark {
+
+    @Param({"1", "50"})
+    public int pageSize;
+
+    private ObjectMapper mapper;
+    private CursorPage<Shipment> page;
+
+    @Setup
+    public void setup(ApplicationState app) {
+        mapper = app.bean(ObjectMapper.class);
+        Office office = new Office(1L, "ул. Иван Вазов 12", "София");
+        List<Shipment> items = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            Client sender = new Client((long) i, "Подател " + i, "sender" + i + "@example.com", "+35988800" + i);
+            Client receiver = new Client(10_000L + i, "Получател " + i, "receiver" + i + "@example.com", "+35988900" + i);
+            Employee employee = new Employee((long) i % 5, "Служител " + i % 5, office, Role.OFFICE_STAFF);
+            Shipment shipment = new Shipment((long) i, sender, receiver, "бул. Витоша " + i + ", София",
+                    2.5 + i, i % 2 == 0, ShipmentStatus.SHIPPED, LocalDate.of(2024, 1, 1), null, employee);
+            shipment.setPrice(10.0 + 1.8 * shipment.getWeight());
+            items.add(shipment);
+        }
+        page = new CursorPage<>(items, "MjAyNC0wMS0wMTo0OQ");
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(page);
+    }
+}
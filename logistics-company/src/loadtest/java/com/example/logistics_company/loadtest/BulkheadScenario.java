@@ -0,0 +1,92 @@
+package com.example.logistics_company.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Проверява, че тежките справки не изяждат капацитета на проследяването
+ * ({@code -Dloadtest.scenario=bulkhead}).
+ *
+ * loadtest.trackingUsers служители проследяват пратки, докато loadtest.reportUsers служители
+ * въртят справки ({@link BulkheadUser}). Измерват се три фази, всяка за loadtest.duration:
+ * 1. проследяване + справки с app.bulkhead.enabled=false;
+ * 2. само проследяване с отсеци – базата за сравнение;
+ * 3. проследяване + справки с отсеци.
+ * Tomcat и Hikari пулът са малки (loadtest.tomcatThreads, loadtest.poolSize), за да се вижда
+ * изчерпването им. В отчета endpoint-ите са с префикс на фазата.
+ *
+ * Очакван резултат: без отсеци p99 на проследяването расте с порядъци (чака нишка и връзка зад
+ * справките); с отсеци остава близо до фаза 2, а излишните справки получават 503.
+ */
+class BulkheadScenario {
+
+    private final LoadTestConfig config;
+    private final HttpClient http = LoadTestRunner.http();
+    private final Recorder recorder = new Recorder();
+    private LoadTestSeeder seeder;
+
+    BulkheadScenario(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    LoadTestReport run() throws Exception {
+        Instant startedAt = Instant.now();
+        try (ConfigurableApplicationContext context = start(false)) {
+            measure("1 no bulkheads", users(context, true));
+        }
+        try (ConfigurableApplicationContext context = start(true)) {
+            measure("2 tracking only", users(context, false));
+            measure("3 bulkheads", users(context, true));
+        }
+        // фазите се мерят поотделно – заявки/s са спрямо продължителността на една фаза
+        return new LoadTestReport(startedAt, config.asMap(), config.duration.toMillis() / 1000.0, recorder);
+    }
+
+    /**
+     * Всеки контекст е с отделна база в паметта, заредена със същите данни (seed-ът е фиксиран).
+     */
+    private ConfigurableApplicationContext start(boolean bulkheads) {
+        ConfigurableApplicationContext context = LoadTestRunner.start(
+                "--spring.datasource.url=jdbc:h2:mem:loadtest_bulkheads_" + bulkheads
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=TRUE",
+                "--server.tomcat.threads.max=" + config.tomcatThreads,
+                "--spring.datasource.hikari.maximum-pool-size=" + config.poolSize,
+                "--spring.datasource.hikari.connection-timeout=60000",
+                "--app.bulkhead.enabled=" + bulkheads);
+        System.out.printf("Seeding %d clients and %d shipments...%n", config.clients, config.shipments);
+        seeder = new LoadTestSeeder(context);
+        seeder.seed(config, context);
+        return context;
+    }
+
+    private List<BulkheadUser> users(ConfigurableApplicationContext context, boolean withReports) {
+        URI base = LoadTestRunner.base(context);
+        ObjectMapper mapper = context.getBean(ObjectMapper.class);
+        List<String> staff = seeder.staffUsers;
+        List<BulkheadUser> users = new ArrayList<>();
+        for (int i = 0; i < config.trackingUsers; i++) {
+            users.add(new BulkheadUser(http, base, mapper, staff.get(i % staff.size()), false, config));
+        }
+        for (int i = 0; withReports && i < config.reportUsers; i++) {
+            users.add(new BulkheadUser(http, base, mapper, staff.get(i % staff.size()), true, config));
+        }
+        return users;
+    }
+
+    /**
+     * Загрява и измерва една фаза; измерванията ѝ влизат в общия отчет с префикс phase.
+     */
+    private void measure(String phase, List<BulkheadUser> users) throws Exception {
+        System.out.printf("%s: warming up for %s with %d users...%n", phase, config.warmup, users.size());
+        LoadTestRunner.run(users, config.warmup);
+        System.out.printf("%s: measuring for %s...%n", phase, config.duration);
+        Recorder measured = LoadTestRunner.run(users, config.duration);
+        measured.endpoints.forEach((endpoint, samples) -> recorder.endpoints.put(phase + " | " + endpoint, samples));
+    }
+}
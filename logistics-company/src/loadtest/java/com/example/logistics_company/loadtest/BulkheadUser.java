@@ -0,0 +1,125 @@
+package com.example.logistics_company.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Служител в затворен цикъл за {@link BulkheadScenario}: или проследява пратки
+ * (GET /api/shipments/{id} и последните изпратени от клиент), или върти тежки справки
+ * (/all и /not-delivered по 1000 реда, приходи за целия период).
+ *
+ * След 503 изчаква Retry-After като клиент, който спазва отказа; отказът се брои отделно от грешките.
+ */
+class BulkheadUser implements LoadUser {
+
+    private static final String[][] REPORTS = {
+            {"GET /api/shipments/all", "/api/shipments/all?limit=1000"},
+            {"GET /api/shipments/not-delivered", "/api/shipments/not-delivered?limit=1000"},
+            {"GET /api/shipments/revenue", "/api/shipments/revenue?startDate=2000-01-01&endDate=2099-12-31"}};
+
+    private final HttpClient http;
+    private final URI base;
+    private final ObjectMapper mapper;
+    private final String username;
+    private final boolean reports;
+    private final LoadTestConfig config;
+
+    private volatile Recorder recorder;
+    private volatile long deadline;
+    private String bearer;
+    private int next;
+
+    BulkheadUser(HttpClient http, URI base, ObjectMapper mapper, String username, boolean reports,
+                 LoadTestConfig config) {
+        this.http = http;
+        this.base = base;
+        this.mapper = mapper;
+        this.username = username;
+        this.reports = reports;
+        this.config = config;
+    }
+
+    @Override
+    public void phase(Recorder recorder, long deadlineNanos) {
+        this.recorder = recorder;
+        this.deadline = deadlineNanos;
+    }
+
+    @Override
+    public void run() {
+        while (System.nanoTime() < deadline) {
+            try {
+                if (bearer == null) {
+                    login();
+                } else if (reports) {
+                    String[] report = REPORTS[next++ % REPORTS.length];
+                    get(report[0], report[1]);
+                } else {
+                    track();
+                }
+            } catch (IOException e) {
+                recorder.error("I/O");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void track() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(100) < 80) {
+            get("GET /api/shipments/{id}", "/api/shipments/" + (LoadTestSeeder.FIRST_ID + random.nextInt(config.shipments)));
+        } else {
+            get("GET /api/shipments/client/{id}/sent", "/api/shipments/client/"
+                    + (LoadTestSeeder.FIRST_ID + random.nextInt(config.clients)) + "/sent?limit=20");
+        }
+    }
+
+    private void login() throws IOException, InterruptedException {
+        String form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + "&password=" + LoadTestSeeder.PASSWORD;
+        HttpResponse<byte[]> res = send("POST /api/auth/login", HttpRequest.newBuilder(base.resolve("/api/auth/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)));
+        if (res.statusCode() == 200) {
+            bearer = "Bearer " + mapper.readTree(res.body()).get("accessToken").asText();
+        }
+    }
+
+    private void get(String endpoint, String path) throws IOException, InterruptedException {
+        send(endpoint, HttpRequest.newBuilder(base.resolve(path)).header("Authorization", bearer).GET());
+    }
+
+    private HttpResponse<byte[]> send(String endpoint, HttpRequest.Builder request)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        // справките без отсеци чакат нишка и връзка зад всички останали
+        HttpResponse<byte[]> res = http.send(request.timeout(Duration.ofMinutes(2)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        long micros = (System.nanoTime() - start) / 1_000;
+        if (res.statusCode() == 503) {
+            recorder.rejected(endpoint);
+            long retryAfter = res.headers().firstValueAsLong("Retry-After").orElse(1);
+            long remaining = deadline - System.nanoTime();
+            Thread.sleep(Math.max(0, Math.min(retryAfter * 1_000, remaining / 1_000_000)));
+        } else if (res.statusCode() < 400) {
+            recorder.ok(endpoint, micros);
+        } else {
+            recorder.error(endpoint);
+            if (res.statusCode() == 401) {
+                bearer = null;
+            }
+        }
+        return res;
+    }
+}
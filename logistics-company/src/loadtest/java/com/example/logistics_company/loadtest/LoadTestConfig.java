@@ -0,0 +1,59 @@
+package com.example.logistics_company.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Параметрите на натоварващия тест – системни свойства с разумни стойности по подразбиране,
+ * например {@code -Dloadtest.concurrency=64 -Dloadtest.duration=PT2M}.
+ */
+class LoadTestConfig {
+
+    static final String MIXED = "mixed";
+    static final String BULKHEAD = "bulkhead";
+
+    // mixed – смесеното натоварване от app.js; bulkhead – отсеците при тежки справки (BulkheadScenario)
+    final String scenario = System.getProperty("loadtest.scenario", MIXED);
+
+    final int clients = Integer.getInteger("loadtest.clients", 2_000);
+    final int shipments = Integer.getInteger("loadtest.shipments", 100_000);
+    final int staffUsers = Integer.getInteger("loadtest.staffUsers", 10);
+    final int clientUsers = Integer.getInteger("loadtest.clientUsers", 40);
+    // Едновременни виртуални потребители и какъв дял от тях са клиенти (останалите са служители)
+    final int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+    final double clientShare = Double.parseDouble(System.getProperty("loadtest.clientShare", "0.25"));
+    // След колко действия виртуалният потребител влиза отново (нова сесия в SPA-то)
+    final int actionsPerSession = Integer.getInteger("loadtest.actionsPerSession", 50);
+    final Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT15S"));
+    final Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT60S"));
+    final Path output = Path.of(System.getProperty("loadtest.output", "target/loadtest"));
+    // Сценарият bulkhead: потребители по групи и малки пулове, за да се вижда изчерпването им
+    final int trackingUsers = Integer.getInteger("loadtest.trackingUsers", 20);
+    final int reportUsers = Integer.getInteger("loadtest.reportUsers", 200);
+    final int tomcatThreads = Integer.getInteger("loadtest.tomcatThreads", 50);
+    final int poolSize = Integer.getInteger("loadtest.poolSize", 10);
+
+    Map<String, Object> asMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("scenario", scenario);
+        map.put("clients", clients);
+        map.put("shipments", shipments);
+        map.put("staffUsers", staffUsers);
+        map.put("clientUsers", clientUsers);
+        if (BULKHEAD.equals(scenario)) {
+            map.put("trackingUsers", trackingUsers);
+            map.put("reportUsers", reportUsers);
+            map.put("tomcatThreads", tomcatThreads);
+            map.put("poolSize", poolSize);
+        } else {
+            map.put("concurrency", concurrency);
+            map.put("clientShare", clientShare);
+            map.put("actionsPerSession", actionsPerSession);
+        }
+        map.put("warmup", warmup.toString());
+        map.put("duration", duration.toString());
+        return map;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.logistics_company.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отчетът от натоварващия тест: пропускателна способност и p50/p95/p99 латентност по endpoint,
+ * записан като report.json (за сравнение между пускания) и report.html (за четене).
+ */
+class LoadTestReport {
+
+    record EndpointResult(String endpoint, long requests, long errors, long rejected, double throughput,
+                          double meanMs, double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+    }
+
+    private final Instant startedAt;
+    private final Map<String, Object> config;
+    private final double seconds;
+    private final List<EndpointResult> endpoints = new ArrayList<>();
+    private final EndpointResult total;
+
+    LoadTestReport(Instant startedAt, Map<String, Object> config, double seconds, Recorder recorder) {
+        this.startedAt = startedAt;
+        this.config = config;
+        this.seconds = seconds;
+        Recorder.Samples all = new Recorder.Samples();
+        recorder.endpoints.forEach((endpoint, samples) -> {
+            endpoints.add(result(endpoint, samples));
+            for (int i = 0; i < samples.count; i++) {
+                all.add(samples.micros[i]);
+            }
+            all.errors += samples.errors;
+            all.rejected += samples.rejected;
+        });
+        this.total = result("all", all);
+    }
+
+    private EndpointResult result(String endpoint, Recorder.Samples samples) {
+        long[] sorted = Arrays.copyOf(samples.micros, samples.count);
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0) / 1000;
+        return new EndpointResult(endpoint, samples.count + samples.errors + samples.rejected, samples.errors,
+                samples.rejected, samples.count / seconds, mean,
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), percentile(sorted, 100));
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * p / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1000.0;
+    }
+
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("startedAt", startedAt.toString());
+        json.put("config", config);
+        json.put("measuredSeconds", seconds);
+        json.put("total", total);
+        json.put("endpoints", endpoints);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("report.json").toFile(), json);
+        Files.writeString(directory.resolve("report.html"), html(), StandardCharsets.UTF_8);
+    }
+
+    void print() {
+        System.out.printf("%-52s %9s %7s %7s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "503",
+                "req/s", "p50 (ms)", "p95 (ms)", "p99 (ms)");
+        endpoints.forEach(LoadTestReport::printRow);
+        printRow(total);
+    }
+
+    private static void printRow(EndpointResult r) {
+        System.out.printf("%-52s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f%n", r.endpoint(), r.requests(), r.errors(),
+                r.rejected(), r.throughput(), r.p50Ms(), r.p95Ms(), r.p99Ms());
+    }
+
+    private String html() {
+        StringBuilder html = new StringBuilder("""
+                <!DOCTYPE html>
+                <html lang="bg"><head><meta charset="UTF-8"><title>Натоварващ тест</title>
+                <style>
+                  body { font-family: sans-serif; margin: 2em; }
+                  table { border-collapse: collapse; }
+                  th, td { border: 1px solid #ccc; padding: 4px 10px; text-align: right; }
+                  th:first-child, td:first-child { text-align: left; }
+                  tr.total { font-weight: bold; }
+                </style></head><body>
+                """);
+        html.append("<h1>Натоварващ тест</h1>\n<p>Начало: ").append(startedAt)
+                .append(", измерване: ").append(String.format("%.0f", seconds)).append(" s</p>\n<p>");
+        config.forEach((key, value) -> html.append(key).append('=').append(escape(String.valueOf(value))).append(' '));
+        html.append("</p>\n<table>\n<tr><th>endpoint</th><th>заявки</th><th>грешки</th><th>503</th><th>заявки/s</th>"
+                + "<th>средно (ms)</th><th>p50 (ms)</th><th>p95 (ms)</th><th>p99 (ms)</th><th>max (ms)</th></tr>\n");
+        endpoints.forEach(r -> row(html, r, ""));
+        row(html, total, " class=\"total\"");
+        return html.append("</table>\n</body></html>\n").toString();
+    }
+
+    private static void row(StringBuilder html, EndpointResult r, String attributes) {
+        html.append("<tr").append(attributes).append("><td>").append(escape(r.endpoint())).append("</td>")
+                .append(String.format("<td>%d</td><td>%d</td><td>%d</td><td>%.1f</td><td>%.2f</td><td>%.2f</td>"
+                                + "<td>%.2f</td><td>%.2f</td><td>%.2f</td>",
+                        r.requests(), r.errors(), r.rejected(), r.throughput(), r.meanMs(), r.p50Ms(), r.p95Ms(), r.p99Ms(), r.maxMs()))
+                .append("</tr>\n");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.logistics_company.loadtest;
+
+import com.example.logistics_company.LogisticsCompanyApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Натоварващ тест от край до край без външни зависимости: стартира приложението върху
+ * вградената H2 база в MySQL режим (тестовите настройки), зарежда данни и пуска смесено
+ * натоварване като от app.js с loadtest.concurrency едновременни потребители.
+ *
+ * Стартира се с {@code mvn -Ploadtest -DskipTests verify}; параметрите са в {@link LoadTestConfig}.
+ * С {@code -Dloadtest.scenario=bulkhead} вместо смесеното натоварване се пуска {@link BulkheadScenario}.
+ * Отчетът (p50/p95/p99 и заявки в секунда по endpoint) е в target/loadtest/report.json и report.html.
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        LoadTestReport report = LoadTestConfig.BULKHEAD.equals(config.scenario)
+                ? new BulkheadScenario(config).run()
+                : mixed(config);
+        report.print();
+        report.write(config.output);
+        System.out.println("Report written to " + config.output.toAbsolutePath());
+    }
+
+    /**
+     * Стартира приложението на свободен порт с допълнителните аргументи.
+     */
+    static ConfigurableApplicationContext start(String... args) {
+        List<String> all = new ArrayList<>(List.of("--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--app.shipments.price-backfill.enabled=false"));
+        all.addAll(List.of(args));
+        return new SpringApplicationBuilder(LogisticsCompanyApplication.class)
+                .logStartupInfo(false)
+                .run(all.toArray(String[]::new));
+    }
+
+    static URI base(ConfigurableApplicationContext context) {
+        return URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+    }
+
+    static HttpClient http() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    private static LoadTestReport mixed(LoadTestConfig config) throws Exception {
+        try (ConfigurableApplicationContext context = start()) {
+            URI base = base(context);
+
+            System.out.printf("Seeding %d clients and %d shipments...%n", config.clients, config.shipments);
+            LoadTestSeeder seeder = new LoadTestSeeder(context);
+            seeder.seed(config, context);
+
+            List<Long> shipped = new ArrayList<>(seeder.shippedIds);
+            Collections.shuffle(shipped);
+            Queue<Long> deliverable = new ConcurrentLinkedQueue<>(shipped);
+            List<VirtualUser> users = users(config, seeder, base, context.getBean(ObjectMapper.class), deliverable);
+
+            System.out.printf("Warming up for %s with %d users...%n", config.warmup, users.size());
+            run(users, config.warmup);
+            System.out.printf("Measuring for %s...%n", config.duration);
+            Instant startedAt = Instant.now();
+            long start = System.nanoTime();
+            Recorder recorder = run(users, config.duration);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return new LoadTestReport(startedAt, config.asMap(), seconds, recorder);
+        }
+    }
+
+    private static List<VirtualUser> users(LoadTestConfig config, LoadTestSeeder seeder, URI base,
+                                           ObjectMapper mapper, Queue<Long> deliverable) {
+        HttpClient http = http();
+        int clients = (int) Math.round(config.concurrency * config.clientShare);
+        List<VirtualUser> users = new ArrayList<>();
+        for (int i = 0; i < config.concurrency; i++) {
+            if (i < clients && !seeder.clientUsers.isEmpty()) {
+                int n = i % seeder.clientUsers.size();
+                users.add(new VirtualUser(http, base, mapper, seeder.clientUsers.get(n), seeder.clientUserIds.get(n),
+                        config, deliverable));
+            } else {
+                users.add(new VirtualUser(http, base, mapper, seeder.staffUsers.get(i % seeder.staffUsers.size()),
+                        null, config, deliverable));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Пуска всички потребители за даденото време и връща събраните им измервания.
+     */
+    static Recorder run(List<? extends LoadUser> users, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Recorder> recorders = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(users.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (LoadUser user : users) {
+                Recorder recorder = new Recorder();
+                recorders.add(recorder);
+                user.phase(recorder, deadline);
+                futures.add(pool.submit(user));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        Recorder merged = new Recorder();
+        recorders.forEach(merged::merge);
+        return merged;
+    }
+}
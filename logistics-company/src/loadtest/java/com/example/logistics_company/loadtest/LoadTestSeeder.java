@@ -0,0 +1,145 @@
+package com.example.logistics_company.loadtest;
+
+import com.example.logistics_company.models.Client;
+import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.services.EntityVersionService;
+import com.example.logistics_company.services.ShipmentStatsService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Зарежда данните за натоварващия тест директно през JDBC (на порции по 5000 реда):
+ * клиенти, служители с потребители, клиентски потребители и пратки за последните 365 дни.
+ *
+ * Клиентите и пратките са с ID от {@link #FIRST_ID} нагоре – извън блоковете, които
+ * pooled генераторите в id_generators раздават на приложението, така че регистрациите
+ * по време на теста не се сблъскват със заредените редове.
+ */
+class LoadTestSeeder {
+
+    static final long FIRST_ID = 10_000_000L;
+    static final String PASSWORD = "loadtest";
+
+    private static final int BATCH = 5_000;
+
+    private final JdbcTemplate jdbc;
+    private final PasswordEncoder passwordEncoder;
+    private final Random random = new Random(42);
+
+    /** Заредените потребители; clientUserIds[i] е клиентът на clientUsers[i]. */
+    final List<String> staffUsers = new ArrayList<>();
+    final List<String> clientUsers = new ArrayList<>();
+    final List<Long> clientUserIds = new ArrayList<>();
+    /** Заредени пратки със статус SHIPPED – кандидати за доставка. */
+    final List<Long> shippedIds = new ArrayList<>();
+
+    LoadTestSeeder(ConfigurableApplicationContext context) {
+        this.jdbc = context.getBean(JdbcTemplate.class);
+        this.passwordEncoder = context.getBean(PasswordEncoder.class);
+    }
+
+    void seed(LoadTestConfig config, ConfigurableApplicationContext context) {
+        seedClients(config.clients);
+        List<Long> employeeIds = seedEmployees(config.staffUsers);
+        seedUsers(employeeIds, config.clientUsers);
+        seedShipments(config.shipments, config.clients, employeeIds);
+
+        // Данните са записани покрай Hibernate – кешовете и ETag броячите не знаят за тях
+        context.getBean(ShipmentStatsService.class).rebuild();
+        context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache().evictAllRegions();
+        context.getBean(EntityVersionService.class).changed(Client.class, Employee.class, Shipment.class);
+    }
+
+    private void seedClients(int count) {
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(new Object[]{FIRST_ID + i, "Клиент " + i, "client" + i + "@loadtest.local",
+                    String.format("+359%09d", i)});
+            flushIfFull(batch, "INSERT INTO clients (id, name, email, phone_number) VALUES (?, ?, ?, ?)");
+        }
+        flush(batch, "INSERT INTO clients (id, name, email, phone_number) VALUES (?, ?, ?, ?)");
+    }
+
+    private List<Long> seedEmployees(int count) {
+        List<Long> offices = jdbc.queryForList("SELECT id FROM offices ORDER BY id", Long.class);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(new Object[]{"Служител " + i, offices.get(i % offices.size()), "OFFICE_STAFF"});
+        }
+        flush(batch, "INSERT INTO employees (name, office_id, role) VALUES (?, ?, ?)");
+        return jdbc.queryForList("SELECT id FROM employees WHERE name LIKE 'Служител %' ORDER BY id", Long.class);
+    }
+
+    /**
+     * Паролите са еднакви, но BCrypt хешовете – различни (колоната password е уникална).
+     */
+    private void seedUsers(List<Long> employeeIds, int clientUserCount) {
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < employeeIds.size(); i++) {
+            String username = "staff" + i;
+            batch.add(new Object[]{username, passwordEncoder.encode(PASSWORD), "EMPLOYEE", employeeIds.get(i), null});
+            staffUsers.add(username);
+        }
+        for (int i = 0; i < clientUserCount; i++) {
+            String username = "client" + i;
+            batch.add(new Object[]{username, passwordEncoder.encode(PASSWORD), "CLIENT", null, FIRST_ID + i});
+            clientUsers.add(username);
+            clientUserIds.add(FIRST_ID + i);
+        }
+        flush(batch, "INSERT INTO users (username, password, user_type, employee_id, client_id) VALUES (?, ?, ?, ?, ?)");
+    }
+
+    /**
+     * Пратките са равномерно разпределени в последните 365 дни; всяка трета е доставена.
+     * Клиентските потребители са подател на част от пратките, за да имат непразен списък.
+     */
+    private void seedShipments(int count, int clients, List<Long> employeeIds) {
+        String sql = "INSERT INTO shipments (id, sender_id, receiver_id, delivery_address, weight, to_office, " +
+                "status, registration_date, delivery_date, price, registered_by_employee_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        LocalDate today = LocalDate.now();
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long id = FIRST_ID + i;
+            LocalDate registered = today.minusDays(365 - (long) i * 365 / count);
+            boolean delivered = i % 3 == 0;
+            double weight = 0.5 + random.nextInt(300) / 10.0;
+            boolean toOffice = random.nextBoolean();
+            batch.add(new Object[]{id,
+                    FIRST_ID + random.nextInt(clients), FIRST_ID + random.nextInt(clients),
+                    "ул. Тестова " + i, weight, toOffice,
+                    delivered ? "DELIVERED" : "SHIPPED", Date.valueOf(registered),
+                    delivered ? Date.valueOf(registered.plusDays(1 + random.nextInt(3))) : null,
+                    10.0 + weight * (toOffice ? 1.3 : 1.8),
+                    employeeIds.get(random.nextInt(employeeIds.size()))});
+            if (!delivered) {
+                shippedIds.add(id);
+            }
+            flushIfFull(batch, sql);
+        }
+        flush(batch, sql);
+    }
+
+    private void flushIfFull(List<Object[]> batch, String sql) {
+        if (batch.size() == BATCH) {
+            flush(batch, sql);
+        }
+    }
+
+    private void flush(List<Object[]> batch, String sql) {
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate(sql, batch);
+            batch.clear();
+        }
+    }
+}
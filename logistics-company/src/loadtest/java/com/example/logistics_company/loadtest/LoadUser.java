@@ -0,0 +1,12 @@
+package com.example.logistics_company.loadtest;
+
+/**
+ * Виртуален потребител, който {@link LoadTestRunner} пуска в собствена нишка за всяка фаза.
+ */
+interface LoadUser extends Runnable {
+
+    /**
+     * Задава в кой recorder да се записва и до кога да работи следващото пускане.
+     */
+    void phase(Recorder recorder, long deadlineNanos);
+}
@@ -0,0 +1,54 @@
+package com.example.logistics_company.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Латентностите (в микросекунди), грешките и отказите с 503 по endpoint на един виртуален потребител.
+ * Не е thread-safe – всеки потребител има собствен, а в края те се сливат с {@link #merge}.
+ */
+class Recorder {
+
+    static final class Samples {
+        long[] micros = new long[1024];
+        int count;
+        long errors;
+        long rejected;
+
+        void add(long value) {
+            if (count == micros.length) {
+                micros = Arrays.copyOf(micros, count * 2);
+            }
+            micros[count++] = value;
+        }
+    }
+
+    final Map<String, Samples> endpoints = new TreeMap<>();
+
+    void ok(String endpoint, long micros) {
+        endpoints.computeIfAbsent(endpoint, e -> new Samples()).add(micros);
+    }
+
+    void error(String endpoint) {
+        endpoints.computeIfAbsent(endpoint, e -> new Samples()).errors++;
+    }
+
+    /**
+     * Заявка, отказана с 503 от пълен отсек – не е грешка, а очакван отговор при претоварване.
+     */
+    void rejected(String endpoint) {
+        endpoints.computeIfAbsent(endpoint, e -> new Samples()).rejected++;
+    }
+
+    void merge(Recorder other) {
+        other.endpoints.forEach((endpoint, samples) -> {
+            Samples target = endpoints.computeIfAbsent(endpoint, e -> new Samples());
+            for (int i = 0; i < samples.count; i++) {
+                target.add(samples.micros[i]);
+            }
+            target.errors += samples.errors;
+            target.rejected += samples.rejected;
+        });
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.logistics_company.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Един потребител на SPA-то (app.js) в затворен цикъл: влиза, изпълнява действия без пауза
+ * и на всеки actionsPerSession действия влиза отново.
+ *
+ * Служителят отваря списъците с пратки и справочниците, регистрира и доставя пратки
+ * и пуска справка за приходи; клиентът гледа изпратените и получените си пратки.
+ * Като app.js пази ETag по URL и изпраща If-None-Match; 304 е успешен отговор.
+ */
+class VirtualUser implements LoadUser {
+
+    private static final String[] REFERENCE_LISTS = {"/api/offices", "/api/clients", "/api/employees", "/api/companies"};
+
+    private final HttpClient http;
+    private final URI base;
+    private final ObjectMapper mapper;
+    private final String username;
+    private final Long clientId;
+    private final LoadTestConfig config;
+    private final Queue<Long> deliverable;
+    private final int clientCount;
+    private final Map<String, String> etags = new HashMap<>();
+
+    private volatile Recorder recorder;
+    private volatile long deadline;
+    private String bearer;
+
+    VirtualUser(HttpClient http, URI base, ObjectMapper mapper, String username, Long clientId,
+                LoadTestConfig config, Queue<Long> deliverable) {
+        this.http = http;
+        this.base = base;
+        this.mapper = mapper;
+        this.username = username;
+        this.clientId = clientId;
+        this.config = config;
+        this.deliverable = deliverable;
+        this.clientCount = config.clients;
+    }
+
+    @Override
+    public void phase(Recorder recorder, long deadlineNanos) {
+        this.recorder = recorder;
+        this.deadline = deadlineNanos;
+    }
+
+    @Override
+    public void run() {
+        int actions = 0;
+        while (System.nanoTime() < deadline) {
+            try {
+                if (bearer == null || actions++ % config.actionsPerSession == 0) {
+                    login();
+                } else if (clientId != null) {
+                    clientAction();
+                } else {
+                    staffAction();
+                }
+            } catch (IOException e) {
+                recorder.error("I/O");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void login() throws IOException, InterruptedException {
+        String form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + "&password=" + LoadTestSeeder.PASSWORD;
+        HttpResponse<byte[]> res = send("POST /api/auth/login", HttpRequest.newBuilder(base.resolve("/api/auth/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)));
+        if (res.statusCode() == 200) {
+            bearer = "Bearer " + mapper.readTree(res.body()).get("accessToken").asText();
+            etags.clear();
+        }
+    }
+
+    private void clientAction() throws IOException, InterruptedException {
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        if (roll < 70) {
+            get("GET /api/shipments/client/{id}/sent", "/api/shipments/client/" + clientId + "/sent");
+        } else if (roll < 90) {
+            get("GET /api/shipments/client/{id}/received", "/api/shipments/client/" + clientId + "/received");
+        } else {
+            get("GET /api/auth/me", "/api/auth/me");
+        }
+    }
+
+    private void staffAction() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(100);
+        if (roll < 25) {
+            get("GET /api/shipments/all", "/api/shipments/all");
+        } else if (roll < 40) {
+            get("GET /api/shipments/not-delivered", "/api/shipments/not-delivered");
+        } else if (roll < 55) {
+            String path = REFERENCE_LISTS[random.nextInt(REFERENCE_LISTS.length)];
+            get("GET " + path, path);
+        } else if (roll < 75) {
+            register();
+        } else if (roll < 90) {
+            deliver();
+        } else if (roll < 95) {
+            LocalDate to = LocalDate.now();
+            LocalDate from = to.minusDays(random.nextInt(7, 366));
+            get("GET /api/shipments/revenue", "/api/shipments/revenue?startDate=" + from + "&endDate=" + to);
+        } else {
+            get("GET /api/shipments/status/{status}", "/api/shipments/status/DELIVERED");
+        }
+    }
+
+    private void register() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String body = "{\"sender\":{\"id\":" + (LoadTestSeeder.FIRST_ID + random.nextInt(clientCount)) + "}," +
+                "\"receiver\":{\"id\":" + (LoadTestSeeder.FIRST_ID + random.nextInt(clientCount)) + "}," +
+                "\"deliveryAddress\":\"бул. Натоварване " + random.nextInt(1000) + "\"," +
+                "\"weight\":" + (0.5 + random.nextInt(300) / 10.0) + ",\"toOffice\":" + random.nextBoolean() + "}";
+        HttpResponse<byte[]> res = send("POST /api/shipments/register",
+                authorized("/api/shipments/register")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body)));
+        if (res.statusCode() == 200) {
+            JsonNode id = mapper.readTree(res.body()).get("id");
+            if (id != null) {
+                deliverable.offer(id.asLong());
+            }
+        }
+    }
+
+    private void deliver() throws IOException, InterruptedException {
+        Long id = deliverable.poll();
+        if (id == null) {
+            register();
+            return;
+        }
+        send("PUT /api/shipments/{id}/deliver", authorized("/api/shipments/" + id + "/deliver")
+                .PUT(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private void get(String endpoint, String path) throws IOException, InterruptedException {
+        HttpRequest.Builder request = authorized(path).GET();
+        String etag = etags.get(path);
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        HttpResponse<byte[]> res = send(endpoint, request);
+        res.headers().firstValue("ETag").ifPresent(value -> etags.put(path, value));
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).header("Authorization", bearer);
+    }
+
+    private HttpResponse<byte[]> send(String endpoint, HttpRequest.Builder request)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<byte[]> res = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        long micros = (System.nanoTime() - start) / 1_000;
+        if (res.statusCode() < 400) {
+            recorder.ok(endpoint, micros);
+        } else {
+            recorder.error(endpoint);
+            if (res.statusCode() == 401) {
+                bearer = null;
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.logistics_company.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Отсекът, в който се изпълнява метод на контролер (или всички методи на контролера).
+ * Анотацията на метода има предимство пред тази на класа.
+ *
+ * {@link BulkheadInterceptor} отказва заявката веднага с 503 и Retry-After, ако отсекът е пълен.
+ * Методи без отсек (вход, SSE) не се ограничават оттук. Асинхронните отговори (поточният експорт)
+ * държат мястото си, докато потокът не приключи.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Bulkhead {
+
+    Compartment value();
+}
@@ -0,0 +1,148 @@
+package com.example.logistics_company.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Ограничава едновременните заявки във всеки {@link Compartment} според {@link Bulkhead}
+ * на метода на контролера. Пълен отсек връща веднага 503 Service Unavailable с Retry-After –
+ * преди контролерът да е взел връзка от Hikari, така че отказът струва микросекунди.
+ *
+ * Метрики с етикет compartment:
+ * - app.bulkhead.limit, app.bulkhead.in.flight – текущият лимит и заетите места
+ * - app.bulkhead.latency, app.bulkhead.latency.baseline – средната латентност в последния
+ *   прозорец и дългосрочната, от които {@link GradientLimiter} смята лимита
+ * - app.bulkhead.rejected – отказаните заявки
+ *
+ * Асинхронните заявки държат мястото си до завършването на асинхронната обработка.
+ * При app.bulkhead.enabled=false нищо не се ограничава (за сравнение в натоварващия тест,
+ * сценарий bulkhead).
+ */
+@Component
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ACQUIRED = BulkheadInterceptor.class.getName() + ".acquired";
+    private static final String START = BulkheadInterceptor.class.getName() + ".start";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.bulkhead.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.bulkhead.retry-after:PT1S}")
+    private Duration retryAfter;
+
+    private final Map<Compartment, GradientLimiter> limiters = new EnumMap<>(Compartment.class);
+    private final Map<Compartment, Counter> rejected = new EnumMap<>(Compartment.class);
+
+    @PostConstruct
+    void createLimiters() {
+        for (Compartment compartment : Compartment.values()) {
+            String prefix = "app.bulkhead." + compartment.key() + ".";
+            int max = environment.getProperty(prefix + "max-limit", Integer.class, compartment.getMaxLimit());
+            int initial = compartment.isAdaptive()
+                    ? environment.getProperty(prefix + "initial-limit", Integer.class,
+                            Math.min(compartment.getInitialLimit(), max))
+                    : max;
+            // минимум = максимум: лимитът не се променя
+            GradientLimiter limiter = new GradientLimiter(initial, compartment.isAdaptive() ? 1 : max, max);
+            limiters.put(compartment, limiter);
+
+            String tag = compartment.key();
+            Gauge.builder("app.bulkhead.limit", limiter, GradientLimiter::getLimit)
+                    .description("Текущ лимит на едновременните заявки в отсека")
+                    .tag("compartment", tag).register(registry);
+            Gauge.builder("app.bulkhead.in.flight", limiter, GradientLimiter::getInFlight)
+                    .description("Заявки, които се изпълняват в отсека в момента")
+                    .tag("compartment", tag).register(registry);
+            Gauge.builder("app.bulkhead.latency", limiter, GradientLimiter::getLatency)
+                    .description("Средна латентност на заявките в отсека в последния прозорец")
+                    .baseUnit("seconds").tag("compartment", tag).register(registry);
+            Gauge.builder("app.bulkhead.latency.baseline", limiter, GradientLimiter::getBaselineLatency)
+                    .description("Дългосрочна средна латентност, спрямо която се изчислява лимитът")
+                    .baseUnit("seconds").tag("compartment", tag).register(registry);
+            rejected.put(compartment, Counter.builder("app.bulkhead.rejected")
+                    .description("Заявки, отказани с 503 заради пълен отсек")
+                    .tag("compartment", tag).register(registry));
+        }
+    }
+
+    /**
+     * @param compartment отсек
+     * @return лимитерът на отсека
+     */
+    public GradientLimiter limiter(Compartment compartment) {
+        return limiters.get(compartment);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // ASYNC dispatch-ът продължава заявка, която вече е заела място
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        Compartment compartment = compartment(handler);
+        if (compartment == null) {
+            return true;
+        }
+        GradientLimiter limiter = limiters.get(compartment);
+        if (!limiter.tryAcquire()) {
+            rejected.get(compartment).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("Too many concurrent " + compartment.key() + " requests, retry later");
+            return false;
+        }
+        request.setAttribute(ACQUIRED, limiter);
+        request.setAttribute(START, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(ACQUIRED) instanceof GradientLimiter limiter
+                && request.getAttribute(START) instanceof Long start) {
+            request.removeAttribute(ACQUIRED);
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private static Compartment compartment(Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return null;
+        }
+        Bulkhead bulkhead = method.getMethodAnnotation(Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = method.getBeanType().getAnnotation(Bulkhead.class);
+        }
+        return bulkhead == null ? null : bulkhead.value();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.logistics_company.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Включва Spring Cache абстракцията.
+ * Кешовете и техните ограничения (размер, изтичане) се задават в application.properties
+ * чрез spring.cache.cache-names и spring.cache.caffeine.spec.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
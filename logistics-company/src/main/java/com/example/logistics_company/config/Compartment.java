@@ -0,0 +1,58 @@
+package com.example.logistics_company.config;
+
+/**
+ * Отсеци (bulkheads), между които се делят нишките на Tomcat и връзките от Hikari.
+ * Всеки отсек има собствен адаптивен лимит ({@link GradientLimiter}), затова тежки справки
+ * не могат да заемат капацитета на проследяването и CRUD операциите.
+ *
+ * Началният и максималният лимит се задават с app.bulkhead.&lt;отсек&gt;.initial-limit и max-limit.
+ * Неадаптивен отсек има постоянен лимит max-limit.
+ */
+public enum Compartment {
+
+    // Проследяване на пратки от клиенти – кратки заявки по ключ
+    TRACKING(20, 200),
+    // CRUD операциите на служителите
+    CRUD(10, 100),
+    // Справки върху много редове – заедно с BULK под размера на пула от връзки, за да остават връзки за останалите
+    REPORTING(4, 6),
+    // Поточен експорт и CSV импорт – държат връзка през целия поток, затова лимитът е малък и постоянен:
+    // латентността им зависи от размера на файла, не от натоварването, и не казва нищо за лимита
+    BULK(2, 2, false);
+
+    private final int initialLimit;
+    private final int maxLimit;
+    private final boolean adaptive;
+
+    Compartment(int initialLimit, int maxLimit) {
+        this(initialLimit, maxLimit, true);
+    }
+
+    Compartment(int initialLimit, int maxLimit, boolean adaptive) {
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.adaptive = adaptive;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * @return false, ако лимитът е постоянен (max-limit) и не се променя според латентността
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * @return името в настройките и в етикета compartment на метриките
+     */
+    public String key() {
+        return name().toLowerCase();
+    }
+}
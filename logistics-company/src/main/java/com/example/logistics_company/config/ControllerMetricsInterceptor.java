@@ -0,0 +1,137 @@
+package com.example.logistics_company.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики за всеки метод на контролерите (пакет controllers), с етикети controller и method:
+ * - app.controller.requests – таймер с percentile хистограма (и етикет status)
+ * - app.controller.errors – брояч на отговорите със статус 4xx/5xx (етикети status и exception)
+ * - app.controller.statements, app.controller.entity.loads, app.controller.cache.hits,
+ *   app.controller.cache.misses – работата на Hibernate за една заявка ({@link RequestQueryStats})
+ * - app.controller.query.budget.exceeded – заявки над бюджета от {@link QueryBudget}; при DEBUG
+ *   за логера на QueryBudget те се логват и със SQL-а
+ *
+ * Грешките, обработени от GlobalExceptionHandler, се четат от атрибута, който DispatcherServlet
+ * оставя в заявката. Асинхронните заявки (SSE, поточен експорт) се измерват от началото
+ * до завършването на асинхронната обработка.
+ */
+@Component
+public class ControllerMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String CONTROLLERS_PACKAGE = "com.example.logistics_company.controllers";
+    private static final String START = ControllerMetricsInterceptor.class.getName() + ".start";
+    private static final String STATS = ControllerMetricsInterceptor.class.getName() + ".stats";
+
+    private static final Logger budgetLog = LoggerFactory.getLogger(QueryBudget.class);
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isController(handler)) {
+            if (request.getDispatcherType() != DispatcherType.ASYNC) {
+                request.setAttribute(START, System.nanoTime());
+                request.setAttribute(STATS, new RequestQueryStats());
+            }
+            RequestQueryStats.reset(budgetLog.isDebugEnabled());
+        }
+        return true;
+    }
+
+    /**
+     * @param request заявка, обработена от метод на контролер
+     * @return работата на Hibernate за заявката или null, ако тя не е минала през контролер
+     */
+    public static RequestQueryStats stats(HttpServletRequest request) {
+        return request.getAttribute(STATS) instanceof RequestQueryStats stats ? stats : null;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(STATS) instanceof RequestQueryStats stats) {
+            // заявките преди асинхронната обработка; таймерът се записва при завършването ѝ
+            stats.add(RequestQueryStats.current());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!isController(handler) || !(request.getAttribute(START) instanceof Long start)
+                || !(request.getAttribute(STATS) instanceof RequestQueryStats stats)) {
+            return;
+        }
+        stats.add(RequestQueryStats.current());
+
+        HandlerMethod method = (HandlerMethod) handler;
+        Tags tags = Tags.of("controller", method.getBeanType().getSimpleName(), "method", method.getMethod().getName());
+        int status = response.getStatus();
+        Timer.builder("app.controller.requests")
+                .description("Време за обработка на заявка от метод на контролер")
+                .tags(tags).tag("status", Integer.toString(status))
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        Throwable error = ex != null ? ex : (Throwable) request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+        if (status >= 400 || error != null) {
+            Counter.builder("app.controller.errors")
+                    .description("Отговори с грешка от метод на контролер")
+                    .tags(tags).tag("status", Integer.toString(status))
+                    .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+                    .register(registry)
+                    .increment();
+        }
+
+        summary("app.controller.statements", "SQL заявки за една заявка към контролер", tags, stats.statements);
+        summary("app.controller.entity.loads", "Заредени entity-та за една заявка към контролер", tags, stats.entityLoads);
+        summary("app.controller.cache.hits", "Попадения в second-level cache за една заявка", tags, stats.cacheHits);
+        summary("app.controller.cache.misses", "Пропуски в second-level cache за една заявка", tags, stats.cacheMisses);
+
+        QueryBudget budget = method.getMethodAnnotation(QueryBudget.class);
+        if (budget != null && stats.statements > stats.allowed(budget)) {
+            Counter.builder("app.controller.query.budget.exceeded")
+                    .description("Заявки към контролер с повече SQL заявки от бюджета им")
+                    .tags(tags)
+                    .register(registry)
+                    .increment();
+            if (budgetLog.isDebugEnabled()) {
+                budgetLog.debug("{} {} ran {} statements, budget is {}:\n\t{}", request.getMethod(),
+                        request.getRequestURI(), stats.statements, stats.allowed(budget),
+                        String.join("\n\t", stats.getSql()));
+            }
+        }
+    }
+
+    private void summary(String name, String description, Tags tags, long value) {
+        DistributionSummary.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(registry)
+                .record(value);
+    }
+
+    private static boolean isController(Object handler) {
+        return handler instanceof HandlerMethod method
+                && method.getBeanType().getPackageName().equals(CONTROLLERS_PACKAGE);
+    }
+}
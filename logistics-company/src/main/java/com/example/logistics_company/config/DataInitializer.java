@@ -5,6 +5,7 @@ import com.example.logistics_company.repositories.*;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDate;
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
 public class DataInitializer {
 
     @Bean
+    @Order(1)
     CommandLineRunner initData(
             OfficeRepository officeRepo,
             EmployeeRepository empRepo,
@@ -0,0 +1,129 @@
+package com.example.logistics_company.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Адаптивен лимит на едновременните заявки в един отсек ({@link Compartment}),
+ * по модела на Gradient2 от Netflix concurrency-limits.
+ *
+ * Латентността се усреднява на прозорци от {@link #WINDOW} заявки (краткосрочна) и се сравнява
+ * с бавно плъзгаща се средна (дългосрочна). Докато краткосрочната е до {@link #TOLERANCE} пъти
+ * дългосрочната, лимитът расте с √limit на прозорец; когато заявките започнат да чакат
+ * (за връзка от Hikari, за заключване, за CPU), градиентът пада под 1 и лимитът намалява
+ * пропорционално, най-много наполовина на прозорец. Прозорец, в който отсекът е бил зает
+ * под половината от лимита, не променя лимита – латентността му не казва нищо за горната граница.
+ */
+public final class GradientLimiter {
+
+    static final int WINDOW = 20;
+    private static final double LONG_WINDOW = 100;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // най-голямата заетост в текущия прозорец
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private volatile double limit;
+    private volatile double shortRtt;
+    private volatile double longRtt;
+
+    // текущият прозорец – под монитора на обекта
+    private int samples;
+    private long rttSum;
+
+    public GradientLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limits: initial " + initialLimit
+                    + ", min " + minLimit + ", max " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Заема място в отсека, без да чака.
+     * @return false, ако отсекът е пълен – заявката трябва да бъде отказана
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Освобождава мястото, заето с {@link #tryAcquire()}, и отчита латентността на заявката.
+     * @param rttNanos време за обработка на заявката
+     */
+    public void release(long rttNanos) {
+        inFlight.decrementAndGet();
+        sample(rttNanos);
+    }
+
+    /**
+     * Освобождава мястото, заето с {@link #tryAcquire()}, без да отчита латентност –
+     * за заявки, които не са изпълнени и не казват нищо за натоварването на отсека.
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void sample(long rttNanos) {
+        rttSum += rttNanos;
+        if (++samples < WINDOW) {
+            return;
+        }
+        double windowRtt = (double) rttSum / samples;
+        samples = 0;
+        rttSum = 0;
+        int peak = peakInFlight.getAndSet(inFlight.get());
+
+        double baseline = longRtt == 0 ? windowRtt : longRtt + (windowRtt - longRtt) / LONG_WINDOW;
+        // натоварването е спаднало рязко – базата следва по-бързо надолу
+        if (baseline / windowRtt > 2) {
+            baseline *= 0.95;
+        }
+        longRtt = baseline;
+        shortRtt = windowRtt;
+        if (peak < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baseline / windowRtt));
+        double next = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + next * SMOOTHING));
+    }
+
+    /**
+     * @return текущият лимит на едновременните заявки
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return средната латентност в последния прозорец, в секунди
+     */
+    public double getLatency() {
+        return shortRtt / 1e9;
+    }
+
+    /**
+     * @return дългосрочната средна латентност, спрямо която се мери градиентът, в секунди
+     */
+    public double getBaselineLatency() {
+        return longRtt / 1e9;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.logistics_company.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Закача броячите от {@link RequestQueryStats} към Hibernate: SQL заявки (StatementInspector),
+ * достъпи до second-level cache-а и JDBC batch-ове (session event listener) и заредени entity-та (POST_LOAD).
+ *
+ * Глобалните Hibernate метрики (hibernate.* в /actuator/prometheus) идват от hibernate-micrometer
+ * при включено hibernate.generate_statistics.
+ */
+@Configuration
+public class HibernateMetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer requestQueryStatsCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new RequestQueryStats.StatementCounter());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, RequestQueryStats.SessionListener.class.getName());
+            properties.put("hibernate.integrator_provider",
+                    (IntegratorProvider) () -> List.of(new RequestQueryStats.LoadCounter()));
+        };
+    }
+}
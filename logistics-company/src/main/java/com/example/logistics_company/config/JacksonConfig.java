@@ -0,0 +1,27 @@
+package com.example.logistics_company.config;
+
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация на JSON сериализацията на JPA entity-тата.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Hibernate6Module не зарежда LAZY асоциации по време на сериализация.
+     * Асоциация, която не е част от плана за зареждане (entity graph) на заявката,
+     * се сериализира само с ID-то си, напр. {@code "office": {"id": 1}}.
+     * Така JSON слоят не може да предизвика N+1 заявки.
+     *
+     * @return модул, който Spring Boot регистрира автоматично в ObjectMapper-а
+     */
+    @Bean
+    public Hibernate6Module hibernate6Module() {
+        Hibernate6Module module = new Hibernate6Module();
+        module.enable(Hibernate6Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
+        return module;
+    }
+}
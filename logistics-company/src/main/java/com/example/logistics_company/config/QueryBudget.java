@@ -0,0 +1,36 @@
+package com.example.logistics_company.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Максимален брой SQL заявки, които един метод на контролер може да изпълни,
+ * независимо колко реда връща или обработва.
+ *
+ * Всеки метод в пакета controllers трябва да има бюджет – QueryBudgetTests проверява
+ * това и изпълнява крайните точки върху 1, 10 и 1000 реда; N+1 заявка проваля build-а.
+ * По време на работа {@link ControllerMetricsInterceptor} брои превишенията
+ * (app.controller.query.budget.exceeded), а при DEBUG за този логер ги логва заедно със SQL-а.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface QueryBudget {
+
+    /**
+     * @return максимален брой SQL заявки за една заявка към метода
+     */
+    int value();
+
+    /**
+     * Допълнителни заявки за всеки изпълнен JDBC batch – за пакетните операции, при които
+     * INSERT-ът се изпраща веднъж на hibernate.jdbc.batch_size реда. Заявки в цикъл без
+     * batch (напр. по една на ред) не увеличават лимита и се хващат както обикновено.
+     *
+     * @return заявки на JDBC batch (0 – бюджетът не зависи от броя batch-ове)
+     */
+    int perBatch() default 0;
+}
@@ -0,0 +1,71 @@
+package com.example.logistics_company.config;
+
+import com.example.logistics_company.config.ReplicaRoutingDataSource.Replica;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Периодична проверка на репликите за {@link ReplicaRoutingDataSource}.
+ *
+ * При всяка проверка се чете heartbeat-ът (таблица replication_heartbeat) в основната база
+ * и във всяка реплика; разликата е забавянето на репликата. След това в основната база се записва
+ * нов heartbeat, който репликите трябва да получат до следващата проверка. Затова забавянето
+ * се мери с точност до app.datasource.replica-check-interval.
+ *
+ * Реплика, която не отговаря в рамките на app.datasource.replica-connection-timeout,
+ * се маркира като недостъпна до следващата успешна проверка.
+ */
+public class ReplicaHealthCheck {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaHealthCheck.class);
+
+    private static final String READ_BEAT = "select beat_at from replication_heartbeat where id = 1";
+
+    private final JdbcTemplate primary;
+    private final List<Replica> replicas;
+    private final List<JdbcTemplate> replicaTemplates;
+
+    public ReplicaHealthCheck(DataSource primary, List<Replica> replicas, Duration timeout) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = replicas;
+        this.replicaTemplates = replicas.stream().map(replica -> {
+            JdbcTemplate template = new JdbcTemplate(replica.getDataSource());
+            template.setQueryTimeout((int) Math.max(1, timeout.toSeconds()));
+            return template;
+        }).toList();
+    }
+
+    // Първата проверка е след един интервал: задачите при стартиране (DataInitializer и др.) четат от основната база
+    @Scheduled(fixedDelayString = "${app.datasource.replica-check-interval:PT5S}",
+            initialDelayString = "${app.datasource.replica-check-interval:PT5S}")
+    public void check() {
+        LocalDateTime primaryBeat = primary.queryForObject(READ_BEAT, LocalDateTime.class);
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(i);
+            try {
+                LocalDateTime replicaBeat = replicaTemplates.get(i).queryForObject(READ_BEAT, LocalDateTime.class);
+                Duration lag = replicaBeat.isBefore(primaryBeat) ? Duration.between(replicaBeat, primaryBeat) : Duration.ZERO;
+                if (!replica.isAvailable()) {
+                    log.info("Replica {} is available, {} behind the primary", replica.getName(), lag);
+                }
+                replica.up(lag);
+            } catch (DataAccessException ex) {
+                if (replica.isAvailable()) {
+                    log.warn("Replica {} failed its health check: {}", replica.getName(), ex.getMessage());
+                }
+                replica.down();
+            }
+        }
+        primary.update("update replication_heartbeat set beat_at = ? where id = 1",
+                LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+    }
+}
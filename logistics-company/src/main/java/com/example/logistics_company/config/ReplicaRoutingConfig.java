@@ -0,0 +1,100 @@
+package com.example.logistics_company.config;
+
+import com.example.logistics_company.config.ReplicaRoutingDataSource.Replica;
+import com.example.logistics_company.services.EntityVersionService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Включва репликите за четене, когато е зададено app.datasource.replicas (JDBC URL-и, разделени със запетая).
+ *
+ * Основната база се създава от spring.datasource.* както преди и Flyway мигрира само нея –
+ * схемата стига до репликите чрез репликацията. DataSource-ът, който виждат JPA и останалите,
+ * е LazyConnectionDataSourceProxy над {@link ReplicaRoutingDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.replicas")
+public class ReplicaRoutingConfig {
+
+    @Value("${app.datasource.replicas}")
+    private List<String> replicaUrls;
+
+    @Value("${app.datasource.replica-username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replica-password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${app.datasource.replica-max-lag:PT10S}")
+    private Duration maxLag;
+
+    @Value("${app.datasource.replica-connection-timeout:PT1S}")
+    private Duration connectionTimeout;
+
+    @Value("${app.datasource.read-your-writes-window:PT5S}")
+    private Duration readYourWritesWindow;
+
+    @Value("${app.datasource.replica-check-interval:PT5S}")
+    private Duration checkInterval;
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties,
+                                                             EntityVersionService versions,
+                                                             MeterRegistry registry) {
+        List<Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(replicaUsername);
+            replica.setPassword(replicaPassword);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            // недостъпна при стартиране реплика не спира приложението – ReplicaHealthCheck я пропуска
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicas.add(new Replica(replica.getPoolName(), replica));
+        }
+        // забавянето се мери на всеки checkInterval, затова между две проверки може да е нараснало с толкова
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag, readYourWritesWindow, versions,
+                maxLag.plus(checkInterval), registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaHealthCheck replicaHealthCheck(HikariDataSource primaryDataSource,
+                                                 ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new ReplicaHealthCheck(primaryDataSource, replicaRoutingDataSource.getReplicas(), connectionTimeout);
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.logistics_company.config;
+
+import com.example.logistics_company.services.EntityVersionService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource, който праща работата в @Transactional(readOnly = true) към репликите,
+ * а всичко останало (записи и код извън транзакция) – към основната база.
+ *
+ * Стои зад LazyConnectionDataSourceProxy (виж {@link ReplicaRoutingConfig}): JpaTransactionManager
+ * отбелязва транзакцията като readOnly едва след като е взел връзка, затова истинската връзка
+ * се избира при първата SQL заявка, когато флагът вече е известен.
+ *
+ * Реплика се използва само ако последната проверка на {@link ReplicaHealthCheck} е успешна и
+ * забавянето ѝ е до app.datasource.replica-max-lag; иначе четенето отива в основната база.
+ * Потребител, който току-що е записал нещо, чете от основната база за app.datasource.read-your-writes-window,
+ * за да вижда собствените си промени. Прозорецът е в паметта на инстанцията – при няколко инстанции
+ * зад load balancer-а е нужен sticky session, за да важи и за следващите заявки.
+ *
+ * Същото важи за всички потребители, когато HTTP заявката чете тип, променен в последните
+ * app.datasource.replica-max-lag + replica-check-interval (виж {@link EntityVersionService#readsRecentChanges}):
+ * ETag-ът на списъците вече е с новата версия, а query cache-ът и second-level cache-ът
+ * биха запомнили данните от репликата. Другите типове продължават да се четат от репликите.
+ *
+ * Броят връзки по посока е в метриката app.datasource.routed (target, reason).
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    // Потребители, записвали в последния прозорец; стойността няма значение
+    private final Cache<String, Boolean> recentWriters;
+    private final EntityVersionService versions;
+    // Колко след промяна на тип репликите може още да не я съдържат
+    private final Duration recentChangeWindow;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter writes;
+    private final Counter readYourWrites;
+    private final Counter recentChange;
+    private final Counter noReplica;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, Duration maxLag,
+                                    Duration readYourWritesWindow, EntityVersionService versions,
+                                    Duration recentChangeWindow, MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).build();
+        this.versions = versions;
+        this.recentChangeWindow = recentChangeWindow;
+        this.writes = routed(registry, "primary", "write");
+        this.readYourWrites = routed(registry, "primary", "read-your-writes");
+        this.recentChange = routed(registry, "primary", "recent-change");
+        this.noReplica = routed(registry, "primary", "no-replica");
+        for (Replica replica : this.replicas) {
+            replica.reads = routed(registry, replica.name, "read-only");
+            Gauge.builder("app.datasource.replica.lag", replica, r -> r.lag.toMillis() / 1000.0)
+                    .description("Забавяне на репликата спрямо основната база при последната проверка")
+                    .baseUnit("seconds").tag("replica", replica.name).register(registry);
+            Gauge.builder("app.datasource.replica.available", replica, r -> r.usable(maxLag) ? 1 : 0)
+                    .description("1, ако репликата получава заявки за четене")
+                    .tag("replica", replica.name).register(registry);
+        }
+    }
+
+    private static Counter routed(MeterRegistry registry, String target, String reason) {
+        return Counter.builder("app.datasource.routed")
+                .description("Взети JDBC връзки по база и причина за избора ѝ")
+                .tag("target", target).tag("reason", reason)
+                .register(registry);
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = route();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException ex) {
+            // репликата е паднала между две проверки – не чакаме следващата
+            replica.down();
+            log.warn("Replica {} is unavailable, reading from the primary: {}", replica.name, ex.getMessage());
+            noReplica.increment();
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Replica routing uses the configured credentials");
+    }
+
+    /**
+     * @return репликата за текущата транзакция или null за основната база
+     */
+    private Replica route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                wrote();
+            }
+            writes.increment();
+            return null;
+        }
+        String user = currentUser();
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            readYourWrites.increment();
+            return null;
+        }
+        if (versions.readsRecentChanges(recentChangeWindow)) {
+            recentChange.increment();
+            return null;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.usable(maxLag)) {
+                replica.reads.increment();
+                return replica;
+            }
+        }
+        noReplica.increment();
+        return null;
+    }
+
+    /**
+     * Отбелязва записа на текущия потребител сега и отново при края на транзакцията –
+     * прозорецът започва, когато промените вече са видими.
+     */
+    private void wrote() {
+        String user = currentUser();
+        if (user == null) {
+            return;
+        }
+        recentWriters.put(user, Boolean.TRUE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    recentWriters.put(user, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+
+    /**
+     * Реплика и състоянието ѝ от последната проверка. Докато не е проверена, не получава заявки.
+     */
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean available;
+        private volatile Duration lag = Duration.ZERO;
+        private Counter reads;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public boolean isAvailable() {
+            return available;
+        }
+
+        public Duration getLag() {
+            return lag;
+        }
+
+        public boolean usable(Duration maxLag) {
+            return available && lag.compareTo(maxLag) <= 0;
+        }
+
+        void up(Duration lag) {
+            this.lag = lag;
+            this.available = true;
+        }
+
+        void down() {
+            this.available = false;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.logistics_company.config;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Броячи на работата на Hibernate за текущата нишка: SQL заявки, заредени entity-та
+ * попадения/пропуски в second-level cache-а и JDBC batch-ове.
+ *
+ * Глобалните Statistics на Hibernate не казват коя крайна точка е направила заявките.
+ * Тук броенето е в ThreadLocal – {@link ControllerMetricsInterceptor} го нулира в началото
+ * на заявката и го записва като метрики за контролерния метод в края ѝ. Без Open Session
+ * In View сесиите живеят в нишката на заявката, така че броят е точен; работа в други
+ * нишки (напр. поточния експорт в applicationTaskExecutor) не се отчита към заявката.
+ *
+ * Слушателите се регистрират в Hibernate от {@link HibernateMetricsConfig}.
+ */
+public final class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = ThreadLocal.withInitial(RequestQueryStats::new);
+
+    long statements;
+    long entityLoads;
+    long cacheHits;
+    long cacheMisses;
+    long batches;
+    // Текстът на заявките – само ако е поискан при reset (за диагностика на превишен бюджет)
+    List<String> sql;
+
+    /**
+     * Нулира броячите на текущата нишка и ги връща.
+     * @param recordSql дали да се пази и текстът на всяка заявка
+     */
+    public static RequestQueryStats reset(boolean recordSql) {
+        RequestQueryStats stats = CURRENT.get();
+        stats.statements = 0;
+        stats.entityLoads = 0;
+        stats.cacheHits = 0;
+        stats.cacheMisses = 0;
+        stats.batches = 0;
+        stats.sql = recordSql ? new ArrayList<>() : null;
+        return stats;
+    }
+
+    /**
+     * @return броячите на текущата нишка от последното {@link #reset(boolean)}
+     */
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Добавя броячите на друга нишка или друг етап от същата заявка (напр. преди асинхронната обработка).
+     */
+    void add(RequestQueryStats other) {
+        statements += other.statements;
+        entityLoads += other.entityLoads;
+        cacheHits += other.cacheHits;
+        cacheMisses += other.cacheMisses;
+        batches += other.batches;
+        if (other.sql != null) {
+            if (sql == null) {
+                sql = new ArrayList<>();
+            }
+            sql.addAll(other.sql);
+        }
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * @return изпълнени JDBC batch-ове (INSERT/UPDATE на групи по hibernate.jdbc.batch_size)
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * @param budget бюджетът на метода, обработил заявката
+     * @return допустимият брой SQL заявки за тази заявка
+     */
+    public long allowed(QueryBudget budget) {
+        return budget.value() + (long) budget.perBatch() * batches;
+    }
+
+    /**
+     * @return изпълнените SQL заявки или празен списък, ако текстът не е записван
+     */
+    public List<String> getSql() {
+        return sql == null ? List.of() : sql;
+    }
+
+    /**
+     * Брои всяка SQL заявка, която Hibernate подготвя (hibernate.session_factory.statement_inspector).
+     */
+    static final class StatementCounter implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            RequestQueryStats stats = CURRENT.get();
+            stats.statements++;
+            if (stats.sql != null) {
+                stats.sql.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    /**
+     * Брои достъпите до second-level cache-а и изпълнените JDBC batch-ове
+     * (hibernate.session.events.auto – нов обект за всяка сесия).
+     */
+    public static final class SessionListener extends BaseSessionEventListener {
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            CURRENT.get().batches++;
+        }
+
+        @Override
+        public void cacheGetEnd(boolean hit) {
+            RequestQueryStats stats = CURRENT.get();
+            if (hit) {
+                stats.cacheHits++;
+            } else {
+                stats.cacheMisses++;
+            }
+        }
+    }
+
+    /**
+     * Брои заредените entity-та – от базата или от second-level cache-а.
+     */
+    static final class LoadCounter implements PostLoadEventListener, Integrator {
+
+        @Override
+        public void onPostLoad(PostLoadEvent event) {
+            CURRENT.get().entityLoads++;
+        }
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                              SessionFactoryImplementor sessionFactory) {
+            sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class)
+                    .appendListeners(EventType.POST_LOAD, this);
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
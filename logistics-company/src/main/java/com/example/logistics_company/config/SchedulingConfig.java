@@ -0,0 +1,13 @@
+package com.example.logistics_company.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включва изпълнението на методи с @Scheduled
+ * (напр. keep-alive към абонатите на потока с пратки).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
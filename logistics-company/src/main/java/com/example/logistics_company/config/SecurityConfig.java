@@ -1,15 +1,19 @@
 package com.example.logistics_company.config;
 
 import com.example.logistics_company.services.CustomUserDetailsService;
+import com.example.logistics_company.services.TokenService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 /**
  * Конфигурация на Spring Security за приложението.
@@ -20,9 +24,11 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
+    private final TokenService tokenService;
 
-    public SecurityConfig(CustomUserDetailsService uds) {
+    public SecurityConfig(CustomUserDetailsService uds, TokenService tokenService) {
         this.userDetailsService = uds;
+        this.tokenService = tokenService;
     }
 
     /**
@@ -54,17 +60,23 @@ public class SecurityConfig {
     /**
      * Дефинира SecurityFilterChain, който конфигурира:
      * - Забрана на CSRF (подходящо при stateless API)
-     * - Публични пътища (статични ресурси и регистрация на потребител)
+     * - Публични пътища (статични ресурси, регистрация, вход и обновяване на токен)
+     * - Публичен /actuator/health; /actuator/prometheus само за служители (Prometheus се аутентикира
+     *   с basic_auth или bearer токен на служебен акаунт), защото метриките издават обем и натоварване
      * - Задължителна аутентикация за всички /api/** endpoints
-     * - HTTP Basic аутентикация
+     * - Bearer токен аутентикация чрез {@link TokenAuthenticationFilter}
+     * - HTTP Basic аутентикация (за съвместимост със стари клиенти)
+     * - Stateless сесии – не се създава HttpSession
+     * - ASYNC dispatch на поточни отговори не се авторизира повторно (заявката вече е минала проверката)
      * - Използване на предварително конфигурирания DaoAuthenticationProvider
      *
      * Формата за вход/регистрация и цялата фронт-енд логика (HTML/CSS/JS)
      * се зареждат без нужда от предварителен логин
      *
-     * Аутентикацията се извършва по HTTP Basic, като за да валидираме
-     * потребителя и паролата, ползваме нашия DaoAuthenticationProvider
-     * (който на свой ред използва CustomUserDetailsService + BCryptPasswordEncoder)
+     * Паролата се проверява веднъж при /api/auth/login (чрез DaoAuthenticationProvider,
+     * който използва CustomUserDetailsService + BCryptPasswordEncoder), след което
+     * клиентът изпраща подписан токен, който се валидира без база и без BCrypt.
+     * HTTP Basic остава активен, но плаща BCrypt при всяка заявка.
      *
      * @param http HttpSecurity обект за конфигуриране на защитата
      * @return SecurityFilterChain бин, който Spring Security регистрира
@@ -74,14 +86,21 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
 
         http.csrf(cs -> cs.disable()).authorizeHttpRequests(auth -> auth
+                        // продължението на вече авторизирана поточна заявка (напр. /api/shipments/export)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/", "/index.html", "/favicon.ico",
                                 "/css/**", "/js/**",
-                                "/api/users/register"
+                                "/api/users/register",
+                                "/api/auth/login", "/api/auth/refresh"
                         ).permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        // метриките разкриват обем, натоварване и имена на методи – не са публични
+                        .requestMatchers("/actuator/prometheus").hasRole("EMPLOYEE")
                         .requestMatchers("/api/**").authenticated()
                 )
-
+                .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
                 .authenticationProvider(authenticationProvider())
                 .httpBasic(Customizer.withDefaults());
 
@@ -0,0 +1,88 @@
+package com.example.logistics_company.config;
+
+import com.example.logistics_company.models.AuthenticatedUser;
+import com.example.logistics_company.services.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Филтър, който аутентикира заявки с хедър {@code Authorization: Bearer <token>}.
+ * Токенът се проверява само по подпис и валидност чрез {@link TokenService},
+ * без заявка към базата и без BCrypt; principal-ът е {@link AuthenticatedUser}.
+ *
+ * Заявки без Bearer хедър минават нататък непроменени
+ * (например към HTTP Basic филтъра).
+ *
+ * Само за GET /api/shipments/stream токенът може да дойде и като параметър access_token,
+ * защото EventSource в браузъра не изпраща хедъри. Другаде параметърът се игнорира,
+ * за да не попадат токени в URL-и и логове без нужда.
+ *
+ * Изтичането на токена се записва в атрибута {@link #TOKEN_EXPIRES_AT} на заявката –
+ * дълги връзки като потока се затварят тогава, вместо да надживеят токена.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    /** Атрибут на заявката с {@link java.time.Instant} на изтичане на access токена. */
+    public static final String TOKEN_EXPIRES_AT = "com.example.logistics_company.config.TokenAuthenticationFilter.expiresAt";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String STREAM_PATH = "/api/shipments/stream";
+    private static final String TOKEN_PARAM = "access_token";
+
+    private final TokenService tokenService;
+
+    public TokenAuthenticationFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String token = bearerToken(request);
+        if (token == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<TokenService.Claims> claims = tokenService.verify(token, TokenService.ACCESS);
+        if (claims.isEmpty()) {
+            // Без WWW-Authenticate, за да не се показва Basic прозорец в браузъра
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
+            return;
+        }
+
+        // principal-ът се възстановява изцяло от токена – същият тип като при HTTP Basic
+        AuthenticatedUser user = claims.get().getUser();
+        UsernamePasswordAuthenticationToken authentication =
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        request.setAttribute(TOKEN_EXPIRES_AT, claims.get().getExpiresAt());
+        chain.doFilter(request, response);
+    }
+
+    private static String bearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            return header.substring(BEARER_PREFIX.length());
+        }
+        if (header == null && "GET".equals(request.getMethod())
+                && STREAM_PATH.equals(request.getRequestURI().substring(request.getContextPath().length()))) {
+            return request.getParameter(TOKEN_PARAM);
+        }
+        return null;
+    }
+}
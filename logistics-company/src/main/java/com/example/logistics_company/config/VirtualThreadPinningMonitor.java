@@ -0,0 +1,118 @@
+package com.example.logistics_company.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Наблюдава закачанията (pinning) на виртуални нишки чрез JFR събитието jdk.VirtualThreadPinned.
+ *
+ * Виртуална нишка, която блокира вътре в synchronized блок (напр. в JDBC драйвер или пул),
+ * не освобождава носещата си платформена нишка и на практика заема една от малкото носещи нишки.
+ * Всяко закачане над прага се брои по мястото в кода (първия кадър извън JDK) –
+ * първото за дадено място се логва със стека, следващите само на DEBUG.
+ *
+ * Активен е само при spring.threads.virtual.enabled=true и JDK 21+.
+ */
+@Component
+@ConditionalOnProperty(name = {"spring.threads.virtual.enabled", "app.threads.pinning-monitor.enabled"},
+        havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.threads.pinning-threshold:20ms}")
+    private Duration threshold;
+
+    private final Map<String, LongAdder> pinnedBySite = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    @PostConstruct
+    void start() {
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            log.warn("spring.threads.virtual.enabled=true is ignored on Java {} – virtual threads need Java 21+",
+                    Runtime.version().feature());
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+        log.info("Virtual threads enabled; reporting pinned carriers above {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * @return брой закачания над прага по място в кода (клас.метод), подредени по име
+     */
+    public Map<String, Long> getPinnedSites() {
+        Map<String, Long> sites = new TreeMap<>();
+        pinnedBySite.forEach((site, count) -> sites.put(site, count.sum()));
+        return sites;
+    }
+
+    /**
+     * @return общ брой закачания над прага от стартирането
+     */
+    public long getPinnedCount() {
+        return pinnedBySite.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private void record(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String site = frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(VirtualThreadPinningMonitor::frameName)
+                .filter(name -> !isJdkFrame(name))
+                .findFirst()
+                .orElse("unknown");
+
+        LongAdder count = pinnedBySite.computeIfAbsent(site, s -> new LongAdder());
+        count.increment();
+        if (count.sum() == 1) {
+            StringBuilder stack = new StringBuilder();
+            frames.stream().limit(LOGGED_FRAMES)
+                    .forEach(f -> stack.append("\n\tat ").append(frameName(f)).append(':').append(f.getLineNumber()));
+            log.warn("Virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(), site, stack);
+        } else {
+            log.debug("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+        }
+    }
+
+    private static String frameName(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    private static boolean isJdkFrame(String name) {
+        return name.startsWith("java.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+}
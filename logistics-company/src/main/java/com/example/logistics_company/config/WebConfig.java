@@ -0,0 +1,36 @@
+package com.example.logistics_company.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Конфигурация на Spring MVC слоя.
+ * Регистрира resolver-а, който подава текущия потребител на контролерите,
+ * interceptor-а за метриките на контролерните методи и отсеците (bulkheads).
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ControllerMetricsInterceptor metricsInterceptor;
+
+    @Autowired
+    private BulkheadInterceptor bulkheadInterceptor;
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentUserArgumentResolver());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(metricsInterceptor).addPathPatterns("/api/**");
+        // след метриките – отказаните заявки също се отчитат в app.controller.requests със статус 503
+        registry.addInterceptor(bulkheadInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -1,11 +1,21 @@
 // src/main/java/com/example/logistics_company/controllers/AuthController.java
 package com.example.logistics_company.controllers;
 
-import com.example.logistics_company.models.User;
-import com.example.logistics_company.services.UserService;
+import com.example.logistics_company.config.QueryBudget;
+import com.example.logistics_company.dto.TokenResponse;
+import com.example.logistics_company.models.AuthenticatedUser;
+import com.example.logistics_company.services.CustomUserDetailsService;
+import com.example.logistics_company.services.TokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Optional;
 
 /**
  * REST контролер за аутентикация и получаване на информация
@@ -16,32 +26,111 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
 
-    private final UserService userService;
-    public AuthController(UserService userService) {
-        this.userService = userService;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenService tokenService;
+    private final AuthenticationProvider authenticationProvider;
+
+    public AuthController(CustomUserDetailsService userDetailsService,
+                          TokenService tokenService,
+                          AuthenticationProvider authenticationProvider) {
+        this.userDetailsService = userDetailsService;
+        this.tokenService = tokenService;
+        this.authenticationProvider = authenticationProvider;
+    }
+
+    /**
+     * POST /api/auth/login
+     * Проверява username и парола (еднократно BCrypt) и връща подписани токени.
+     * Следващите заявки използват access токена и не стигат до базата за аутентикация.
+     * Данните се приемат само от тялото (application/x-www-form-urlencoded) – URL-ът
+     * попада в логовете на проксита и сървъри, затова username/password в query string-а
+     * се отказват с 400.
+     *
+     * @param username потребителско име
+     * @param password парола в ясен текст
+     * @param request  текущата заявка, за проверка на query string-а
+     * @return 200 OK + access и refresh токен; 400 при данни в URL-а; 401 при грешни данни
+     */
+    @QueryBudget(1)
+    @PostMapping("/login")
+    public ResponseEntity<TokenResponse> login(@RequestParam String username,
+                                               @RequestParam String password,
+                                               HttpServletRequest request) {
+        rejectInQueryString(request, "username", "password");
+        Authentication auth = authenticationProvider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(username, password));
+        return ResponseEntity.ok(issueTokens((AuthenticatedUser) auth.getPrincipal()));
+    }
+
+    /**
+     * POST /api/auth/refresh
+     * Издава нова двойка токени срещу валиден refresh токен.
+     * Проверява се, че потребителят все още съществува (principal-ът идва от кеша).
+     *
+     * Както при вход, токенът се приема само от тялото на заявката.
+     *
+     * @param refreshToken refresh токенът, получен при вход
+     * @param request      текущата заявка, за проверка на query string-а
+     * @return 200 OK + нови токени; 400 при токен в URL-а; 401 ако токенът е невалиден или изтекъл
+     */
+    @QueryBudget(1)
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenResponse> refresh(@RequestParam String refreshToken,
+                                                 HttpServletRequest request) {
+        rejectInQueryString(request, "refreshToken");
+        return tokenService.verify(refreshToken, TokenService.REFRESH)
+                .flatMap(claims -> {
+                    try {
+                        return Optional.of(userDetailsService.loadUserByUsername(claims.getUsername()));
+                    } catch (UsernameNotFoundException e) {
+                        return Optional.empty();
+                    }
+                })
+                .map(user -> ResponseEntity.ok(issueTokens(user)))
+                .orElse(ResponseEntity.status(401).build());
     }
 
     /**
      * Връща профила на текущо логнатия потребител.
-     * Използва Spring Security Authentication за извличане на username,
-     * след което зарежда User от базата и премахва паролата за сигурност.
+     * Данните идват директно от principal-а (id, username, userType, employeeId, clientId),
+     * без заявка към базата. Паролата не се сериализира.
      *
-     * @param auth Обект Authentication, предоставен от Spring Security,
-     *             съдържащ информация за текущата сесия.
-     * @return ResponseEntity<User> с данните на потребителя (без password) и статус 200,
+     * @param user текущият потребител, подаден от CurrentUserArgumentResolver
+     * @return ResponseEntity<AuthenticatedUser> с данните на потребителя и статус 200,
      *         или 401 Unauthorized, ако потребителят не е аутентикиран.
-     * @throws RuntimeException ако записът за username не бъде намерен в базата.
      */
+    @QueryBudget(0)
     @GetMapping("/me")
-    public ResponseEntity<User> me(Authentication auth) {
-        if (auth == null || !auth.isAuthenticated()) {
+    public ResponseEntity<AuthenticatedUser> me(AuthenticatedUser user) {
+        if (user == null) {
             return ResponseEntity.status(401).build();
         }
-        // вземаме username от SecurityContext-а
-        String username = auth.getName();
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setPassword(null);  // за сигурност
         return ResponseEntity.ok(user);
     }
-}
\ No newline at end of file
+
+    /**
+     * @RequestParam чете и от тялото, и от URL-а, затова тайните параметри се търсят
+     * изрично в query string-а.
+     *
+     * @throws IllegalArgumentException ако някой от параметрите е в URL-а
+     */
+    private static void rejectInQueryString(HttpServletRequest request, String... names) {
+        String query = request.getQueryString();
+        if (query == null) {
+            return;
+        }
+        var params = UriComponentsBuilder.newInstance().query(query).build().getQueryParams();
+        for (String name : names) {
+            if (params.containsKey(name)) {
+                throw new IllegalArgumentException("Credentials must be sent in the request body, not in the URL");
+            }
+        }
+    }
+
+    private TokenResponse issueTokens(AuthenticatedUser user) {
+        return new TokenResponse(
+                tokenService.issueAccessToken(user),
+                tokenService.issueRefreshToken(user),
+                tokenService.getAccessTtl().toSeconds());
+    }
+}
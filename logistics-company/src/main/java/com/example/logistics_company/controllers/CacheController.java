@@ -0,0 +1,40 @@
+package com.example.logistics_company.controllers;
+
+import com.example.logistics_company.config.QueryBudget;
+import com.example.logistics_company.dto.CacheStatsReport;
+import com.example.logistics_company.models.AuthenticatedUser;
+import com.example.logistics_company.services.ReferenceDataCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST контролер за наблюдение на second-level cache-а.
+ * Достъп само за служители.
+ */
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheController {
+
+    @Autowired
+    private ReferenceDataCacheService cacheService;
+
+    /**
+     * GET /api/admin/cache/stats
+     * Връща попаденията, пропуските и hit ratio на кеша по региони и за query cache-а.
+     *
+     * @param user текущият потребител
+     * @return статистика на кеша
+     * @throws AccessDeniedException ако потребителят не е служител
+     */
+    @QueryBudget(0)
+    @GetMapping("/stats")
+    public CacheStatsReport stats(AuthenticatedUser user) {
+        if (!user.isEmployee()) {
+            throw new AccessDeniedException("Only employees can view cache statistics.");
+        }
+        return cacheService.getStats();
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.logistics_company.controllers;
 
+import com.example.logistics_company.config.Bulkhead;
+import com.example.logistics_company.config.Compartment;
+import com.example.logistics_company.config.QueryBudget;
 import com.example.logistics_company.models.Client;
 import com.example.logistics_company.services.ClientService;
+import com.example.logistics_company.services.EntityVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * REST контролер за управление на ресурси "клиент".
@@ -14,32 +20,51 @@ import java.util.List;
  */
 
 @RestController
+@Bulkhead(Compartment.CRUD)
 @RequestMapping("/api/clients")
 public class ClientController {
 
     @Autowired
     private ClientService clientService;
 
+    @Autowired
+    private EntityVersionService versions;
+
     /**
      * GET /api/clients
      * Връща списък от всички клиенти.
+     * Отговаря с 304 Not Modified без заявка към базата, ако If-None-Match съвпада с ETag-а.
+     * @param request текущата заявка (за If-None-Match)
      * @return List<Client> - JSON масив с всички клиенти.
      */
+    @QueryBudget(1)
     @GetMapping
-    public List<Client> getAllClients() {
+    public List<Client> getAllClients(WebRequest request) {
+        if (request.checkNotModified(versions.etag(Client.class))) {
+            return null;
+        }
         return clientService.getAllClients();
     }
 
     /**
      * GET /api/clients/{id}
      * Връща един клиент по неговото ID.
+     * ETag-ът е версията на реда; при съвпадение с If-None-Match отговорът е 304 без тяло.
      * @param id - идентификатор на клиента от URL.
+     * @param request текущата заявка (за If-None-Match)
      * @return 200 OK + Client JSON, или 404 Not Found ако няма такъв.
      */
+    @QueryBudget(1)
     @GetMapping("/{id}")
-    public ResponseEntity<Client> getClientById(@PathVariable Long id) {
-        return clientService.getClientById(id).map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Client> getClientById(@PathVariable Long id, WebRequest request) {
+        Optional<Client> client = clientService.getClientById(id);
+        if (client.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(EntityVersionService.rowEtag(id, client.get().getVersion()))) {
+            return null;
+        }
+        return ResponseEntity.ok(client.get());
     }
 
     /**
@@ -48,6 +73,7 @@ public class ClientController {
      * @param client - обект клиент, прочетен от JSON тялото на заявката (@RequestBody).
      * @return Създаденият клиент с генерирано ID.
      */
+    @QueryBudget(1)
     @PostMapping
     public Client createClient(@RequestBody Client client) {
         return clientService.createClient(client);
@@ -60,6 +86,7 @@ public class ClientController {
      * @param updatedClient - нови данни на клиента от JSON.
      * @return 200 OK + обновен клиент, или 404 Not Found ако клиента не е намерен.
      */
+    @QueryBudget(3)
     @PutMapping("/{id}")
     public ResponseEntity<Client> updateClient(@PathVariable Long id, @RequestBody Client updatedClient) {
         Client client = clientService.updateClient(id, updatedClient);
@@ -73,6 +100,7 @@ public class ClientController {
      * @param id - ID на клиента за изтриване.
      * @return 204 No Content при успешно изтриване.
      */
+    @QueryBudget(2)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteClient(@PathVariable Long id) {
         clientService.deleteClient(id);
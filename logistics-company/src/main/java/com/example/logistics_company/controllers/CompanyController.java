@@ -1,11 +1,18 @@
 package com.example.logistics_company.controllers;
 
+import com.example.logistics_company.config.Bulkhead;
+import com.example.logistics_company.config.Compartment;
+import com.example.logistics_company.config.QueryBudget;
 import com.example.logistics_company.models.Company;
 import com.example.logistics_company.services.CompanyService;
+import com.example.logistics_company.services.EntityVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
 import java.util.List;
+import java.util.Optional;
 
 /**
  * REST контролер за управление на логистична компания.
@@ -13,31 +20,49 @@ import java.util.List;
  */
 
 @RestController
+@Bulkhead(Compartment.CRUD)
 @RequestMapping("/api/companies")
 public class CompanyController {
 
     @Autowired
     private CompanyService companyService;
 
+    @Autowired
+    private EntityVersionService versions;
+
     /**
      * GET /api/companies
      * Връща списък с всички компании.
+     * Отговаря с 304 Not Modified без заявка към базата, ако If-None-Match съвпада с ETag-а.
      */
+    @QueryBudget(1)
     @GetMapping
-    public List<Company> list() {
+    public List<Company> list(WebRequest request) {
+        if (request.checkNotModified(versions.etag(Company.class))) {
+            return null;
+        }
         return companyService.getAll();
     }
 
     /**
      * GET /api/companies/{id}
      * Връща конкретна компания по нейното ID.
-     * Ако компанията не съществува, отговаря с 404 Not Found.
+     * Ако компанията не съществува, отговаря с 404 Not Found;
+     * ако версията ѝ съвпада с If-None-Match – с 304 Not Modified.
      */
+    @QueryBudget(1)
     @GetMapping("/{id}")
-    public ResponseEntity<Company> get(@PathVariable Long id) {
-        return companyService.getById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Company> get(@PathVariable Long id, WebRequest request) {
+        // second-level cache-ът не бива да запомни ред от изоставаща реплика
+        versions.reading(Company.class);
+        Optional<Company> company = companyService.getById(id);
+        if (company.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(EntityVersionService.rowEtag(id, company.get().getVersion()))) {
+            return null;
+        }
+        return ResponseEntity.ok(company.get());
     }
 
     /**
@@ -45,6 +70,7 @@ public class CompanyController {
      * Създава нова компания с подаденото тяло (JSON представяне на Company).
      * Връща създадения обект.
      */
+    @QueryBudget(1)
     @PostMapping
     public Company create(@RequestBody Company c) {
         return companyService.create(c);
@@ -56,6 +82,7 @@ public class CompanyController {
      * Ако компанията съществува, връща 200 OK и обновения обект,
      * иначе връща 404 Not Found.
      */
+    @QueryBudget(2)
     @PutMapping("/{id}")
     public ResponseEntity<Company> update(@PathVariable Long id,
                                           @RequestBody Company updated) {
@@ -70,6 +97,7 @@ public class CompanyController {
      * Изтрива компания по нейното ID.
      * Връща 204 No Content при успешно изтриване.
      */
+    @QueryBudget(2)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         companyService.delete(id);
@@ -1,32 +1,49 @@
 package com.example.logistics_company.controllers;
 
+import com.example.logistics_company.config.Bulkhead;
+import com.example.logistics_company.config.Compartment;
+import com.example.logistics_company.config.QueryBudget;
 import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.models.Office;
 import com.example.logistics_company.services.EmployeeService;
+import com.example.logistics_company.services.EntityVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * REST контролер за управление на служители.
  * Предоставя CRUD операции за обекти от тип Employee.
  */
 @RestController
+@Bulkhead(Compartment.CRUD)
 @RequestMapping("/api/employees")
 public class EmployeeController {
 
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private EntityVersionService versions;
+
     /**
      * GET /api/employees
-     * Връща списък с всички служители.
+     * Връща списък с всички служители (заедно с офисите им).
+     * Отговаря с 304 Not Modified без заявка към базата, ако If-None-Match съвпада с ETag-а.
      *
+     * @param request текущата заявка (за If-None-Match)
      * @return List<Employee> – колекция от всички служители.
      */
+    @QueryBudget(1)
     @GetMapping
-    public List<Employee> getAllEmployees() {
+    public List<Employee> getAllEmployees(WebRequest request) {
+        if (request.checkNotModified(versions.etag(Employee.class, Office.class))) {
+            return null;
+        }
         return employeeService.getAllEmployees();
     }
 
@@ -34,13 +51,29 @@ public class EmployeeController {
      * GET /api/employees/{id}
      * Връща подробности за конкретен служител по неговото ID.
      *
-     * @param id – уникалният идентификатор на служителя.
+     * ETag-ът е версията на служителя и на офиса му; при съвпадение с If-None-Match
+     * отговорът е 304 без тяло.
+     *
+     * @param id      – уникалният идентификатор на служителя.
+     * @param request текущата заявка (за If-None-Match)
      * @return 200 OK с обект Employee, ако съществува; 404 Not Found, ако не.
      */
+    @QueryBudget(1)
     @GetMapping("/{id}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable Long id) {
-        return employeeService.getEmployeeById(id).map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Employee> getEmployeeById(@PathVariable Long id, WebRequest request) {
+        // second-level cache-ът не бива да запомни ред от изоставаща реплика
+        versions.reading(Employee.class, Office.class);
+        Optional<Employee> employee = employeeService.getEmployeeById(id);
+        if (employee.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Office office = employee.get().getOffice();
+        String etag = EntityVersionService.rowEtag(id, employee.get().getVersion(),
+                office == null ? null : office.getVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok(employee.get());
     }
 
     /**
@@ -50,6 +83,7 @@ public class EmployeeController {
      * @param employee – обектът Employee, предаден в тялото на заявката (JSON).
      * @return създаденият Employee с генерирано ID.
      */
+    @QueryBudget(1)
     @PostMapping
     public Employee createEmployee(@RequestBody Employee employee) {
         return employeeService.createEmployee(employee);
@@ -63,6 +97,7 @@ public class EmployeeController {
      * @param updatedEmployee  – новите данни за служителя (JSON).
      * @return 200 OK + обновения Employee, ако е намерен; 404 Not Found, ако не.
      */
+    @QueryBudget(2)
     @PutMapping("/{id}")
     public ResponseEntity<Employee> updateEmployee(@PathVariable Long id, @RequestBody Employee updatedEmployee) {
         Employee employee = employeeService.updateEmployee(id, updatedEmployee);
@@ -77,6 +112,7 @@ public class EmployeeController {
      * @param id – ID на служителя, който ще се изтрие.
      * @return 204 No Content при успешно изтриване.
      */
+    @QueryBudget(2)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteEmployee(@PathVariable Long id) {
         employeeService.deleteEmployee(id);
@@ -0,0 +1,66 @@
+package com.example.logistics_company.controllers;
+
+import com.example.logistics_company.config.Bulkhead;
+import com.example.logistics_company.config.Compartment;
+import com.example.logistics_company.config.QueryBudget;
+import com.example.logistics_company.dto.ImportReport;
+import com.example.logistics_company.models.AuthenticatedUser;
+import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.services.CsvImportService;
+import com.example.logistics_company.services.EmployeeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * REST контролер за масов импорт на данни от CSV файлове.
+ * Достъп само за служители.
+ */
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    @Autowired
+    private CsvImportService importService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    /**
+     * POST /api/import/{type}
+     * Импортира CSV файл (multipart поле "file", UTF-8, първият ред е заглавен).
+     * Колони:
+     *   clients   – name, email, phoneNumber
+     *   offices   – address, city
+     *   shipments – senderEmail, receiverEmail, deliveryAddress, weight
+     *               и по избор toOffice, status, registrationDate, deliveryDate, employeeId, price
+     * Невалидните редове се отчитат в отговора, без да спират импорта.
+     * Импортите делят с поточния експорт отсека BULK; над лимита отговорът е 503 с Retry-After.
+     *
+     * @param type clients, offices или shipments
+     * @param file CSV файлът
+     * @param user Текущият потребител (principal-ът от SecurityContext-а)
+     * @return ImportReport – записани и отхвърлени редове и скорост (редове/сек.); 400 при невалиден файл
+     * @throws AccessDeniedException ако текущият потребител не е служител
+     */
+    @QueryBudget(value = 3, perBatch = 1)
+    @Bulkhead(Compartment.BULK)
+    @PostMapping("/{type}")
+    public ImportReport importCsv(@PathVariable String type,
+                                  @RequestParam("file") MultipartFile file,
+                                  AuthenticatedUser user) throws IOException {
+        if (!user.isEmployee() || user.getEmployeeId() == null) {
+            throw new AccessDeniedException("Only employees can import data.");
+        }
+        CsvImportService.Type importType = CsvImportService.Type.parse(type);
+        Employee employee = employeeService.getEmployeeById(user.getEmployeeId())
+                .orElseThrow(() -> new RuntimeException("Employee not found"));
+        try (InputStream in = file.getInputStream()) {
+            return importService.importCsv(importType, in, employee);
+        }
+    }
+}
@@ -1,32 +1,48 @@
 package com.example.logistics_company.controllers;
 
+import com.example.logistics_company.config.Bulkhead;
+import com.example.logistics_company.config.Compartment;
+import com.example.logistics_company.config.QueryBudget;
 import com.example.logistics_company.models.Office;
+import com.example.logistics_company.services.EntityVersionService;
 import com.example.logistics_company.services.OfficeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * REST контролер за управление на офиси.
  * Предоставя CRUD операции за обекти от тип Office.
  */
 @RestController
+@Bulkhead(Compartment.CRUD)
 @RequestMapping("/api/offices")
 public class OfficeController {
 
     @Autowired
     private OfficeService officeService;
 
+    @Autowired
+    private EntityVersionService versions;
+
     /**
      * GET /api/offices
      * Връща списък с всички офиси.
+     * Отговаря с 304 Not Modified без заявка към базата, ако If-None-Match съвпада с ETag-а.
      *
+     * @param request текущата заявка (за If-None-Match)
      * @return List<Office> – колекция от всички офиси.
      */
+    @QueryBudget(1)
     @GetMapping
-    public List<Office> getAllOffices() {
+    public List<Office> getAllOffices(WebRequest request) {
+        if (request.checkNotModified(versions.etag(Office.class))) {
+            return null;
+        }
         return officeService.getAllOffices();
     }
 
@@ -34,14 +50,25 @@ public class OfficeController {
      * GET /api/offices/{id}
      * Връща подробности за конкретен офис по неговото ID.
      *
-     * @param id – уникалният идентификатор на офиса.
+     * ETag-ът е версията на реда; при съвпадение с If-None-Match отговорът е 304 без тяло.
+     *
+     * @param id      – уникалният идентификатор на офиса.
+     * @param request текущата заявка (за If-None-Match)
      * @return 200 OK с обект Office, ако съществува; 404 Not Found, ако не.
      */
+    @QueryBudget(1)
     @GetMapping("/{id}")
-    public ResponseEntity<Office> getOfficeById(@PathVariable Long id) {
-        return officeService.getOfficeById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Office> getOfficeById(@PathVariable Long id, WebRequest request) {
+        // second-level cache-ът не бива да запомни ред от изоставаща реплика
+        versions.reading(Office.class);
+        Optional<Office> office = officeService.getOfficeById(id);
+        if (office.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(EntityVersionService.rowEtag(id, office.get().getVersion()))) {
+            return null;
+        }
+        return ResponseEntity.ok(office.get());
     }
 
     /**
@@ -51,6 +78,7 @@ public class OfficeController {
      * @param office – обектът Office, предаден в тялото на заявката (JSON).
      * @return създаденият Office с генерирано ID.
      */
+    @QueryBudget(1)
     @PostMapping
     public Office createOffice(@RequestBody Office office) {
         return officeService.createOffice(office);
@@ -64,6 +92,7 @@ public class OfficeController {
      * @param updatedOffice  – новите данни за офиса (JSON).
      * @return 200 OK + обновения Office, ако е намерен; 404 Not Found, ако не.
      */
+    @QueryBudget(2)
     @PutMapping("/{id}")
     public ResponseEntity<Office> updateOffice(@PathVariable Long id, @RequestBody Office updatedOffice) {
         Office office = officeService.updateOffice(id, updatedOffice);
@@ -78,6 +107,7 @@ public class OfficeController {
      * @param id – ID на офиса, който ще се изтрие.
      * @return 204 No Content при успешно изтриване.
      */
+    @QueryBudget(2)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteOffice(@PathVariable Long id) {
         officeService.deleteOffice(id);
@@ -0,0 +1,47 @@
+package com.example.logistics_company.controllers;
+
+import com.example.logistics_company.config.Bulkhead;
+import com.example.logistics_company.config.Compartment;
+import com.example.logistics_company.config.QueryBudget;
+import com.example.logistics_company.dto.Quote;
+import com.example.logistics_company.services.TariffService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/**
+ * REST контролер за оферти по тарифата.
+ * Достъп за всеки влязъл потребител; не използва базата.
+ */
+@RestController
+@Bulkhead(Compartment.TRACKING)
+@RequestMapping("/api/quote")
+public class QuoteController {
+
+    @Autowired
+    private TariffService tariffService;
+
+    /**
+     * GET /api/quote?weight=2.5&toOffice=true&city=София&date=2025-01-31
+     * Изчислява цената на пратка, без да я регистрира.
+     *
+     * @param weight   тегло в кг
+     * @param toOffice true при доставка до офис (по подразбиране false)
+     * @param city     градът на офиса (Office.city) – за градската добавка; по избор
+     * @param date     денят, за който се търси тарифата (по подразбиране днес)
+     * @return Quote – цена и версия на тарифата; 400 при невалидно тегло или ден без тарифа
+     */
+    @QueryBudget(0)
+    @GetMapping
+    public Quote quote(@RequestParam double weight,
+                       @RequestParam(defaultValue = "false") boolean toOffice,
+                       @RequestParam(required = false) String city,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return tariffService.quote(weight, toOffice, city, date == null ? LocalDate.now() : date);
+    }
+}
@@ -1,17 +1,33 @@
 package com.example.logistics_company.controllers;
 
+import com.example.logistics_company.config.Bulkhead;
+import com.example.logistics_company.config.Compartment;
+import com.example.logistics_company.config.QueryBudget;
+import com.example.logistics_company.config.TokenAuthenticationFilter;
+import com.example.logistics_company.dto.BatchRegistrationResponse;
+import com.example.logistics_company.dto.BulkDeliveryResponse;
+import com.example.logistics_company.dto.CursorPage;
+import com.example.logistics_company.dto.ShipmentRegistrationRequest;
 import com.example.logistics_company.models.*;
 import com.example.logistics_company.services.EmployeeService;
+import com.example.logistics_company.services.EntityVersionService;
+import com.example.logistics_company.services.ShipmentExportService;
 import com.example.logistics_company.services.ShipmentService;
-import com.example.logistics_company.services.UserService;
+import com.example.logistics_company.services.ShipmentStreamService;
+import com.example.logistics_company.services.ShipmentTrackingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,6 +35,18 @@ import java.util.List;
 /**
  * REST контролер за управление на пратки (Shipment).
  * Предоставя крайни точки за създаване, четене, актуализация, изтриване и специализирани справки за пратки.
+ *
+ * Всички списъци с пратки са пагинирани по курсор: параметър limit задава размера
+ * на страницата (с твърд горен лимит на сървъра), а nextCursor от отговора се подава
+ * като параметър cursor за следващата страница.
+ *
+ * Списъците и отделната пратка връщат ETag; при съвпадение с If-None-Match
+ * отговорът е 304 Not Modified без тяло (списъците – и без заявка към базата).
+ *
+ * Старите доставени пратки се преместват в архива (ShipmentArchiveJob). Архивирана пратка
+ * се връща от GET /{id} и от списъците на клиент (/client/{id}/sent и /received), но е само за
+ * четене – PUT и DELETE връщат 409 Conflict. /all, /status/{status}, /employee/{id},
+ * /not-delivered и експортът обхващат само активните пратки.
  */
 
 @RestController
@@ -32,42 +60,154 @@ public class ShipmentController {
     private EmployeeService employeeService;
 
     @Autowired
-    private UserService userService;
+    private ShipmentExportService exportService;
+
+    @Autowired
+    private EntityVersionService versions;
+
+    @Autowired
+    private ShipmentStreamService streamService;
+
+    @Autowired
+    private ShipmentTrackingService trackingService;
 
 
 
     /**
      * Връща всички пратки. Достъп само за служители.
      *
-     * @param authentication Обект за текущата сесия, съдържа username
-     * @return List<Shipment> – списък с всички пратки
+     * @param user   Текущият потребител (principal-ът от SecurityContext-а)
+     * @param cursor Курсор от предишната страница (по избор)
+     * @param limit  Брой пратки в страницата (по избор)
+     * @param request Текущата заявка (за If-None-Match)
+     * @return CursorPage<Shipment> – страница с пратки и курсор за следващата
      * @throws AccessDeniedException ако текущият потребител не е служител
      */
+    @QueryBudget(2)
+    @Bulkhead(Compartment.REPORTING)
     @GetMapping("/all")
-    public List<Shipment> getAllShipments(Authentication authentication) {
-        // Вземаме username от security context
-        String username = authentication.getName();
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (user.getUserType() != UserType.EMPLOYEE) {
+    public CursorPage<Shipment> getAllShipments(AuthenticatedUser user,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer limit,
+                                                WebRequest request) {
+        if (!user.isEmployee()) {
             throw new AccessDeniedException("Only employees can view all shipments.");
         }
-        return shipmentService.getAllShipments();
+        if (notModified(request)) {
+            return null;
+        }
+        return shipmentService.getAllShipments(cursor, limit);
+    }
+
+    /**
+     * Експортира пратки като NDJSON (по един JSON обект на ред) или CSV.
+     * Редовете се четат от базата и се пишат в отговора като поток, без да се
+     * събират в паметта – подходящо за справки върху цялата таблица. Достъп само за служители.
+     * Потокът държи връзка към базата до края си, затова експортите и импортите делят малкия
+     * отсек BULK; над лимита отговорът е 503 с Retry-After.
+     *
+     * @param user   Текущият потребител (principal-ът от SecurityContext-а)
+     * @param format ndjson (по подразбиране) или csv
+     * @param status Статус на пратките (по избор)
+     * @param from   Най-ранна дата на регистрация, ISO формат (по избор)
+     * @param to     Най-късна дата на регистрация, ISO формат (по избор)
+     * @return поточен отговор с Content-Disposition: attachment
+     * @throws AccessDeniedException ако текущият потребител не е служител
+     */
+    @QueryBudget(0)
+    @Bulkhead(Compartment.BULK)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            AuthenticatedUser user,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) ShipmentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        if (!user.isEmployee()) {
+            throw new AccessDeniedException("Only employees can export shipments.");
+        }
+        ShipmentExportService.Format exportFormat = ShipmentExportService.Format.parse(format);
+        StreamingResponseBody body = out -> exportService.export(exportFormat, status, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"shipments." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    /**
+     * Поток от Server-Sent Events с промените по пратки след commit: събитие shipment
+     * при регистрация, доставка или редакция и resync, когато клиентът трябва да презареди
+     * списъка си (пакетна операция или изпуснати събития). Служителите получават всички пратки,
+     * клиентите – само тези, на които са подател или получател.
+     *
+     * EventSource в браузъра не може да подаде хедър, затова тук токенът се приема
+     * и като параметър access_token (виж TokenAuthenticationFilter). Потокът се затваря,
+     * когато токенът изтече; EventSource се свързва отново и трябва да подаде нов токен.
+     *
+     * @param user Текущият потребител (principal-ът от SecurityContext-а)
+     * @param tokenExpiresAt изтичането на access токена; null при HTTP Basic
+     * @return отворен SSE поток или 503 Service Unavailable при достигнат лимит на абонатите
+     * @throws AccessDeniedException ако клиентски потребител не е свързан с клиент
+     */
+    @QueryBudget(0)
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(AuthenticatedUser user,
+                                             @RequestAttribute(name = TokenAuthenticationFilter.TOKEN_EXPIRES_AT,
+                                                     required = false) Instant tokenExpiresAt) {
+        if (!user.isEmployee() && user.getClientId() == null) {
+            throw new AccessDeniedException("User is not linked to a client.");
+        }
+        SseEmitter emitter = streamService.subscribe(user, tokenExpiresAt);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+        return ResponseEntity.ok()
+                // без буфериране в nginx и подобни прокси сървъри
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
     }
 
     /**
      * Връща конкретна пратка по нейното ID.
      *
-     * @param id Идентификатор на пратката
-     * @return ResponseEntity<Shipment> – пратката (200 OK) или 404 Not Found
+     * @param id      Идентификатор на пратката
+     * @param request Текущата заявка (за If-None-Match)
+     * @return ResponseEntity<Shipment> – пратката (200 OK), 304 Not Modified или 404 Not Found
      */
+    // пратка + служител + офис; за архивирана – още едно търсене в архива
+    @QueryBudget(4)
+    @Bulkhead(Compartment.TRACKING)
     @GetMapping("/{id}")
-    public ResponseEntity<Shipment> getShipmentById(@PathVariable Long id) {
+    public ResponseEntity<Shipment> getShipmentById(@PathVariable Long id, WebRequest request) {
         Shipment shipment = shipmentService.getShipmentById(id);
-
-        return shipment != null ? ResponseEntity.ok(shipment) : ResponseEntity.notFound().build();
+        if (shipment == null) {
+            return ResponseEntity.notFound().build();
         }
+        if (request.checkNotModified(rowEtag(shipment))) {
+            return null;
+        }
+        return ResponseEntity.ok(shipment);
+    }
+
+    /**
+     * Връща историята на пратка – всички преходи между състояния с момент, служител и офис.
+     * Чете само таблицата shipment_events, без реда на пратката.
+     *
+     * @param id Идентификатор на пратката
+     * @return ResponseEntity<List<ShipmentTrackingEvent>> – събитията в хронологичен ред (200 OK)
+     *         или 404 Not Found, ако пратката няма история
+     */
+    @QueryBudget(1)
+    @Bulkhead(Compartment.TRACKING)
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<List<ShipmentTrackingEvent>> getTimeline(@PathVariable Long id) {
+        List<ShipmentTrackingEvent> timeline = trackingService.getTimeline(id);
+        return timeline.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(timeline);
+    }
 
     /**
      * Създава нова пратка и я регистрира автоматично със статус SHIPPED.
@@ -75,6 +215,8 @@ public class ShipmentController {
      * @param shipment Обект Shipment с данни за новата пратка
      * @return Shipment – регистрираната пратка с попълнени status и registrationDate
      */
+    @QueryBudget(5)
+    @Bulkhead(Compartment.CRUD)
     @PostMapping
     public Shipment createShipment(@RequestBody Shipment shipment) {
         return shipmentService.registerShipment(shipment);
@@ -85,24 +227,35 @@ public class ShipmentController {
      *
      * @param id               Идентификатор на пратката, която ще се актуализира
      * @param updatedShipment  Обект Shipment с новите стойности
-     * @return ResponseEntity<Shipment> – актуализираната пратка (200 OK) или 404 Not Found
+     * @return ResponseEntity<Shipment> – актуализираната пратка (200 OK), 409 Conflict за архивирана
+     *         пратка или 404 Not Found
      */
+    @QueryBudget(4)
+    @Bulkhead(Compartment.CRUD)
     @PutMapping("/{id}")
     public ResponseEntity<Shipment> updateShipment(@PathVariable Long id, @RequestBody Shipment updatedShipment) {
         Shipment shipment = shipmentService.updateShipment(id, updatedShipment);
-
-        return shipment != null ? ResponseEntity.ok(shipment) : ResponseEntity.notFound().build();
+        if (shipment != null) {
+            return ResponseEntity.ok(shipment);
+        }
+        return shipmentService.isArchived(id)
+                ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                : ResponseEntity.notFound().build();
     }
 
     /**
      * Изтрива пратка по ID.
      *
      * @param id Идентификатор на пратката, която ще се изтрие
-     * @return ResponseEntity<Void> – 204 No Content при успешно изтриване
+     * @return ResponseEntity<Void> – 204 No Content при успешно изтриване, 409 Conflict за архивирана пратка
      */
+    @QueryBudget(4)
+    @Bulkhead(Compartment.CRUD)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteShipment(@PathVariable Long id) {
-        shipmentService.deleteShipment(id);
+        if (!shipmentService.deleteShipment(id) && shipmentService.isArchived(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         return ResponseEntity.noContent().build();
     }
 
@@ -110,21 +263,42 @@ public class ShipmentController {
      * Връща списък с пратки под даден статус.
      *
      * @param status Статус на пратките (например SHIPPED, DELIVERED)
-     * @return List<Shipment> – пратки с този статус
+     * @param cursor Курсор от предишната страница (по избор)
+     * @param limit  Брой пратки в страницата (по избор)
+     * @param request Текущата заявка (за If-None-Match)
+     * @return CursorPage<Shipment> – страница с пратки с този статус
      */
+    @QueryBudget(2)
+    @Bulkhead(Compartment.REPORTING)
     @GetMapping("/status/{status}")
-    public List<Shipment> getShipmentsByStatus(@PathVariable ShipmentStatus status) {
-        return shipmentService.getShipmentsByStatus(status);
+    public CursorPage<Shipment> getShipmentsByStatus(@PathVariable ShipmentStatus status,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        return shipmentService.getShipmentsByStatus(status, cursor, limit);
     }
 
     /**
-     * Връща всички пратки, които все още не са доставени.
+     * Връща пратките, които все още не са доставени (без върнатите – RETURNED е краен статус).
      *
-     * @return List<Shipment> – недоставени пратки
+     * @param cursor Курсор от предишната страница (по избор)
+     * @param limit  Брой пратки в страницата (по избор)
+     * @param request Текущата заявка (за If-None-Match)
+     * @return CursorPage<Shipment> – страница с недоставени пратки
      */
+    @QueryBudget(2)
+    @Bulkhead(Compartment.REPORTING)
     @GetMapping("/not-delivered")
-    public List<Shipment> getNotDeliveredShipments() {
-        return shipmentService.getNotDeliveredShipments();
+    public CursorPage<Shipment> getNotDeliveredShipments(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        return shipmentService.getNotDeliveredShipments(cursor, limit);
     }
 
     /**
@@ -134,6 +308,8 @@ public class ShipmentController {
      * @param endDate   Крайна дата (ISO формат YYYY-MM-DD)
      * @return ResponseEntity<Double> – сумарни приходи за периода (200 OK)
      */
+    @QueryBudget(1)
+    @Bulkhead(Compartment.REPORTING)
     @GetMapping("/revenue")
     public ResponseEntity<Double> getTotalRevenue(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -146,27 +322,26 @@ public class ShipmentController {
     /**
      * Регистрира пратка от служител – задава registeredBy и status SHIPPED.
      *
-     * @param shipment       Обект Shipment с данни за пратката
-     * @param authentication Обект за текуща сесия, съдържа username
+     * @param shipment Обект Shipment с данни за пратката
+     * @param user     Текущият потребител (principal-ът от SecurityContext-а)
      * @return ResponseEntity<Shipment> – регистрираната пратка (200 OK)
      * @throws AccessDeniedException ако текущият потребител не е служител
      */
+    @QueryBudget(5)
+    @Bulkhead(Compartment.CRUD)
     @PostMapping("/register")
     public ResponseEntity<Shipment> registerShipment(
             @RequestBody Shipment shipment,
-            Authentication authentication
+            AuthenticatedUser user
     ) {
-        String username = authentication.getName();
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
         // Проверка, че е служител
-        if (user.getUserType() != UserType.EMPLOYEE || user.getEmployee() == null) {
+        if (!user.isEmployee() || user.getEmployeeId() == null) {
             throw new AccessDeniedException("Only employees can register shipments.");
         }
 
-        // Вземаме Employee обекта от User
-        Employee employee = user.getEmployee();
+        // Зареждаме само Employee по ID от principal-а (без повторно четене на User)
+        Employee employee = employeeService.getEmployeeById(user.getEmployeeId())
+                .orElseThrow(() -> new RuntimeException("Employee not found"));
         shipment.setRegisteredBy(employee);
 
         // Извикваме сервиса, който сетва status и registrationDate
@@ -176,58 +351,176 @@ public class ShipmentController {
     }
 
 
+    /**
+     * Регистрира пакет от пратки от името на текущия служител (напр. една вълна в сортировъчен център).
+     * Невалидните елементи се отхвърлят поотделно, без да спират останалите.
+     *
+     * @param items Списък с пратки (senderId, receiverId, deliveryAddress, weight, toOffice)
+     * @param user  Текущият потребител (principal-ът от SecurityContext-а)
+     * @return BatchRegistrationResponse – резултат за всеки елемент (200 OK); 400 при твърде голям пакет
+     * @throws AccessDeniedException ако текущият потребител не е служител
+     */
+    @QueryBudget(value = 3, perBatch = 1)
+    @Bulkhead(Compartment.CRUD)
+    @PostMapping("/register/batch")
+    public BatchRegistrationResponse registerShipments(
+            @RequestBody List<ShipmentRegistrationRequest> items,
+            AuthenticatedUser user
+    ) {
+        if (!user.isEmployee() || user.getEmployeeId() == null) {
+            throw new AccessDeniedException("Only employees can register shipments.");
+        }
+        Employee employee = employeeService.getEmployeeById(user.getEmployeeId())
+                .orElseThrow(() -> new RuntimeException("Employee not found"));
+        return shipmentService.registerShipments(items, employee);
+    }
+
     /**
      * Маркира пратка като доставена – задава status DELIVERED и deliveryDate.
      *
      * @param id   Идентификатор на пратката
-     * @param auth Обект за текуща сесия, съдържа username
-     * @return Shipment – обновената пратка със status DELIVERED
+     * @param user Текущият потребител (principal-ът от SecurityContext-а)
+     * @return Shipment – обновената пратка със status DELIVERED; 400 Bad Request, ако вече е доставена или върната
      * @throws AccessDeniedException ако текущият потребител не е служител
      */
+    @QueryBudget(7)
+    @Bulkhead(Compartment.CRUD)
     @PutMapping("/{id}/deliver")
-    public Shipment deliver(@PathVariable Long id, Authentication auth) {
-        String username = auth.getName();
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        if (user.getUserType() != UserType.EMPLOYEE) {
+    public Shipment deliver(@PathVariable Long id, AuthenticatedUser user) {
+        if (!user.isEmployee()) {
             throw new AccessDeniedException("Only employees can deliver shipments.");
         }
         return shipmentService.deliverShipment(id);
     }
 
+    /**
+     * Премества пратка в следващо състояние (IN_TRANSIT, AT_OFFICE, OUT_FOR_DELIVERY, DELIVERED, RETURNED).
+     * Разрешените преходи са описани в ShipmentStatus; всеки преход се добавя в историята на пратката.
+     *
+     * @param id     Идентификатор на пратката
+     * @param status Новото състояние
+     * @param user   Текущият потребител (principal-ът от SecurityContext-а)
+     * @return Shipment – обновената пратка; 400 Bad Request, ако преходът не е разрешен
+     * @throws AccessDeniedException ако текущият потребител не е служител
+     */
+    @QueryBudget(7)
+    @Bulkhead(Compartment.CRUD)
+    @PutMapping("/{id}/status")
+    public Shipment changeStatus(@PathVariable Long id, @RequestParam ShipmentStatus status, AuthenticatedUser user) {
+        if (!user.isEmployee()) {
+            throw new AccessDeniedException("Only employees can change the status of shipments.");
+        }
+        return shipmentService.changeStatus(id, status);
+    }
+
+    /**
+     * Потвърждава доставката на много пратки наведнъж (напр. в края на куриерски маршрут).
+     *
+     * @param ids  Списък с ID-та на пратки
+     * @param user Текущият потребител (principal-ът от SecurityContext-а)
+     * @return BulkDeliveryResponse – доставени сега, вече доставени и несъществуващи ID-та (200 OK);
+     *         409 Conflict, ако някоя пратка е променена паралелно (заявката може да се повтори)
+     * @throws AccessDeniedException ако текущият потребител не е служител
+     */
+    @QueryBudget(value = 3, perBatch = 1)
+    @Bulkhead(Compartment.CRUD)
+    @PostMapping("/deliver/batch")
+    public BulkDeliveryResponse deliverShipments(@RequestBody List<Long> ids, AuthenticatedUser user) {
+        if (!user.isEmployee()) {
+            throw new AccessDeniedException("Only employees can deliver shipments.");
+        }
+        return shipmentService.deliverShipments(ids);
+    }
+
     /**
      * Връща пратки, регистрирани от даден служител.
      *
      * @param employeeId Идентификатор на служителя
-     * @return List<Shipment> – пратки, които е регистрирал служителят
+     * @param cursor     Курсор от предишната страница (по избор)
+     * @param limit      Брой пратки в страницата (по избор)
+     * @param request    Текущата заявка (за If-None-Match)
+     * @return CursorPage<Shipment> – пратки, които е регистрирал служителят
      */
+    @QueryBudget(2)
+    @Bulkhead(Compartment.REPORTING)
     @GetMapping("/employee/{employeeId}")
-    public List<Shipment> getShipmentsRegisteredByEmployee(@PathVariable Long employeeId) {
-        return shipmentService.getShipmentsRegisteredByEmployee(employeeId);
+    public CursorPage<Shipment> getShipmentsRegisteredByEmployee(@PathVariable Long employeeId,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        return shipmentService.getShipmentsRegisteredByEmployee(employeeId, cursor, limit);
     }
 
     /**
-     * Връща пратки, изпратени от даден клиент.
+     * Връща пратки, изпратени от даден клиент, включително архивираните
+     * (архивът се чете само ако страницата стига до архивираните дати).
      *
      * @param clientId Идентификатор на клиента
-     * @return ResponseEntity<List<Shipment>> – списък с изпратени пратки от клиента (200 OK)
+     * @param cursor   Курсор от предишната страница (по избор)
+     * @param limit    Брой пратки в страницата (по избор)
+     * @param request  Текущата заявка (за If-None-Match)
+     * @return ResponseEntity<CursorPage<Shipment>> – страница с изпратени пратки от клиента (200 OK)
      */
+    @QueryBudget(3)
+    @Bulkhead(Compartment.TRACKING)
     @GetMapping("/client/{clientId}/sent")
-    public ResponseEntity<List<Shipment>> getShipmentsSentByClient(@PathVariable Long clientId) {
-        List<Shipment> shipments = shipmentService.getShipmentsSentByClient(clientId);
+    public ResponseEntity<CursorPage<Shipment>> getShipmentsSentByClient(
+            @PathVariable Long clientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        CursorPage<Shipment> shipments = shipmentService.getShipmentsSentByClient(clientId, cursor, limit);
         return ResponseEntity.ok(shipments);
     }
 
     /**
-     * Връща пратки, получени от даден клиент.
+     * Връща пратки, получени от даден клиент, включително архивираните
+     * (архивът се чете само ако страницата стига до архивираните дати).
      *
      * @param clientId Идентификатор на клиента
-     * @return ResponseEntity<List<Shipment>> – списък с получени пратки за клиента (200 OK)
+     * @param cursor   Курсор от предишната страница (по избор)
+     * @param limit    Брой пратки в страницата (по избор)
+     * @param request  Текущата заявка (за If-None-Match)
+     * @return ResponseEntity<CursorPage<Shipment>> – страница с получени пратки за клиента (200 OK)
      */
+    @QueryBudget(3)
+    @Bulkhead(Compartment.TRACKING)
     @GetMapping("/client/{clientId}/received")
-    public ResponseEntity<List<Shipment>> getShipmentsReceivedByClient(@PathVariable Long clientId) {
-        List<Shipment> shipments = shipmentService.getShipmentsReceivedByClient(clientId);
+    public ResponseEntity<CursorPage<Shipment>> getShipmentsReceivedByClient(
+            @PathVariable Long clientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        CursorPage<Shipment> shipments = shipmentService.getShipmentsReceivedByClient(clientId, cursor, limit);
         return ResponseEntity.ok(shipments);
     }
 
+    /**
+     * Проверява If-None-Match за списък с пратки. Списъците съдържат и подателя, получателя
+     * и служителя, затова ETag-ът зависи и от версиите на клиентите и служителите.
+     */
+    private boolean notModified(WebRequest request) {
+        return request.checkNotModified(versions.etag(Shipment.class, Client.class, Employee.class));
+    }
+
+    /**
+     * ETag на една пратка: нейната версия и версиите на всички обекти в отговора.
+     */
+    private static String rowEtag(Shipment shipment) {
+        Employee employee = shipment.getRegisteredBy();
+        Office office = employee == null ? null : employee.getOffice();
+        return EntityVersionService.rowEtag(shipment.getId(), shipment.getVersion(),
+                shipment.getSender().getVersion(), shipment.getReceiver().getVersion(),
+                employee == null ? null : employee.getVersion(),
+                office == null ? null : office.getVersion());
+    }
 }
@@ -0,0 +1,60 @@
+package com.example.logistics_company.controllers;
+
+import com.example.logistics_company.config.Bulkhead;
+import com.example.logistics_company.config.Compartment;
+import com.example.logistics_company.config.QueryBudget;
+import com.example.logistics_company.dto.StatsReconcileReport;
+import com.example.logistics_company.models.AuthenticatedUser;
+import com.example.logistics_company.services.ShipmentStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST контролер за поддръжка на дневния агрегат на пратките.
+ * Достъп само за служители.
+ */
+@RestController
+@Bulkhead(Compartment.REPORTING)
+@RequestMapping("/api/admin/stats")
+public class StatsController {
+
+    @Autowired
+    private ShipmentStatsService statsService;
+
+    /**
+     * GET /api/admin/stats/reconcile
+     * Преизчислява агрегата от пратките и връща разминаванията, без да променя данни.
+     *
+     * @param user текущият потребител
+     * @return отчет с разминаванията
+     * @throws AccessDeniedException ако потребителят не е служител
+     */
+    @QueryBudget(5)
+    @GetMapping("/reconcile")
+    public StatsReconcileReport reconcile(AuthenticatedUser user) {
+        requireEmployee(user);
+        return statsService.reconcile();
+    }
+
+    /**
+     * POST /api/admin/stats/rebuild
+     * Преизчислява агрегата от пратките и поправя разминалите се редове.
+     *
+     * @param user текущият потребител
+     * @return отчет с разминаванията, открити преди възстановяването
+     * @throws AccessDeniedException ако потребителят не е служител
+     */
+    @QueryBudget(7)
+    @PostMapping("/rebuild")
+    public StatsReconcileReport rebuild(AuthenticatedUser user) {
+        requireEmployee(user);
+        return statsService.rebuild();
+    }
+
+    private static void requireEmployee(AuthenticatedUser user) {
+        if (!user.isEmployee()) {
+            throw new AccessDeniedException("Only employees can maintain shipment statistics.");
+        }
+    }
+}
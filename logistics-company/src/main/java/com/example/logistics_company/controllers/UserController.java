@@ -1,5 +1,6 @@
 package com.example.logistics_company.controllers;
 
+import com.example.logistics_company.config.QueryBudget;
 import com.example.logistics_company.models.User;
 import com.example.logistics_company.models.UserType;
 import com.example.logistics_company.services.UserService;
@@ -30,6 +31,7 @@ public class UserController {
      * @param employeeId (по желание) ID на съответния служител (ако userType=EMPLOYEE)
      * @return 200 OK + създаден User обект (с хеширана парола и връзки)
      */
+    @QueryBudget(2)
     @PostMapping("/register")
     public ResponseEntity<User> register(
             @RequestParam String username,
@@ -0,0 +1,48 @@
+package com.example.logistics_company.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Резултат за един елемент от пакетна операция.
+ * index е позицията на елемента в заявката; при успех е попълнен shipmentId,
+ * а при отказ – error.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    private final int index;
+    private final Long shipmentId;
+    private final Double price;
+    private final String error;
+
+    private BatchItemResult(int index, Long shipmentId, Double price, String error) {
+        this.index = index;
+        this.shipmentId = shipmentId;
+        this.price = price;
+        this.error = error;
+    }
+
+    public static BatchItemResult registered(int index, Long shipmentId, Double price) {
+        return new BatchItemResult(index, shipmentId, price, null);
+    }
+
+    public static BatchItemResult rejected(int index, String error) {
+        return new BatchItemResult(index, null, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getShipmentId() {
+        return shipmentId;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.logistics_company.dto;
+
+import java.util.List;
+
+/**
+ * Отговор на пакетна регистрация: брой записани и отхвърлени пратки
+ * и резултат за всеки елемент в реда на заявката.
+ */
+public class BatchRegistrationResponse {
+
+    private final int registered;
+    private final int rejected;
+    private final List<BatchItemResult> items;
+
+    public BatchRegistrationResponse(int registered, int rejected, List<BatchItemResult> items) {
+        this.registered = registered;
+        this.rejected = rejected;
+        this.items = items;
+    }
+
+    public int getRegistered() {
+        return registered;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<BatchItemResult> getItems() {
+        return items;
+    }
+}
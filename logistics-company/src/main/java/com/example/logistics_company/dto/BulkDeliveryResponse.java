@@ -0,0 +1,33 @@
+package com.example.logistics_company.dto;
+
+import java.util.List;
+
+/**
+ * Отговор на пакетно потвърждение на доставки:
+ * кои пратки бяха маркирани като доставени, кои вече бяха доставени
+ * (или върнати – от крайно състояние доставка не е възможна) и кои ID-та не съществуват.
+ */
+public class BulkDeliveryResponse {
+
+    private final List<Long> delivered;
+    private final List<Long> alreadyDelivered;
+    private final List<Long> missing;
+
+    public BulkDeliveryResponse(List<Long> delivered, List<Long> alreadyDelivered, List<Long> missing) {
+        this.delivered = delivered;
+        this.alreadyDelivered = alreadyDelivered;
+        this.missing = missing;
+    }
+
+    public List<Long> getDelivered() {
+        return delivered;
+    }
+
+    public List<Long> getAlreadyDelivered() {
+        return alreadyDelivered;
+    }
+
+    public List<Long> getMissing() {
+        return missing;
+    }
+}
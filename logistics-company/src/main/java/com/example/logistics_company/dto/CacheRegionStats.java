@@ -0,0 +1,41 @@
+package com.example.logistics_company.dto;
+
+/**
+ * Попадения и пропуски на един регион от second-level cache-а (или на query cache-а)
+ * от старта на приложението. hitRatio е hits / (hits + misses), 0 при липса на четения.
+ */
+public class CacheRegionStats {
+
+    private final String region;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+
+    public CacheRegionStats(String region, long hits, long misses, long puts) {
+        this.region = region;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public double getHitRatio() {
+        long reads = hits + misses;
+        return reads == 0 ? 0.0 : (double) hits / reads;
+    }
+}
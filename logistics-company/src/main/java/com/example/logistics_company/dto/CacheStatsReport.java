@@ -0,0 +1,40 @@
+package com.example.logistics_company.dto;
+
+import java.util.List;
+
+/**
+ * Статистика на second-level cache-а: общо за всички entity региони,
+ * по региони и за query cache-а.
+ * statisticsEnabled е false, ако hibernate.generate_statistics е изключено – тогава броячите са 0.
+ */
+public class CacheStatsReport {
+
+    private final boolean statisticsEnabled;
+    private final CacheRegionStats total;
+    private final List<CacheRegionStats> regions;
+    private final CacheRegionStats queries;
+
+    public CacheStatsReport(boolean statisticsEnabled, CacheRegionStats total,
+                            List<CacheRegionStats> regions, CacheRegionStats queries) {
+        this.statisticsEnabled = statisticsEnabled;
+        this.total = total;
+        this.regions = regions;
+        this.queries = queries;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    public CacheRegionStats getTotal() {
+        return total;
+    }
+
+    public List<CacheRegionStats> getRegions() {
+        return regions;
+    }
+
+    public CacheRegionStats getQueries() {
+        return queries;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.logistics_company.dto;
+
+import java.util.List;
+
+/**
+ * Една страница от резултати при keyset (cursor) пагинация.
+ * nextCursor е непрозрачен низ, който се подава като параметър cursor
+ * за следващата страница; null означава, че няма повече резултати.
+ *
+ * @param <T> тип на елементите
+ */
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
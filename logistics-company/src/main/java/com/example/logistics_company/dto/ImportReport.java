@@ -0,0 +1,59 @@
+package com.example.logistics_company.dto;
+
+import java.util.List;
+
+/**
+ * Резултат от CSV импорт: брой прочетени, записани и отхвърлени редове,
+ * причините за отказ (най-много първите {@link #MAX_REPORTED}) и постигнатата скорост.
+ */
+public class ImportReport {
+
+    public static final int MAX_REPORTED = 1000;
+
+    private final String type;
+    private final long rowsRead;
+    private final long imported;
+    private final long rejected;
+    private final List<RejectedRow> rejectedRows;
+    private final long elapsedMs;
+    private final double rowsPerSecond;
+
+    public ImportReport(String type, long rowsRead, long imported, long rejected,
+                        List<RejectedRow> rejectedRows, long elapsedMs) {
+        this.type = type;
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.rejectedRows = rejectedRows;
+        this.elapsedMs = elapsedMs;
+        this.rowsPerSecond = elapsedMs == 0 ? rowsRead : rowsRead * 1000.0 / elapsedMs;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<RejectedRow> getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.logistics_company.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+/**
+ * Оферта за цена на пратка (GET /api/quote).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Quote {
+
+    private final double price;
+    private final String tariffVersion;
+    private final double weight;
+    private final boolean toOffice;
+    private final String city;
+    private final LocalDate date;
+
+    public Quote(double price, String tariffVersion, double weight, boolean toOffice, String city, LocalDate date) {
+        this.price = price;
+        this.tariffVersion = tariffVersion;
+        this.weight = weight;
+        this.toOffice = toOffice;
+        this.city = city;
+        this.date = date;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public String getTariffVersion() {
+        return tariffVersion;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public boolean isToOffice() {
+        return toOffice;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+}
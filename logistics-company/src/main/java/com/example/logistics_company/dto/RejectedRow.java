@@ -0,0 +1,23 @@
+package com.example.logistics_company.dto;
+
+/**
+ * Отхвърлен ред от импортиран файл: номер на реда във файла и причина.
+ */
+public class RejectedRow {
+
+    private final int line;
+    private final String error;
+
+    public RejectedRow(int line, String error) {
+        this.line = line;
+        this.error = error;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
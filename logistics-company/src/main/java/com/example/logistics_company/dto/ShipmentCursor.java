@@ -0,0 +1,61 @@
+package com.example.logistics_company.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция в списък с пратки, подредени по (registrationDate DESC, id DESC).
+ * Следващата страница започва строго след тази двойка стойности,
+ * което позволява на базата да продължи по индекса вместо да прескача OFFSET редове.
+ */
+public class ShipmentCursor {
+
+    /** Позиция „преди първия ред" – по-голяма от всяка реална двойка (дата, id). */
+    public static final ShipmentCursor START = new ShipmentCursor(LocalDate.of(9999, 12, 31), Long.MAX_VALUE);
+
+    private final LocalDate registrationDate;
+    private final Long id;
+
+    public ShipmentCursor(LocalDate registrationDate, Long id) {
+        this.registrationDate = registrationDate;
+        this.id = id;
+    }
+
+    public LocalDate getRegistrationDate() {
+        return registrationDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return непрозрачен base64url низ за отговора към клиента
+     */
+    public String encode() {
+        String raw = registrationDate + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодира курсор, получен от клиента.
+     *
+     * @param value стойността на параметъра cursor; null или празен низ означава първа страница
+     * @return позицията, от която да продължи четенето
+     * @throws IllegalArgumentException ако курсорът е невалиден
+     */
+    public static ShipmentCursor decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            return new ShipmentCursor(LocalDate.parse(raw.substring(0, sep)), Long.valueOf(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+    }
+}
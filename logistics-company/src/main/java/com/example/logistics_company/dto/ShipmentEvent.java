@@ -0,0 +1,128 @@
+package com.example.logistics_company.dto;
+
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.models.ShipmentStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Промяна по пратка, изпратена към абонатите на GET /api/shipments/stream след commit.
+ *
+ * Съдържа само стойностите, нужни на клиента да реши дали да обнови списъка си,
+ * а не цялата пратка – сериализира се без достъп до базата.
+ * Пакетните операции публикуват едно събитие без shipmentId ({@link #isBulk()}),
+ * което абонатите получават като resync; ID-тата на засегнатите пратки ({@link #getShipmentIds()})
+ * не се изпращат към потока, а се използват от OutboxService.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ShipmentEvent {
+
+    public enum Type { REGISTERED, DELIVERED, UPDATED }
+
+    private final Type type;
+    private final Long shipmentId;
+    private final ShipmentStatus status;
+    private final Long senderId;
+    private final Long receiverId;
+    private final LocalDate registrationDate;
+    private final LocalDate deliveryDate;
+    private final List<Long> shipmentIds;
+
+    private ShipmentEvent(Type type, Long shipmentId, ShipmentStatus status, Long senderId, Long receiverId,
+                          LocalDate registrationDate, LocalDate deliveryDate, List<Long> shipmentIds) {
+        this.type = type;
+        this.shipmentId = shipmentId;
+        this.status = status;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.registrationDate = registrationDate;
+        this.deliveryDate = deliveryDate;
+        this.shipmentIds = shipmentIds;
+    }
+
+    /**
+     * @param type     вид на промяната
+     * @param shipment пратката след промяната (подателят и получателят може да са незаредени proxy-та)
+     */
+    public static ShipmentEvent of(Type type, Shipment shipment) {
+        return new ShipmentEvent(type, shipment.getId(), shipment.getStatus(),
+                shipment.getSender() == null ? null : shipment.getSender().getId(),
+                shipment.getReceiver() == null ? null : shipment.getReceiver().getId(),
+                shipment.getRegistrationDate(), shipment.getDeliveryDate(), List.of(shipment.getId()));
+    }
+
+    /**
+     * @param type       вид на промяната
+     * @param shipmentId ID на пратката – за промени, при които пратката не е заредена
+     */
+    public static ShipmentEvent of(Type type, Long shipmentId) {
+        return new ShipmentEvent(type, shipmentId, null, null, null, null, null, List.of(shipmentId));
+    }
+
+    /**
+     * @param type вид на промяната, засегнала много пратки наведнъж (напр. CSV импорт)
+     */
+    public static ShipmentEvent bulk(Type type) {
+        return bulk(type, List.of());
+    }
+
+    /**
+     * @param type        вид на промяната, засегнала много пратки наведнъж
+     * @param shipmentIds ID-тата на засегнатите пратки
+     */
+    public static ShipmentEvent bulk(Type type, List<Long> shipmentIds) {
+        return new ShipmentEvent(type, null, null, null, null, null, null, shipmentIds);
+    }
+
+    @JsonIgnore
+    public boolean isBulk() {
+        return shipmentId == null;
+    }
+
+    /**
+     * @param clientId ID на клиента
+     * @return true, ако клиентът е подател или получател на пратката
+     */
+    public boolean concernsClient(Long clientId) {
+        return clientId != null && (clientId.equals(senderId) || clientId.equals(receiverId));
+    }
+
+    /**
+     * @return ID-тата на засегнатите пратки (празно за импорти, при които не се събират)
+     */
+    @JsonIgnore
+    public List<Long> getShipmentIds() {
+        return shipmentIds;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getShipmentId() {
+        return shipmentId;
+    }
+
+    public ShipmentStatus getStatus() {
+        return status;
+    }
+
+    public Long getSenderId() {
+        return senderId;
+    }
+
+    public Long getReceiverId() {
+        return receiverId;
+    }
+
+    public LocalDate getRegistrationDate() {
+        return registrationDate;
+    }
+
+    public LocalDate getDeliveryDate() {
+        return deliveryDate;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.logistics_company.dto;
+
+import com.example.logistics_company.models.ShipmentStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Един ред от експорта на пратки – плоски стойности и ID-та на свързаните записи.
+ * Създава се директно от заявката (constructor expression), без entity
+ * и без persistence context, затова паметта не зависи от броя редове.
+ */
+public class ShipmentExportRow {
+
+    private final Long id;
+    private final ShipmentStatus status;
+    private final LocalDate registrationDate;
+    private final LocalDate deliveryDate;
+    private final Long senderId;
+    private final Long receiverId;
+    private final Long registeredByEmployeeId;
+    private final String deliveryAddress;
+    private final double weight;
+    private final boolean toOffice;
+    private final Double price;
+
+    public ShipmentExportRow(Long id, ShipmentStatus status, LocalDate registrationDate, LocalDate deliveryDate,
+                             Long senderId, Long receiverId, Long registeredByEmployeeId,
+                             String deliveryAddress, double weight, boolean toOffice, Double price) {
+        this.id = id;
+        this.status = status;
+        this.registrationDate = registrationDate;
+        this.deliveryDate = deliveryDate;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.registeredByEmployeeId = registeredByEmployeeId;
+        this.deliveryAddress = deliveryAddress;
+        this.weight = weight;
+        this.toOffice = toOffice;
+        this.price = price;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ShipmentStatus getStatus() {
+        return status;
+    }
+
+    public LocalDate getRegistrationDate() {
+        return registrationDate;
+    }
+
+    public LocalDate getDeliveryDate() {
+        return deliveryDate;
+    }
+
+    public Long getSenderId() {
+        return senderId;
+    }
+
+    public Long getReceiverId() {
+        return receiverId;
+    }
+
+    public Long getRegisteredByEmployeeId() {
+        return registeredByEmployeeId;
+    }
+
+    public String getDeliveryAddress() {
+        return deliveryAddress;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public boolean isToOffice() {
+        return toOffice;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+}
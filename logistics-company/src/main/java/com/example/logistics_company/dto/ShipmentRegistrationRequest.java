@@ -0,0 +1,54 @@
+package com.example.logistics_company.dto;
+
+/**
+ * Един елемент от пакетна регистрация на пратки.
+ * Клиентите се подават само с ID – сървърът ги проверява наведнъж за целия пакет.
+ */
+public class ShipmentRegistrationRequest {
+
+    private Long senderId;
+    private Long receiverId;
+    private String deliveryAddress;
+    private Double weight;
+    private boolean toOffice;
+
+    public Long getSenderId() {
+        return senderId;
+    }
+
+    public void setSenderId(Long senderId) {
+        this.senderId = senderId;
+    }
+
+    public Long getReceiverId() {
+        return receiverId;
+    }
+
+    public void setReceiverId(Long receiverId) {
+        this.receiverId = receiverId;
+    }
+
+    public String getDeliveryAddress() {
+        return deliveryAddress;
+    }
+
+    public void setDeliveryAddress(String deliveryAddress) {
+        this.deliveryAddress = deliveryAddress;
+    }
+
+    public Double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Double weight) {
+        this.weight = weight;
+    }
+
+    public boolean isToOffice() {
+        return toOffice;
+    }
+
+    public void setToOffice(boolean toOffice) {
+        this.toOffice = toOffice;
+    }
+}
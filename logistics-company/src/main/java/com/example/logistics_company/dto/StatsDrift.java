@@ -0,0 +1,44 @@
+package com.example.logistics_company.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Разминаване между ред от дневния агрегат и стойностите,
+ * преизчислени от таблицата shipments.
+ */
+public class StatsDrift {
+
+    private final LocalDate day;
+    private final long officeId;
+    private final String field;
+    private final double expected;
+    private final double actual;
+
+    public StatsDrift(LocalDate day, long officeId, String field, double expected, double actual) {
+        this.day = day;
+        this.officeId = officeId;
+        this.field = field;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public long getOfficeId() {
+        return officeId;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public double getExpected() {
+        return expected;
+    }
+
+    public double getActual() {
+        return actual;
+    }
+}
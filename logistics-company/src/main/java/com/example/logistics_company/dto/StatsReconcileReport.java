@@ -0,0 +1,48 @@
+package com.example.logistics_company.dto;
+
+import java.util.List;
+
+/**
+ * Резултат от проверка (и евентуално възстановяване) на дневния агрегат.
+ * drift съдържа най-много първите {@link #MAX_REPORTED} разминавания;
+ * driftCount е общият им брой.
+ */
+public class StatsReconcileReport {
+
+    public static final int MAX_REPORTED = 100;
+
+    private final int expectedRows;
+    private final int actualRows;
+    private final int driftCount;
+    private final List<StatsDrift> drift;
+    private final boolean rebuilt;
+
+    public StatsReconcileReport(int expectedRows, int actualRows, int driftCount,
+                                List<StatsDrift> drift, boolean rebuilt) {
+        this.expectedRows = expectedRows;
+        this.actualRows = actualRows;
+        this.driftCount = driftCount;
+        this.drift = drift;
+        this.rebuilt = rebuilt;
+    }
+
+    public int getExpectedRows() {
+        return expectedRows;
+    }
+
+    public int getActualRows() {
+        return actualRows;
+    }
+
+    public int getDriftCount() {
+        return driftCount;
+    }
+
+    public List<StatsDrift> getDrift() {
+        return drift;
+    }
+
+    public boolean isRebuilt() {
+        return rebuilt;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.logistics_company.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Една версия на тарифата, както е описана в app.tariffs.location (JSON масив от версии).
+ *
+ * Версията важи от effectiveFrom до деня преди следващата по дата версия.
+ * Цената е base + тегло * perKg за теговия диапазон, в който попада пратката
+ * (отделно за доставка до офис и до адрес), плюс добавката за града на офиса, ако има такава.
+ * TariffService компилира версиите в {@code TariffTable} при стартиране.
+ */
+public class TariffDefinition {
+
+    private String version;
+    private LocalDate effectiveFrom;
+    private List<WeightBand> bands = new ArrayList<>();
+    // Добавка в лева по Office.city; градовете без запис нямат добавка
+    private Map<String, Double> citySurcharges = new LinkedHashMap<>();
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public LocalDate getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    public void setEffectiveFrom(LocalDate effectiveFrom) {
+        this.effectiveFrom = effectiveFrom;
+    }
+
+    public List<WeightBand> getBands() {
+        return bands;
+    }
+
+    public void setBands(List<WeightBand> bands) {
+        this.bands = bands;
+    }
+
+    public Map<String, Double> getCitySurcharges() {
+        return citySurcharges;
+    }
+
+    public void setCitySurcharges(Map<String, Double> citySurcharges) {
+        this.citySurcharges = citySurcharges;
+    }
+
+    /**
+     * Теглови диапазон до upToKg включително (null – без горна граница).
+     * Диапазоните се подреждат по нарастващ upToKg; долната граница е горната на предишния.
+     */
+    public static class WeightBand {
+
+        private Double upToKg;
+        private double officeBase;
+        private double officePerKg;
+        private double addressBase;
+        private double addressPerKg;
+
+        public WeightBand() {
+        }
+
+        public WeightBand(Double upToKg, double officeBase, double officePerKg,
+                          double addressBase, double addressPerKg) {
+            this.upToKg = upToKg;
+            this.officeBase = officeBase;
+            this.officePerKg = officePerKg;
+            this.addressBase = addressBase;
+            this.addressPerKg = addressPerKg;
+        }
+
+        public Double getUpToKg() {
+            return upToKg;
+        }
+
+        public void setUpToKg(Double upToKg) {
+            this.upToKg = upToKg;
+        }
+
+        public double getOfficeBase() {
+            return officeBase;
+        }
+
+        public void setOfficeBase(double officeBase) {
+            this.officeBase = officeBase;
+        }
+
+        public double getOfficePerKg() {
+            return officePerKg;
+        }
+
+        public void setOfficePerKg(double officePerKg) {
+            this.officePerKg = officePerKg;
+        }
+
+        public double getAddressBase() {
+            return addressBase;
+        }
+
+        public void setAddressBase(double addressBase) {
+            this.addressBase = addressBase;
+        }
+
+        public double getAddressPerKg() {
+            return addressPerKg;
+        }
+
+        public void setAddressPerKg(double addressPerKg) {
+            this.addressPerKg = addressPerKg;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.logistics_company.dto;
+
+/**
+ * Отговор на /api/auth/login и /api/auth/refresh.
+ * Съдържа access токен за хедъра Authorization: Bearer,
+ * refresh токен за подновяване и валидността на access токена в секунди.
+ */
+public class TokenResponse {
+
+    private final String accessToken;
+    private final String refreshToken;
+    private final String tokenType = "Bearer";
+    private final long expiresIn;
+
+    public TokenResponse(String accessToken, String refreshToken, long expiresIn) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+}
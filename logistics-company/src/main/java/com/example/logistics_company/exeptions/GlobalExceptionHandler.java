@@ -1,8 +1,10 @@
 package com.example.logistics_company.exeptions;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -33,6 +35,29 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
     }
 
+    /**
+     * Обработва невалидни входни стойности (например повреден курсор за пагинация).
+     *
+     * @param ex изключението IllegalArgumentException с описание на проблема
+     * @return ResponseEntity със статус 400 Bad Request и тялото съдържа съобщението на изключението
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    /**
+     * Обработва конфликт с паралелна промяна на същите данни.
+     * Операцията е върната изцяло и клиентът може да я повтори.
+     *
+     * @param ex изключението OptimisticLockingFailureException
+     * @return ResponseEntity със статус 409 Conflict и тялото съдържа съобщението на изключението
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleConflict(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
     /**
      * Обработва опити за достъп до защитени ресурси без необходимите права.
      *
@@ -44,6 +69,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage());
     }
 
+    /**
+     * Обработва неуспешна аутентикация (например грешна парола при /api/auth/login).
+     *
+     * @param ex изключението AuthenticationException, хвърлено при неуспешен вход
+     * @return ResponseEntity със статус 401 Unauthorized и тялото съдържа съобщението на изключението
+     */
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<String> handleUnauthorized(AuthenticationException ex) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ex.getMessage());
+    }
+
     /**
      * Обработва всички останали непредвидени изключения.
      * Връща генерично съобщение за грешка с HTTP статус 500 Internal Server Error.
@@ -0,0 +1,76 @@
+package com.example.logistics_company.jobs;
+
+import com.example.logistics_company.services.ShipmentArchiveService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Периодична задача, която премества доставените пратки, по-стари от app.archive.min-age,
+ * в shipments_archive (виж ShipmentArchiveService).
+ *
+ * Всяка порция от app.archive.chunk-size пратки е отделна транзакция, затова задачата
+ * не държи дълги заключвания и може да бъде прекъсната по всяко време – следващото
+ * изпълнение продължава от оставащите редове. Няколко инстанции не си пречат (SKIP LOCKED).
+ * Броят преместени пратки е в метриката app.shipments.archived.
+ */
+@Component
+public class ShipmentArchiveJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipmentArchiveJob.class);
+
+    @Autowired
+    private ShipmentArchiveService archiveService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${app.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    private Counter archived;
+
+    @PostConstruct
+    void registerMeters() {
+        archived = Counter.builder("app.shipments.archived")
+                .description("Пратки, преместени в shipments_archive")
+                .register(registry);
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+    public void run() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * Архивира всички пратки преди текущата граница, порция по порция.
+     * @return общ брой преместени пратки
+     */
+    public long archive() {
+        LocalDate cutoff = archiveService.cutoff();
+        long total = 0;
+        int moved;
+        do {
+            moved = archiveService.archiveChunk(cutoff, chunkSize);
+            total += moved;
+            archived.increment(moved);
+        } while (moved == chunkSize);
+        if (total > 0) {
+            log.info("Archived {} shipments delivered before {}", total, cutoff);
+        }
+        return total;
+    }
+}
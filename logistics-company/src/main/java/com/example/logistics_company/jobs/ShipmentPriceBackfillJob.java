@@ -0,0 +1,66 @@
+package com.example.logistics_company.jobs;
+
+import com.example.logistics_company.services.ShipmentService;
+import com.example.logistics_company.services.ShipmentStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Еднократна задача при стартиране, която попълва колоната price
+ * на пратки, записани преди цената да се пази в базата.
+ *
+ * Чете пратките без цена на порции по ID (keyset, app.shipments.price-backfill.chunk-size реда)
+ * и всяка порция е отделна транзакция, в която цените се изпращат като JDBC batch от UPDATE-и.
+ * Таблицата не се заключва изцяло, празнините между ID-тата не струват заявки,
+ * а при прекъсване следващото стартиране продължава от оставащите редове.
+ * Попълнените цени променят приходите, затова след това дневният агрегат се преизчислява.
+ */
+@Component
+@Order(10) // след DataInitializer
+public class ShipmentPriceBackfillJob implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipmentPriceBackfillJob.class);
+
+    @Autowired
+    private ShipmentService shipmentService;
+
+    @Autowired
+    private ShipmentStatsService statsService;
+
+    @Value("${app.shipments.price-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.shipments.price-backfill.chunk-size:5000}")
+    private int chunkSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            backfill();
+        }
+    }
+
+    /**
+     * Попълва цените на всички пратки без price.
+     * @return общ брой обновени пратки
+     */
+    public long backfill() {
+        long total = 0;
+        ShipmentService.PriceBackfillChunk chunk = shipmentService.backfillPrices(0, chunkSize);
+        while (chunk.lastId() != null) {
+            total += chunk.priced();
+            chunk = shipmentService.backfillPrices(chunk.lastId(), chunkSize);
+        }
+        if (total > 0) {
+            log.info("Backfilled price for {} shipments", total);
+            statsService.rebuild();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.logistics_company.jobs;
+
+import com.example.logistics_company.dto.StatsReconcileReport;
+import com.example.logistics_company.services.ShipmentStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Задача при стартиране, която изгражда дневния агрегат, ако е празен,
+ * а в shipments вече има пратки (първо пускане след въвеждането на агрегата
+ * или данни, заредени директно в базата).
+ */
+@Component
+@Order(20) // след DataInitializer и ShipmentPriceBackfillJob
+public class ShipmentStatsInitJob implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipmentStatsInitJob.class);
+
+    @Autowired
+    private ShipmentStatsService statsService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (statsService.needsInitialBuild()) {
+            StatsReconcileReport report = statsService.rebuild();
+            log.info("Built daily shipment stats: {} rows", report.getExpectedRows());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.logistics_company.models;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Доставена пратка, преместена в архива (таблица shipments_archive, виж V9).
+ * Редовете се записват само от ShipmentArchiveService с INSERT ... SELECT и не се променят.
+ * Към клиента се връщат като {@link Shipment} (виж {@link #toShipment()}), за да изглеждат
+ * еднакво с активните пратки.
+ */
+@Entity
+@Immutable
+@NamedEntityGraph(name = ArchivedShipment.LIST_GRAPH, attributeNodes = {
+        @NamedAttributeNode("sender"),
+        @NamedAttributeNode("receiver")
+})
+@Table(name = "shipments_archive")
+public class ArchivedShipment {
+
+    /** Подател и получател – както Shipment.LIST_GRAPH. */
+    public static final String LIST_GRAPH = "ArchivedShipment.list";
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sender_id", nullable = false)
+    private Client sender;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "receiver_id", nullable = false)
+    private Client receiver;
+
+    @Column(name = "delivery_address", nullable = false)
+    private String deliveryAddress;
+
+    @Column(nullable = false)
+    private double weight;
+
+    @Column(name = "to_office", nullable = false)
+    private boolean toOffice;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ShipmentStatus status;
+
+    @Column(name = "registration_date", nullable = false)
+    private LocalDate registrationDate;
+
+    @Column(name = "delivery_date")
+    private LocalDate deliveryDate;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "registered_by_employee_id", nullable = false)
+    private Employee registeredBy;
+
+    private Double price;
+
+    @Column(name = "registered_office_id")
+    private Long registeredOfficeId;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * @return несвързано с persistence context-а копие като Shipment (със същите ID и версия)
+     */
+    public Shipment toShipment() {
+        Shipment shipment = new Shipment(id, sender, receiver, deliveryAddress, weight, toOffice,
+                status, registrationDate, deliveryDate, registeredBy);
+        shipment.setPrice(price);
+        shipment.setRegisteredOfficeId(registeredOfficeId);
+        shipment.setVersion(version);
+        return shipment;
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getRegistrationDate() {
+        return registrationDate;
+    }
+
+    public LocalDate getDeliveryDate() {
+        return deliveryDate;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
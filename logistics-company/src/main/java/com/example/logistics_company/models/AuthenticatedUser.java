@@ -0,0 +1,84 @@
+package com.example.logistics_company.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Principal на текущо логнатия потребител.
+ * Създава се от CustomUserDetailsService (при HTTP Basic / вход) или от подписания
+ * токен и носи всичко, от което контролерите имат нужда – ID на потребителя,
+ * тип, ID на служител (и на офиса му) и ID на клиент – без повторно зареждане на User от базата.
+ *
+ * Нарочно не имплементира CredentialsContainer: инстанцията се кешира и Spring Security
+ * не трябва да изтрива паролата ѝ след успешна аутентикация.
+ */
+@JsonIgnoreProperties({"password", "authorities", "accountNonExpired",
+        "accountNonLocked", "credentialsNonExpired", "enabled"})
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final UserType userType;
+    private final Long employeeId;
+    private final Long clientId;
+    private final Long officeId;
+
+    public AuthenticatedUser(Long id, String username, String password,
+                             UserType userType, Long employeeId, Long clientId, Long officeId) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.userType = userType;
+        this.employeeId = employeeId;
+        this.clientId = clientId;
+        this.officeId = officeId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    public UserType getUserType() {
+        return userType;
+    }
+
+    public Long getEmployeeId() {
+        return employeeId;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    /**
+     * Офисът на служителя към момента на входа (за историята на пратките) или null.
+     */
+    public Long getOfficeId() {
+        return officeId;
+    }
+
+    public boolean isEmployee() {
+        return userType == UserType.EMPLOYEE;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singleton(new SimpleGrantedAuthority("ROLE_" + userType.name()));
+    }
+}
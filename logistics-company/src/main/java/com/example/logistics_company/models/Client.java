@@ -1,5 +1,6 @@
 package com.example.logistics_company.models;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 
 @Entity
@@ -16,10 +17,19 @@ public class Client {
         this.phoneNumber = phoneNumber;
     }
 
+    // ID-тата се резервират на блокове от id_generators, за да могат INSERT-ите да се групират
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "client_id")
+    @TableGenerator(name = "client_id", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "clients", allocationSize = 100)
     private Long id;
 
+    // Версия на реда: оптимистично заключване и ETag на GET /api/clients/{id}.
+    // В JSON е само за четене – клиентът не може да подаде собствена версия
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @Column(nullable = false, length = 100)
     private String name;
 
@@ -60,4 +70,8 @@ public class Client {
     public void setPhoneNumber(String phoneNumber) {
         this.phoneNumber = phoneNumber;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
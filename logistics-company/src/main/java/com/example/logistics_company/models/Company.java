@@ -1,8 +1,14 @@
 package com.example.logistics_company.models;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+// Рядко променящи се справочни данни: second-level cache (регион "companies")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "companies")
 @Table(name = "companies")
 public class Company {
 
@@ -10,6 +16,12 @@ public class Company {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Версия на реда: оптимистично заключване и ETag на GET /api/companies/{id}.
+    // В JSON е само за четене – клиентът не може да подаде собствена версия
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @Column(nullable = false, length = 100)
     private String name;
 
@@ -31,4 +43,6 @@ public class Company {
 
     public String getPhone() { return phone; }
     public void setPhone(String phone) { this.phone = phone; }
+
+    public Long getVersion() { return version; }
 }
\ No newline at end of file
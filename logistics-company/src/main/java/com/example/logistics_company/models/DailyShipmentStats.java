@@ -0,0 +1,112 @@
+package com.example.logistics_company.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Дневен агрегат (rollup) на пратките по ден и офис.
+ *
+ * Регистрираните пратки се отчитат в деня на регистрация, а доставените –
+ * в деня на доставка. Редовете се поддържат инкрементално от ShipmentService
+ * в същата транзакция като промяната на пратката, затова справката за приходи
+ * сумира най-много по един ред на ден и офис вместо всички пратки.
+ */
+@Entity
+@Table(name = "daily_shipment_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_stats_day_office", columnNames = {"stats_day", "office_id"}))
+public class DailyShipmentStats {
+
+    /** officeId за пратки, чийто служител няма офис. */
+    public static final long NO_OFFICE = 0L;
+
+    public DailyShipmentStats() {
+    }
+
+    public DailyShipmentStats(LocalDate day, Long officeId) {
+        this.day = day;
+        this.officeId = officeId;
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // stats_day, защото DAY е запазена дума в някои бази (напр. H2)
+    @Column(name = "stats_day", nullable = false)
+    private LocalDate day;
+
+    // ID на офиса на регистриралия служител (NO_OFFICE ако няма)
+    @Column(name = "office_id", nullable = false)
+    private Long officeId;
+
+    // Брой пратки, регистрирани (SHIPPED) в този ден
+    @Column(name = "registered_count", nullable = false)
+    private long registeredCount;
+
+    @Column(name = "registered_weight", nullable = false)
+    private double registeredWeight;
+
+    // Брой пратки, доставени (DELIVERED) в този ден
+    @Column(name = "delivered_count", nullable = false)
+    private long deliveredCount;
+
+    @Column(name = "delivered_weight", nullable = false)
+    private double deliveredWeight;
+
+    // Сума от цените на доставените в този ден пратки
+    @Column(nullable = false)
+    private double revenue;
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public Long getOfficeId() {
+        return officeId;
+    }
+
+    public long getRegisteredCount() {
+        return registeredCount;
+    }
+
+    public void setRegisteredCount(long registeredCount) {
+        this.registeredCount = registeredCount;
+    }
+
+    public double getRegisteredWeight() {
+        return registeredWeight;
+    }
+
+    public void setRegisteredWeight(double registeredWeight) {
+        this.registeredWeight = registeredWeight;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public void setDeliveredCount(long deliveredCount) {
+        this.deliveredCount = deliveredCount;
+    }
+
+    public double getDeliveredWeight() {
+        return deliveredWeight;
+    }
+
+    public void setDeliveredWeight(double deliveredWeight) {
+        this.deliveredWeight = deliveredWeight;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+}
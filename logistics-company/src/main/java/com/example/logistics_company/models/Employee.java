@@ -1,8 +1,17 @@
 package com.example.logistics_company.models;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+// Рядко променящи се справочни данни: second-level cache (регион "employees")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "employees")
+// Липсващите в кеша proxy-та се зареждат на групи с една IN заявка
+@BatchSize(size = 100)
 @Table(name = "employees")
 public class Employee {
 
@@ -20,10 +29,16 @@ public class Employee {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Версия на реда: оптимистично заключване и ETag на GET /api/employees/{id}.
+    // В JSON е само за четене – клиентът не може да подаде собствена версия
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @Column(nullable = false)
     private String name;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "office_id")
     private Office office;
 
@@ -62,4 +77,8 @@ public class Employee {
     public void setRole(Role role) {
         this.role = role;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
@@ -1,8 +1,17 @@
 package com.example.logistics_company.models;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+// Рядко променящи се справочни данни: second-level cache (регион "offices")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "offices")
+// Липсващите в кеша proxy-та се зареждат на групи с една IN заявка
+@BatchSize(size = 100)
 @Table(name = "offices")
 public class Office {
 
@@ -15,10 +24,19 @@ public class Office {
         this.city = city;
     }
 
+    // ID-тата се резервират на блокове от id_generators, за да могат INSERT-ите да се групират
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "office_id")
+    @TableGenerator(name = "office_id", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "offices", allocationSize = 100)
     private Long id;
 
+    // Версия на реда: оптимистично заключване и ETag на GET /api/offices/{id}.
+    // В JSON е само за четене – клиентът не може да подаде собствена версия
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @Column(nullable = false, length = 100)
     private String address;
 
@@ -50,4 +68,8 @@ public class Office {
     public void setCity(String city) {
         this.city = city;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
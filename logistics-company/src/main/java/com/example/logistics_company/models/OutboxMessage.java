@@ -0,0 +1,116 @@
+package com.example.logistics_company.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Събитие по пратка, чакащо изпращане към OutboxHandler-ите (таблица outbox, виж V7).
+ * Записва се от OutboxService в транзакцията на промяната и се изтрива след успешно изпращане.
+ */
+@Entity
+@Table(name = "outbox")
+public class OutboxMessage {
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(String eventType, Long shipmentId, String payload, LocalDateTime createdAt) {
+        this.eventType = eventType;
+        this.shipmentId = shipmentId;
+        this.payload = payload;
+        this.status = OutboxStatus.PENDING;
+        this.createdAt = createdAt;
+        this.availableAt = createdAt;
+    }
+
+    // ID-тата се резервират на блокове от id_generators, за да могат INSERT-ите да се групират
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "outbox_id")
+    @TableGenerator(name = "outbox_id", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "outbox", allocationSize = 100)
+    private Long id;
+
+    // ShipmentEvent.Type – REGISTERED, DELIVERED или UPDATED
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "shipment_id", nullable = false)
+    private Long shipmentId;
+
+    // ShipmentEvent като JSON
+    @Column(nullable = false, length = 1000)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxStatus status;
+
+    // Брой заявявания от dispatcher-а, включително текущото
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Следващ опит (backoff) или край на lease-а на заявен ред
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public Long getShipmentId() {
+        return shipmentId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public OutboxStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OutboxStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(LocalDateTime availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.logistics_company.models;
+
+public enum OutboxStatus {
+    PENDING,
+    DEAD
+}
@@ -1,14 +1,26 @@
 package com.example.logistics_company.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+// План за зареждане: асоциациите са LAZY и заявките за пратки join-ват само клиентите.
+// Служителят и офисът му идват от second-level cache-а (вж. ShipmentService.resolveRegisteredBy)
+@NamedEntityGraph(name = Shipment.LIST_GRAPH, attributeNodes = {
+        @NamedAttributeNode("sender"),
+        @NamedAttributeNode("receiver")
+})
+// Схемата и индексите за всяка заявка са в db/migration (Flyway)
 @Table(name = "shipments")
 public class Shipment {
 
+    /** Подател и получател – общи за списъците и за една пратка. */
+    public static final String LIST_GRAPH = "Shipment.list";
+
     public Shipment() {
     }
 
@@ -25,15 +37,24 @@ public class Shipment {
         this.registeredBy = registeredBy;
     }
 
+    // ID-тата се резервират на блокове от id_generators, за да могат INSERT-ите да се групират
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "shipment_id")
+    @TableGenerator(name = "shipment_id", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "shipments", allocationSize = 100)
     private Long id;
 
-    @ManyToOne
+    // Версия на реда: оптимистично заключване и ETag на GET /api/shipments/{id}.
+    // В JSON е само за четене – клиентът не може да подаде собствена версия
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", nullable = false)
     private Client sender;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "receiver_id", nullable = false)
     private Client receiver;
 
@@ -59,10 +80,27 @@ public class Shipment {
     private LocalDate deliveryDate;
 
     // Кой служител я е регистрирал
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "registered_by_employee_id", nullable = false)
     private Employee registeredBy;
 
+    // Цена, изчислена веднъж при регистрация (null за стари записи преди backfill)
+    @Column(name = "price")
+    private Double price;
+
+    // Офисът на служителя в момента на регистрацията – ключ в дневния агрегат.
+    // Не следва по-късно преместване на служителя, иначе приносът на пратката би сменил офиса си
+    @JsonIgnore
+    @Column(name = "registered_office_id")
+    private Long registeredOfficeId;
+
+    @PrePersist
+    void rememberRegisteredOffice() {
+        if (registeredOfficeId == null && registeredBy != null && registeredBy.getOffice() != null) {
+            registeredOfficeId = registeredBy.getOffice().getId();
+        }
+    }
+
     public Long getId() {
         return id;
     }
@@ -141,4 +179,29 @@ public class Shipment {
     public void setRegisteredBy(Employee registeredBy) {
         this.registeredBy = registeredBy;
     }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Long getRegisteredOfficeId() {
+        return registeredOfficeId;
+    }
+
+    public void setRegisteredOfficeId(Long registeredOfficeId) {
+        this.registeredOfficeId = registeredOfficeId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    // Само за копия, които не се записват (ArchivedShipment.toShipment) – иначе версията се води от Hibernate
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
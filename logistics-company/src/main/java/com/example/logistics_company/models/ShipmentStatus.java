@@ -1,6 +1,66 @@
 package com.example.logistics_company.models;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Състояние на пратка и разрешените преходи между състоянията.
+ *
+ * SHIPPED (регистрирана) → IN_TRANSIT ⇄ AT_OFFICE → OUT_FOR_DELIVERY → DELIVERED.
+ * Пратка, взета от офиса или доставена директно, може да прескочи междинните състояния;
+ * всяка недоставена пратка може да бъде върната (RETURNED). DELIVERED и RETURNED са крайни.
+ */
 public enum ShipmentStatus {
     SHIPPED,
-    DELIVERED
+    IN_TRANSIT,
+    AT_OFFICE,
+    OUT_FOR_DELIVERY,
+    DELIVERED,
+    RETURNED;
+
+    private static final Map<ShipmentStatus, Set<ShipmentStatus>> TRANSITIONS = new EnumMap<>(ShipmentStatus.class);
+
+    static {
+        TRANSITIONS.put(SHIPPED, EnumSet.of(IN_TRANSIT, AT_OFFICE, OUT_FOR_DELIVERY, DELIVERED, RETURNED));
+        TRANSITIONS.put(IN_TRANSIT, EnumSet.of(AT_OFFICE, OUT_FOR_DELIVERY, RETURNED));
+        TRANSITIONS.put(AT_OFFICE, EnumSet.of(IN_TRANSIT, OUT_FOR_DELIVERY, DELIVERED, RETURNED));
+        // неуспешен опит за доставка – пратката се връща в офиса
+        TRANSITIONS.put(OUT_FOR_DELIVERY, EnumSet.of(AT_OFFICE, DELIVERED, RETURNED));
+        TRANSITIONS.put(DELIVERED, EnumSet.noneOf(ShipmentStatus.class));
+        TRANSITIONS.put(RETURNED, EnumSet.noneOf(ShipmentStatus.class));
+    }
+
+    /**
+     * @param next желаното следващо състояние
+     * @return дали преходът е разрешен (преход към същото състояние не е)
+     */
+    public boolean canTransitionTo(ShipmentStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+
+    /**
+     * Проверява прехода и хвърля грешка, ако не е разрешен.
+     * @param next желаното следващо състояние
+     * @throws IllegalArgumentException ако преходът не е разрешен
+     */
+    public void checkTransitionTo(ShipmentStatus next) {
+        if (!canTransitionTo(next)) {
+            throw new IllegalArgumentException("Shipment cannot go from " + this + " to " + next);
+        }
+    }
+
+    /**
+     * @return състоянията, от които пратка може да бъде маркирана като доставена
+     */
+    public static Set<ShipmentStatus> deliverable() {
+        EnumSet<ShipmentStatus> from = EnumSet.noneOf(ShipmentStatus.class);
+        for (ShipmentStatus status : values()) {
+            if (status.canTransitionTo(DELIVERED)) {
+                from.add(status);
+            }
+        }
+        return from;
+    }
 }
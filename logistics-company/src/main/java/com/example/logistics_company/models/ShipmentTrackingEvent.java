@@ -0,0 +1,89 @@
+package com.example.logistics_company.models;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Един преход в историята на пратка (таблица shipment_events, виж V8).
+ * Редовете само се добавят – @Immutable спестява dirty checking-а и забранява UPDATE.
+ * Пратката, служителят и офисът се пазят като ID-та, а не като асоциации,
+ * за да не се чете нищо друго при проследяване.
+ */
+@Entity
+@Immutable
+@Table(name = "shipment_events")
+public class ShipmentTrackingEvent {
+
+    public ShipmentTrackingEvent() {
+    }
+
+    public ShipmentTrackingEvent(Long shipmentId, ShipmentStatus fromStatus, ShipmentStatus toStatus,
+                                 LocalDateTime timestamp, Long employeeId, Long officeId) {
+        this.shipmentId = shipmentId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.timestamp = timestamp;
+        this.employeeId = employeeId;
+        this.officeId = officeId;
+    }
+
+    // ID-тата се резервират на блокове от id_generators, за да могат INSERT-ите да се групират
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "shipment_event_id")
+    @TableGenerator(name = "shipment_event_id", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "shipment_events", allocationSize = 100)
+    private Long id;
+
+    @Column(name = "shipment_id", nullable = false)
+    private Long shipmentId;
+
+    // null за първото събитие – регистрация или импорт
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status", length = 20)
+    private ShipmentStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", nullable = false, length = 20)
+    private ShipmentStatus toStatus;
+
+    @Column(name = "ts", nullable = false)
+    private LocalDateTime timestamp;
+
+    @Column(name = "employee_id")
+    private Long employeeId;
+
+    @Column(name = "office_id")
+    private Long officeId;
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getShipmentId() {
+        return shipmentId;
+    }
+
+    public ShipmentStatus getFromStatus() {
+        return fromStatus;
+    }
+
+    public ShipmentStatus getToStatus() {
+        return toStatus;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public Long getEmployeeId() {
+        return employeeId;
+    }
+
+    public Long getOfficeId() {
+        return officeId;
+    }
+}
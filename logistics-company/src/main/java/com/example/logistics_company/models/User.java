@@ -32,10 +32,10 @@ public class User {
     @Column(name = "user_type", nullable = false)
     private UserType userType; // CLIENT или EMPLOYEE
 
-    @OneToOne @JoinColumn(name = "client_id")
+    @OneToOne(fetch = FetchType.LAZY) @JoinColumn(name = "client_id")
     private Client client;
 
-    @OneToOne @JoinColumn(name = "employee_id")
+    @OneToOne(fetch = FetchType.LAZY) @JoinColumn(name = "employee_id")
     private Employee employee;
 
     // Getters and Setters
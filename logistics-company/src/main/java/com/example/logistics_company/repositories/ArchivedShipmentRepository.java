@@ -0,0 +1,94 @@
+package com.example.logistics_company.repositories;
+
+import com.example.logistics_company.models.ArchivedShipment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.logistics_company.repositories.ShipmentRepository.AFTER_CURSOR;
+import static com.example.logistics_company.repositories.ShipmentRepository.CURSOR_ORDER;
+
+/**
+ * Репозитори за архивираните пратки (таблица "shipments_archive").
+ * Справките повтарят тези от ShipmentRepository със същия keyset курсор,
+ * за да могат резултатите от двете таблици да се слеят в една страница.
+ */
+public interface ArchivedShipmentRepository extends JpaRepository<ArchivedShipment, Long> {
+
+    /**
+     * Копира пратките с подадените ID-та от shipments в архива с една INSERT ... SELECT заявка.
+     * Копират се само доставените – условието съвпада с ShipmentRepository.deleteArchived.
+     *
+     * Native заявката декларира засегнатата таблица (native spaces) – иначе Hibernate
+     * изчиства целия second-level cache след всяко изпълнение.
+     *
+     * @param ids        ID-та на пратките
+     * @param archivedAt момент на архивиране
+     * @return брой копирани редове
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "shipments_archive"))
+    @Query(value = "INSERT INTO shipments_archive (id, version, sender_id, receiver_id, registered_by_employee_id, " +
+            "delivery_address, weight, to_office, status, registration_date, delivery_date, price, registered_office_id, " +
+            "archived_at) " +
+            "SELECT id, version, sender_id, receiver_id, registered_by_employee_id, delivery_address, weight, " +
+            "to_office, status, registration_date, delivery_date, price, registered_office_id, :archivedAt " +
+            "FROM shipments WHERE id IN :ids AND status = 'DELIVERED'", nativeQuery = true)
+    int copyFromShipments(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Архивирана пратка заедно с подателя и получателя (виж ShipmentRepository.findWithDetailsById).
+     *
+     * @param id идентификатор на пратката
+     * @return Optional с пратката, или празен Optional, ако не е архивирана
+     */
+    @EntityGraph(ArchivedShipment.LIST_GRAPH)
+    Optional<ArchivedShipment> findWithDetailsById(Long id);
+
+    /**
+     * Страница от архивирани пратки, изпратени от даден клиент (виж ShipmentRepository.findPageSentByClient).
+     */
+    @EntityGraph(ArchivedShipment.LIST_GRAPH)
+    @Query("SELECT s FROM ArchivedShipment s WHERE s.sender.id = :clientId AND " + AFTER_CURSOR + CURSOR_ORDER)
+    List<ArchivedShipment> findPageSentByClient(@Param("clientId") Long clientId,
+                                                @Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+
+    /**
+     * Страница от архивирани пратки, получени от даден клиент (виж ShipmentRepository.findPageReceivedByClient).
+     */
+    @EntityGraph(ArchivedShipment.LIST_GRAPH)
+    @Query("SELECT s FROM ArchivedShipment s WHERE s.receiver.id = :clientId AND " + AFTER_CURSOR + CURSOR_ORDER)
+    List<ArchivedShipment> findPageReceivedByClient(@Param("clientId") Long clientId,
+                                                    @Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+
+    /**
+     * Архивирани пратки по ден на регистрация и офис – за преизчисляване на дневния агрегат.
+     */
+    @Query("SELECT s.registrationDate AS day, s.registeredOfficeId AS officeId, COUNT(s) AS shipments, " +
+            "SUM(s.weight) AS weight, 0.0 AS revenue " +
+            "FROM ArchivedShipment s " +
+            "GROUP BY s.registrationDate, s.registeredOfficeId")
+    List<ShipmentRepository.DailyTotals> sumRegisteredByDayAndOffice();
+
+    /**
+     * Архивирани (доставени) пратки по ден на доставка и офис – за преизчисляване на дневния агрегат.
+     * Без дата на доставка се брои денят на регистрация (виж ShipmentStatsDelta).
+     */
+    @Query("SELECT COALESCE(s.deliveryDate, s.registrationDate) AS day, s.registeredOfficeId AS officeId, " +
+            "COUNT(s) AS shipments, SUM(s.weight) AS weight, COALESCE(SUM(s.price), 0) AS revenue " +
+            "FROM ArchivedShipment s " +
+            "GROUP BY COALESCE(s.deliveryDate, s.registrationDate), s.registeredOfficeId")
+    List<ShipmentRepository.DailyTotals> sumDeliveredByDayAndOffice();
+}
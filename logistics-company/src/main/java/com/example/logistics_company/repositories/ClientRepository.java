@@ -2,6 +2,12 @@ package com.example.logistics_company.repositories;
 
 import com.example.logistics_company.models.Client;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Репозитори за CRUD операции върху таблицата "clients".
@@ -14,4 +20,37 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface ClientRepository extends JpaRepository<Client, Long> {
 
+    /**
+     * Връща кои от подадените ID-та съществуват – една IN заявка, без зареждане на entity-та.
+     *
+     * @param ids ID-та на клиенти
+     * @return съществуващите сред тях
+     */
+    @Query("SELECT c.id FROM Client c WHERE c.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * ID и email на клиент – за таблици за съответствие при импорт.
+     */
+    interface ClientKey {
+        Long getId();
+        String getEmail();
+    }
+
+    /**
+     * Намира клиентите по email с една IN заявка.
+     *
+     * @param emails email адреси
+     * @return ID и email на намерените клиенти
+     */
+    List<ClientKey> findByEmailIn(Collection<String> emails);
+
+    /**
+     * Връща кои от подадените телефонни номера вече са заети.
+     *
+     * @param phoneNumbers телефонни номера
+     * @return съществуващите сред тях
+     */
+    @Query("SELECT c.phoneNumber FROM Client c WHERE c.phoneNumber IN :phoneNumbers")
+    Set<String> findExistingPhoneNumbers(@Param("phoneNumbers") Collection<String> phoneNumbers);
 }
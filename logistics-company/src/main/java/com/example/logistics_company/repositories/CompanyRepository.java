@@ -1,7 +1,12 @@
 package com.example.logistics_company.repositories;
 
 import com.example.logistics_company.models.Company;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 /**
  * Репозитори за CRUD операции върху таблицата "companies".
@@ -12,4 +17,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
  *   - изтриване на клиент (deleteById, delete)
  */
 
-public interface CompanyRepository extends JpaRepository<Company, Long> { }
\ No newline at end of file
+public interface CompanyRepository extends JpaRepository<Company, Long> {
+
+    /**
+     * Всички компании; резултатът се пази в query cache-а, а самите обекти – в second-level cache-а.
+     * Hibernate инвалидира кешираната заявка при всеки запис в таблицата.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Company> findAll();
+}
\ No newline at end of file
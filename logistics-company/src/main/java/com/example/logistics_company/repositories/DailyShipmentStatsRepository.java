@@ -0,0 +1,43 @@
+package com.example.logistics_company.repositories;
+
+import com.example.logistics_company.models.DailyShipmentStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+/**
+ * Репозитори за дневния агрегат на пратките (таблица "daily_shipment_stats").
+ * Промените (делтите) се записват от ShipmentStatsService с многоредов upsert.
+ */
+public interface DailyShipmentStatsRepository extends JpaRepository<DailyShipmentStats, Long> {
+
+    /**
+     * Изтрива редовете, в които всички стойности са нула (напр. след изтриване на пратките за деня).
+     * DELETE чете текущите стойности, така че ред, който паралелна транзакция току-що е увеличила,
+     * не се изтрива, а незавършена промяна по реда се изчаква.
+     *
+     * @return брой изтрити редове
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_shipment_stats"))
+    @Query(value = "DELETE FROM daily_shipment_stats WHERE registered_count = 0 AND delivered_count = 0 " +
+            "AND ABS(registered_weight) < 1e-6 AND ABS(delivered_weight) < 1e-6 AND ABS(revenue) < 1e-6",
+            nativeQuery = true)
+    int deleteEmptyRows();
+
+    /**
+     * Сумира приходите за дни в интервала (включително) – по един ред на ден и офис.
+     *
+     * @param start начална дата
+     * @param end   крайна дата
+     * @return сумата или 0, ако няма редове
+     */
+    @Query("SELECT COALESCE(SUM(d.revenue), 0) FROM DailyShipmentStats d WHERE d.day BETWEEN :start AND :end")
+    double sumRevenueBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+}
@@ -1,7 +1,15 @@
 package com.example.logistics_company.repositories;
 
 import com.example.logistics_company.models.Employee;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Репозитори за CRUD операции върху таблицата "employees".
@@ -14,4 +22,25 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
+    /**
+     * Всички служители заедно с офиса им (един SELECT с join).
+     * Резултатът се пази в query cache-а, а служителите и офисите – в second-level cache-а.
+     */
+    @Override
+    @EntityGraph(attributePaths = "office")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Employee> findAll();
+
+    /**
+     * Служител по ID заедно с офиса му.
+     */
+    @Override
+    @EntityGraph(attributePaths = "office")
+    Optional<Employee> findById(Long id);
+
+    /**
+     * Служители по списък от ID-та заедно с офисите им (една IN заявка).
+     */
+    @EntityGraph(attributePaths = "office")
+    List<Employee> findByIdIn(Collection<Long> ids);
 }
@@ -1,7 +1,12 @@
 package com.example.logistics_company.repositories;
 
 import com.example.logistics_company.models.Office;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 /**
  * Репозитори за CRUD операции върху таблицата "offices".
@@ -14,4 +19,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface OfficeRepository extends JpaRepository<Office, Long> {
 
+    /**
+     * Всички офиси; резултатът се пази в query cache-а, а самите обекти – в second-level cache-а.
+     * Hibernate инвалидира кешираната заявка при всеки запис в таблицата.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Office> findAll();
 }
@@ -0,0 +1,69 @@
+package com.example.logistics_company.repositories;
+
+import com.example.logistics_company.models.OutboxMessage;
+import com.example.logistics_company.models.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозитори за чакащите събития по пратки (таблица "outbox").
+ */
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Заключва до limit чакащи реда, готови за опит.
+     * SKIP LOCKED прескача редовете, заключени от друг dispatcher, вместо да чака –
+     * няколко инстанции на приложението разпределят редовете помежду си без блокиране.
+     *
+     * Заявката няма ORDER BY: с него базата заключва всички готови редове, преди да приложи LIMIT
+     * (H2 винаги, MySQL при filesort), и втори dispatcher не получава нищо. Без него редовете се
+     * четат по индекса idx_outbox_status_available – приблизително по available_at; строг ред
+     * така или иначе няма при повторни опити и няколко dispatcher-а.
+     *
+     * @param now   текущ момент
+     * @param limit максимален брой редове
+     * @return заключените редове
+     */
+    @Query(value = "SELECT * FROM outbox WHERE status = 'PENDING' AND available_at <= :now " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> claim(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Изтрива изпратените редове с един DELETE.
+     * @param ids ID-та на редовете
+     * @return брой изтрити редове
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Отлага неуспешно изпратен ред до следващия опит или го маркира като DEAD.
+     * @return брой обновени редове
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :status, m.availableAt = :availableAt, m.lastError = :error " +
+            "WHERE m.id = :id")
+    int reschedule(@Param("id") Long id,
+                   @Param("status") OutboxStatus status,
+                   @Param("availableAt") LocalDateTime availableAt,
+                   @Param("error") String error);
+
+    /**
+     * Брой редове и момент на записване на най-стария ред с даден статус – за метриките.
+     */
+    @Query("SELECT COUNT(m) AS count, MIN(m.createdAt) AS oldest FROM OutboxMessage m WHERE m.status = :status")
+    Backlog findBacklog(@Param("status") OutboxStatus status);
+
+    interface Backlog {
+        long getCount();
+
+        LocalDateTime getOldest();
+    }
+}
@@ -1,79 +1,282 @@
 package com.example.logistics_company.repositories;
 
+import com.example.logistics_company.dto.ShipmentExportRow;
 import com.example.logistics_company.models.Shipment;
 import com.example.logistics_company.models.ShipmentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс за достъп до данни на пратки (Shipment).
  * Разширява JpaRepository, което автоматично предоставя
  * основни CRUD операции
+ *
+ * Асоциациите на Shipment са LAZY; всяка заявка, чийто резултат се връща към клиента,
+ * декларира entity graph, така че подателят, получателят и служителят се зареждат
+ * с join в същия SELECT – броят SQL заявки не зависи от броя редове.
+ *
+ * Индексите за всяка заявка са описани в db/migration/V3__shipment_query_indexes.sql.
  */
 
 public interface ShipmentRepository extends JpaRepository<Shipment, Long> {
 
     /**
-     * Намира всички пратки със зададен статус.
+     * Keyset условие: редовете строго след курсора (registrationDate, id)
+     * при подредба по дата и ID в низходящ ред.
+     * Излишното на пръв поглед registrationDate <= :date дава на базата диапазон
+     * по втората колона на индексите (филтър, registration_date, id) – OR условието само по себе си не е.
+     */
+    String AFTER_CURSOR = "s.registrationDate <= :date AND " +
+            "(s.registrationDate < :date OR (s.registrationDate = :date AND s.id < :id))";
+    String CURSOR_ORDER = " ORDER BY s.registrationDate DESC, s.id DESC";
+
+    /**
+     * Намира пратка по ID заедно с подателя и получателя.
+     * Служителят и офисът му се зареждат от second-level cache-а в ShipmentService.
+     *
+     * @param id идентификатор на пратката
+     * @return Optional с пратката, или празен Optional
+     */
+    @EntityGraph(Shipment.LIST_GRAPH)
+    Optional<Shipment> findWithDetailsById(Long id);
+
+    /**
+     * Страница от всички пратки след дадения курсор.
+     *
+     * @param date  registrationDate на последния ред от предишната страница
+     * @param id    ID на последния ред от предишната страница
+     * @param limit максимален брой редове
+     * @return пратките, подредени по (registrationDate, id) в низходящ ред
+     */
+    @EntityGraph(Shipment.LIST_GRAPH)
+    @Query("SELECT s FROM Shipment s WHERE " + AFTER_CURSOR + CURSOR_ORDER)
+    List<Shipment> findPage(@Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+
+    /**
+     * Страница от пратки със зададен статус.
      *
-     * @param status статус на пратката (SHIPPED, IN_TRANSIT, DELIVERED)
-     * @return списък от пратки с този статус
+     * @param status статус на пратката (SHIPPED, DELIVERED)
+     * @param date   registrationDate на курсора
+     * @param id     ID на курсора
+     * @param limit  максимален брой редове
+     * @return пратки с този статус след курсора
      */
-    List<Shipment> findByStatus(ShipmentStatus status);
+    @EntityGraph(Shipment.LIST_GRAPH)
+    @Query("SELECT s FROM Shipment s WHERE s.status = :status AND " + AFTER_CURSOR + CURSOR_ORDER)
+    List<Shipment> findPageByStatus(@Param("status") ShipmentStatus status,
+                                    @Param("date") LocalDate date, @Param("id") Long id, Limit limit);
 
     /**
-     * Намира всички пратки, регистрирани от даден служител.
+     * Страница от пратки, регистрирани от даден служител.
      *
      * @param employeeId идентификатор на служителя, който е регистрирал пратките
-     * @return списък от пратки, регистрирани от този служител
+     * @param date       registrationDate на курсора
+     * @param id         ID на курсора
+     * @param limit      максимален брой редове
+     * @return пратки, регистрирани от този служител, след курсора
      */
-    @Query("SELECT s FROM Shipment s WHERE s.registeredBy.id = :employeeId")
-    List<Shipment> findShipmentsRegisteredByEmployeeId(@Param("employeeId") Long employeeId);
+    @EntityGraph(Shipment.LIST_GRAPH)
+    @Query("SELECT s FROM Shipment s WHERE s.registeredBy.id = :employeeId AND " + AFTER_CURSOR + CURSOR_ORDER)
+    List<Shipment> findPageRegisteredByEmployee(@Param("employeeId") Long employeeId,
+                                                @Param("date") LocalDate date, @Param("id") Long id, Limit limit);
 
     /**
-     * Намира всички пратки, изпратени от даден клиент.
+     * Страница от пратки, изпратени от даден клиент.
      *
      * @param clientId идентификатор на клиента-изпращач
-     * @return списък от пратки, чийто sender.id съвпада с clientId
+     * @param date     registrationDate на курсора
+     * @param id       ID на курсора
+     * @param limit    максимален брой редове
+     * @return пратки, чийто sender.id съвпада с clientId, след курсора
      */
-    @Query("SELECT s FROM Shipment s WHERE s.sender.id = :clientId")
-    List<Shipment> findShipmentsSentByClient(@Param("clientId") Long clientId);
+    @EntityGraph(Shipment.LIST_GRAPH)
+    @Query("SELECT s FROM Shipment s WHERE s.sender.id = :clientId AND " + AFTER_CURSOR + CURSOR_ORDER)
+    List<Shipment> findPageSentByClient(@Param("clientId") Long clientId,
+                                        @Param("date") LocalDate date, @Param("id") Long id, Limit limit);
 
     /**
-     * Намира всички пратки, които са получени за даден клиент.
+     * Страница от пратки, получени от даден клиент.
      *
      * @param clientId идентификатор на клиента-получател
-     * @return списък от пратки, чийто receiver.id съвпада с clientId
+     * @param date     registrationDate на курсора
+     * @param id       ID на курсора
+     * @param limit    максимален брой редове
+     * @return пратки, чийто receiver.id съвпада с clientId, след курсора
+     */
+    @EntityGraph(Shipment.LIST_GRAPH)
+    @Query("SELECT s FROM Shipment s WHERE s.receiver.id = :clientId AND " + AFTER_CURSOR + CURSOR_ORDER)
+    List<Shipment> findPageReceivedByClient(@Param("clientId") Long clientId,
+                                            @Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+
+    /**
+     * Страница от пратки, които все още не са доставени. Върнатите (RETURNED) също са в
+     * краен статус и не се броят за недоставени.
+     *
+     * @param date  registrationDate на курсора
+     * @param id    ID на курсора
+     * @param limit максимален брой редове
+     * @return пратки със статус различен от DELIVERED и RETURNED след курсора
+     */
+    @EntityGraph(Shipment.LIST_GRAPH)
+    @Query("SELECT s FROM Shipment s WHERE s.status NOT IN ('DELIVERED', 'RETURNED') AND " + AFTER_CURSOR + CURSOR_ORDER)
+    List<Shipment> findNotDeliveredPage(@Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+
+    /**
+     * @return брой пратки със статус различен от DELIVERED и RETURNED (по индекса idx_shipments_status_registration)
      */
-    @Query("SELECT s FROM Shipment s WHERE s.receiver.id = :clientId")
-    List<Shipment> findShipmentsReceivedByClient(@Param("clientId") Long clientId);
+    @Query("SELECT count(s) FROM Shipment s WHERE s.status NOT IN ('DELIVERED', 'RETURNED')")
+    long countNotDelivered();
+
+    /** Брой редове, които драйверът чете наведнъж при експорт (MySQL: изисква useCursorFetch=true). */
+    String EXPORT_FETCH_SIZE = "1000";
 
     /**
-     * Намира всички пратки, които все още не са доставени.
+     * Поток от всички пратки, отговарящи на филтрите, подредени по ID.
+     * Връща DTO-та (без entity-та в persistence context-а), а драйверът чете
+     * на порции от EXPORT_FETCH_SIZE реда, така че паметта не расте с броя редове.
+     * Потокът трябва да се консумира в транзакция и да се затвори.
      *
-     * @return списък от пратки със статус различен от DELIVERED
+     * @param status статус или null за всички
+     * @param from   най-ранна дата на регистрация (включително) или null
+     * @param to     най-късна дата на регистрация (включително) или null
+     * @return поток от редове за експорт
      */
-    @Query("SELECT s FROM Shipment s WHERE s.status <> 'DELIVERED'")
-    List<Shipment> findNotDeliveredShipments();
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.logistics_company.dto.ShipmentExportRow(s.id, s.status, s.registrationDate, " +
+            "s.deliveryDate, s.sender.id, s.receiver.id, s.registeredBy.id, s.deliveryAddress, s.weight, " +
+            "s.toOffice, s.price) FROM Shipment s " +
+            "WHERE (:status IS NULL OR s.status = :status) " +
+            "AND (:from IS NULL OR s.registrationDate >= :from) " +
+            "AND (:to IS NULL OR s.registrationDate <= :to) " +
+            "ORDER BY s.id")
+    Stream<ShipmentExportRow> streamForExport(@Param("status") ShipmentStatus status,
+                                              @Param("from") LocalDate from,
+                                              @Param("to") LocalDate to);
 
+    /**
+     * Състоянието на пратка преди пакетна доставка – само полетата, нужни за отчета
+     * и за дневния агрегат.
+     */
+    interface DeliveryCandidate {
+        Long getId();
+        ShipmentStatus getStatus();
+        double getWeight();
+        Double getPrice();
+        Long getOfficeId();
+    }
 
     /**
-     * Намира всички пратки, доставени между зададените дати (включително),
-     * с конкретен статус (в този случай DELIVERED).
+     * Чете състоянието на пратките с подадените ID-та с една IN заявка, без entity-та.
      *
-     * @param status статус на пратката (DELIVERED)
-     * @param start  начална дата (yyyy-MM-dd)
-     * @param end    крайна дата (yyyy-MM-dd)
-     * @return списък от пратки, доставени в този период
-     */
-    @Query("SELECT s FROM Shipment s WHERE s.status = :status AND s.deliveryDate BETWEEN :start AND :end")
-    List<Shipment> findDeliveredBetween(
-            @Param("status") ShipmentStatus status,
-            @Param("start") LocalDate start,
-            @Param("end")   LocalDate end
-    );
-}
\ No newline at end of file
+     * @param ids ID-та на пратки
+     * @return намерените пратки (липсващите ID-та не присъстват)
+     */
+    @Query("SELECT s.id AS id, s.status AS status, s.weight AS weight, s.price AS price, " +
+            "s.registeredOfficeId AS officeId FROM Shipment s WHERE s.id IN :ids")
+    List<DeliveryCandidate> findDeliveryCandidates(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Маркира пратките като доставени с един UPDATE. Условието за статус гарантира,
+     * че се променят само редове, които все още са в очакваното състояние.
+     * Bulk UPDATE заобикаля @Version, затова версията се увеличава изрично.
+     *
+     * @param ids          ID-та на пратките
+     * @param from         статус, от който се преминава (напр. SHIPPED или OUT_FOR_DELIVERY)
+     * @param to           нов статус (DELIVERED)
+     * @param deliveryDate дата на доставка
+     * @return брой променени редове
+     */
+    @Modifying
+    @Query("UPDATE Shipment s SET s.status = :to, s.deliveryDate = :deliveryDate, s.version = s.version + 1 " +
+            "WHERE s.id IN :ids AND s.status = :from")
+    int updateStatusWhere(@Param("ids") Collection<Long> ids,
+                          @Param("from") ShipmentStatus from,
+                          @Param("to") ShipmentStatus to,
+                          @Param("deliveryDate") LocalDate deliveryDate);
+
+    /**
+     * Сумарни стойности за един ден и офис, използвани при преизчисляване на дневния агрегат.
+     */
+    interface DailyTotals {
+        LocalDate getDay();
+        Long getOfficeId();
+        long getShipments();
+        double getWeight();
+        double getRevenue();
+    }
+
+    /**
+     * Регистрирани пратки, групирани по ден на регистрация и офис на регистрацията.
+     * Редовете без офис имат officeId = null.
+     */
+    @Query("SELECT s.registrationDate AS day, s.registeredOfficeId AS officeId, COUNT(s) AS shipments, " +
+            "SUM(s.weight) AS weight, 0.0 AS revenue " +
+            "FROM Shipment s " +
+            "GROUP BY s.registrationDate, s.registeredOfficeId")
+    List<DailyTotals> sumRegisteredByDayAndOffice();
+
+    /**
+     * Доставени пратки, групирани по ден на доставка и офис на регистрацията.
+     * Без дата на доставка се брои денят на регистрация (виж ShipmentStatsDelta).
+     * Редовете без офис имат officeId = null.
+     */
+    @Query("SELECT COALESCE(s.deliveryDate, s.registrationDate) AS day, s.registeredOfficeId AS officeId, " +
+            "COUNT(s) AS shipments, SUM(s.weight) AS weight, COALESCE(SUM(s.price), 0) AS revenue " +
+            "FROM Shipment s WHERE s.status = :status " +
+            "GROUP BY COALESCE(s.deliveryDate, s.registrationDate), s.registeredOfficeId")
+    List<DailyTotals> sumDeliveredByDayAndOffice(@Param("status") ShipmentStatus status);
+
+    /**
+     * Следващите пратки без записана цена след дадено ID (keyset по ID), заедно със служителя
+     * и офиса му (градът определя добавката по тарифата). Празнините между ID-тата –
+     * напр. до редовете, вмъкнати извън приложението от 10^12 нагоре – не струват заявки.
+     *
+     * @param afterId последното обработено ID (0 за начало)
+     * @param limit   размер на порцията
+     * @return пратките без цена, подредени по ID
+     */
+    @Query("SELECT s FROM Shipment s LEFT JOIN FETCH s.registeredBy e LEFT JOIN FETCH e.office " +
+            "WHERE s.price IS NULL AND s.id > :afterId ORDER BY s.id")
+    List<Shipment> findWithoutPriceAfter(@Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Заключва до limit доставени пратки за архивиране: доставени и регистрирани преди cutoff
+     * (второто условие гарантира, че в архива няма пратки, регистрирани на или след cutoff –
+     * на това разчита сливането на страниците в ShipmentService). Чете по индекса
+     * idx_shipments_status_delivery. SKIP LOCKED оставя заключените от друга инстанция
+     * редове на нея; заявката няма ORDER BY по същата причина като OutboxRepository.claim.
+     *
+     * @param cutoff първият ден, който остава в shipments
+     * @param limit  максимален брой редове
+     * @return ID-тата на заключените пратки
+     */
+    @Query(value = "SELECT id FROM shipments WHERE status = 'DELIVERED' AND delivery_date < :cutoff " +
+            "AND registration_date < :cutoff LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockArchivable(@Param("cutoff") LocalDate cutoff, @Param("limit") int limit);
+
+    /**
+     * Изтрива вече копираните в архива пратки с един DELETE.
+     *
+     * @param ids ID-та на пратките
+     * @return брой изтрити редове
+     */
+    @Modifying
+    @Query("DELETE FROM Shipment s WHERE s.id IN :ids AND s.status = 'DELIVERED'")
+    int deleteArchived(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,23 @@
+package com.example.logistics_company.repositories;
+
+import com.example.logistics_company.models.ShipmentTrackingEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Репозитори за историята на пратките (таблица "shipment_events").
+ */
+public interface ShipmentTrackingEventRepository extends JpaRepository<ShipmentTrackingEvent, Long> {
+
+    /**
+     * Историята на една пратка в хронологичен ред – само по индекса idx_shipment_events_shipment_ts.
+     * Събитията от една транзакция имат еднакъв ts и се подреждат по id.
+     * @param shipmentId ID на пратката
+     * @return събитията или празен списък, ако пратката няма история
+     */
+    @Query("SELECT e FROM ShipmentTrackingEvent e WHERE e.shipmentId = :shipmentId ORDER BY e.timestamp, e.id")
+    List<ShipmentTrackingEvent> findTimeline(@Param("shipmentId") Long shipmentId);
+}
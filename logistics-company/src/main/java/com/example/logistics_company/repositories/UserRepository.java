@@ -1,7 +1,10 @@
 package com.example.logistics_company.repositories;
 
+import com.example.logistics_company.models.AuthenticatedUser;
 import com.example.logistics_company.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -19,4 +22,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return Optional, съдържащ User ако е намерен, или празен Optional, ако няма такъв
      */
     Optional<User> findByUsername(String username);
+
+    /**
+     * Извлича само данните, нужни за principal-а на потребителя:
+     * ID, username, хеширана парола, тип и ID-тата на свързания служител/клиент и офиса на служителя.
+     * Не зарежда Client и Employee обектите (office_id се чете от реда на служителя).
+     *
+     * @param username уникалното потребителско име
+     * @return Optional с AuthenticatedUser, или празен Optional, ако няма такъв потребител
+     */
+    @Query("SELECT new com.example.logistics_company.models.AuthenticatedUser(" +
+            "u.id, u.username, u.password, u.userType, e.id, c.id, e.office.id) " +
+            "FROM User u LEFT JOIN u.employee e LEFT JOIN u.client c WHERE u.username = :username")
+    Optional<AuthenticatedUser> findPrincipalByUsername(@Param("username") String username);
 }
@@ -0,0 +1,54 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.repositories.ShipmentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Бизнес показатели в /actuator/prometheus:
+ * - app.shipments.not.delivered – пратки, които все още не са доставени или върнати
+ * - app.shipments.stream.subscribers – активни абонати на GET /api/shipments/stream
+ *
+ * Броят недоставени пратки е COUNT заявка, затова не се изпълнява при всяко scrape-ване,
+ * а се опреснява периодично (app.metrics.refresh) и gauge-ът връща последната стойност.
+ */
+@Service
+public class BusinessMetricsService {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private ShipmentStreamService streamService;
+
+    private final AtomicLong notDelivered = new AtomicLong();
+
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("app.shipments.not.delivered", notDelivered, AtomicLong::get)
+                .description("Пратки със статус различен от DELIVERED")
+                .register(registry);
+        Gauge.builder("app.shipments.stream.subscribers", streamService, ShipmentStreamService::getSubscriberCount)
+                .description("Активни абонати на потока с промени по пратки")
+                .register(registry);
+    }
+
+    /**
+     * Опреснява броя недоставени пратки.
+     */
+    @Scheduled(fixedDelayString = "${app.metrics.refresh:PT30S}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        notDelivered.set(shipmentRepository.countNotDelivered());
+    }
+}
@@ -3,7 +3,9 @@ package com.example.logistics_company.services;
 import com.example.logistics_company.models.Client;
 import com.example.logistics_company.repositories.ClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,11 +23,15 @@ public class ClientService {
     @Autowired
     private ClientRepository clientRepository;
 
+    @Autowired
+    private EntityVersionService versions;
+
     /**
      * Връща всички клиенти от базата данни.
      *
      * @return списък с всички клиенти
      */
+    @Transactional(readOnly = true)
     public List<Client> getAllClients() {
         return clientRepository.findAll();
     }
@@ -36,6 +42,7 @@ public class ClientService {
      * @param id идентификатор на клиента
      * @return {@link Optional} съдържащ клиента, ако е намерен, или празен ако не е
      */
+    @Transactional(readOnly = true)
     public Optional<Client> getClientById(Long id) {
         return clientRepository.findById(id);
     }
@@ -47,7 +54,9 @@ public class ClientService {
      * @return запазения {@link Client} обект
      */
     public Client createClient(Client client) {
-        return clientRepository.save(client);
+        Client saved = clientRepository.save(client);
+        versions.changed(Client.class);
+        return saved;
     }
 
     /**
@@ -59,8 +68,9 @@ public class ClientService {
      * @param updatedClient обект {@link Client} с новите данни
      * @return обновеният {@link Client} обект или null, ако клиентът не е намерен
      */
+    @CacheEvict(cacheNames = CustomUserDetailsService.PRINCIPAL_CACHE, allEntries = true)
     public Client updateClient(Long id, Client updatedClient) {
-        return clientRepository.findById(id)
+        Client saved = clientRepository.findById(id)
                 .map(client -> {
                     client.setName(updatedClient.getName());
                     client.setEmail(updatedClient.getEmail());
@@ -68,6 +78,10 @@ public class ClientService {
                     return clientRepository.save(client);
                 })
                 .orElse(null);
+        if (saved != null) {
+            versions.changed(Client.class);
+        }
+        return saved;
     }
 
     /**
@@ -75,7 +89,9 @@ public class ClientService {
      *
      * @param id идентификатор на клиента, който ще се изтрие
      */
+    @CacheEvict(cacheNames = CustomUserDetailsService.PRINCIPAL_CACHE, allEntries = true)
     public void deleteClient(Long id) {
         clientRepository.deleteById(id);
+        versions.changed(Client.class);
     }
 }
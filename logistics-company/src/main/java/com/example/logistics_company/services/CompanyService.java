@@ -4,6 +4,7 @@ import com.example.logistics_company.models.Company;
 import com.example.logistics_company.repositories.CompanyRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,11 +22,18 @@ public class CompanyService {
     @Autowired
     private CompanyRepository companyRepository;
 
+    @Autowired
+    private ReferenceDataCacheService cacheService;
+
+    @Autowired
+    private EntityVersionService versions;
+
     /**
      * Връща всички компании от базата данни.
      *
      * @return списък с всички {@link Company} обекти
      */
+    @Transactional(readOnly = true)
     public List<Company> getAll() {
         return companyRepository.findAll();
     }
@@ -36,6 +44,7 @@ public class CompanyService {
      * @param id идентификатор на компанията
      * @return {@link Optional} съдържащ компанията, ако е намерена, или празен, ако не е
      */
+    @Transactional(readOnly = true)
     public Optional<Company> getById(Long id) {
         return companyRepository.findById(id);
     }
@@ -47,33 +56,42 @@ public class CompanyService {
      * @return запазеният {@link Company} обект
      */
     public Company create(Company c) {
-        return companyRepository.save(c);
+        Company saved = companyRepository.save(c);
+        versions.changed(Company.class);
+        return saved;
     }
 
     /**
      * Актуализира съществуваща компания.
      * Първо търси по ID и ако е намерена, обновява
-     * полетата, след което записва.
+     * полетата, след което записва и изчиства компанията от second-level cache-а.
      *
      * @param id идентификатор на компанията, която ще се обнови
      * @param updated обект {@link Company} с новите данни
      * @return обновеният {@link Company} обект или null, ако компанията не е намерена
      */
     public Company update(Long id, Company updated) {
-        return companyRepository.findById(id).map(c -> {
+        Company saved = companyRepository.findById(id).map(c -> {
             c.setName(updated.getName());
             c.setAddress(updated.getAddress());
             c.setPhone(updated.getPhone());
             return companyRepository.save(c);
         }).orElse(null);
+        if (saved != null) {
+            cacheService.evict(Company.class, id);
+            versions.changed(Company.class);
+        }
+        return saved;
     }
 
     /**
-     * Изтрива компания по дадено ID.
+     * Изтрива компания по дадено ID и я изчиства от second-level cache-а.
      *
      * @param id идентификатор на компанията, която ще се изтрие
      */
     public void delete(Long id) {
         companyRepository.deleteById(id);
+        cacheService.evict(Company.class, id);
+        versions.changed(Company.class);
     }
 }
\ No newline at end of file
@@ -0,0 +1,512 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.ImportReport;
+import com.example.logistics_company.dto.RejectedRow;
+import com.example.logistics_company.dto.ShipmentEvent;
+import com.example.logistics_company.models.*;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Service клас за масов импорт на клиенти, офиси и пратки от CSV.
+ *
+ * Файлът се чете като поток на порции (app.import.chunk-size реда). Всяка порция е отделна
+ * транзакция: външните ключове за порцията (клиенти по email, служители по ID) се зареждат
+ * с една IN заявка в таблици за съответствие, редовете се валидират, а валидните се
+ * записват на JDBC batch-ове с flush и clear на persistence context-а след всеки batch.
+ * Невалидните редове се отчитат с номера на реда и причина, без да спират останалата част от файла.
+ * Импортираните пратки получават история: SHIPPED към датата на регистрация и, ако състоянието
+ * е друго, преход към него (за DELIVERED – към датата на доставка).
+ */
+@Service
+public class CsvImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvImportService.class);
+
+    /** Какво се импортира и кои колони са задължителни в заглавния ред. */
+    public enum Type {
+        CLIENTS(Client.class, "name", "email", "phoneNumber"),
+        OFFICES(Office.class, "address", "city"),
+        // по избор: toOffice, status, registrationDate, deliveryDate, employeeId, price
+        SHIPMENTS(Shipment.class, "senderEmail", "receiverEmail", "deliveryAddress", "weight");
+
+        private final Class<?> entityType;
+        private final List<String> requiredColumns;
+
+        Type(Class<?> entityType, String... requiredColumns) {
+            this.entityType = entityType;
+            this.requiredColumns = List.of(requiredColumns);
+        }
+
+        /**
+         * @param value clients, offices или shipments (без значение от регистъра)
+         * @return съответният тип
+         * @throws IllegalArgumentException при непознат тип
+         */
+        public static Type parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported import type: " + value);
+            }
+        }
+    }
+
+    /** Ред от файла с достъп до полетата по име на колона. */
+    private static final class Row {
+        final int line;
+        final List<String> fields;
+        final Map<String, Integer> columns;
+
+        Row(int line, List<String> fields, Map<String, Integer> columns) {
+            this.line = line;
+            this.fields = fields;
+            this.columns = columns;
+        }
+
+        String get(String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    /** Грешка във валидацията на един ред. */
+    private static final class RowException extends Exception {
+        RowException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /** Състояние на един импорт – таблици за съответствие и натрупан отчет. */
+    private static final class ImportState {
+        final Employee importer;
+        final Map<String, Long> clientIds = new HashMap<>();
+        final Map<Long, Employee> employees = new HashMap<>();
+        final Set<String> seenEmails = new HashSet<>();
+        final Set<String> seenPhones = new HashSet<>();
+        final List<RejectedRow> rejectedRows = new ArrayList<>();
+        long rowsRead;
+        long imported;
+        long rejected;
+
+        ImportState(Employee importer) {
+            this.importer = importer;
+        }
+
+        void reject(int line, String error) {
+            rejected++;
+            if (rejectedRows.size() < ImportReport.MAX_REPORTED) {
+                rejectedRows.add(new RejectedRow(line, error));
+            }
+        }
+    }
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ShipmentService shipmentService;
+
+    @Autowired
+    private ShipmentStatsService statsService;
+
+    @Autowired
+    private ShipmentTrackingService tracking;
+
+    @Autowired
+    private EntityVersionService versions;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Редове в една транзакция
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize;
+
+    // През колко реда се изпраща batch към базата и се изчиства persistence context-ът
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int jdbcBatchSize;
+
+    public CsvImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Импортира CSV файл (UTF-8, първият ред е заглавен с имената на колоните).
+     *
+     * @param type     какво съдържа файлът
+     * @param in       съдържанието на файла (не се зарежда изцяло в паметта)
+     * @param importer служителят, който импортира; пратките без employeeId се записват от негово име
+     * @return отчет с броя записани и отхвърлени редове и скоростта
+     * @throws IOException              при грешка при четене
+     * @throws IllegalArgumentException ако липсва задължителна колона или файлът е невалиден CSV
+     */
+    public ImportReport importCsv(Type type, InputStream in, Employee importer) throws IOException {
+        long start = System.nanoTime();
+        ImportState state = new ImportState(importer);
+        try (CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))) {
+            Map<String, Integer> columns = readHeader(type, reader);
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                chunk.add(new Row(reader.getRecordLine(), fields, columns));
+                if (chunk.size() == chunkSize) {
+                    importChunk(type, chunk, state);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(type, chunk, state);
+            }
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        ImportReport report = new ImportReport(type.name().toLowerCase(Locale.ROOT), state.rowsRead,
+                state.imported, state.rejected, state.rejectedRows, elapsedMs);
+        log.info("Imported {} rows of {} ({} rejected) in {} ms: {} rows/s", report.getImported(), report.getType(),
+                report.getRejected(), elapsedMs, Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+
+    private static Map<String, Integer> readHeader(Type type, CsvReader reader) throws IOException {
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new IllegalArgumentException("Empty file");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // BOM в началото на файла (Excel)
+            columns.put(header.get(i).replace("\uFEFF", "").trim(), i);
+        }
+        for (String required : type.requiredColumns) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Импортира една порция в отделна транзакция. Ако базата откаже порцията
+     * (напр. паралелно записан същия email), всички нейни валидни редове се отчитат
+     * като отхвърлени, а импортът продължава със следващата порция.
+     * Email-ите и телефоните на порцията се добавят към вече видените едва след commit –
+     * редовете от отменена порция не се броят за дубликати по-нататък във файла.
+     */
+    private void importChunk(Type type, List<Row> chunk, ImportState state) {
+        state.rowsRead += chunk.size();
+        List<RejectedRow> rejected = new ArrayList<>();
+        Set<String> emails = new HashSet<>();
+        Set<String> phones = new HashSet<>();
+        try {
+            Integer imported = transactionTemplate.execute(tx -> switch (type) {
+                case CLIENTS -> importClients(chunk, state, emails, phones, rejected);
+                case OFFICES -> importOffices(chunk, rejected);
+                case SHIPMENTS -> importShipments(chunk, state, rejected);
+            });
+            state.seenEmails.addAll(emails);
+            state.seenPhones.addAll(phones);
+            state.imported += imported;
+            if (imported > 0) {
+                versions.changed(type.entityType);
+                if (type == Type.SHIPMENTS) {
+                    events.publishEvent(ShipmentEvent.bulk(ShipmentEvent.Type.REGISTERED));
+                }
+            }
+            rejected.forEach(r -> state.reject(r.getLine(), r.getError()));
+        } catch (DataAccessException | PersistenceException e) {
+            // flush през EntityManager (Persister) хвърля непреведени изключения на Hibernate
+            Set<Integer> invalidLines = new HashSet<>();
+            rejected.forEach(r -> {
+                invalidLines.add(r.getLine());
+                state.reject(r.getLine(), r.getError());
+            });
+            String error = "Chunk rolled back: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (Row row : chunk) {
+                if (!invalidLines.contains(row.line)) {
+                    state.reject(row.line, error);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param chunkEmails email-ите, записани в тази порция (попълва се тук)
+     * @param chunkPhones телефоните, записани в тази порция (попълва се тук)
+     */
+    private int importClients(List<Row> chunk, ImportState state, Set<String> chunkEmails, Set<String> chunkPhones,
+                              List<RejectedRow> rejected) {
+        Set<String> emails = new HashSet<>();
+        Set<String> phones = new HashSet<>();
+        for (Row row : chunk) {
+            addIfPresent(emails, row.get("email"));
+            addIfPresent(phones, row.get("phoneNumber"));
+        }
+        Set<String> takenEmails = new HashSet<>();
+        if (!emails.isEmpty()) {
+            clientRepository.findByEmailIn(emails).forEach(c -> takenEmails.add(c.getEmail()));
+        }
+        Set<String> takenPhones = phones.isEmpty() ? Set.of() : clientRepository.findExistingPhoneNumbers(phones);
+
+        Persister persister = new Persister();
+        for (Row row : chunk) {
+            try {
+                String name = required(row, "name", 100);
+                String email = required(row, "email", 255);
+                String phone = required(row, "phoneNumber", 13);
+                if (!email.contains("@")) {
+                    throw new RowException("Invalid email: " + email);
+                }
+                if (takenEmails.contains(email) || state.seenEmails.contains(email) || !chunkEmails.add(email)) {
+                    throw new RowException("Duplicate email: " + email);
+                }
+                if (takenPhones.contains(phone) || state.seenPhones.contains(phone) || !chunkPhones.add(phone)) {
+                    throw new RowException("Duplicate phone number: " + phone);
+                }
+                persister.persist(new Client(null, name, email, phone));
+            } catch (RowException e) {
+                rejected.add(new RejectedRow(row.line, e.getMessage()));
+            }
+        }
+        return persister.finish();
+    }
+
+    private int importOffices(List<Row> chunk, List<RejectedRow> rejected) {
+        Persister persister = new Persister();
+        for (Row row : chunk) {
+            try {
+                persister.persist(new Office(null, required(row, "address", 100), required(row, "city", 50)));
+            } catch (RowException e) {
+                rejected.add(new RejectedRow(row.line, e.getMessage()));
+            }
+        }
+        return persister.finish();
+    }
+
+    private int importShipments(List<Row> chunk, ImportState state, List<RejectedRow> rejected) {
+        loadLookups(chunk, state);
+        ShipmentStatsDelta delta = new ShipmentStatsDelta();
+        Persister persister = new Persister();
+        for (Row row : chunk) {
+            try {
+                Long senderId = clientId(row, "senderEmail", state);
+                Long receiverId = clientId(row, "receiverEmail", state);
+                String address = required(row, "deliveryAddress", 255);
+                double weight = positive(row, "weight");
+                ShipmentStatus status = row.get("status") == null
+                        ? ShipmentStatus.SHIPPED : parseStatus(row.get("status"));
+                LocalDate registered = date(row, "registrationDate");
+                LocalDate delivered = date(row, "deliveryDate");
+                if (registered == null) {
+                    registered = LocalDate.now();
+                }
+                if (status == ShipmentStatus.DELIVERED && delivered == null) {
+                    throw new RowException("deliveryDate is required for DELIVERED shipments");
+                }
+                Employee employee = employee(row, state);
+
+                Shipment shipment = new Shipment(null,
+                        entityManager.getReference(Client.class, senderId),
+                        entityManager.getReference(Client.class, receiverId),
+                        address, weight, Boolean.parseBoolean(row.get("toOffice")),
+                        status, registered, status == ShipmentStatus.DELIVERED ? delivered : null, employee);
+                shipment.setPrice(row.get("price") == null
+                        ? price(shipment) : positive(row, "price"));
+                persister.persist(shipment);
+                recordHistory(shipment, employee);
+                delta.add(shipment);
+            } catch (RowException e) {
+                rejected.add(new RejectedRow(row.line, e.getMessage()));
+            }
+        }
+        int imported = persister.finish();
+        statsService.apply(delta);
+        return imported;
+    }
+
+    private void recordHistory(Shipment shipment, Employee employee) {
+        ShipmentTrackingService.Actor actor = ShipmentTrackingService.Actor.of(employee);
+        LocalDateTime registered = shipment.getRegistrationDate().atStartOfDay();
+        tracking.record(shipment.getId(), null, ShipmentStatus.SHIPPED, actor, registered);
+        if (shipment.getStatus() != ShipmentStatus.SHIPPED) {
+            tracking.record(shipment.getId(), ShipmentStatus.SHIPPED, shipment.getStatus(), actor,
+                    shipment.getDeliveryDate() == null ? registered : shipment.getDeliveryDate().atStartOfDay());
+        }
+    }
+
+    /**
+     * Зарежда с по една IN заявка клиентите и служителите, които порцията използва
+     * и които още не са в таблиците за съответствие.
+     */
+    private void loadLookups(List<Row> chunk, ImportState state) {
+        Set<String> emails = new HashSet<>();
+        Set<Long> employeeIds = new HashSet<>();
+        for (Row row : chunk) {
+            for (String column : List.of("senderEmail", "receiverEmail")) {
+                String email = row.get(column);
+                if (email != null && !state.clientIds.containsKey(email)) {
+                    emails.add(email);
+                }
+            }
+            String employeeId = row.get("employeeId");
+            if (employeeId != null) {
+                try {
+                    Long id = Long.valueOf(employeeId);
+                    if (!state.employees.containsKey(id)) {
+                        employeeIds.add(id);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // ще бъде отхвърлен при валидацията на реда
+                }
+            }
+        }
+        if (!emails.isEmpty()) {
+            clientRepository.findByEmailIn(emails).forEach(c -> state.clientIds.put(c.getEmail(), c.getId()));
+        }
+        if (!employeeIds.isEmpty()) {
+            employeeRepository.findByIdIn(employeeIds).forEach(e -> state.employees.put(e.getId(), e));
+        }
+    }
+
+    /**
+     * Цена по тарифата за ред без колона price; ред, който тарифата не покрива
+     * (напр. регистриран преди първата ѝ версия), се отхвърля, без да спира импорта.
+     */
+    private double price(Shipment shipment) throws RowException {
+        try {
+            return shipmentService.calculatePrice(shipment);
+        } catch (IllegalArgumentException e) {
+            throw new RowException(e.getMessage());
+        }
+    }
+
+    private static Long clientId(Row row, String column, ImportState state) throws RowException {
+        String email = required(row, column, 255);
+        Long id = state.clientIds.get(email);
+        if (id == null) {
+            throw new RowException("Unknown client: " + email);
+        }
+        return id;
+    }
+
+    private static Employee employee(Row row, ImportState state) throws RowException {
+        String value = row.get("employeeId");
+        if (value == null) {
+            return state.importer;
+        }
+        try {
+            Employee employee = state.employees.get(Long.valueOf(value));
+            if (employee == null) {
+                throw new RowException("Unknown employee: " + value);
+            }
+            return employee;
+        } catch (NumberFormatException e) {
+            throw new RowException("Invalid employeeId: " + value);
+        }
+    }
+
+    private static void addIfPresent(Set<String> values, String value) {
+        if (value != null) {
+            values.add(value);
+        }
+    }
+
+    private static String required(Row row, String column, int maxLength) throws RowException {
+        String value = row.get(column);
+        if (value == null) {
+            throw new RowException(column + " is required");
+        }
+        if (value.length() > maxLength) {
+            throw new RowException(column + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private static double positive(Row row, String column) throws RowException {
+        String value = row.get(column);
+        if (value == null) {
+            throw new RowException(column + " is required");
+        }
+        try {
+            double number = Double.parseDouble(value);
+            if (!(number > 0) || Double.isInfinite(number)) {
+                throw new RowException(column + " must be positive");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new RowException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static LocalDate date(Row row, String column) throws RowException {
+        String value = row.get(column);
+        try {
+            return value == null ? null : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new RowException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static ShipmentStatus parseStatus(String value) throws RowException {
+        try {
+            return ShipmentStatus.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RowException("Invalid status: " + value);
+        }
+    }
+
+    /**
+     * Записва entity-тата и на всеки jdbcBatchSize изпраща batch-а и изчиства persistence context-а.
+     */
+    private final class Persister {
+        private int persisted;
+
+        void persist(Object entity) {
+            entityManager.persist(entity);
+            if (++persisted % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        int finish() {
+            entityManager.flush();
+            entityManager.clear();
+            return persisted;
+        }
+    }
+}
@@ -1,17 +1,13 @@
 package com.example.logistics_company.services;
 
-import com.example.logistics_company.models.User;
+import com.example.logistics_company.models.AuthenticatedUser;
 import com.example.logistics_company.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 /**
  * CustomUserDetailsService е имплементация на Spring Security интерфейса UserDetailsService.
  * Тя осигурява логика за намиране на потребител по потребителско име и връщане
@@ -19,28 +15,26 @@ import java.util.Collections;
  */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
+
+    /** Име на кеша с principal-и; изчиства се от UserService, ClientService и EmployeeService. */
+    public static final String PRINCIPAL_CACHE = "principals";
+
     @Autowired
     private UserRepository userRepository;
 
     /**
      * Зарежда потребителските данни от базата по username.
+     * Чете само нужните колони (без Client и Employee обектите) и резултатът
+     * се кешира в ограничен кеш с изтичане (вж. spring.cache.caffeine.spec).
      *
      * @param username Името на потребителя, подадено от Spring Security по време на login.
-     * @return UserDetails обект, съдържащ username, password и роли (GrantedAuthority).
+     * @return AuthenticatedUser с username, password, тип и ID-та на служител/клиент.
      * @throws UsernameNotFoundException ако потребителят не бъде намерен.
      */
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+    @Cacheable(PRINCIPAL_CACHE)
+    public AuthenticatedUser loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userRepository.findPrincipalByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-
-        GrantedAuthority auth =
-                new SimpleGrantedAuthority("ROLE_" + user.getUserType().name());
-
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                Collections.singleton(auth)
-        );
     }
 }
@@ -3,8 +3,11 @@ package com.example.logistics_company.services;
 
 import com.example.logistics_company.models.Employee;
 import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.OfficeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,12 +25,22 @@ public class EmployeeService {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private OfficeRepository officeRepository;
+
+    @Autowired
+    private ReferenceDataCacheService cacheService;
+
+    @Autowired
+    private EntityVersionService versions;
+
 
     /**
      * Връща всички служители от базата данни.
      *
      * @return списък с всички {@link Employee} обекти
      */
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees() {
         return employeeRepository.findAll();
     }
@@ -38,6 +51,7 @@ public class EmployeeService {
      * @param id идентификатор на служителя
      * @return {@link Optional} съдържащ служителя, ако е намерен, или празен, ако не е
      */
+    @Transactional(readOnly = true)
     public Optional<Employee> getEmployeeById(Long id) {
         return employeeRepository.findById(id);
     }
@@ -49,35 +63,58 @@ public class EmployeeService {
      * @return запазеният {@link Employee} обект
      */
     public Employee createEmployee(Employee employee) {
-        return employeeRepository.save(employee);
+        resolveOffice(employee);
+        Employee saved = employeeRepository.save(employee);
+        versions.changed(Employee.class);
+        return saved;
     }
 
     /**
      * Актуализира съществуващ служител.
      * Първо търси по ID и ако е намерен, обновява
-     * полетата, след което записва.
+     * полетата, след което записва и изчиства служителя от second-level cache-а.
      *
      * @param id              идентификатор на служителя, който ще се редактира
      * @param updatedEmployee обект Employee с новите стойности
      * @return Employee – актуализираният запис, или null ако не е намерен
      */
+    @CacheEvict(cacheNames = CustomUserDetailsService.PRINCIPAL_CACHE, allEntries = true)
     public Employee updateEmployee(Long id, Employee updatedEmployee) {
-        return employeeRepository.findById(id)
+        Employee saved = employeeRepository.findById(id)
                 .map(employee -> {
                     employee.setName(updatedEmployee.getName());
                     employee.setRole(updatedEmployee.getRole());
                     employee.setOffice(updatedEmployee.getOffice());
+                    resolveOffice(employee);
                     return employeeRepository.save(employee);
                 })
                 .orElse(null);
+        if (saved != null) {
+            cacheService.evict(Employee.class, id);
+            versions.changed(Employee.class);
+        }
+        return saved;
     }
 
     /**
-     * Изтрива служител по дадено ID.
+     * Изтрива служител по дадено ID и го изчиства от second-level cache-а.
      *
      * @param id идентификатор на служителя, която ще се изтрие
      */
+    @CacheEvict(cacheNames = CustomUserDetailsService.PRINCIPAL_CACHE, allEntries = true)
     public void deleteEmployee(Long id) {
         employeeRepository.deleteById(id);
+        cacheService.evict(Employee.class, id);
+        versions.changed(Employee.class);
+    }
+
+    /**
+     * Офисът идва от JSON тялото само с ID и без version – заменя се с референция,
+     * за да не се третира като detached обект с неинициализирана версия.
+     */
+    private void resolveOffice(Employee employee) {
+        if (employee.getOffice() != null && employee.getOffice().getId() != null) {
+            employee.setOffice(officeRepository.getReferenceById(employee.getOffice().getId()));
+        }
     }
 }
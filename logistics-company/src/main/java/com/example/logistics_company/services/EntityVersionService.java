@@ -0,0 +1,159 @@
+package com.example.logistics_company.services;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Броячи на версиите по тип entity (офиси, клиенти, пратки...) за ETag на списъците.
+ *
+ * Всеки service метод, който променя даден тип, вика {@link #changed}. Списъчните
+ * крайни точки смятат ETag-а от броячите преди да изпълнят заявката – ако клиентът
+ * изпрати същия ETag в If-None-Match, отговорът е 304 без заявка към базата и без JSON.
+ *
+ * Броячите са в паметта и започват от 0 при всеки старт, затова ETag-ът съдържа
+ * и случаен идентификатор на стартирането – ETag от предишен процес никога не съвпада.
+ * При няколко инстанции зад load balancer броячите не се споделят и трябва да се
+ * изнесат в обща база или кеш.
+ *
+ * При реплики за четене броячът се увеличава при commit в основната база, а репликата може
+ * да получи промяната по-късно. Затова се пази и моментът на последната промяна на всеки тип,
+ * а HTTP заявката отбелязва от кои типове зависи ({@link #etag}, {@link #reading}) –
+ * ReplicaRoutingDataSource я чете от основната база, докато промяната може да не е стигнала
+ * до репликите. Иначе нов ETag (или query cache, или second-level cache) би запомнил старите данни.
+ */
+@Service
+public class EntityVersionService {
+
+    // Атрибут на HTTP заявката с типовете, от които зависи отговорът ѝ
+    private static final String READ_TYPES = EntityVersionService.class.getName() + ".readTypes";
+
+    // Случаен за всяко стартиране на приложението
+    private final String bootId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    // System.nanoTime() на последната промяна по тип
+    private final Map<Class<?>, Long> lastChanged = new ConcurrentHashMap<>();
+
+    /**
+     * Отбелязва, че данните от дадените типове са променени.
+     * Версията се увеличава веднага и – ако има активна транзакция – още веднъж след края ѝ:
+     * ETag, изчислен докато транзакцията е отворена, може да е за старите данни
+     * и не бива да остане валиден след commit.
+     *
+     * @param types променените entity класове
+     */
+    public void changed(Class<?>... types) {
+        bump(types);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bump(types);
+                }
+            });
+        }
+    }
+
+    /**
+     * Силен ETag за отговор, който зависи от дадените типове
+     * (напр. списък с пратки зависи и от клиентите и служителите в него).
+     *
+     * @param types entity класовете, от които е съставен отговорът
+     * @return ETag в кавички, напр. "3f2a9c1e-12.4.7"
+     */
+    public String etag(Class<?>... types) {
+        reading(types);
+        StringBuilder etag = new StringBuilder("\"").append(bootId).append('-');
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                etag.append('.');
+            }
+            etag.append(counter(types[i]).get());
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Отбелязва, че отговорът на текущата HTTP заявка зависи от дадените типове.
+     * Извън HTTP заявка не прави нищо.
+     *
+     * @param types entity класовете, които заявката ще чете
+     */
+    public void reading(Class<?>... types) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Class<?>> read = (Set<Class<?>>) request.getAttribute(READ_TYPES, RequestAttributes.SCOPE_REQUEST);
+        if (read == null) {
+            read = new HashSet<>();
+            request.setAttribute(READ_TYPES, read, RequestAttributes.SCOPE_REQUEST);
+        }
+        Collections.addAll(read, types);
+    }
+
+    /**
+     * @param window колко назад се гледа (максималното забавяне на репликите)
+     * @return true, ако някой от типовете, отбелязани от текущата HTTP заявка, е променен през window
+     */
+    public boolean readsRecentChanges(Duration window) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        Object read = request == null ? null : request.getAttribute(READ_TYPES, RequestAttributes.SCOPE_REQUEST);
+        if (!(read instanceof Set<?> types)) {
+            return false;
+        }
+        long since = System.nanoTime() - window.toNanos();
+        for (Object type : types) {
+            Long changed = lastChanged.get(type);
+            if (changed != null && changed - since > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Силен ETag за един ред от колоната version (@Version) – за детайлните крайни точки.
+     * Не зависи от стартирането, защото версиите се пазят в базата.
+     *
+     * @param id       ID на обекта
+     * @param versions версията на обекта и на свързаните обекти, включени в отговора
+     * @return ETag в кавички, напр. "42-3.0.1"
+     */
+    public static String rowEtag(Long id, Long... versions) {
+        StringBuilder etag = new StringBuilder("\"").append(id).append('-');
+        for (int i = 0; i < versions.length; i++) {
+            if (i > 0) {
+                etag.append('.');
+            }
+            etag.append(versions[i]);
+        }
+        return etag.append('"').toString();
+    }
+
+    private void bump(Class<?>... types) {
+        long now = System.nanoTime();
+        for (Class<?> type : types) {
+            counter(type).incrementAndGet();
+            lastChanged.put(type, now);
+        }
+    }
+
+    private AtomicLong counter(Class<?> type) {
+        return versions.computeIfAbsent(type, t -> new AtomicLong());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.models.OutboxMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Записва събитията от outbox-а като JSON редове във файл (app.outbox.file) –
+ * за локална разработка и за проверка на потока без външни системи.
+ * Активен е само при зададен app.outbox.file.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.file")
+public class FileOutboxHandler implements OutboxHandler {
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Value("${app.outbox.file}")
+    private Path file;
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void handle(OutboxMessage message) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", message.getId());
+        line.put("type", message.getEventType());
+        line.put("shipmentId", message.getShipmentId());
+        line.put("createdAt", message.getCreatedAt());
+        line.put("event", mapper.readTree(message.getPayload()));
+        Files.writeString(file, mapper.writeValueAsString(line) + System.lineSeparator(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -6,6 +6,7 @@ import com.example.logistics_company.repositories.EmployeeRepository;
 import com.example.logistics_company.repositories.OfficeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,11 +24,18 @@ public class OfficeService {
     @Autowired
     private OfficeRepository officeRepository;
 
+    @Autowired
+    private ReferenceDataCacheService cacheService;
+
+    @Autowired
+    private EntityVersionService versions;
+
     /**
      * Връща всички офиси от базата данни.
      *
      * @return списък с всички {@link Office} обекти
      */
+    @Transactional(readOnly = true)
     public List<Office> getAllOffices() {
         return officeRepository.findAll();
     }
@@ -38,6 +46,7 @@ public class OfficeService {
      * @param id идентификатор на офиса
      * @return {@link Optional} съдържащ офиса, ако е намерен, или празен, ако не е
      */
+    @Transactional(readOnly = true)
     public Optional<Office> getOfficeById(Long id) {
         return officeRepository.findById(id);
     }
@@ -49,34 +58,43 @@ public class OfficeService {
      * @return запазеният {@link Office} обект
      */
     public Office createOffice(Office office) {
-        return officeRepository.save(office);
+        Office saved = officeRepository.save(office);
+        versions.changed(Office.class);
+        return saved;
     }
 
     /**
      * Актуализира съществуващ офис.
      * Първо търси по ID и ако е намерен, обновява
-     * полетата, след което записва.
+     * полетата, след което записва и изчиства офиса от second-level cache-а.
      *
      * @param id              идентификатор на офиса, който ще се редактира
      * @param updatedOffice обект Office с новите стойности
      * @return Office – актуализираният запис, или null ако не е намерен
      */
     public Office updateOffice(Long id, Office updatedOffice) {
-        return officeRepository.findById(id)
+        Office saved = officeRepository.findById(id)
                 .map(office -> {
                     office.setAddress(updatedOffice.getAddress());
                     office.setCity(updatedOffice.getCity());
                     return officeRepository.save(office);
                 })
                 .orElse(null);
+        if (saved != null) {
+            cacheService.evict(Office.class, id);
+            versions.changed(Office.class);
+        }
+        return saved;
     }
 
     /**
-     * Изтрива офис по дадено ID.
+     * Изтрива офис по дадено ID и го изчиства от second-level cache-а.
      *
      * @param id офиса на компанията, която ще се изтрие
      */
     public void deleteOffice(Long id) {
         officeRepository.deleteById(id);
+        cacheService.evict(Office.class, id);
+        versions.changed(Office.class);
     }
 }
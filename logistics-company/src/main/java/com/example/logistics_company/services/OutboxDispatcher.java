@@ -0,0 +1,225 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.models.OutboxMessage;
+import com.example.logistics_company.models.OutboxStatus;
+import com.example.logistics_company.repositories.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Изпраща събитията от таблицата outbox към всички {@link OutboxHandler} bean-ове.
+ *
+ * Всеки цикъл заявява до app.outbox.batch-size готови реда с SELECT ... FOR UPDATE SKIP LOCKED
+ * и в същата кратка транзакция им дава lease (available_at = сега + app.outbox.lease).
+ * Handler-ите се извикват след commit, без заключени редове и без заета връзка към базата.
+ * Изпратените редове се изтриват с един DELETE; неуспешните се отлагат с експоненциален backoff
+ * (app.outbox.backoff, удвоен за всеки опит, най-много app.outbox.max-backoff), а след
+ * app.outbox.max-attempts опита остават със статус DEAD за ръчна проверка.
+ * Ако инстанцията спре по средата на цикъла, редовете се заявяват отново след изтичане на lease-а.
+ *
+ * Метрики в /actuator/prometheus:
+ * - app.outbox.dispatched (handler, result) – изпращания по handler; скоростта им е пропускателната способност
+ * - app.outbox.lag – от записването на събитието до успешното му изпращане
+ * - app.outbox.pending, app.outbox.oldest.age – чакащи редове и възраст на най-стария (сек.)
+ * - app.outbox.dead – редове, изоставени след последния опит
+ */
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired(required = false)
+    private List<OutboxHandler> handlers = List.of();
+
+    @Value("${app.outbox.dispatcher.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.outbox.lease:PT1M}")
+    private Duration lease;
+
+    @Value("${app.outbox.backoff:PT5S}")
+    private Duration backoff;
+
+    @Value("${app.outbox.max-backoff:PT30M}")
+    private Duration maxBackoff;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    private final Map<String, Counter> successes = new ConcurrentHashMap<>();
+    private final Map<String, Counter> failures = new ConcurrentHashMap<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+    private Timer lag;
+    private Counter dead;
+
+    @PostConstruct
+    void registerMeters() {
+        lag = Timer.builder("app.outbox.lag")
+                .description("Време от записването на събитие в outbox до успешното му изпращане")
+                .publishPercentileHistogram()
+                .register(registry);
+        dead = Counter.builder("app.outbox.dead")
+                .description("Събития, изоставени след app.outbox.max-attempts опита")
+                .register(registry);
+        Gauge.builder("app.outbox.pending", pending, AtomicLong::get)
+                .description("Чакащи събития в outbox")
+                .register(registry);
+        Gauge.builder("app.outbox.oldest.age", oldestAgeSeconds, AtomicLong::get)
+                .description("Възраст на най-старото чакащо събитие")
+                .baseUnit("seconds")
+                .register(registry);
+        log.info("Outbox dispatcher {} with {} handlers", enabled ? "enabled" : "disabled", handlers.size());
+    }
+
+    /**
+     * Периодично изпраща всичко готово: пакетите се повтарят, докато се връщат пълни.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:PT1S}")
+    public void poll() {
+        if (enabled) {
+            dispatchPending();
+        }
+    }
+
+    /**
+     * Изпраща всички готови събития и опреснява метриките за чакащите.
+     * @return брой успешно изпратени събития
+     */
+    public int dispatchPending() {
+        int dispatched = 0;
+        int claimed;
+        do {
+            Batch batch = dispatchBatch();
+            claimed = batch.claimed;
+            dispatched += batch.dispatched;
+        } while (claimed == batchSize);
+        refreshBacklog();
+        return dispatched;
+    }
+
+    private Batch dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> claimed = transactionTemplate.execute(tx -> {
+            List<OutboxMessage> messages = outboxRepository.claim(now, batchSize);
+            for (OutboxMessage message : messages) {
+                message.setAttempts(message.getAttempts() + 1);
+                message.setAvailableAt(now.plus(lease));
+            }
+            return messages;
+        });
+        if (claimed.isEmpty()) {
+            return new Batch(0, 0);
+        }
+
+        List<Long> succeeded = new ArrayList<>();
+        List<OutboxMessage> failed = new ArrayList<>();
+        for (OutboxMessage message : claimed) {
+            String error = handle(message);
+            if (error == null) {
+                succeeded.add(message.getId());
+                lag.record(Duration.between(message.getCreatedAt(), LocalDateTime.now()));
+            } else {
+                message.setLastError(error);
+                failed.add(message);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            if (!succeeded.isEmpty()) {
+                outboxRepository.deleteByIds(succeeded);
+            }
+            LocalDateTime failedAt = LocalDateTime.now();
+            for (OutboxMessage message : failed) {
+                boolean exhausted = message.getAttempts() >= maxAttempts;
+                outboxRepository.reschedule(message.getId(),
+                        exhausted ? OutboxStatus.DEAD : OutboxStatus.PENDING,
+                        failedAt.plus(backoff(message.getAttempts())), message.getLastError());
+                if (exhausted) {
+                    dead.increment();
+                    log.warn("Outbox message {} ({} shipment {}) abandoned after {} attempts: {}", message.getId(),
+                            message.getEventType(), message.getShipmentId(), message.getAttempts(), message.getLastError());
+                }
+            }
+        });
+        return new Batch(claimed.size(), succeeded.size());
+    }
+
+    /**
+     * Подава събитието на всички handler-и.
+     * @return null при успех, иначе грешката на първия неуспешен handler
+     */
+    private String handle(OutboxMessage message) {
+        for (OutboxHandler handler : handlers) {
+            try {
+                handler.handle(message);
+                successes.computeIfAbsent(handler.getName(), name -> counter(name, "success")).increment();
+            } catch (Exception e) {
+                failures.computeIfAbsent(handler.getName(), name -> counter(name, "failure")).increment();
+                log.debug("Outbox handler {} failed on message {}", handler.getName(), message.getId(), e);
+                String error = handler.getName() + ": " + e;
+                return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param attempts брой направени опити (от 1)
+     * @return изчакване преди следващия опит: backoff * 2^(attempts - 1), най-много max-backoff
+     */
+    Duration backoff(int attempts) {
+        Duration delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void refreshBacklog() {
+        OutboxRepository.Backlog backlog = outboxRepository.findBacklog(OutboxStatus.PENDING);
+        pending.set(backlog.getCount());
+        oldestAgeSeconds.set(backlog.getOldest() == null ? 0
+                : Math.max(0, Duration.between(backlog.getOldest(), LocalDateTime.now()).toSeconds()));
+    }
+
+    private Counter counter(String handler, String result) {
+        return Counter.builder("app.outbox.dispatched")
+                .description("Изпращания на събития от outbox към handler-ите")
+                .tag("handler", handler)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record Batch(int claimed, int dispatched) {
+    }
+}
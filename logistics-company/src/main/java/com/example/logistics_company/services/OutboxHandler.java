@@ -0,0 +1,25 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.models.OutboxMessage;
+
+/**
+ * Получател на събитията по пратки от outbox-а (известия, фактуриране, webhooks към партньори).
+ * Всеки bean от този тип получава всяко събитие; OutboxDispatcher го извиква извън транзакция.
+ *
+ * Доставката е "поне веднъж": ако някой handler хвърли изключение, събитието се опитва отново
+ * за всички handler-и след backoff, затова обработката трябва да е идемпотентна
+ * (напр. по OutboxMessage.getId()).
+ */
+public interface OutboxHandler {
+
+    /**
+     * @return кратко име за метриките и логовете
+     */
+    String getName();
+
+    /**
+     * @param message събитието; payload е ShipmentEvent като JSON
+     * @throws Exception ако събитието трябва да бъде опитано отново
+     */
+    void handle(OutboxMessage message) throws Exception;
+}
@@ -0,0 +1,73 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.ShipmentEvent;
+import com.example.logistics_company.models.OutboxMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Service клас, който записва събитията по пратки в таблицата outbox.
+ *
+ * Слуша {@link ShipmentEvent} непосредствено преди commit на транзакцията, която го е публикувала,
+ * така че редът в outbox-а и промяната по пратката се записват или отказват заедно.
+ * Пакетните операции дават по един ред на пратка. Събития без ID-та (CSV импорт на стари данни)
+ * и събития извън транзакция не се записват.
+ */
+@Service
+public class OutboxService {
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // През колко реда се изпраща batch към базата и се изчиства persistence context-ът
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int jdbcBatchSize;
+
+    /**
+     * @param event промяната, публикувана от ShipmentService
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onShipmentEvent(ShipmentEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!event.isBulk()) {
+            entityManager.persist(message(event, now));
+            return;
+        }
+        if (event.getShipmentIds().isEmpty()) {
+            return;
+        }
+        // промените по пратките вече са изпратени – остават само редовете на outbox-а
+        entityManager.flush();
+        entityManager.clear();
+        int pending = 0;
+        for (Long shipmentId : event.getShipmentIds()) {
+            entityManager.persist(message(ShipmentEvent.of(event.getType(), shipmentId), now));
+            if (++pending == jdbcBatchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+    }
+
+    private OutboxMessage message(ShipmentEvent event, LocalDateTime now) {
+        try {
+            return new OutboxMessage(event.getType().name(), event.getShipmentId(),
+                    mapper.writeValueAsString(event), now);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.getType() + " event", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.CacheRegionStats;
+import com.example.logistics_company.dto.CacheStatsReport;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Service клас за second-level cache-а на справочните данни (офиси, компании, служители).
+ *
+ * При запис през JPA Hibernate сам обновява кешираните обекти и инвалидира кешираните
+ * findAll заявки. Update и delete методите на OfficeService, CompanyService и EmployeeService
+ * все пак изчистват записа явно след транзакцията, така че следващото четене да отиде до базата,
+ * дори ако редът е бил променен покрай сесията (bulk/native заявка или друг процес).
+ */
+@Service
+public class ReferenceDataCacheService {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Премахва един обект от second-level cache-а и всички кеширани резултати от заявки.
+     * @param type клас на entity-то (Office, Company, Employee)
+     * @param id   ID на обекта
+     */
+    public void evict(Class<?> type, Long id) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictEntityData(type, id);
+        sessionFactory.getCache().evictDefaultQueryRegion();
+    }
+
+    /**
+     * @return попадения, пропуски и записи от старта на приложението – общо, по региони и за заявките
+     */
+    public CacheStatsReport getStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<CacheRegionStats> regions = new ArrayList<>();
+        String[] names = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(names);
+        for (String name : names) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(name);
+            if (region != null) {
+                regions.add(new CacheRegionStats(name, region.getHitCount(), region.getMissCount(), region.getPutCount()));
+            }
+        }
+        CacheRegionStats total = new CacheRegionStats("total", statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount());
+        CacheRegionStats queries = new CacheRegionStats("queries", statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount());
+        return new CacheStatsReport(statistics.isStatisticsEnabled(), total, regions, queries);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.repositories.ArchivedShipmentRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.List;
+
+/**
+ * Service клас за архива на доставените пратки (таблица shipments_archive).
+ *
+ * Пратките, доставени и регистрирани преди {@link #cutoff()}, се преместват на порции:
+ * всяка порция е една транзакция, която заключва ID-тата (SKIP LOCKED), копира редовете
+ * с INSERT ... SELECT и ги изтрива от shipments. Прекъснато архивиране не оставя нищо
+ * наполовина и просто продължава със следващото изпълнение.
+ *
+ * Дневният агрегат не се променя – архивираните пратки остават в приходите
+ * и статистиката; историята им в shipment_events също остава.
+ */
+@Service
+public class ShipmentArchiveService {
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private ArchivedShipmentRepository archiveRepository;
+
+    @Autowired
+    private EntityVersionService versions;
+
+    // Колко време след доставката пратката остава в shipments
+    @Value("${app.archive.min-age:P90D}")
+    private Period minAge;
+
+    /**
+     * Граница на архива: всички архивирани пратки са регистрирани и доставени преди този ден.
+     * Границата само расте, затова страница от активни пратки, чийто последен ред е
+     * регистриран на или след нея, няма нужда от архива.
+     * @return първият ден, чиито пратки остават в shipments
+     */
+    public LocalDate cutoff() {
+        return LocalDate.now().minus(minAge);
+    }
+
+    /**
+     * Премества една порция доставени пратки в архива.
+     * @param cutoff първият ден, който остава в shipments
+     * @param limit  максимален брой пратки в порцията
+     * @return брой преместени пратки (0, когато няма повече за архивиране)
+     * @throws OptimisticLockingFailureException ако броят копирани и изтрити редове се различава
+     */
+    @Transactional
+    public int archiveChunk(LocalDate cutoff, int limit) {
+        List<Long> ids = shipmentRepository.lockArchivable(cutoff, limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int copied = archiveRepository.copyFromShipments(ids, LocalDateTime.now());
+        int deleted = shipmentRepository.deleteArchived(ids);
+        if (copied != ids.size() || deleted != copied) {
+            throw new OptimisticLockingFailureException("Shipments changed while archiving: locked "
+                    + ids.size() + ", copied " + copied + ", deleted " + deleted);
+        }
+        versions.changed(Shipment.class);
+        return deleted;
+    }
+}
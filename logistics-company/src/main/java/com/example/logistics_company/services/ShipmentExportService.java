@@ -0,0 +1,167 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.ShipmentExportRow;
+import com.example.logistics_company.models.ShipmentStatus;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Service клас за експорт на пратки като NDJSON или CSV.
+ *
+ * Редовете се четат като поток от базата и се записват директно в изходния поток
+ * на отговора – нито резултатът, нито сериализираният текст се държат в паметта,
+ * затова използваната памет е една и съща при хиляда и при милиони редове.
+ */
+@Service
+public class ShipmentExportService {
+
+    /** Поддържани формати на експорта. */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @param value име на формата (ndjson или csv, без значение от регистъра)
+         * @return съответният формат
+         * @throws IllegalArgumentException при непознат формат
+         */
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private static final String CSV_HEADER = "id,status,registrationDate,deliveryDate,senderId,receiverId," +
+            "registeredByEmployeeId,deliveryAddress,weight,toOffice,price";
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Записва пратките, отговарящи на филтрите, в изходния поток.
+     * Транзакцията (и курсорът в базата) е отворена, докато трае записът.
+     *
+     * @param format формат на изхода
+     * @param status статус или null за всички
+     * @param from   най-ранна дата на регистрация или null
+     * @param to     най-късна дата на регистрация или null
+     * @param out    изходният поток на отговора (не се затваря)
+     * @return брой записани редове
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, ShipmentStatus status, LocalDate from, LocalDate to, OutputStream out)
+            throws IOException {
+        try (Stream<ShipmentExportRow> rows = shipmentRepository.streamForExport(status, from, to)) {
+            return format == Format.CSV ? writeCsv(rows.iterator(), out) : writeNdjson(rows.iterator(), out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(Iterator<ShipmentExportRow> rows, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long count = 0;
+        try (SequenceWriter writer = objectMapper.writerFor(ShipmentExportRow.class)
+                .withRootValueSeparator("\n")
+                .writeValues(generator)) {
+            while (rows.hasNext()) {
+                writer.write(rows.next());
+                count++;
+            }
+        }
+        // SequenceWriter пише разделителя само между записите; празен експорт остава празен, без празен ред
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<ShipmentExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = 0;
+        while (rows.hasNext()) {
+            ShipmentExportRow row = rows.next();
+            writer.write(String.valueOf(row.getId()));
+            writer.write(',');
+            writer.write(row.getStatus().name());
+            writer.write(',');
+            writer.write(String.valueOf(row.getRegistrationDate()));
+            writer.write(',');
+            writer.write(row.getDeliveryDate() == null ? "" : row.getDeliveryDate().toString());
+            writer.write(',');
+            writer.write(String.valueOf(row.getSenderId()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getReceiverId()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getRegisteredByEmployeeId()));
+            writer.write(',');
+            writer.write(csvEscape(row.getDeliveryAddress()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getWeight()));
+            writer.write(',');
+            writer.write(String.valueOf(row.isToOffice()));
+            writer.write(',');
+            writer.write(row.getPrice() == null ? "" : row.getPrice().toString());
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Загражда стойността в кавички, ако съдържа запетая, кавичка или нов ред (RFC 4180).
+     */
+    static String csvEscape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,54 +1,157 @@
 package com.example.logistics_company.services;
 
+import com.example.logistics_company.dto.BatchItemResult;
+import com.example.logistics_company.dto.BatchRegistrationResponse;
+import com.example.logistics_company.dto.BulkDeliveryResponse;
+import com.example.logistics_company.dto.CursorPage;
+import com.example.logistics_company.dto.ShipmentCursor;
+import com.example.logistics_company.dto.ShipmentEvent;
+import com.example.logistics_company.dto.ShipmentRegistrationRequest;
+import com.example.logistics_company.models.ArchivedShipment;
+import com.example.logistics_company.models.Client;
+import com.example.logistics_company.models.DailyShipmentStats;
+import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.models.Office;
 import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.repositories.ArchivedShipmentRepository;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
 import com.example.logistics_company.repositories.ShipmentRepository;
 import com.example.logistics_company.models.ShipmentStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.function.BiFunction;
 
 /**
  * Service клас за управление на пратки.
  * Извършва CRUD операции, регистрация и доставка на пратки,
  * както и изчисляване на приходи за определен период.
+ *
+ * Всяка промяна, която засяга дата, статус, тегло или цена на пратка, се отразява
+ * в дневния агрегат (ShipmentStatsService) в същата транзакция.
+ * Всяка промяна увеличава и версията на пратките в EntityVersionService (ETag на списъците)
+ * и публикува {@link ShipmentEvent}, който ShipmentStreamService изпраща на абонатите след commit,
+ * а OutboxService записва в таблицата outbox в същата транзакция.
+ *
+ * Състоянието се сменя само по разрешените в {@link ShipmentStatus} преходи и всеки преход
+ * се добавя в историята на пратката (ShipmentTrackingService, таблица shipment_events).
  */
 
 @Service
 public class ShipmentService {
 
-    // Фиксирана базова цена за всяка пратка
-    private static final double BASE_PRICE      = 10.0;
-    // Множител за цена при доставка до офис (лв/кг)
-    private static final double OFFICE_FACTOR   = 1.3;
-    // Множител за цена при доставка до адрес (лв/кг)
-    private static final double ADDRESS_FACTOR  = 1.8;
+    private static final Logger log = LoggerFactory.getLogger(ShipmentService.class);
+
+    // Размер на страницата, когато клиентът не е подал limit
+    private static final int DEFAULT_PAGE_SIZE = 50;
 
     @Autowired
     private ShipmentRepository shipmentRepository;
 
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ShipmentStatsService statsService;
+
+    @Autowired
+    private EntityVersionService versions;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private TariffService tariffService;
+
+    @Autowired
+    private ShipmentTrackingService tracking;
+
+    @Autowired
+    private ArchivedShipmentRepository archiveRepository;
+
+    @Autowired
+    private ShipmentArchiveService archiveService;
+
+    // Твърд горен лимит за размера на страницата, независимо от подадения limit
+    @Value("${app.shipments.max-page-size:500}")
+    private int maxPageSize;
+
+    // Максимален брой пратки в една пакетна регистрация
+    @Value("${app.shipments.max-batch-size:10000}")
+    private int maxBatchSize;
+
+    // През колко реда се изпраща batch към базата и се изчиства persistence context-ът
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int jdbcBatchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
-     * Връща всички пратки.
-     * @return списък с всички Shipment обекти от базата
+     * Връща страница от всички пратки.
+     * @param cursor курсор от предишната страница (null за първа страница)
+     * @param limit  желан брой редове (ограничава се до app.shipments.max-page-size)
+     * @return страница с пратки и курсор за следващата
      */
-    public List<Shipment> getAllShipments() {
-        return shipmentRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<Shipment> getAllShipments(String cursor, Integer limit) {
+        return page(cursor, limit, (c, l) ->
+                shipmentRepository.findPage(c.getRegistrationDate(), c.getId(), l));
     }
 
     /**
-     * Връща пратка по нейно ID.
+     * Връща пратка по нейно ID – активна или, ако вече е преместена, архивирана.
+     * Архивът се чете само когато пратката не е в shipments.
      * @param id идентификатор на пратката
      * @return Shipment обект или null, ако не съществува
      */
+    @Transactional(readOnly = true)
     public Shipment getShipmentById(Long id) {
-        return shipmentRepository.findById(id).orElse(null);
+        return shipmentRepository.findWithDetailsById(id)
+                .or(() -> archiveRepository.findWithDetailsById(id).map(ArchivedShipment::toShipment))
+                .map(shipment -> resolveRegisteredBy(shipment, true))
+                .orElse(null);
+    }
+
+    /**
+     * @param id идентификатор на пратката
+     * @return true, ако пратката е архивирана – тогава е само за четене
+     */
+    @Transactional(readOnly = true)
+    public boolean isArchived(Long id) {
+        return archiveRepository.existsById(id);
     }
 
     /**
-     * Регистрира нова пратка – задава статус SHIPPED и текуща дата.
+     * Регистрира нова пратка – задава статус SHIPPED, текуща дата и цена.
      * Тази операция се извършва в транзакция.
      * @param shipment нова пратка за регистрация
      * @return запазеният Shipment обект с попълнени статус и дата
@@ -57,8 +160,107 @@ public class ShipmentService {
     public Shipment registerShipment(Shipment shipment) {
         shipment.setStatus(ShipmentStatus.SHIPPED);
         shipment.setRegistrationDate(LocalDate.now());
+        // Цената се изчислява веднъж и се пази в колоната price
+        shipment.setPrice(calculatePrice(shipment));
         // registeredBy е зададен преди извикването от контролера
-        return shipmentRepository.save(shipment);
+        resolveOffice(shipment);
+        resolveClients(shipment);
+        Shipment saved = shipmentRepository.save(shipment);
+        tracking.record(saved.getId(), null, ShipmentStatus.SHIPPED,
+                tracking.currentActor(saved.getRegisteredBy()), LocalDateTime.now());
+        statsService.apply(new ShipmentStatsDelta().add(saved));
+        versions.changed(Shipment.class);
+        events.publishEvent(ShipmentEvent.of(ShipmentEvent.Type.REGISTERED, saved));
+        return saved;
+    }
+
+    /**
+     * Регистрира пакет от пратки от името на един служител в една транзакция.
+     *
+     * Всички податели и получатели се проверяват с една IN заявка; невалидните елементи
+     * се отхвърлят поотделно, а валидните се записват заедно с първото събитие в историята им.
+     * ID-тата идват от pooled генератор, затова INSERT-ите се изпращат на JDBC batch-ове, а persistence context-ът се изчиства
+     * след всеки batch. Дневният агрегат се обновява веднъж за целия пакет.
+     *
+     * @param items    елементите на пакета
+     * @param employee служителят, който регистрира пратките
+     * @return резултат за всеки елемент в реда на заявката
+     * @throws IllegalArgumentException ако пакетът е по-голям от app.shipments.max-batch-size
+     */
+    @Transactional
+    public BatchRegistrationResponse registerShipments(List<ShipmentRegistrationRequest> items, Employee employee) {
+        if (items.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch too large: " + items.size() + " > " + maxBatchSize);
+        }
+        Set<Long> clientIds = new HashSet<>();
+        for (ShipmentRegistrationRequest item : items) {
+            if (item.getSenderId() != null) {
+                clientIds.add(item.getSenderId());
+            }
+            if (item.getReceiverId() != null) {
+                clientIds.add(item.getReceiverId());
+            }
+        }
+        Set<Long> existing = clientIds.isEmpty() ? Set.of() : clientRepository.findExistingIds(clientIds);
+
+        LocalDate today = LocalDate.now();
+        // всички пратки са от офиса на един служител – градът се търси веднъж
+        String city = officeCity(employee);
+        ShipmentTrackingService.Actor actor = tracking.currentActor(employee);
+        LocalDateTime now = LocalDateTime.now();
+        ShipmentStatsDelta delta = new ShipmentStatsDelta();
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        List<Long> registeredIds = new ArrayList<>();
+        int pending = 0;
+        for (int i = 0; i < items.size(); i++) {
+            ShipmentRegistrationRequest item = items.get(i);
+            String error = validate(item, existing);
+            if (error != null) {
+                results.add(BatchItemResult.rejected(i, error));
+                continue;
+            }
+            Shipment shipment = new Shipment(null,
+                    entityManager.getReference(Client.class, item.getSenderId()),
+                    entityManager.getReference(Client.class, item.getReceiverId()),
+                    item.getDeliveryAddress(), item.getWeight(), item.isToOffice(),
+                    ShipmentStatus.SHIPPED, today, null, employee);
+            shipment.setPrice(tariffService.price(shipment.getWeight(), shipment.isToOffice(), city, today));
+            entityManager.persist(shipment);
+            tracking.record(shipment.getId(), null, ShipmentStatus.SHIPPED, actor, now);
+            delta.add(shipment);
+            results.add(BatchItemResult.registered(i, shipment.getId(), shipment.getPrice()));
+            registeredIds.add(shipment.getId());
+            if (++pending == jdbcBatchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statsService.apply(delta);
+        int registered = registeredIds.size();
+        if (registered > 0) {
+            versions.changed(Shipment.class);
+            events.publishEvent(ShipmentEvent.bulk(ShipmentEvent.Type.REGISTERED, registeredIds));
+        }
+        return new BatchRegistrationResponse(registered, items.size() - registered, results);
+    }
+
+    private static String validate(ShipmentRegistrationRequest item, Set<Long> existingClients) {
+        if (item.getSenderId() == null || !existingClients.contains(item.getSenderId())) {
+            return "Sender not found: " + item.getSenderId();
+        }
+        if (item.getReceiverId() == null || !existingClients.contains(item.getReceiverId())) {
+            return "Receiver not found: " + item.getReceiverId();
+        }
+        if (item.getDeliveryAddress() == null || item.getDeliveryAddress().isBlank()) {
+            return "Delivery address is required";
+        }
+        if (item.getWeight() == null || !(item.getWeight() > 0)) {
+            return "Weight must be positive";
+        }
+        return null;
     }
 
     /**
@@ -66,106 +268,418 @@ public class ShipmentService {
      * Изпълнява се в рамките на транзакция.
      * @param shipmentId ID на пратката за доставка
      * @return актуализиран Shipment обект
+     * @throws IllegalArgumentException ако пратката вече е доставена или върната
      */
     @Transactional
     public Shipment deliverShipment(Long shipmentId) {
-        Shipment shipment = shipmentRepository.findById(shipmentId)
+        return changeStatus(shipmentId, ShipmentStatus.DELIVERED);
+    }
+
+    /**
+     * Премества пратка в следващо състояние (напр. IN_TRANSIT, AT_OFFICE, OUT_FOR_DELIVERY)
+     * и добавя прехода в историята ѝ. При DELIVERED попълва и датата на доставка.
+     * @param shipmentId ID на пратката
+     * @param next       новото състояние
+     * @return актуализиран Shipment обект
+     * @throws IllegalArgumentException ако преходът не е разрешен от {@link ShipmentStatus}
+     */
+    @Transactional
+    public Shipment changeStatus(Long shipmentId, ShipmentStatus next) {
+        Shipment shipment = shipmentRepository.findWithDetailsById(shipmentId)
                 .orElseThrow(() -> new RuntimeException("Shipment not found"));
-        shipment.setStatus(ShipmentStatus.DELIVERED);
-        shipment.setDeliveryDate(LocalDate.now());
-        return shipmentRepository.save(shipment);
+        ShipmentStatus previous = shipment.getStatus();
+        previous.checkTransitionTo(next);
+        ShipmentStatsDelta delta = new ShipmentStatsDelta().remove(shipment);
+        shipment.setStatus(next);
+        if (next == ShipmentStatus.DELIVERED) {
+            shipment.setDeliveryDate(LocalDate.now());
+        }
+        Shipment saved = shipmentRepository.save(shipment);
+        tracking.record(saved.getId(), previous, next, tracking.currentActor(null), LocalDateTime.now());
+        statsService.apply(delta.add(saved));
+        versions.changed(Shipment.class);
+        events.publishEvent(ShipmentEvent.of(next == ShipmentStatus.DELIVERED
+                ? ShipmentEvent.Type.DELIVERED : ShipmentEvent.Type.UPDATED, saved));
+        return resolveRegisteredBy(saved, true);
+    }
+
+    /**
+     * Маркира набор от пратки като доставени с един условен UPDATE.
+     *
+     * Първо чете състоянието на пратките (една IN заявка без entity-та), след което за всяко
+     * прочетено състояние UPDATE ... WHERE id IN (...) AND status = ? променя само очакваните редове
+     * (обикновено всички са в едно състояние и UPDATE-ът е един).
+     * Ако броят променени редове се различава от прочетения – друга транзакция е
+     * променила някоя от пратките междувременно – всичко се връща и се хвърля
+     * OptimisticLockingFailureException, така че агрегатът никога не брои доставка два пъти,
+     * а историята съдържа точното предишно състояние на всяка пратка.
+     *
+     * @param ids ID-та на пратките (повторенията се игнорират)
+     * @return кои пратки са доставени сега, кои не могат да бъдат доставени (вече доставени
+     *         или върнати) и кои не съществуват
+     * @throws IllegalArgumentException ако ID-тата са повече от app.shipments.max-batch-size
+     */
+    @Transactional
+    public BulkDeliveryResponse deliverShipments(Collection<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        if (requested.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch too large: " + requested.size() + " > " + maxBatchSize);
+        }
+        if (requested.isEmpty()) {
+            return new BulkDeliveryResponse(List.of(), List.of(), List.of());
+        }
+        Map<Long, ShipmentRepository.DeliveryCandidate> found = shipmentRepository.findDeliveryCandidates(requested)
+                .stream().collect(Collectors.toMap(ShipmentRepository.DeliveryCandidate::getId, Function.identity()));
+
+        LocalDate today = LocalDate.now();
+        ShipmentStatsDelta delta = new ShipmentStatsDelta();
+        List<Long> toDeliver = new ArrayList<>();
+        Map<ShipmentStatus, List<Long>> byStatus = new EnumMap<>(ShipmentStatus.class);
+        List<Long> alreadyDelivered = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            ShipmentRepository.DeliveryCandidate candidate = found.get(id);
+            if (candidate == null) {
+                missing.add(id);
+            } else if (candidate.getStatus().canTransitionTo(ShipmentStatus.DELIVERED)) {
+                toDeliver.add(id);
+                byStatus.computeIfAbsent(candidate.getStatus(), status -> new ArrayList<>()).add(id);
+                delta.addDelivery(today, candidate.getOfficeId() == null
+                        ? DailyShipmentStats.NO_OFFICE : candidate.getOfficeId(),
+                        candidate.getWeight(), candidate.getPrice());
+            } else {
+                alreadyDelivered.add(id);
+            }
+        }
+
+        if (!toDeliver.isEmpty()) {
+            int updated = 0;
+            for (Map.Entry<ShipmentStatus, List<Long>> group : byStatus.entrySet()) {
+                updated += shipmentRepository.updateStatusWhere(
+                        group.getValue(), group.getKey(), ShipmentStatus.DELIVERED, today);
+            }
+            if (updated != toDeliver.size()) {
+                throw new OptimisticLockingFailureException("Shipments changed concurrently: expected "
+                        + toDeliver.size() + " deliveries, updated " + updated + "; retry the request");
+            }
+            ShipmentTrackingService.Actor actor = tracking.currentActor(null);
+            LocalDateTime now = LocalDateTime.now();
+            int pending = 0;
+            for (Long id : toDeliver) {
+                tracking.record(id, found.get(id).getStatus(), ShipmentStatus.DELIVERED, actor, now);
+                if (++pending == jdbcBatchSize) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    pending = 0;
+                }
+            }
+            statsService.apply(delta);
+            versions.changed(Shipment.class);
+            events.publishEvent(ShipmentEvent.bulk(ShipmentEvent.Type.DELIVERED, toDeliver));
+        }
+        return new BulkDeliveryResponse(toDeliver, alreadyDelivered, missing);
     }
 
     /**
      * Актуализира съществуваща пратка с нови данни.
+     * Ново състояние (различно от текущото) трябва да е разрешен преход и се добавя в историята;
+     * липсващо състояние в тялото оставя текущото.
      * @param id идентификатор на пратката
      * @param updatedShipment обект с нови стойности
-     * @return обновен Shipment или null ако не е намерена пратка с това ID
+     * @return обновен Shipment или null ако не е намерена активна пратка с това ID (архивираните не се променят)
+     * @throws IllegalArgumentException ако преходът към новото състояние не е разрешен
      */
+    @Transactional
     public Shipment updateShipment(Long id, Shipment updatedShipment) {
-        return shipmentRepository.findById(id)
+        return shipmentRepository.findWithDetailsById(id)
                 .map(shipment -> {
+                    ShipmentStatus previous = shipment.getStatus();
+                    ShipmentStatus next = updatedShipment.getStatus();
+                    boolean transition = next != null && next != previous;
+                    if (transition) {
+                        previous.checkTransitionTo(next);
+                    }
+                    ShipmentStatsDelta delta = new ShipmentStatsDelta().remove(shipment);
                     shipment.setSender(updatedShipment.getSender());
                     shipment.setReceiver(updatedShipment.getReceiver());
+                    resolveClients(shipment);
                     shipment.setDeliveryAddress(updatedShipment.getDeliveryAddress());
                     shipment.setWeight(updatedShipment.getWeight());
                     shipment.setToOffice(updatedShipment.isToOffice());
-                    shipment.setStatus(updatedShipment.getStatus());
-                    return shipmentRepository.save(shipment);
+                    if (transition) {
+                        shipment.setStatus(next);
+                        if (next == ShipmentStatus.DELIVERED) {
+                            shipment.setDeliveryDate(LocalDate.now());
+                        }
+                    }
+                    // теглото или начинът на доставка може да са се променили
+                    shipment.setPrice(calculatePrice(shipment));
+                    Shipment saved = shipmentRepository.save(shipment);
+                    if (transition) {
+                        tracking.record(saved.getId(), previous, next, tracking.currentActor(null), LocalDateTime.now());
+                    }
+                    statsService.apply(delta.add(saved));
+                    versions.changed(Shipment.class);
+                    events.publishEvent(ShipmentEvent.of(ShipmentEvent.Type.UPDATED, saved));
+                    return resolveRegisteredBy(saved, true);
                 })
                 .orElse(null);
     }
 
     /**
-     * Изтрива пратка по ID.
+     * Изтрива пратка по ID. Архивираните пратки не се изтриват.
      * @param id идентификатор на пратката, която да се изтрие
+     * @return true, ако е изтрита активна пратка
      */
-    public void deleteShipment(Long id) {
-        shipmentRepository.deleteById(id);
+    @Transactional
+    public boolean deleteShipment(Long id) {
+        return shipmentRepository.findWithDetailsById(id).map(shipment -> {
+            statsService.apply(new ShipmentStatsDelta().remove(shipment));
+            shipmentRepository.delete(shipment);
+            versions.changed(Shipment.class);
+            return true;
+        }).orElse(false);
     }
 
     /**
-     * Връща списък с пратки по даден статус.
-     * @param status статус на търсените пратки (SHIPPED, DELIVERED)
-     * @return списък с всички Shipment с този статус
+     * Връща страница с пратки по даден статус.
+     * @param status статус на търсените пратки (SHIPPED, IN_TRANSIT, ..., DELIVERED, RETURNED)
+     * @param cursor курсор от предишната страница (null за първа страница)
+     * @param limit  желан брой редове
+     * @return страница с Shipment с този статус
      */
-    public List<Shipment> getShipmentsByStatus(ShipmentStatus status) {
-        return shipmentRepository.findByStatus(status);
+    @Transactional(readOnly = true)
+    public CursorPage<Shipment> getShipmentsByStatus(ShipmentStatus status, String cursor, Integer limit) {
+        return page(cursor, limit, (c, l) ->
+                shipmentRepository.findPageByStatus(status, c.getRegistrationDate(), c.getId(), l));
     }
 
     /**
-     * Връща всички пратки, които още не са доставени.
-     * @return списък с пратки със статус не недоставени
+     * Връща страница с пратки, които още не са доставени.
+     * @param cursor курсор от предишната страница (null за първа страница)
+     * @param limit  желан брой редове
+     * @return страница с недоставени пратки
      */
-    public List<Shipment> getNotDeliveredShipments() {
-        return shipmentRepository.findNotDeliveredShipments();
+    @Transactional(readOnly = true)
+    public CursorPage<Shipment> getNotDeliveredShipments(String cursor, Integer limit) {
+        return page(cursor, limit, (c, l) ->
+                shipmentRepository.findNotDeliveredPage(c.getRegistrationDate(), c.getId(), l));
     }
 
     /**
      * Изчислява общите приходи за доставените пратки в даден период.
-     * За всяка пратка се добавя базова цена + тегловен коефициент (офис/адрес).
+     * Сумира дневния агрегат – по един ред на ден и офис, независимо от броя пратки.
      * @param startDate начален ден (включително)
      * @param endDate   краен ден (включително)
      * @return сумарни приходи в лева
      */
     public double calculateRevenue(LocalDate startDate, LocalDate endDate) {
+        return statsService.sumRevenue(startDate, endDate);
+    }
 
-        List<Shipment> delivered = shipmentRepository
-                .findDeliveredBetween(ShipmentStatus.DELIVERED, startDate, endDate);
+    /**
+     * Изчислява цената на пратка по тарифата, валидна в деня на регистрацията (TariffService):
+     * теглови диапазон, офис/адрес и добавка за града на офиса на регистриралия служител.
+     * @param shipment пратката
+     * @return цена в лева
+     * @throws IllegalArgumentException ако теглото е извън тарифата
+     */
+    public double calculatePrice(Shipment shipment) {
+        LocalDate date = shipment.getRegistrationDate() == null ? LocalDate.now() : shipment.getRegistrationDate();
+        return tariffService.price(shipment.getWeight(), shipment.isToOffice(),
+                officeCity(shipment.getRegisteredBy()), date);
+    }
 
-        return delivered.stream()
-                .mapToDouble(s ->
-                        BASE_PRICE + s.getWeight() * (s.isToOffice() ? OFFICE_FACTOR : ADDRESS_FACTOR)
-                )
-                .sum();
+    /**
+     * Резултат от една порция на {@link #backfillPrices}.
+     * @param priced брой обновени пратки (без пропуснатите, за които няма тарифа)
+     * @param lastId последното прочетено ID (откъдето продължава следващата порция) или null, ако няма повече
+     */
+    public record PriceBackfillChunk(int priced, Long lastId) {
+    }
+
+    /**
+     * Попълва цената на следващите до limit стари пратки (без price) след afterId.
+     * Всяка порция е отделна транзакция, затова backfill-ът може да бъде прекъснат и продължен.
+     * Цената зависи от тарифата и града на офиса, затова се изчислява тук, а UPDATE-ите
+     * се изпращат на JDBC batch-ове при flush. Пратка, която тарифата не покрива (регистрирана
+     * преди първата версия или по-тежка от последния диапазон), се пропуска с предупреждение в лога
+     * и остава без цена – останалите в порцията се записват.
+     * @param afterId последното обработено ID (0 за начало)
+     * @param limit   размер на порцията
+     * @return брой обновени пратки и последното прочетено ID
+     */
+    @Transactional
+    public PriceBackfillChunk backfillPrices(long afterId, int limit) {
+        List<Shipment> shipments = shipmentRepository.findWithoutPriceAfter(afterId, Limit.of(limit));
+        if (shipments.isEmpty()) {
+            return new PriceBackfillChunk(0, null);
+        }
+        int priced = 0;
+        for (Shipment shipment : shipments) {
+            try {
+                shipment.setPrice(calculatePrice(shipment));
+                priced++;
+            } catch (IllegalArgumentException e) {
+                log.warn("Cannot backfill price of shipment {}: {}", shipment.getId(), e.getMessage());
+            }
+        }
+        if (priced > 0) {
+            versions.changed(Shipment.class);
+        }
+        return new PriceBackfillChunk(priced, shipments.get(shipments.size() - 1).getId());
     }
 
 
     /**
-     * Връща пратки, регистрирани от даден служител.
+     * Връща страница с пратки, регистрирани от даден служител.
      * @param employeeId ID на служителя
-     * @return списък с всички Shipment, които registeredBy.id == employeeId
+     * @param cursor     курсор от предишната страница (null за първа страница)
+     * @param limit      желан брой редове
+     * @return страница с Shipment, които registeredBy.id == employeeId
      */
-    public List<Shipment> getShipmentsRegisteredByEmployee(Long employeeId) {
-        return shipmentRepository.findShipmentsRegisteredByEmployeeId(employeeId);
+    @Transactional(readOnly = true)
+    public CursorPage<Shipment> getShipmentsRegisteredByEmployee(Long employeeId, String cursor, Integer limit) {
+        return page(cursor, limit, (c, l) ->
+                shipmentRepository.findPageRegisteredByEmployee(employeeId, c.getRegistrationDate(), c.getId(), l));
     }
 
     /**
-     * Връща пратки, изпратени от даден клиент.
+     * Връща страница с пратки, изпратени от даден клиент – активни и архивирани (виж {@link #mergedPage}).
      * @param clientId ID на клиента (sender.id)
-     * @return списък с всички Shipment, чийто sender.id == clientId
+     * @param cursor   курсор от предишната страница (null за първа страница)
+     * @param limit    желан брой редове
+     * @return страница с Shipment, чийто sender.id == clientId
      */
-    public List<Shipment> getShipmentsSentByClient(Long clientId) {
-        return shipmentRepository.findShipmentsSentByClient(clientId);
+    @Transactional(readOnly = true)
+    public CursorPage<Shipment> getShipmentsSentByClient(Long clientId, String cursor, Integer limit) {
+        return mergedPage(cursor, limit,
+                (c, l) -> shipmentRepository.findPageSentByClient(clientId, c.getRegistrationDate(), c.getId(), l),
+                (c, l) -> archiveRepository.findPageSentByClient(clientId, c.getRegistrationDate(), c.getId(), l));
     }
 
     /**
-     * Връща пратки, получени от даден клиент.
+     * Връща страница с пратки, получени от даден клиент – активни и архивирани (виж {@link #mergedPage}).
      * @param clientId ID на клиента (receiver.id)
-     * @return списък с всички Shipment, чийто receiver.id == clientId
+     * @param cursor   курсор от предишната страница (null за първа страница)
+     * @param limit    желан брой редове
+     * @return страница с Shipment, чийто receiver.id == clientId
      */
-    public List<Shipment> getShipmentsReceivedByClient(Long clientId) {
-        return shipmentRepository.findShipmentsReceivedByClient(clientId);
+    @Transactional(readOnly = true)
+    public CursorPage<Shipment> getShipmentsReceivedByClient(Long clientId, String cursor, Integer limit) {
+        return mergedPage(cursor, limit,
+                (c, l) -> shipmentRepository.findPageReceivedByClient(clientId, c.getRegistrationDate(), c.getId(), l),
+                (c, l) -> archiveRepository.findPageReceivedByClient(clientId, c.getRegistrationDate(), c.getId(), l));
+    }
+
+    /**
+     * Ако registeredBy е подаден само с ID (напр. от JSON тяло), зарежда служителя,
+     * за да е известен офисът му при записа в дневния агрегат.
+     */
+    private void resolveOffice(Shipment shipment) {
+        Employee employee = shipment.getRegisteredBy();
+        if (employee != null && employee.getId() != null && employee.getOffice() == null) {
+            employeeRepository.findById(employee.getId()).ifPresent(shipment::setRegisteredBy);
+        }
+    }
+
+    /**
+     * Градът на офиса на служителя – за градската добавка на тарифата.
+     * Незареденият офис се взима от persistence context-а или second-level cache-а,
+     * дори служителят да е зареден в друга сесия.
+     */
+    private String officeCity(Employee employee) {
+        Office office = employee == null ? null : employee.getOffice();
+        if (office == null || office.getId() == null) {
+            return null;
+        }
+        if (!Hibernate.isInitialized(office)) {
+            office = entityManager.find(Office.class, office.getId());
+        }
+        return office == null ? null : office.getCity();
+    }
+
+    /**
+     * Подателят и получателят идват от JSON тялото само с ID и без version – Hibernate
+     * не може да ги свърже като detached обекти, затова се заменят с референции (без SELECT).
+     */
+    private void resolveClients(Shipment shipment) {
+        if (shipment.getSender() != null && shipment.getSender().getId() != null) {
+            shipment.setSender(clientRepository.getReferenceById(shipment.getSender().getId()));
+        }
+        if (shipment.getReceiver() != null && shipment.getReceiver().getId() != null) {
+            shipment.setReceiver(clientRepository.getReferenceById(shipment.getReceiver().getId()));
+        }
+    }
+
+    /**
+     * Зарежда служителя, регистрирал пратката (и при withOffice – офиса му).
+     * Заявките за пратки не join-ват служители и офиси: те рядко се променят и се четат
+     * от second-level cache-а; липсващите в кеша се зареждат с една IN заявка (@BatchSize).
+     * Трябва да се вика в транзакция, докато proxy-тата все още могат да се инициализират.
+     */
+    private static Shipment resolveRegisteredBy(Shipment shipment, boolean withOffice) {
+        Employee employee = shipment.getRegisteredBy();
+        Hibernate.initialize(employee);
+        if (withOffice && employee != null) {
+            Hibernate.initialize(employee.getOffice());
+        }
+        return shipment;
+    }
+
+    /**
+     * Общата keyset логика за всички списъци с пратки.
+     * Чете limit + 1 реда: ако има допълнителен ред, значи съществува следваща страница
+     * и курсорът ѝ е (registrationDate, id) на последния върнат ред.
+     */
+    private CursorPage<Shipment> page(String cursor, Integer limit,
+                                      BiFunction<ShipmentCursor, Limit, List<Shipment>> query) {
+        int size = pageSize(limit);
+        return toPage(query.apply(ShipmentCursor.decode(cursor), Limit.of(size + 1)), size);
+    }
+
+    /**
+     * Страница от активните и архивираните пратки със същия курсор.
+     *
+     * Архивът съдържа само пратки, регистрирани преди ShipmentArchiveService.cutoff(), а редовете
+     * са подредени по дата в низходящ ред. Ако активните пратки запълват страницата (limit + 1 реда)
+     * и последната е регистрирана на или след границата, архивът не може да добави нищо и не се чете –
+     * така е при почти всички първи страници. Иначе се чете и архивът и двата списъка се сливат.
+     */
+    private CursorPage<Shipment> mergedPage(String cursor, Integer limit,
+                                            BiFunction<ShipmentCursor, Limit, List<Shipment>> hotQuery,
+                                            BiFunction<ShipmentCursor, Limit, List<ArchivedShipment>> archiveQuery) {
+        int size = pageSize(limit);
+        ShipmentCursor position = ShipmentCursor.decode(cursor);
+        List<Shipment> rows = hotQuery.apply(position, Limit.of(size + 1));
+        if (rows.size() > size && !rows.get(size).getRegistrationDate().isBefore(archiveService.cutoff())) {
+            return toPage(rows, size);
+        }
+        List<Shipment> merged = new ArrayList<>(rows);
+        Set<Long> seen = rows.stream().map(Shipment::getId).collect(Collectors.toCollection(HashSet::new));
+        for (ArchivedShipment archived : archiveQuery.apply(position, Limit.of(size + 1))) {
+            // пратка, архивирана между двете заявки, може да се види и в двете
+            if (seen.add(archived.getId())) {
+                merged.add(archived.toShipment());
+            }
+        }
+        merged.sort(Comparator.comparing(Shipment::getRegistrationDate).thenComparing(Shipment::getId).reversed());
+        return toPage(merged.size() > size + 1 ? merged.subList(0, size + 1) : merged, size);
+    }
+
+    private int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, maxPageSize));
+    }
+
+    private CursorPage<Shipment> toPage(List<Shipment> rows, int size) {
+        List<Shipment> items = rows.size() <= size ? rows : rows.subList(0, size);
+        items.forEach(shipment -> resolveRegisteredBy(shipment, false));
+        if (items == rows) {
+            return new CursorPage<>(rows, null);
+        }
+        Shipment last = items.get(size - 1);
+        return new CursorPage<>(items, new ShipmentCursor(last.getRegistrationDate(), last.getId()).encode());
     }
 
 
@@ -0,0 +1,121 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.models.DailyShipmentStats;
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.models.ShipmentStatus;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Натрупва приноса на една или няколко пратки към дневния агрегат.
+ *
+ * Използва се по схемата „преди/след“: {@link #remove(Shipment)} се вика върху пратката
+ * преди промяната, а {@link #add(Shipment)} – след нея. Стойностите се четат веднага,
+ * затова последващата промяна на entity-то не влияе на вече записания принос.
+ * Редове, при които двете части се неутрализират, не стигат до базата.
+ *
+ * Офисът е този от регистрацията ({@link Shipment#getRegisteredOfficeId()}), а не текущият
+ * офис на служителя – иначе след преместване на служителя remove() би вадил от друг ред,
+ * а не от този, в който пратката е била добавена. Доставена пратка без дата на доставка
+ * се брои в деня на регистрацията си, както и при преизчисляването на агрегата.
+ */
+public class ShipmentStatsDelta {
+
+    /** Ключ на реда в агрегата. */
+    record Key(LocalDate day, long officeId) {
+    }
+
+    /** Промяната на един ред в агрегата. */
+    static final class Row {
+        long registeredCount;
+        double registeredWeight;
+        long deliveredCount;
+        double deliveredWeight;
+        double revenue;
+
+        boolean isEmpty() {
+            return registeredCount == 0 && registeredWeight == 0
+                    && deliveredCount == 0 && deliveredWeight == 0 && revenue == 0;
+        }
+    }
+
+    private final Map<Key, Row> rows = new LinkedHashMap<>();
+
+    /**
+     * Добавя приноса на пратката в текущото ѝ състояние.
+     */
+    public ShipmentStatsDelta add(Shipment shipment) {
+        return apply(shipment, 1);
+    }
+
+    /**
+     * Изважда приноса на пратката в текущото ѝ състояние.
+     */
+    public ShipmentStatsDelta remove(Shipment shipment) {
+        return apply(shipment, -1);
+    }
+
+    Map<Key, Row> rows() {
+        return rows;
+    }
+
+    private ShipmentStatsDelta apply(Shipment shipment, int sign) {
+        long officeId = officeOf(shipment);
+        if (shipment.getRegistrationDate() != null) {
+            Row row = row(shipment.getRegistrationDate(), officeId);
+            row.registeredCount += sign;
+            row.registeredWeight += sign * shipment.getWeight();
+        }
+        if (shipment.getStatus() == ShipmentStatus.DELIVERED) {
+            LocalDate day = shipment.getDeliveryDate() != null
+                    ? shipment.getDeliveryDate() : shipment.getRegistrationDate();
+            if (day != null) {
+                delivered(day, officeId, sign, shipment.getWeight(), shipment.getPrice());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Добавя доставка на пратка, без да е нужно заредено entity (при set-based UPDATE).
+     * @param day      ден на доставката
+     * @param officeId офис на регистрацията или NO_OFFICE
+     * @param weight   тегло на пратката
+     * @param price    цена на пратката (null се брои като 0)
+     */
+    public ShipmentStatsDelta addDelivery(LocalDate day, long officeId, double weight, Double price) {
+        delivered(day, officeId, 1, weight, price);
+        return this;
+    }
+
+    /**
+     * Добавя разликата между преизчислен и записан ред от агрегата (при преизчисляване).
+     */
+    ShipmentStatsDelta correct(DailyShipmentStats expected, DailyShipmentStats actual) {
+        Row row = row(expected.getDay(), expected.getOfficeId());
+        row.registeredCount += expected.getRegisteredCount() - actual.getRegisteredCount();
+        row.registeredWeight += expected.getRegisteredWeight() - actual.getRegisteredWeight();
+        row.deliveredCount += expected.getDeliveredCount() - actual.getDeliveredCount();
+        row.deliveredWeight += expected.getDeliveredWeight() - actual.getDeliveredWeight();
+        row.revenue += expected.getRevenue() - actual.getRevenue();
+        return this;
+    }
+
+    private void delivered(LocalDate day, long officeId, int sign, double weight, Double price) {
+        Row row = row(day, officeId);
+        row.deliveredCount += sign;
+        row.deliveredWeight += sign * weight;
+        row.revenue += sign * (price == null ? 0.0 : price);
+    }
+
+    private Row row(LocalDate day, long officeId) {
+        return rows.computeIfAbsent(new Key(day, officeId), k -> new Row());
+    }
+
+    private static long officeOf(Shipment shipment) {
+        Long officeId = shipment.getRegisteredOfficeId();
+        return officeId == null ? DailyShipmentStats.NO_OFFICE : officeId;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.StatsDrift;
+import com.example.logistics_company.dto.StatsReconcileReport;
+import com.example.logistics_company.models.DailyShipmentStats;
+import com.example.logistics_company.models.ShipmentStatus;
+import com.example.logistics_company.repositories.ArchivedShipmentRepository;
+import com.example.logistics_company.repositories.DailyShipmentStatsRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service клас за дневния агрегат на пратките (daily_shipment_stats).
+ *
+ * ShipmentService подава промените по пратките като {@link ShipmentStatsDelta}
+ * в същата транзакция, така че агрегатът и таблицата shipments се записват заедно
+ * или не се записват изобщо. Справките за приходи сумират агрегата вместо пратките.
+ * Архивирането не променя агрегата, затова преизчисляването брои и shipments_archive.
+ *
+ * Преизчисляването не изтрива и не презаписва агрегата: прочита пратките и агрегата в един
+ * snapshot (REPEATABLE READ) и добавя разликата като делта със същия upsert, който ползват
+ * и останалите промени. Транзакции, завършили преди snapshot-а, присъстват и в двете страни
+ * на разликата; тези след него добавят собствената си делта към вече поправения ред.
+ * Така паралелните регистрации и доставки нито се губят, нито се броят два пъти,
+ * без преизчисляването да заключва shipments.
+ */
+@Service
+public class ShipmentStatsService {
+
+    // Допустима разлика при сравняване на тегла и приходи (натрупване на double)
+    private static final double TOLERANCE = 1e-6;
+
+    // Редове в един upsert – 7 параметъра на ред
+    private static final int UPSERT_ROWS = 500;
+
+    private static final String UPSERT = "INSERT INTO daily_shipment_stats (stats_day, office_id, " +
+            "registered_count, registered_weight, delivered_count, delivered_weight, revenue) VALUES %s " +
+            "ON DUPLICATE KEY UPDATE " +
+            "registered_count = registered_count + VALUES(registered_count), " +
+            "registered_weight = registered_weight + VALUES(registered_weight), " +
+            "delivered_count = delivered_count + VALUES(delivered_count), " +
+            "delivered_weight = delivered_weight + VALUES(delivered_weight), " +
+            "revenue = revenue + VALUES(revenue)";
+
+    @Autowired
+    private DailyShipmentStatsRepository statsRepository;
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private ArchivedShipmentRepository archiveRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Записва натрупаната промяна с атомарен INSERT ... ON DUPLICATE KEY UPDATE върху уникалния
+     * ключ (stats_day, office_id) – по една заявка на до UPSERT_ROWS засегнати дни и офиси.
+     * Паралелните транзакции не губят обновявания и не се състезават кой да създаде реда.
+     * Трябва да се вика в транзакцията, която променя самите пратки.
+     *
+     * Native заявката декларира засегнатата таблица (native spaces) – иначе Hibernate
+     * изчиства целия second-level cache след всяко изпълнение.
+     *
+     * @param delta промяна, изчислена от ShipmentService
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(ShipmentStatsDelta delta) {
+        List<Map.Entry<ShipmentStatsDelta.Key, ShipmentStatsDelta.Row>> rows = delta.rows().entrySet().stream()
+                .filter(e -> !e.getValue().isEmpty())
+                // еднакъв ред на заключване на редовете във всички транзакции – без deadlock между тях
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(ShipmentStatsDelta.Key::day)
+                        .thenComparingLong(ShipmentStatsDelta.Key::officeId)))
+                .toList();
+        for (int from = 0; from < rows.size(); from += UPSERT_ROWS) {
+            List<Map.Entry<ShipmentStatsDelta.Key, ShipmentStatsDelta.Row>> chunk =
+                    rows.subList(from, Math.min(from + UPSERT_ROWS, rows.size()));
+            Query upsert = entityManager.createNativeQuery(String.format(UPSERT,
+                    String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?, ?, ?)"))));
+            upsert.setHint(HibernateHints.HINT_NATIVE_SPACES, "daily_shipment_stats");
+            int p = 1;
+            for (Map.Entry<ShipmentStatsDelta.Key, ShipmentStatsDelta.Row> e : chunk) {
+                ShipmentStatsDelta.Row row = e.getValue();
+                upsert.setParameter(p++, e.getKey().day());
+                upsert.setParameter(p++, e.getKey().officeId());
+                upsert.setParameter(p++, row.registeredCount);
+                upsert.setParameter(p++, row.registeredWeight);
+                upsert.setParameter(p++, row.deliveredCount);
+                upsert.setParameter(p++, row.deliveredWeight);
+                upsert.setParameter(p++, row.revenue);
+            }
+            upsert.executeUpdate();
+        }
+    }
+
+    /**
+     * Сумира приходите от доставени пратки за период – чете по един ред на ден и офис.
+     * @param startDate начален ден (включително)
+     * @param endDate   краен ден (включително)
+     * @return сумарни приходи в лева
+     */
+    @Transactional(readOnly = true)
+    public double sumRevenue(LocalDate startDate, LocalDate endDate) {
+        return statsRepository.sumRevenueBetween(startDate, endDate);
+    }
+
+    /**
+     * Преизчислява агрегата от shipments и архива и го сравнява със записания,
+     * без да променя нищо.
+     * @return отчет с разминаванията
+     */
+    @Transactional(readOnly = true)
+    public StatsReconcileReport reconcile() {
+        return compare(expectedRows(), statsRepository.findAll(), null);
+    }
+
+    /**
+     * Преизчислява агрегата от shipments и архива, отчита разминаванията
+     * и добавя разликата за разминалите се редове със същия upsert като {@link #apply}.
+     * Празните редове се изтриват.
+     * @return отчет с разминаванията преди възстановяването
+     */
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public StatsReconcileReport rebuild() {
+        ShipmentStatsDelta correction = new ShipmentStatsDelta();
+        List<DailyShipmentStats> actual = statsRepository.findAll();
+        StatsReconcileReport report = compare(expectedRows(), actual, correction);
+        // upsert-ът променя редовете само в базата – заредените entity-та вече са стари
+        actual.forEach(entityManager::detach);
+        apply(correction);
+        statsRepository.deleteEmptyRows();
+        return report;
+    }
+
+    /**
+     * @return true, ако агрегатът е празен, а в shipments има пратки
+     */
+    @Transactional(readOnly = true)
+    public boolean needsInitialBuild() {
+        return statsRepository.count() == 0 && (shipmentRepository.count() > 0 || archiveRepository.count() > 0);
+    }
+
+    private Map<ShipmentStatsDelta.Key, DailyShipmentStats> expectedRows() {
+        Map<ShipmentStatsDelta.Key, DailyShipmentStats> rows = new HashMap<>();
+        addRegistered(rows, shipmentRepository.sumRegisteredByDayAndOffice());
+        addRegistered(rows, archiveRepository.sumRegisteredByDayAndOffice());
+        addDelivered(rows, shipmentRepository.sumDeliveredByDayAndOffice(ShipmentStatus.DELIVERED));
+        addDelivered(rows, archiveRepository.sumDeliveredByDayAndOffice());
+        return rows;
+    }
+
+    private static void addRegistered(Map<ShipmentStatsDelta.Key, DailyShipmentStats> rows,
+                                      List<ShipmentRepository.DailyTotals> totals) {
+        for (ShipmentRepository.DailyTotals t : totals) {
+            DailyShipmentStats row = expectedRow(rows, t);
+            row.setRegisteredCount(row.getRegisteredCount() + t.getShipments());
+            row.setRegisteredWeight(row.getRegisteredWeight() + t.getWeight());
+        }
+    }
+
+    private static void addDelivered(Map<ShipmentStatsDelta.Key, DailyShipmentStats> rows,
+                                     List<ShipmentRepository.DailyTotals> totals) {
+        for (ShipmentRepository.DailyTotals t : totals) {
+            DailyShipmentStats row = expectedRow(rows, t);
+            row.setDeliveredCount(row.getDeliveredCount() + t.getShipments());
+            row.setDeliveredWeight(row.getDeliveredWeight() + t.getWeight());
+            row.setRevenue(row.getRevenue() + t.getRevenue());
+        }
+    }
+
+    private static DailyShipmentStats expectedRow(Map<ShipmentStatsDelta.Key, DailyShipmentStats> rows,
+                                                  ShipmentRepository.DailyTotals totals) {
+        long officeId = totals.getOfficeId() == null ? DailyShipmentStats.NO_OFFICE : totals.getOfficeId();
+        return rows.computeIfAbsent(new ShipmentStatsDelta.Key(totals.getDay(), officeId),
+                k -> new DailyShipmentStats(k.day(), k.officeId()));
+    }
+
+    /**
+     * Сравнява преизчислените редове със записаните.
+     * @param correction ако не е null, в него се натрупва разликата за всеки разминал се ред
+     */
+    private StatsReconcileReport compare(Map<ShipmentStatsDelta.Key, DailyShipmentStats> expected,
+                                         List<DailyShipmentStats> actual, ShipmentStatsDelta correction) {
+        List<StatsDrift> drift = new ArrayList<>();
+        Map<ShipmentStatsDelta.Key, DailyShipmentStats> unmatched = new HashMap<>(expected);
+
+        for (DailyShipmentStats row : actual) {
+            DailyShipmentStats exp = unmatched.remove(new ShipmentStatsDelta.Key(row.getDay(), row.getOfficeId()));
+            diff(exp == null ? new DailyShipmentStats(row.getDay(), row.getOfficeId()) : exp, row, drift, correction);
+        }
+        // Дни/офиси, които липсват изцяло в агрегата
+        for (DailyShipmentStats exp : unmatched.values()) {
+            diff(exp, new DailyShipmentStats(exp.getDay(), exp.getOfficeId()), drift, correction);
+        }
+        List<StatsDrift> reported = drift.size() > StatsReconcileReport.MAX_REPORTED
+                ? new ArrayList<>(drift.subList(0, StatsReconcileReport.MAX_REPORTED))
+                : drift;
+        return new StatsReconcileReport(expected.size(), actual.size(), drift.size(), reported, correction != null);
+    }
+
+    private static void diff(DailyShipmentStats expected, DailyShipmentStats actual,
+                             List<StatsDrift> drift, ShipmentStatsDelta correction) {
+        int before = drift.size();
+        check("registeredCount", expected.getRegisteredCount(), actual.getRegisteredCount(), expected, drift);
+        check("registeredWeight", expected.getRegisteredWeight(), actual.getRegisteredWeight(), expected, drift);
+        check("deliveredCount", expected.getDeliveredCount(), actual.getDeliveredCount(), expected, drift);
+        check("deliveredWeight", expected.getDeliveredWeight(), actual.getDeliveredWeight(), expected, drift);
+        check("revenue", expected.getRevenue(), actual.getRevenue(), expected, drift);
+        if (correction != null && drift.size() > before) {
+            correction.correct(expected, actual);
+        }
+    }
+
+    private static void check(String field, double expected, double actual, DailyShipmentStats row,
+                              List<StatsDrift> drift) {
+        if (Math.abs(expected - actual) > TOLERANCE) {
+            drift.add(new StatsDrift(row.getDay(), row.getOfficeId(), field, expected, actual));
+        }
+    }
+}
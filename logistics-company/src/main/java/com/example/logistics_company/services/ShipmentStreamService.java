@@ -0,0 +1,214 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.ShipmentEvent;
+import com.example.logistics_company.models.AuthenticatedUser;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service клас за живия поток с промени по пратки (GET /api/shipments/stream, Server-Sent Events).
+ *
+ * ShipmentService публикува {@link ShipmentEvent}; тук то се получава едва след commit
+ * и се разпраща на абонатите, които имат право да го видят – служителите виждат всичко,
+ * клиентите само пратките, на които са подател или получател.
+ *
+ * Всеки абонат е асинхронна заявка без собствена нишка, с ограничена опашка.
+ * Публикуването само добавя в опашките; изпращането към мрежата става в applicationTaskExecutor,
+ * най-много по една задача на абонат. Ако абонатът не смогва и опашката му се напълни,
+ * натрупаното се изхвърля и той получава едно събитие resync – да презареди списъка си.
+ * Така бавен клиент не задържа публикуващата транзакция и не трупа памет.
+ *
+ * Местата за абонати се заемат от Semaphore, затова едновременни заявки не минават лимита.
+ * Връзката се затваря най-късно при изтичането на access токена, с който е отворена –
+ * иначе изтекъл или отнет токен би получавал събития до app.shipments.stream.timeout.
+ */
+@Service
+public class ShipmentStreamService {
+
+    static final String EVENT_SHIPMENT = "shipment";
+    static final String EVENT_RESYNC = "resync";
+
+    // Маркер в опашката за keep-alive коментар
+    private static final Object HEARTBEAT = new Object();
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor executor;
+
+    // Максимален брой едновременни абонати
+    @Value("${app.shipments.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    // Непратени събития на абонат, преди да получи resync
+    @Value("${app.shipments.stream.queue-capacity:256}")
+    private int queueCapacity;
+
+    // След колко време сървърът затваря връзката; EventSource се свързва отново сам
+    @Value("${app.shipments.stream.timeout:PT30M}")
+    private Duration timeout;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Свободните места за абонати; заема се преди добавянето, освобождава се при премахването
+    private Semaphore slots;
+
+    @PostConstruct
+    void createSlots() {
+        slots = new Semaphore(maxSubscribers);
+    }
+
+    /**
+     * Регистрира нов абонат.
+     * @param user текущият потребител – определя кои събития ще получава
+     * @param expiresAt изтичането на токена, с който е отворена връзката; null – без ограничение
+     * @return emitter за отговора или null, ако е достигнат app.shipments.stream.max-subscribers
+     */
+    public SseEmitter subscribe(AuthenticatedUser user, Instant expiresAt) {
+        if (!slots.tryAcquire()) {
+            return null;
+        }
+        long timeoutMillis = timeout.toMillis();
+        if (expiresAt != null) {
+            timeoutMillis = Math.max(1, Math.min(timeoutMillis, Duration.between(Instant.now(), expiresAt).toMillis()));
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(user, emitter, new LinkedBlockingQueue<>(queueCapacity));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> {
+            unsubscribe(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> unsubscribe(subscriber));
+        subscribers.add(subscriber);
+        subscriber.offer(HEARTBEAT);
+        return emitter;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        // колбеците и drain() могат да премахнат един абонат няколко пъти – мястото се връща веднъж
+        if (subscribers.remove(subscriber)) {
+            slots.release();
+        }
+    }
+
+    /**
+     * @return брой активни абонати
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Разпраща промяната след успешен commit (при отказ не се изпраща нищо).
+     * @param event промяната, публикувана от ShipmentService
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipmentEvent(ShipmentEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (event.isBulk()) {
+                // пакетните операции не носят отделните пратки – всички презареждат
+                subscriber.resync();
+            } else if (subscriber.user.isEmployee() || event.concernsClient(subscriber.user.getClientId())) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Keep-alive коментар към всички абонати, за да не затворят прокси сървъри
+     * празните връзки и да се открият изчезналите клиенти.
+     */
+    @Scheduled(fixedDelayString = "${app.shipments.stream.heartbeat:PT25S}")
+    public void heartbeat() {
+        subscribers.forEach(s -> s.offer(HEARTBEAT));
+    }
+
+    private final class Subscriber {
+
+        private final AuthenticatedUser user;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+
+        private Subscriber(AuthenticatedUser user, SseEmitter emitter, BlockingQueue<Object> queue) {
+            this.user = user;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        void offer(Object item) {
+            if (!queue.offer(item)) {
+                resync();
+                return;
+            }
+            schedule();
+        }
+
+        void resync() {
+            overflowed = true;
+            queue.clear();
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Изпраща натрупаното; само една задача на абонат, затова редът на събитията се запазва.
+         */
+        private void drain() {
+            try {
+                do {
+                    if (overflowed) {
+                        overflowed = false;
+                        emitter.send(SseEmitter.event().id(Long.toString(sequence.incrementAndGet()))
+                                .name(EVENT_RESYNC).data(""));
+                    }
+                    send(queue);
+                    draining.set(false);
+                } while ((overflowed || !queue.isEmpty()) && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // клиентът е затворил връзката или emitter-ът вече е завършен
+                unsubscribe(this);
+                queue.clear();
+            }
+        }
+
+        private void send(Queue<Object> items) throws IOException {
+            Object item;
+            while ((item = items.poll()) != null) {
+                if (item == HEARTBEAT) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } else {
+                    emitter.send(SseEmitter.event().id(Long.toString(sequence.incrementAndGet()))
+                            .name(EVENT_SHIPMENT).data(item, MediaType.APPLICATION_JSON));
+                }
+            }
+        }
+    }
+}
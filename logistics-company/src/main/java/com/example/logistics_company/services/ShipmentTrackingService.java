@@ -0,0 +1,91 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.models.AuthenticatedUser;
+import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.models.ShipmentStatus;
+import com.example.logistics_company.models.ShipmentTrackingEvent;
+import com.example.logistics_company.repositories.ShipmentTrackingEventRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service клас за историята на пратките (таблица shipment_events).
+ *
+ * ShipmentService записва тук всеки преход между състояния в транзакцията на самата промяна.
+ * Служителят и офисът се взимат от principal-а на текущата заявка, без заявка към базата;
+ * извън HTTP заявка (импорт, планирани задачи, тестове) – от подадения служител, ако има такъв.
+ */
+@Service
+public class ShipmentTrackingService {
+
+    @Autowired
+    private ShipmentTrackingEventRepository eventRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Кой извършва прехода.
+     * @param employeeId ID на служителя или null
+     * @param officeId   ID на офиса му или null
+     */
+    public record Actor(Long employeeId, Long officeId) {
+
+        public static final Actor SYSTEM = new Actor(null, null);
+
+        /**
+         * @param employee зареден служител (офисът се чете само като ID от proxy-то) или null
+         */
+        public static Actor of(Employee employee) {
+            if (employee == null) {
+                return SYSTEM;
+            }
+            return new Actor(employee.getId(), employee.getOffice() == null ? null : employee.getOffice().getId());
+        }
+    }
+
+    /**
+     * @param fallback служителят, ако текущият потребител не е служител (напр. registeredBy), или null
+     * @return служителят от principal-а на текущата заявка, иначе fallback
+     */
+    public Actor currentActor(Employee fallback) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                && user.getEmployeeId() != null) {
+            return new Actor(user.getEmployeeId(), user.getOfficeId());
+        }
+        return Actor.of(fallback);
+    }
+
+    /**
+     * Добавя преход в историята. Трябва да се вика в транзакцията на промяната;
+     * INSERT-ът се изпраща при следващия flush заедно с останалите (JDBC batch).
+     * @param shipmentId ID на пратката
+     * @param from       предишното състояние (null при регистрация)
+     * @param to         новото състояние
+     * @param actor      кой извършва прехода
+     * @param timestamp  момент на прехода
+     */
+    public void record(Long shipmentId, ShipmentStatus from, ShipmentStatus to, Actor actor, LocalDateTime timestamp) {
+        entityManager.persist(new ShipmentTrackingEvent(shipmentId, from, to, timestamp,
+                actor.employeeId(), actor.officeId()));
+    }
+
+    /**
+     * Връща историята на пратка – чете само shipment_events, без реда в shipments.
+     * @param shipmentId ID на пратката
+     * @return събитията в хронологичен ред; празен списък, ако пратката няма история
+     */
+    @Transactional(readOnly = true)
+    public List<ShipmentTrackingEvent> getTimeline(Long shipmentId) {
+        return eventRepository.findTimeline(shipmentId);
+    }
+}
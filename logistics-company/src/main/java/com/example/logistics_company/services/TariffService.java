@@ -0,0 +1,90 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.Quote;
+import com.example.logistics_company.dto.TariffDefinition;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service клас за цените на пратките.
+ *
+ * Версиите на тарифата се четат при стартиране от app.tariffs.location и се компилират
+ * в {@link TariffTable}. Оттам нататък цените и офертите (GET /api/quote) се изчисляват
+ * само в паметта – без достъп до базата. Нова версия се добавя във файла с бъдеща
+ * effectiveFrom и влиза в сила от този ден; вече записаните цени не се преизчисляват.
+ */
+@Service
+public class TariffService {
+
+    private static final Logger log = LoggerFactory.getLogger(TariffService.class);
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${app.tariffs.location:classpath:tariffs.json}")
+    private String location;
+
+    private TariffTable table;
+
+    @PostConstruct
+    void load() {
+        try (InputStream in = resourceLoader.getResource(location).getInputStream()) {
+            List<TariffDefinition> definitions = mapper.readValue(in, new TypeReference<>() {});
+            table = TariffTable.compile(definitions);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read tariffs from " + location, e);
+        }
+        log.info("Loaded {} tariff versions from {}", table.versionCount(), location);
+    }
+
+    /**
+     * @return компилираната таблица (за бенчмаркове и масови изчисления)
+     */
+    public TariffTable getTable() {
+        return table;
+    }
+
+    /**
+     * Цена по тарифата, валидна в дадения ден.
+     * @param weight   тегло в кг
+     * @param toOffice true при доставка до офис
+     * @param city     градът на офиса или null
+     * @param date     денят на регистрация
+     * @return цена в лева
+     * @throws IllegalArgumentException при невалидно тегло или ден без тарифа
+     */
+    public double price(double weight, boolean toOffice, String city, LocalDate date) {
+        return table.price(weight, toOffice, city, date.toEpochDay());
+    }
+
+    /**
+     * Оферта за пратка с посочената версия на тарифата.
+     * @param weight   тегло в кг
+     * @param toOffice true при доставка до офис
+     * @param city     градът на офиса или null
+     * @param date     денят на регистрация
+     * @return офертата
+     * @throws IllegalArgumentException при невалидно тегло или ден без тарифа
+     */
+    public Quote quote(double weight, boolean toOffice, String city, LocalDate date) {
+        long day = date.toEpochDay();
+        return new Quote(table.price(weight, toOffice, city, day), table.version(day),
+                weight, toOffice, city, date);
+    }
+}
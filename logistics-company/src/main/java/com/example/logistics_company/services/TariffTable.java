@@ -0,0 +1,178 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.TariffDefinition;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Тарифите, компилирани в плоски масиви от примитиви – неизменим обект, безопасен за много нишки.
+ *
+ * Версия v заема диапазоните bandOffset[v] .. bandOffset[v + 1] - 1; за диапазон b цената
+ * е в слот 2 * b (офис) и 2 * b + 1 (адрес). Добавката за град c във версия v е
+ * surcharges[v * cityCount + c]. Изчисляването на цена е двоично търсене по дата,
+ * линейно търсене в няколкото диапазона и едно четене от HashMap с вече изчисления hash
+ * на града – без заделяне на обекти, освен при грешка.
+ */
+public final class TariffTable {
+
+    private final String[] versions;
+    private final long[] effectiveFrom;
+    private final int[] bandOffset;
+    private final double[] bandUpTo;
+    private final double[] base;
+    private final double[] perKg;
+    private final Map<String, Integer> cityIndex;
+    private final double[] surcharges;
+
+    private TariffTable(String[] versions, long[] effectiveFrom, int[] bandOffset, double[] bandUpTo,
+                        double[] base, double[] perKg, Map<String, Integer> cityIndex, double[] surcharges) {
+        this.versions = versions;
+        this.effectiveFrom = effectiveFrom;
+        this.bandOffset = bandOffset;
+        this.bandUpTo = bandUpTo;
+        this.base = base;
+        this.perKg = perKg;
+        this.cityIndex = cityIndex;
+        this.surcharges = surcharges;
+    }
+
+    /**
+     * Проверява и компилира версиите на тарифата.
+     * @param definitions версиите в произволен ред
+     * @return компилираната таблица
+     * @throws IllegalArgumentException при липсваща дата, повтаряща се дата, празни
+     *                                  или неподредени диапазони или отрицателни цени
+     */
+    public static TariffTable compile(List<TariffDefinition> definitions) {
+        if (definitions == null || definitions.isEmpty()) {
+            throw new IllegalArgumentException("At least one tariff version is required");
+        }
+        List<TariffDefinition> sorted = new ArrayList<>(definitions);
+        for (TariffDefinition definition : sorted) {
+            if (definition.getEffectiveFrom() == null) {
+                throw new IllegalArgumentException("Tariff " + definition.getVersion() + " has no effectiveFrom");
+            }
+        }
+        sorted.sort(Comparator.comparing(TariffDefinition::getEffectiveFrom));
+
+        Map<String, Integer> cityIndex = new HashMap<>();
+        int bandCount = 0;
+        for (TariffDefinition definition : sorted) {
+            bandCount += definition.getBands().size();
+            definition.getCitySurcharges().keySet().forEach(city -> cityIndex.putIfAbsent(city, cityIndex.size()));
+        }
+
+        int versionCount = sorted.size();
+        String[] versions = new String[versionCount];
+        long[] effectiveFrom = new long[versionCount];
+        int[] bandOffset = new int[versionCount + 1];
+        double[] bandUpTo = new double[bandCount];
+        double[] base = new double[bandCount * 2];
+        double[] perKg = new double[bandCount * 2];
+        double[] surcharges = new double[versionCount * cityIndex.size()];
+
+        int b = 0;
+        for (int v = 0; v < versionCount; v++) {
+            TariffDefinition definition = sorted.get(v);
+            String name = definition.getVersion() == null ? definition.getEffectiveFrom().toString() : definition.getVersion();
+            versions[v] = name;
+            effectiveFrom[v] = definition.getEffectiveFrom().toEpochDay();
+            if (v > 0 && effectiveFrom[v] == effectiveFrom[v - 1]) {
+                throw new IllegalArgumentException("Tariffs " + versions[v - 1] + " and " + name
+                        + " are both effective from " + definition.getEffectiveFrom());
+            }
+            if (definition.getBands().isEmpty()) {
+                throw new IllegalArgumentException("Tariff " + name + " has no weight bands");
+            }
+            bandOffset[v] = b;
+            double previous = 0;
+            for (TariffDefinition.WeightBand band : definition.getBands()) {
+                double upTo = band.getUpToKg() == null ? Double.POSITIVE_INFINITY : band.getUpToKg();
+                if (!(upTo > previous)) {
+                    throw new IllegalArgumentException("Tariff " + name + ": weight bands must be increasing");
+                }
+                if (band.getOfficeBase() < 0 || band.getOfficePerKg() < 0
+                        || band.getAddressBase() < 0 || band.getAddressPerKg() < 0) {
+                    throw new IllegalArgumentException("Tariff " + name + ": prices must not be negative");
+                }
+                bandUpTo[b] = upTo;
+                base[2 * b] = band.getOfficeBase();
+                perKg[2 * b] = band.getOfficePerKg();
+                base[2 * b + 1] = band.getAddressBase();
+                perKg[2 * b + 1] = band.getAddressPerKg();
+                previous = upTo;
+                b++;
+            }
+            for (Map.Entry<String, Double> surcharge : definition.getCitySurcharges().entrySet()) {
+                surcharges[v * cityIndex.size() + cityIndex.get(surcharge.getKey())] =
+                        surcharge.getValue() == null ? 0 : surcharge.getValue();
+            }
+        }
+        bandOffset[versionCount] = b;
+        return new TariffTable(versions, effectiveFrom, bandOffset, bandUpTo, base, perKg, cityIndex, surcharges);
+    }
+
+    /**
+     * Цена на пратка, закръглена до стотинка.
+     * @param weight   тегло в кг (> 0)
+     * @param toOffice true при доставка до офис
+     * @param city     градът на офиса (Office.city) или null – без добавка
+     * @param epochDay денят, за който се търси тарифата (LocalDate.toEpochDay())
+     * @return цена в лева
+     * @throws IllegalArgumentException при невалидно тегло, тегло над последния диапазон
+     *                                  или ден преди първата версия
+     */
+    public double price(double weight, boolean toOffice, String city, long epochDay) {
+        if (!(weight > 0 && weight < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("Weight must be a positive number");
+        }
+        int v = versionIndex(epochDay);
+        int b = bandOffset[v];
+        int end = bandOffset[v + 1];
+        while (weight > bandUpTo[b]) {
+            if (++b == end) {
+                throw new IllegalArgumentException("Weight " + weight + " kg exceeds tariff " + versions[v]);
+            }
+        }
+        int slot = toOffice ? 2 * b : 2 * b + 1;
+        double price = base[slot] + weight * perKg[slot];
+        if (city != null) {
+            Integer c = cityIndex.get(city);
+            if (c != null) {
+                price += surcharges[v * cityIndex.size() + c];
+            }
+        }
+        return Math.round(price * 100) / 100.0;
+    }
+
+    /**
+     * @param epochDay ден (LocalDate.toEpochDay())
+     * @return името на версията, валидна в този ден
+     * @throws IllegalArgumentException ако денят е преди първата версия
+     */
+    public String version(long epochDay) {
+        return versions[versionIndex(epochDay)];
+    }
+
+    /**
+     * @return брой версии в таблицата
+     */
+    public int versionCount() {
+        return versions.length;
+    }
+
+    private int versionIndex(long epochDay) {
+        int i = Arrays.binarySearch(effectiveFrom, epochDay);
+        int v = i >= 0 ? i : -i - 2;
+        if (v < 0) {
+            throw new IllegalArgumentException("No tariff in effect on " + LocalDate.ofEpochDay(epochDay));
+        }
+        return v;
+    }
+}
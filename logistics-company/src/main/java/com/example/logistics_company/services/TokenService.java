@@ -0,0 +1,185 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.models.AuthenticatedUser;
+import com.example.logistics_company.models.UserType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Service клас за издаване и проверка на подписани токени (HMAC-SHA256).
+ *
+ * Токенът има вида {@code base64url(payload).base64url(подпис)}, където payload е
+ * {@code вид|тип|валидност (epoch секунди)|userId|employeeId|clientId|officeId|username}.
+ * Проверката е чисто изчислителна – не се чете базата и не се вика BCrypt,
+ * затова може да се прави на всяка заявка без съществена цена, а от payload-а
+ * се възстановява целият {@link AuthenticatedUser}.
+ *
+ * Има два вида токени:
+ *   - access  – краткотраен, изпраща се в хедъра Authorization: Bearer ...
+ *   - refresh – дълготраен, използва се само за получаване на нов access токен
+ */
+@Service
+public class TokenService {
+
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+
+    // Mac не е thread-safe, затова всяка нишка държи собствена инстанция
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    /**
+     * @param secret     локален ключ за подписване; ако е празен, се генерира случаен
+     *                   (токените стават невалидни след рестарт)
+     * @param accessTtl  валидност на access токена
+     * @param refreshTtl валидност на refresh токена
+     */
+    public TokenService(@Value("${app.auth.token-secret:}") String secret,
+                        @Value("${app.auth.access-token-ttl:PT15M}") Duration accessTtl,
+                        @Value("${app.auth.refresh-token-ttl:P7D}") Duration refreshTtl) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+    }
+
+    /**
+     * Данните, записани в проверен токен.
+     */
+    public static class Claims {
+        private final String kind;
+        private final Instant expiresAt;
+        private final AuthenticatedUser user;
+
+        public Claims(String kind, Instant expiresAt, AuthenticatedUser user) {
+            this.kind = kind;
+            this.expiresAt = expiresAt;
+            this.user = user;
+        }
+
+        public String getKind() { return kind; }
+        public Instant getExpiresAt() { return expiresAt; }
+        public AuthenticatedUser getUser() { return user; }
+        public String getUsername() { return user.getUsername(); }
+    }
+
+    public Duration getAccessTtl() {
+        return accessTtl;
+    }
+
+    /**
+     * Издава краткотраен access токен.
+     *
+     * @param user аутентикираният потребител
+     * @return подписан токен
+     */
+    public String issueAccessToken(AuthenticatedUser user) {
+        return issue(ACCESS, user, accessTtl);
+    }
+
+    /**
+     * Издава дълготраен refresh токен.
+     *
+     * @param user аутентикираният потребител
+     * @return подписан токен
+     */
+    public String issueRefreshToken(AuthenticatedUser user) {
+        return issue(REFRESH, user, refreshTtl);
+    }
+
+    /**
+     * Проверява подписа, вида и валидността на токен.
+     *
+     * @param token        токенът, получен от клиента
+     * @param expectedKind очакваният вид ({@link #ACCESS} или {@link #REFRESH})
+     * @return Claims, ако токенът е валиден, или празен Optional
+     */
+    public Optional<Claims> verify(String token, String expectedKind) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return Optional.empty();
+            }
+            String[] parts = new String(payload, StandardCharsets.UTF_8).split("\\|", 8);
+            if (parts.length != 8 || !parts[0].equals(expectedKind)) {
+                return Optional.empty();
+            }
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(parts[2]));
+            if (!Instant.now().isBefore(expiresAt)) {
+                return Optional.empty();
+            }
+            AuthenticatedUser user = new AuthenticatedUser(parseId(parts[3]), parts[7], null,
+                    UserType.valueOf(parts[1]), parseId(parts[4]), parseId(parts[5]), parseId(parts[6]));
+            return Optional.of(new Claims(parts[0], expiresAt, user));
+        } catch (IllegalArgumentException e) {
+            // невалиден base64, число или тип на потребител
+            return Optional.empty();
+        }
+    }
+
+    private String issue(String kind, AuthenticatedUser user, Duration ttl) {
+        long expiresAt = Instant.now().plus(ttl).getEpochSecond();
+        byte[] payload = (kind + "|" + user.getUserType().name() + "|" + expiresAt
+                + "|" + formatId(user.getId())
+                + "|" + formatId(user.getEmployeeId())
+                + "|" + formatId(user.getClientId())
+                + "|" + formatId(user.getOfficeId())
+                + "|" + user.getUsername())
+                .getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    private static String formatId(Long id) {
+        return id == null ? "" : id.toString();
+    }
+
+    private static Long parseId(String value) {
+        return value.isEmpty() ? null : Long.valueOf(value);
+    }
+
+    private byte[] sign(byte[] payload) {
+        return mac.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance(ALGORITHM);
+            m.init(key);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC algorithm not available", e);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.example.logistics_company.repositories.EmployeeRepository;
 import com.example.logistics_company.repositories.OfficeRepository;
 import com.example.logistics_company.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -50,7 +51,7 @@ public class UserService {
      * @return Запазеният User обект
      * @throws RuntimeException ако не може да намери Client/Employee с даденото ID
      */
-
+    @CacheEvict(cacheNames = CustomUserDetailsService.PRINCIPAL_CACHE, key = "#username")
     public User registerUser(String username, String rawPassword, UserType type,
                              Long clientId, Long employeeId) {
         User user = new User();
@@ -0,0 +1,13 @@
+-- Heartbeat за забавянето на репликите (app.datasource.replicas, виж ReplicaHealthCheck).
+--
+-- При всяка проверка приложението записва текущото време в единствения ред на основната база
+-- и сравнява стойността в основната база с тази в репликата: разликата е колко назад е репликата.
+-- Часовниците на базите не участват – и двете стойности идват от приложението.
+
+create table replication_heartbeat (
+    id      int         not null,
+    beat_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+insert into replication_heartbeat (id, beat_at) values (1, current_timestamp(6));
@@ -0,0 +1,17 @@
+-- Офисът, в който е регистрирана пратката – ключът ѝ в daily_shipment_stats.
+--
+-- Досега агрегатът ползваше текущия офис на служителя (employees.office_id): след преместване
+-- на служителя промените по старите му пратки се записваха към новия офис, а регистрацията
+-- им оставаше в стария. Колоната се попълва веднъж при регистрация и не се променя.
+-- Няма foreign key – офисът може да бъде изтрит, а историята в агрегата остава.
+--
+-- Съществуващите пратки получават текущия офис на служителя – същия, по който е изграден
+-- агрегатът дотук, така че записаните редове остават верни.
+
+alter table shipments add column registered_office_id bigint;
+alter table shipments_archive add column registered_office_id bigint;
+
+update shipments s
+   set registered_office_id = (select e.office_id from employees e where e.id = s.registered_by_employee_id);
+update shipments_archive s
+   set registered_office_id = (select e.office_id from employees e where e.id = s.registered_by_employee_id);
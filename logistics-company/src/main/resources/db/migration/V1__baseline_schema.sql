@@ -0,0 +1,74 @@
+-- Начална схема – съвпада с това, което spring.jpa.hibernate.ddl-auto=update създаваше
+-- преди въвеждането на миграциите (включително имената на ограниченията, генерирани от Hibernate).
+-- Съществуващите бази се маркират като версия 1 (spring.flyway.baseline-on-migrate)
+-- и започват от V2; новите бази се създават от този файл. Затова тук няма нищо, добавено
+-- след тази схема – всяка промяна е в отделна миграция, която се изпълнява и върху старите бази.
+
+create table clients (
+    id           bigint       not null auto_increment,
+    phone_number varchar(13)  not null,
+    name         varchar(100) not null,
+    email        varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table companies (
+    id      bigint       not null auto_increment,
+    phone   varchar(50),
+    name    varchar(100) not null,
+    address varchar(200) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table offices (
+    id      bigint       not null auto_increment,
+    city    varchar(50)  not null,
+    address varchar(100) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table employees (
+    id        bigint       not null auto_increment,
+    office_id bigint,
+    name      varchar(255) not null,
+    role      enum ('COURIER','OFFICE_STAFF') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    id          bigint       not null auto_increment,
+    client_id   bigint,
+    employee_id bigint,
+    password    varchar(255) not null,
+    username    varchar(255) not null,
+    user_type   enum ('CLIENT','EMPLOYEE') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table shipments (
+    id                        bigint       not null auto_increment,
+    sender_id                 bigint       not null,
+    receiver_id               bigint       not null,
+    registered_by_employee_id bigint       not null,
+    delivery_address          varchar(255) not null,
+    weight                    float(53)    not null,
+    to_office                 bit          not null,
+    status                    enum ('DELIVERED','SHIPPED') not null,
+    registration_date         date         not null,
+    delivery_date             date,
+    primary key (id)
+) engine=InnoDB;
+
+alter table clients add constraint UKbt1ji0od8t2mhp0thot6pod8u unique (phone_number);
+alter table clients add constraint UKsrv16ica2c1csub334bxjjb59 unique (email);
+alter table users add constraint UKg9epudg12gt4bfg0g8l9evbf2 unique (client_id);
+alter table users add constraint UKd1s31g1a7ilra77m65xmka3ei unique (employee_id);
+alter table users add constraint UKr53o2ojjw4fikudfnsuuga336 unique (password);
+alter table users add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+
+alter table employees add constraint FKcelobek54amw1bedldhp6f98r foreign key (office_id) references offices (id);
+alter table shipments add constraint FKtb5pio98ks2xle6ju633x8efi foreign key (receiver_id) references clients (id);
+alter table shipments add constraint FKn482qrdsrioobg83338dflg4 foreign key (registered_by_employee_id) references employees (id);
+alter table shipments add constraint FKcjmm7533vn1apl7on6enrhlpl foreign key (sender_id) references clients (id);
+alter table users add constraint FKqvykjc6027qa8n5es37omu3xs foreign key (client_id) references clients (id);
+alter table users add constraint FK6p2ib82uai0pj9yk1iassppgq foreign key (employee_id) references employees (id);
@@ -0,0 +1,22 @@
+-- Цената на пратката се изчислява веднъж при регистрация и се пази в колоната price.
+-- Старите пратки остават с NULL и се попълват от ShipmentPriceBackfillJob.
+--
+-- daily_shipment_stats е дневният агрегат по ден и офис, от който се сумират приходите.
+-- ShipmentStatsService го поддържа с upsert по уникалния ключ (stats_day, office_id);
+-- при празен агрегат и съществуващи пратки ShipmentStatsInitJob го изгражда при старт.
+
+alter table shipments add column price float(53);
+
+create table daily_shipment_stats (
+    id                bigint    not null auto_increment,
+    stats_day         date      not null,
+    office_id         bigint    not null,
+    registered_count  bigint    not null,
+    registered_weight float(53) not null,
+    delivered_count   bigint    not null,
+    delivered_weight  float(53) not null,
+    revenue           float(53) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table daily_shipment_stats add constraint uk_daily_stats_day_office unique (stats_day, office_id);
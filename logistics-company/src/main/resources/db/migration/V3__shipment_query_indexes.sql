@@ -0,0 +1,21 @@
+-- Индекси за заявките в ShipmentRepository.
+--
+-- Всички списъци са keyset страници, подредени по (registration_date DESC, id DESC),
+-- затова всеки филтър получава индекс „колона на филтъра + registration_date + id“:
+-- базата намира първия ред след курсора и чете по индекса точно limit реда, без сортиране.
+-- Водещата колона покрива и съответния foreign key, така че InnoDB не създава отделен индекс.
+--
+--   findPage                      -> idx_shipments_registration
+--   findNotDeliveredPage          -> idx_shipments_registration, статусът се филтрира по пътя
+--   findPageByStatus              -> idx_shipments_status_registration
+--   findPageSentByClient          -> idx_shipments_sender_registration
+--   findPageReceivedByClient      -> idx_shipments_receiver_registration
+--   findPageRegisteredByEmployee  -> idx_shipments_employee_registration
+--   sumDeliveredByDayAndOffice    -> idx_shipments_status_delivery, (status, delivery_date)
+
+create index idx_shipments_registration on shipments (registration_date, id);
+create index idx_shipments_status_delivery on shipments (status, delivery_date, price);
+create index idx_shipments_status_registration on shipments (status, registration_date, id);
+create index idx_shipments_sender_registration on shipments (sender_id, registration_date, id);
+create index idx_shipments_receiver_registration on shipments (receiver_id, registration_date, id);
+create index idx_shipments_employee_registration on shipments (registered_by_employee_id, registration_date, id);
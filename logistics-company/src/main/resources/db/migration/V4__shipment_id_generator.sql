@@ -0,0 +1,21 @@
+-- ID-тата на пратките се раздават от таблица на блокове по 100 (pooled @TableGenerator),
+-- за да може Hibernate да групира INSERT-ите в JDBC batch – при IDENTITY всеки ред
+-- трябва да се вмъкне поотделно, за да се научи ID-то му.
+--
+-- Стойността е горната граница на следващия блок (pooled оптимизатор), затова началната стойност
+-- е MAX(id) + allocationSize + 1 – първият блок започва след всички съществуващи пратки.
+-- Колоната shipments.id остава auto_increment за редове, вмъкнати извън приложението, но от
+-- отделен диапазон: auto_increment следва MAX(id), така че ред, вмъкнат след пратка от приложението,
+-- би получил ID от блок, който генераторът вече е раздал и още не е изчерпал. Генераторът остава
+-- под 10^12, а външните редове започват от 10^12.
+
+create table id_generators (
+    name     varchar(255) not null,
+    next_val bigint,
+    primary key (name)
+) engine=InnoDB;
+
+insert into id_generators (name, next_val)
+select 'shipments', coalesce(max(id), 0) + 101 from shipments;
+
+alter table shipments auto_increment = 1000000000000;
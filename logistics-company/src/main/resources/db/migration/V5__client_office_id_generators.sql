@@ -0,0 +1,12 @@
+-- Клиентите и офисите също получават ID-та на блокове от id_generators (виж V4),
+-- за да може CSV импортът да ги вмъква на JDBC batch-ове. Както при пратките, auto_increment
+-- за редове, вмъкнати извън приложението, започва от 10^12, над блоковете на генератора.
+
+insert into id_generators (name, next_val)
+select 'clients', coalesce(max(id), 0) + 101 from clients;
+
+insert into id_generators (name, next_val)
+select 'offices', coalesce(max(id), 0) + 101 from offices;
+
+alter table clients auto_increment = 1000000000000;
+alter table offices auto_increment = 1000000000000;
@@ -0,0 +1,7 @@
+-- Колона version (@Version) за оптимистично заключване и ETag на детайлните GET крайни точки.
+-- Съществуващите редове започват от версия 0; default-ът покрива и INSERT-и през JDBC.
+alter table companies add column version bigint not null default 0;
+alter table clients   add column version bigint not null default 0;
+alter table employees add column version bigint not null default 0;
+alter table offices   add column version bigint not null default 0;
+alter table shipments add column version bigint not null default 0;
@@ -0,0 +1,28 @@
+-- Transactional outbox: събитията по пратките се записват в същата транзакция като промяната
+-- и се изпращат към handler-ите (известия, фактуриране, webhooks) от OutboxDispatcher.
+--
+-- available_at е едновременно моментът на следващия опит (backoff) и краят на lease-а
+-- на заявен ред: ако dispatcher-ът спре по средата, редът става отново достъпен след lease-а.
+-- Изпратените редове се изтриват; status = 'DEAD' след app.outbox.max-attempts неуспешни опита.
+-- ID-тата се резервират на блокове от id_generators (виж V4), за да се групират INSERT-ите;
+-- редове, вмъкнати извън приложението, получават auto_increment ID от 10^12 нагоре, над блоковете.
+
+create table outbox (
+    id           bigint        not null auto_increment,
+    event_type   varchar(32)   not null,
+    shipment_id  bigint        not null,
+    payload      varchar(1000) not null,
+    status       varchar(16)   not null default 'PENDING',
+    attempts     int           not null default 0,
+    created_at   datetime(6)   not null,
+    available_at datetime(6)   not null,
+    last_error   varchar(1000),
+    primary key (id)
+) engine=InnoDB;
+
+alter table outbox auto_increment = 1000000000000;
+
+-- Заявката на dispatcher-а: status = 'PENDING' AND available_at <= ? LIMIT ? FOR UPDATE SKIP LOCKED
+create index idx_outbox_status_available on outbox (status, available_at, id);
+
+insert into id_generators (name, next_val) values ('outbox', 101);
@@ -0,0 +1,41 @@
+-- История на пратките: нови междинни състояния и таблица shipment_events,
+-- в която всеки преход между състояния се добавя като нов ред (редовете не се променят и не се трият).
+--
+-- Проследяването (GET /api/shipments/{id}/timeline) чете само тази таблица по индекса
+-- (shipment_id, ts), без да докосва често обновявания ред в shipments. Нарочно няма
+-- foreign key към shipments: INSERT-ът не заключва реда на пратката, а историята
+-- остава и след изтриване (или преместване) на пратката.
+-- ID-тата се резервират на блокове от id_generators (виж V4), за да се групират INSERT-ите;
+-- редове, вмъкнати извън приложението, получават auto_increment ID от 10^12 нагоре, над блоковете.
+--
+-- Съществуващите пратки получават по едно начално събитие (null -> текущия статус) към датата
+-- на регистрация, за да не е празна историята им. ID-тата им са 1..N по реда на пратките
+-- (не ID-тата на пратките, които може да са от диапазона над 10^12); генераторът започва след тях.
+
+alter table shipments modify status
+    enum ('AT_OFFICE','DELIVERED','IN_TRANSIT','OUT_FOR_DELIVERY','RETURNED','SHIPPED') not null;
+
+create table shipment_events (
+    id          bigint      not null auto_increment,
+    shipment_id bigint      not null,
+    -- null за първото събитие (регистрация или импорт)
+    from_status varchar(20),
+    to_status   varchar(20) not null,
+    ts          datetime(6) not null,
+    -- служителят и офисът, извършили прехода (null за системни промени)
+    employee_id bigint,
+    office_id   bigint,
+    primary key (id)
+) engine=InnoDB;
+
+alter table shipment_events auto_increment = 1000000000000;
+
+create index idx_shipment_events_shipment_ts on shipment_events (shipment_id, ts);
+
+insert into shipment_events (id, shipment_id, from_status, to_status, ts, employee_id, office_id)
+select row_number() over (order by s.id), s.id, null, s.status, s.registration_date, s.registered_by_employee_id, e.office_id
+from shipments s
+left join employees e on e.id = s.registered_by_employee_id;
+
+insert into id_generators (name, next_val)
+select 'shipment_events', coalesce(max(id), 0) + 101 from shipment_events;
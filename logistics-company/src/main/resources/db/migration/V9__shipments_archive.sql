@@ -0,0 +1,33 @@
+-- Архив на доставените пратки: ShipmentArchiveJob премества тук пратките, доставени
+-- преди повече от app.archive.min-age, така че заявките към shipments обхождат само
+-- недоставените и скоро доставените пратки.
+--
+-- Колоните повтарят shipments (виж V1, V2, V6, V8) плюс момента на архивиране. Редовете
+-- се преместват на порции с INSERT ... SELECT и DELETE в една транзакция; дневният
+-- агрегат не се променя, защото архивираните пратки продължават да се броят в него.
+
+create table shipments_archive (
+    id                        bigint       not null,
+    version                   bigint       not null,
+    sender_id                 bigint       not null,
+    receiver_id               bigint       not null,
+    registered_by_employee_id bigint       not null,
+    delivery_address          varchar(255) not null,
+    weight                    float(53)    not null,
+    to_office                 bit          not null,
+    status                    enum ('AT_OFFICE','DELIVERED','IN_TRANSIT','OUT_FOR_DELIVERY','RETURNED','SHIPPED') not null,
+    registration_date         date         not null,
+    delivery_date             date,
+    price                     float(53),
+    archived_at               datetime(6)  not null,
+    primary key (id)
+) engine=InnoDB;
+
+-- Справките „изпратени/получени от клиент“ – същите keyset индекси като в shipments (виж V3)
+create index idx_shipments_archive_sender_registration on shipments_archive (sender_id, registration_date, id);
+create index idx_shipments_archive_receiver_registration on shipments_archive (receiver_id, registration_date, id);
+
+alter table shipments_archive add constraint fk_shipments_archive_sender foreign key (sender_id) references clients (id);
+alter table shipments_archive add constraint fk_shipments_archive_receiver foreign key (receiver_id) references clients (id);
+alter table shipments_archive add constraint fk_shipments_archive_employee
+    foreign key (registered_by_employee_id) references employees (id);
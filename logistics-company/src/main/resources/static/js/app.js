@@ -1,11 +1,23 @@
 // src/main/resources/static/js/app.js
 
 const AUTH_ME         = '/api/auth/me';
+const AUTH_LOGIN      = '/api/auth/login';
+const AUTH_REFRESH    = '/api/auth/refresh';
 const USERS_REGISTER  = '/api/users/register';
 const API_BASE        = '/api';
 
-let authHeader  = null;
-let currentUser = null;
+let authHeader   = null;
+let refreshToken = null;
+let currentUser  = null;
+
+// Кеш на GET отговорите по URL: { etag, data }. Сървърът отговаря с 304 Not Modified,
+// когато If-None-Match съвпада, и тогава се използват запазените данни
+const responseCache = new Map();
+
+// Жив поток с промени по пратките (SSE) – отворен, докато е показан списък с пратки
+let shipmentStream = null;
+let streamReload   = null;
+let shownPage      = null;
 
 // ——— Initialization ———
 window.onload = async () => {
@@ -21,8 +33,11 @@ window.onload = async () => {
   document.getElementById('login-button').onclick    = login;
   document.getElementById('register-button').onclick = register;
   document.getElementById('logout-button').onclick   = () => {
-    authHeader  = null;
-    currentUser = null;
+    authHeader   = null;
+    refreshToken = null;
+    currentUser  = null;
+    closeShipmentStream();
+    responseCache.clear();
     showAuth();
   };
 };
@@ -77,7 +92,7 @@ async function register() {
   toggleTab('login');
 }
 
-// ——— AJAX Login via HTTP Basic ———
+// ——— AJAX Login: паролата се проверява веднъж, после се ползва Bearer токен ———
 async function login() {
   const u = document.getElementById('login-username').value.trim();
   const p = document.getElementById('login-password').value;
@@ -85,32 +100,62 @@ async function login() {
     return showAuthError('Попълнете полетата за вход.');
   }
 
-  authHeader = 'Basic ' + btoa(`${u}:${p}`);
-
   try {
-    const res = await fetch(AUTH_ME, {
-      headers: { 'Authorization': authHeader }
+    const res = await fetch(AUTH_LOGIN, {
+      method: 'POST',
+      body: new URLSearchParams({ username: u, password: p })
     });
     if (!res.ok) throw new Error('Грешни данни за вход');
+    storeTokens(await res.json());
+    responseCache.clear();
 
-    currentUser = await res.json();
+    currentUser = await authFetch(AUTH_ME);
     showApp();
   } catch (e) {
-    authHeader = null;
-    showAuthError(e.message);
+    authHeader   = null;
+    refreshToken = null;
+    showAuthError(e.message || 'Грешни данни за вход');
   }
 }
 
+function storeTokens(tokens) {
+  authHeader   = `${tokens.tokenType} ${tokens.accessToken}`;
+  refreshToken = tokens.refreshToken;
+}
+
+// ——— Подновяване на изтекъл access токен ———
+async function refreshTokens() {
+  if (!refreshToken) return false;
+  const res = await fetch(AUTH_REFRESH, {
+    method: 'POST',
+    body: new URLSearchParams({ refreshToken })
+  });
+  if (!res.ok) return false;
+  storeTokens(await res.json());
+  return true;
+}
+
 // ——— Helper for protected endpoints ———
-async function authFetch(url, opts = {}) {
-  opts.headers = {
+async function authFetch(url, opts = {}, retry = true) {
+  const isGet  = !opts.method || opts.method === 'GET';
+  const cached = isGet ? responseCache.get(url) : null;
+  const headers = {
     ...(opts.headers || {}),
     'Authorization': authHeader,
-    'Content-Type': 'application/json'
+    'Content-Type': 'application/json',
+    ...(cached ? { 'If-None-Match': cached.etag } : {})
   };
-  const res = await fetch(url, opts);
+  const res = await fetch(url, { ...opts, headers });
+  if (res.status === 401 && retry && await refreshTokens()) {
+    return authFetch(url, opts, false);
+  }
+  if (res.status === 304 && cached) return cached.data;
   if (!res.ok) throw res;
-  return res.json();
+  if (res.status === 204) return null;
+  const data = await res.json();
+  const etag = res.headers.get('ETag');
+  if (isGet && etag) responseCache.set(url, { etag, data });
+  return data;
 }
 
 // ——— Build the menu based on role ———
@@ -135,7 +180,7 @@ function buildMenu() {
 function addNav(label, fn) {
   const btn = document.createElement('button');
   btn.textContent = label;
-  btn.onclick     = fn;
+  btn.onclick     = () => { closeShipmentStream(); fn(); };
   document.getElementById('menu').append(btn);
 }
 
@@ -360,15 +405,54 @@ async function editOffice(id) {
 
 // === SHIPMENTS ===
 async function fetchShipments() {
-  const data = await authFetch(`${API_BASE}/shipments/all`);
-  renderShipmentsTable(data);
+  await showShipmentPage(`${API_BASE}/shipments/all`);
+  watchShipments(`${API_BASE}/shipments/all`);
 }
 async function fetchMyShipments() {
   const url = currentUser.userType === 'CLIENT'
-    ? `${API_BASE}/shipments/client/${currentUser.client.id}/sent`
+    ? `${API_BASE}/shipments/client/${currentUser.clientId}/sent`
     : `${API_BASE}/shipments/all`;
-  const data = await authFetch(url);
-  renderShipmentsTable(data);
+  await showShipmentPage(url);
+  watchShipments(url);
+}
+
+// Зарежда една страница (keyset пагинация) и добавя бутон за следващата
+async function showShipmentPage(url, cursor) {
+  shownPage  = { url, cursor };
+  const sep  = url.includes('?') ? '&' : '?';
+  const page = await authFetch(cursor ? `${url}${sep}cursor=${encodeURIComponent(cursor)}` : url);
+  renderShipmentsTable(page.items);
+  if (page.nextCursor) {
+    document.getElementById('content').innerHTML +=
+      `<button onclick="showShipmentPage('${url}', '${page.nextCursor}')">Следваща страница</button>`;
+  }
+}
+// Абонира се за промените по пратки и презарежда първата страница на url, докато тя е показана.
+// EventSource не изпраща хедъри, затова токенът е в параметъра access_token
+function watchShipments(url) {
+  closeShipmentStream();
+  const token  = authHeader.slice(authHeader.indexOf(' ') + 1);
+  const stream = new EventSource(`${API_BASE}/shipments/stream?access_token=${encodeURIComponent(token)}`);
+  const reload = () => {
+    clearTimeout(streamReload);
+    streamReload = setTimeout(() => {
+      if (shownPage && shownPage.url === url && !shownPage.cursor) showShipmentPage(url);
+    }, 300);
+  };
+  stream.addEventListener('shipment', reload);
+  stream.addEventListener('resync', reload);
+  // при изтекъл токен сървърът отговаря 401 и EventSource спира – подновяваме и се свързваме отново
+  stream.onerror = async () => {
+    if (stream === shipmentStream && stream.readyState === EventSource.CLOSED && await refreshTokens()) {
+      watchShipments(url);
+    }
+  };
+  shipmentStream = stream;
+}
+function closeShipmentStream() {
+  if (shipmentStream) shipmentStream.close();
+  shipmentStream = null;
+  clearTimeout(streamReload);
 }
 function renderShipmentsTable(list) {
   let html = `<h2>Пратки</h2><table>
@@ -440,18 +524,16 @@ function fetchReports() {
     <button onclick="fetchRevenuePrompt()">Приходи</button>`;
 }
 async function fetchNotDelivered() {
-  const list = await authFetch(`${API_BASE}/shipments/not-delivered`);
-  renderShipmentsTable(list);
+  await showShipmentPage(`${API_BASE}/shipments/not-delivered`);
+  watchShipments(`${API_BASE}/shipments/not-delivered`);
 }
 async function fetchByEmployeePrompt() {
   const id = prompt('ID на служител:'); if (!id) return;
-  const list = await authFetch(`${API_BASE}/shipments/employee/${id}`);
-  renderShipmentsTable(list);
+  await showShipmentPage(`${API_BASE}/shipments/employee/${id}`);
 }
 async function fetchByClientPrompt() {
   const id = prompt('ID на клиент:'); if (!id) return;
-  const list = await authFetch(`${API_BASE}/shipments/client/${id}/sent`);
-  renderShipmentsTable(list);
+  await showShipmentPage(`${API_BASE}/shipments/client/${id}/sent`);
 }
 async function fetchRevenuePrompt() {
   const start = prompt('Начална дата (YYYY-MM-DD):');
@@ -479,8 +561,7 @@ async function fetchRevenuePrompt() {
 async function fetchByClientSentPrompt() {
   const id = prompt('ID на клиент за изпратени пратки:');
   if (!id) return;
-  const list = await authFetch(`${API_BASE}/shipments/client/${id}/sent`);
-  renderShipmentsTable(list);
+  await showShipmentPage(`${API_BASE}/shipments/client/${id}/sent`);
 }
 
 /**
@@ -489,6 +570,5 @@ async function fetchByClientSentPrompt() {
 async function fetchByClientReceivedPrompt() {
   const id = prompt('ID на клиент за получени пратки:');
   if (!id) return;
-  const list = await authFetch(`${API_BASE}/shipments/client/${id}/received`);
-  renderShipmentsTable(list);
+  await showShipmentPage(`${API_BASE}/shipments/client/${id}/received`);
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.example.logistics_company.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнява заявки в секунда към /api/shipments/all при HTTP Basic и при Bearer токен.
+ * Изпълнява се само при {@code mvn test -Dbenchmark=true -Dtest=AuthThroughputBenchmark}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AuthThroughputBenchmark {
+
+	private static final int THREADS = Integer.getInteger("benchmark.threads", 8);
+	private static final long DURATION_MS = Long.getLong("benchmark.durationMs", 10_000);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	private final HttpClient http = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.build();
+
+	@Test
+	void basicVersusToken() throws Exception {
+		String basic = "Basic " + Base64.getEncoder()
+				.encodeToString("georgi:password123".getBytes(StandardCharsets.UTF_8));
+
+		HttpResponse<String> login = http.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+						.header("Content-Type", "application/x-www-form-urlencoded")
+						.POST(HttpRequest.BodyPublishers.ofString("username=georgi&password=password123"))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+		String bearer = "Bearer " + mapper.readTree(login.body()).get("accessToken").asText();
+
+		// загрявка на JIT и connection pool-а
+		run(basic, 2_000);
+		run(bearer, 2_000);
+
+		double basicRps = run(basic, DURATION_MS);
+		double tokenRps = run(bearer, DURATION_MS);
+
+		System.out.printf("/api/shipments/all  threads=%d  basic=%.0f req/s  token=%.0f req/s  (x%.1f)%n",
+				THREADS, basicRps, tokenRps, tokenRps / basicRps);
+		assertThat(tokenRps).isGreaterThan(basicRps);
+	}
+
+	private double run(String authorization, long durationMs) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(uri("/api/shipments/all"))
+				.header("Authorization", authorization)
+				.GET().build();
+		AtomicLong ok = new AtomicLong();
+		long deadline = System.nanoTime() + durationMs * 1_000_000;
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(pool.submit(() -> {
+				while (System.nanoTime() < deadline) {
+					HttpResponse<Void> res = http.send(request, HttpResponse.BodyHandlers.discarding());
+					if (res.statusCode() != 200) {
+						throw new IllegalStateException("HTTP " + res.statusCode());
+					}
+					ok.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		for (Future<?> f : futures) {
+			f.get();
+		}
+		pool.shutdown();
+		return ok.get() * 1000.0 / durationMs;
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+}
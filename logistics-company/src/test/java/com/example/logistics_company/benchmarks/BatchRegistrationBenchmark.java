@@ -0,0 +1,123 @@
+package com.example.logistics_company.benchmarks;
+
+import com.example.logistics_company.repositories.ClientRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнява регистрацията на 10 000 пратки с една заявка към /api/shipments/register/batch
+ * и с 10 000 отделни заявки към /api/shipments/register.
+ * Изпълнява се само при {@code mvn test -Dbenchmark=true -Dtest=BatchRegistrationBenchmark}.
+ * Стойностите са показателни само срещу MySQL (rewriteBatchedStatements=true) –
+ * стартирайте с -Dspring.datasource.url=... и съответните username/password.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BatchRegistrationBenchmark {
+
+	private static final int SHIPMENTS = Integer.getInteger("benchmark.shipments", 10_000);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	private final HttpClient http = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.build();
+
+	@Test
+	void batchVersusSingleRequests() throws Exception {
+		String bearer = "Bearer " + login();
+		long senderId = clientRepository.findAll().get(0).getId();
+		long receiverId = clientRepository.findAll().get(1).getId();
+
+		// загрявка
+		single(bearer, senderId, receiverId, 500);
+		batch(bearer, senderId, receiverId, 500);
+
+		long singleMs = single(bearer, senderId, receiverId, SHIPMENTS);
+		long batchMs = batch(bearer, senderId, receiverId, SHIPMENTS);
+
+		System.out.printf("%d shipments  single requests=%d ms (%.0f/s)  one batch=%d ms (%.0f/s)  (x%.1f)%n",
+				SHIPMENTS, singleMs, SHIPMENTS * 1000.0 / singleMs,
+				batchMs, SHIPMENTS * 1000.0 / batchMs, (double) singleMs / batchMs);
+		assertThat(batchMs).isLessThan(singleMs);
+	}
+
+	private long single(String bearer, long senderId, long receiverId, int count) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			ObjectNode shipment = mapper.createObjectNode();
+			shipment.putObject("sender").put("id", senderId);
+			shipment.putObject("receiver").put("id", receiverId);
+			shipment.put("deliveryAddress", "адрес " + i);
+			shipment.put("weight", 1.0 + i % 20);
+			shipment.put("toOffice", i % 2 == 0);
+			post(bearer, "/api/shipments/register", shipment.toString());
+		}
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+
+	private long batch(String bearer, long senderId, long receiverId, int count) throws Exception {
+		ArrayNode items = mapper.createArrayNode();
+		for (int i = 0; i < count; i++) {
+			items.addObject()
+					.put("senderId", senderId)
+					.put("receiverId", receiverId)
+					.put("deliveryAddress", "адрес " + i)
+					.put("weight", 1.0 + i % 20)
+					.put("toOffice", i % 2 == 0);
+		}
+		String body = items.toString();
+		long start = System.nanoTime();
+		JsonNode response = mapper.readTree(post(bearer, "/api/shipments/register/batch", body));
+		long elapsed = (System.nanoTime() - start) / 1_000_000;
+		assertThat(response.get("registered").asInt()).isEqualTo(count);
+		return elapsed;
+	}
+
+	private String login() throws Exception {
+		HttpResponse<String> login = http.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+						.header("Content-Type", "application/x-www-form-urlencoded")
+						.POST(HttpRequest.BodyPublishers.ofString("username=georgi&password=password123"))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+		return mapper.readTree(login.body()).get("accessToken").asText();
+	}
+
+	private String post(String bearer, String path, String json) throws Exception {
+		HttpResponse<String> res = http.send(HttpRequest.newBuilder(uri(path))
+						.header("Authorization", bearer)
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(json))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+		if (res.statusCode() != 200) {
+			throw new IllegalStateException("HTTP " + res.statusCode() + " " + res.body());
+		}
+		return res.body();
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.logistics_company.benchmarks;
+
+import com.example.logistics_company.dto.ImportReport;
+import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.services.CsvImportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Измерва скоростта на CSV импорта (редове/сек.) за клиенти и пратки.
+ * Изпълнява се само при {@code mvn test -Dbenchmark=true -Dtest=CsvImportBenchmark};
+ * размерът се задава с -Dbenchmark.clients и -Dbenchmark.shipments.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CsvImportBenchmark {
+
+	private static final int CLIENTS = Integer.getInteger("benchmark.clients", 20_000);
+	private static final int SHIPMENTS = Integer.getInteger("benchmark.shipments", 100_000);
+
+	@Autowired
+	private CsvImportService importService;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Test
+	void importThroughput() throws Exception {
+		Employee employee = employeeRepository.findAll().get(0);
+		String prefix = Long.toString(System.currentTimeMillis() % 100_000);
+
+		StringBuilder clients = new StringBuilder("name,email,phoneNumber\n");
+		for (int i = 0; i < CLIENTS; i++) {
+			clients.append("Клиент ").append(i).append(",c").append(prefix).append('-').append(i)
+					.append("@import.bg,+").append(prefix).append(i).append('\n');
+		}
+		ImportReport clientReport = importService.importCsv(CsvImportService.Type.CLIENTS,
+				new ByteArrayInputStream(clients.toString().getBytes(StandardCharsets.UTF_8)), employee);
+
+		StringBuilder shipments = new StringBuilder(
+				"senderEmail,receiverEmail,deliveryAddress,weight,toOffice,status,registrationDate,deliveryDate\n");
+		for (int i = 0; i < SHIPMENTS; i++) {
+			boolean delivered = i % 2 == 0;
+			shipments.append('c').append(prefix).append('-').append(i % CLIENTS).append("@import.bg,")
+					.append('c').append(prefix).append('-').append((i + 1) % CLIENTS).append("@import.bg,")
+					.append("адрес ").append(i).append(',').append(1 + i % 20).append(',').append(i % 3 == 0)
+					.append(delivered ? ",DELIVERED,2024-01-" : ",SHIPPED,2024-01-").append(10 + i % 10)
+					.append(delivered ? ",2024-02-" + (10 + i % 10) : ",").append('\n');
+		}
+		ImportReport shipmentReport = importService.importCsv(CsvImportService.Type.SHIPMENTS,
+				new ByteArrayInputStream(shipments.toString().getBytes(StandardCharsets.UTF_8)), employee);
+
+		System.out.printf("clients:   %d rows in %d ms = %.0f rows/s%n",
+				clientReport.getImported(), clientReport.getElapsedMs(), clientReport.getRowsPerSecond());
+		System.out.printf("shipments: %d rows in %d ms = %.0f rows/s%n",
+				shipmentReport.getImported(), shipmentReport.getElapsedMs(), shipmentReport.getRowsPerSecond());
+		assertThat(clientReport.getRejected()).isZero();
+		assertThat(shipmentReport.getRejected()).isZero();
+	}
+}
@@ -0,0 +1,112 @@
+package com.example.logistics_company.benchmarks;
+
+import com.example.logistics_company.dto.CursorPage;
+import com.example.logistics_company.dto.ShipmentCursor;
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.services.ShipmentService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Сравнява латентността на дълбоки страници при OFFSET и при keyset пагинация.
+ * Изпълнява се само при {@code mvn test -Dbenchmark=true -Dtest=KeysetPaginationBenchmark}.
+ *
+ * Очакван резултат: при OFFSET времето расте линейно с дълбочината,
+ * а при keyset остава почти постоянно.
+ *
+ * Важно: H2 използва B-дървета с броячи и прескача OFFSET редове за O(log n),
+ * затова разликата се вижда реално само срещу MySQL/InnoDB, напр.
+ * {@code -Dspring.datasource.url=jdbc:mysql://localhost:3306/logistics_bench
+ * -Dspring.datasource.username=... -Dspring.datasource.password=...
+ * -Dspring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver}
+ * (базата се пълни с тестови данни – използвайте отделна схема).
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class KeysetPaginationBenchmark {
+
+	private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+	private static final int PAGE = 50;
+	private static final int REPEAT = 20;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate tx;
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Test
+	void deepPages() {
+		seed();
+
+		System.out.printf("%10s %14s %14s%n", "depth", "offset (ms)", "keyset (ms)");
+		for (int depth : new int[]{0, ROWS / 10, ROWS / 2, ROWS - PAGE - 1}) {
+			Map<String, Object> row = jdbc.queryForMap(
+					"SELECT registration_date, id FROM shipments ORDER BY registration_date DESC, id DESC LIMIT 1 OFFSET ?",
+					depth);
+			String cursor = new ShipmentCursor(((Date) row.get("registration_date")).toLocalDate(),
+					((Number) row.get("id")).longValue()).encode();
+
+			double offsetMs = time(() -> tx.execute(s -> entityManager
+					.createQuery("SELECT s FROM Shipment s ORDER BY s.registrationDate DESC, s.id DESC", Shipment.class)
+					.setFirstResult(depth + 1)
+					.setMaxResults(PAGE)
+					.getResultList()));
+			double keysetMs = time(() -> tx.execute(s -> {
+				CursorPage<Shipment> page = shipmentService.getAllShipments(cursor, PAGE);
+				return page.getItems();
+			}));
+			System.out.printf("%10d %14.2f %14.2f%n", depth, offsetMs, keysetMs);
+		}
+	}
+
+	private double time(Supplier<List<Shipment>> query) {
+		query.get();
+		long start = System.nanoTime();
+		for (int i = 0; i < REPEAT; i++) {
+			query.get();
+		}
+		return (System.nanoTime() - start) / 1e6 / REPEAT;
+	}
+
+	private void seed() {
+		Long sender = jdbc.queryForObject("SELECT MIN(id) FROM clients", Long.class);
+		Long receiver = jdbc.queryForObject("SELECT MAX(id) FROM clients", Long.class);
+		Long employee = jdbc.queryForObject("SELECT MIN(id) FROM employees", Long.class);
+		LocalDate start = LocalDate.of(2020, 1, 1);
+
+		List<Object[]> batch = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			batch.add(new Object[]{sender, receiver, "адрес " + i, 1.0 + i % 30, i % 2 == 0,
+					"DELIVERED", Date.valueOf(start.plusDays(i / 200)), employee});
+			if (batch.size() == 5_000) {
+				insert(batch);
+			}
+		}
+		insert(batch);
+	}
+
+	private void insert(List<Object[]> batch) {
+		jdbc.batchUpdate("INSERT INTO shipments (sender_id, receiver_id, delivery_address, weight, to_office, " +
+				"status, registration_date, registered_by_employee_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+		batch.clear();
+	}
+}
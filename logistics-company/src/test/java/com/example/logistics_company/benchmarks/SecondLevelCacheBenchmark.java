@@ -0,0 +1,143 @@
+package com.example.logistics_company.benchmarks;
+
+import com.example.logistics_company.LogisticsCompanyApplication;
+import com.example.logistics_company.dto.CursorPage;
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.services.ShipmentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Сравнява латентността на списъка с пратки (GET /api/shipments: заявка + JSON сериализация)
+ * с включен и с изключен Hibernate second-level cache за служители и офиси.
+ * Изпълнява се само при {@code mvn test -Dbenchmark=true -Dtest=SecondLevelCacheBenchmark}.
+ *
+ * Стартира приложението два пъти върху една и съща база – веднъж с настройките по подразбиране
+ * и веднъж с hibernate.cache.use_second_level_cache=false – и обхожда едни и същи страници.
+ * Без кеша всяка страница прави втора заявка за служителите си (IN по до 100 ID-та);
+ * с топъл кеш страницата е една заявка.
+ *
+ * Както при KeysetPaginationBenchmark, разликата е по-видима срещу MySQL по мрежа,
+ * където всяка заявка струва поне един round trip, отколкото срещу H2 в паметта.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SecondLevelCacheBenchmark {
+
+	private static final int ROWS = Integer.getInteger("benchmark.rows", 20_000);
+	private static final int EMPLOYEES = 500;
+	private static final int OFFICES = 50;
+	private static final int PAGE = 50;
+	private static final int PAGES = 200;
+
+	@Test
+	void shipmentListWithAndWithoutCache() throws Exception {
+		double[] on;
+		double[] off;
+		try (ConfigurableApplicationContext context = start(true)) {
+			seed(context.getBean(JdbcTemplate.class));
+			on = measure(context);
+		}
+		try (ConfigurableApplicationContext context = start(false)) {
+			off = measure(context);
+		}
+		System.out.printf("%-10s %10s %10s %10s %12s%n", "L2 cache", "avg (ms)", "p50 (ms)", "p95 (ms)", "SQL/page");
+		print("on", on);
+		print("off", off);
+	}
+
+	private static ConfigurableApplicationContext start(boolean cache) {
+		// Аргументи от командния ред – с по-висок приоритет от application.properties
+		return new SpringApplicationBuilder(LogisticsCompanyApplication.class)
+				.run("--server.port=0",
+						"--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cache,
+						"--spring.jpa.properties.hibernate.cache.use_query_cache=" + cache,
+						"--spring.jpa.properties.jakarta.persistence.sharedCache.mode=" + (cache ? "ENABLE_SELECTIVE" : "NONE"));
+	}
+
+	/**
+	 * Обхожда PAGES страници два пъти – първият път затопля кеша (и JIT-а), вторият се мери.
+	 * @return {avg, p50, p95, заявки на страница}
+	 */
+	private static double[] measure(ConfigurableApplicationContext context) throws Exception {
+		ShipmentService shipmentService = context.getBean(ShipmentService.class);
+		ObjectMapper mapper = context.getBean(ObjectMapper.class);
+		Statistics statistics = context.getBean(EntityManagerFactory.class)
+				.unwrap(SessionFactory.class).getStatistics();
+
+		walk(shipmentService, mapper);
+		statistics.clear();
+		double[] millis = walk(shipmentService, mapper);
+		double statements = (double) statistics.getPrepareStatementCount() / PAGES;
+
+		double avg = Arrays.stream(millis).average().orElse(0);
+		Arrays.sort(millis);
+		return new double[]{avg, millis[PAGES / 2], millis[PAGES * 95 / 100], statements};
+	}
+
+	private static double[] walk(ShipmentService shipmentService, ObjectMapper mapper) throws Exception {
+		double[] millis = new double[PAGES];
+		String cursor = null;
+		for (int i = 0; i < PAGES; i++) {
+			long start = System.nanoTime();
+			CursorPage<Shipment> page = shipmentService.getAllShipments(cursor, PAGE);
+			mapper.writeValueAsBytes(page);
+			millis[i] = (System.nanoTime() - start) / 1e6;
+			cursor = page.getNextCursor();
+		}
+		return millis;
+	}
+
+	private static void print(String label, double[] result) {
+		System.out.printf("%-10s %10.2f %10.2f %10.2f %12.1f%n", label, result[0], result[1], result[2], result[3]);
+	}
+
+	private static void seed(JdbcTemplate jdbc) {
+		Long sender = jdbc.queryForObject("SELECT MIN(id) FROM clients", Long.class);
+		Long receiver = jdbc.queryForObject("SELECT MAX(id) FROM clients", Long.class);
+
+		// Офисите са с ID извън блоковете на id_generators
+		List<Object[]> offices = new ArrayList<>();
+		for (int i = 0; i < OFFICES; i++) {
+			offices.add(new Object[]{1_000_000L + i, "бул. Бенчмарк " + i, "град " + i});
+		}
+		jdbc.batchUpdate("INSERT INTO offices (id, address, city) VALUES (?, ?, ?)", offices);
+
+		List<Object[]> employees = new ArrayList<>();
+		for (int i = 0; i < EMPLOYEES; i++) {
+			employees.add(new Object[]{"служител " + i, 1_000_000L + i % OFFICES, "COURIER"});
+		}
+		jdbc.batchUpdate("INSERT INTO employees (name, office_id, role) VALUES (?, ?, ?)", employees);
+		List<Long> employeeIds = jdbc.queryForList(
+				"SELECT id FROM employees WHERE name LIKE 'служител %' ORDER BY id", Long.class);
+
+		LocalDate day = LocalDate.of(2024, 1, 1);
+		List<Object[]> batch = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			batch.add(new Object[]{sender, receiver, "адрес " + i, 1.0 + i % 30, i % 2 == 0, "SHIPPED",
+					Date.valueOf(day.plusDays(i / 100)), employeeIds.get(i * 7 % employeeIds.size())});
+			if (batch.size() == 5_000) {
+				insert(jdbc, batch);
+			}
+		}
+		insert(jdbc, batch);
+	}
+
+	private static void insert(JdbcTemplate jdbc, List<Object[]> batch) {
+		jdbc.batchUpdate("INSERT INTO shipments (sender_id, receiver_id, delivery_address, weight, to_office, " +
+				"status, registration_date, registered_by_employee_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+		batch.clear();
+	}
+}
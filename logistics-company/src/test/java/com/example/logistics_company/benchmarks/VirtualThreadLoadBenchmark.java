@@ -0,0 +1,168 @@
+package com.example.logistics_company.benchmarks;
+
+import com.example.logistics_company.LogisticsCompanyApplication;
+import com.example.logistics_company.config.VirtualThreadPinningMonitor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сравнява обработката на заявки с платформени нишки (Tomcat пул от 200) и с виртуални нишки
+ * при 1000 едновременни клиента към GET /api/shipments/all – заявка, която блокира на JDBC.
+ * Изпълнява се само при {@code mvn test -Dbenchmark=true -Dtest=VirtualThreadLoadBenchmark} на JDK 21+.
+ *
+ * Всеки клиент е затворен цикъл: изпраща следващата заявка, щом получи отговор на предишната.
+ * Двата режима ползват един и същ размер на Hikari пула (benchmark.poolSize), така че разликата
+ * идва само от модела на нишките. По подразбиране базата е H2 от тестовите настройки;
+ * за сравнение срещу локален MySQL се подават benchmark.db.url, benchmark.db.username и benchmark.db.password.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadLoadBenchmark {
+
+	private static final int CLIENTS = Integer.getInteger("benchmark.clients", 1_000);
+	private static final int POOL_SIZE = Integer.getInteger("benchmark.poolSize", 50);
+	private static final long WARMUP_MS = Long.getLong("benchmark.warmupMs", 5_000);
+	private static final long DURATION_MS = Long.getLong("benchmark.durationMs", 20_000);
+
+	private final HttpClient http = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(30))
+			.build();
+
+	@Test
+	void platformVersusVirtualThreads() throws Exception {
+		List<String> rows = new ArrayList<>();
+		for (boolean virtual : new boolean[]{false, true}) {
+			try (ConfigurableApplicationContext context = start(virtual)) {
+				int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+				String bearer = login(port, context.getBean(ObjectMapper.class));
+
+				run(port, bearer, WARMUP_MS);
+				Result result = run(port, bearer, DURATION_MS);
+
+				long pinned = context.getBeanProvider(VirtualThreadPinningMonitor.class)
+						.stream().mapToLong(VirtualThreadPinningMonitor::getPinnedCount).sum();
+				rows.add(String.format("%-10s %10.0f %10.1f %10.1f %10.1f %8d %8d",
+						Threading.VIRTUAL.isActive(context.getEnvironment()) ? "virtual" : "platform",
+						result.throughput(), result.percentile(50), result.percentile(99), result.percentile(100),
+						result.errors.get(), pinned));
+				context.getBeanProvider(VirtualThreadPinningMonitor.class)
+						.ifAvailable(m -> m.getPinnedSites().forEach((site, n) -> System.out.println("  pinned " + n + "x " + site)));
+			}
+		}
+		System.out.printf("clients=%d  hikari pool=%d  duration=%d ms%n", CLIENTS, POOL_SIZE, DURATION_MS);
+		System.out.printf("%-10s %10s %10s %10s %10s %8s %8s%n",
+				"threads", "req/s", "p50 (ms)", "p99 (ms)", "max (ms)", "errors", "pinned");
+		rows.forEach(System.out::println);
+	}
+
+	private static ConfigurableApplicationContext start(boolean virtual) {
+		// Аргументи от командния ред – с по-висок приоритет от application.properties
+		List<String> args = new ArrayList<>(List.of(
+				"--server.port=0",
+				"--spring.threads.virtual.enabled=" + virtual,
+				"--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+				"--spring.datasource.hikari.connection-timeout=60000"));
+		String url = System.getProperty("benchmark.db.url");
+		if (url != null) {
+			args.add("--spring.datasource.url=" + url);
+			args.add("--spring.datasource.driver-class-name=");
+			args.add("--spring.datasource.username=" + System.getProperty("benchmark.db.username", ""));
+			args.add("--spring.datasource.password=" + System.getProperty("benchmark.db.password", ""));
+		}
+		return new SpringApplicationBuilder(LogisticsCompanyApplication.class).run(args.toArray(String[]::new));
+	}
+
+	private String login(int port, ObjectMapper mapper) throws Exception {
+		HttpResponse<String> login = http.send(HttpRequest.newBuilder(uri(port, "/api/auth/login"))
+						.header("Content-Type", "application/x-www-form-urlencoded")
+						.POST(HttpRequest.BodyPublishers.ofString("username=georgi&password=password123"))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+		return "Bearer " + mapper.readTree(login.body()).get("accessToken").asText();
+	}
+
+	/**
+	 * Пуска CLIENTS затворени цикъла за durationMs и събира латентността на всеки отговор.
+	 */
+	private Result run(int port, String bearer, long durationMs) throws InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(uri(port, "/api/shipments/all?limit=20"))
+				.header("Authorization", bearer)
+				.timeout(Duration.ofSeconds(60))
+				.GET().build();
+		Result result = new Result(durationMs);
+		long deadline = System.nanoTime() + durationMs * 1_000_000;
+		CountDownLatch done = new CountDownLatch(CLIENTS);
+		for (int i = 0; i < CLIENTS; i++) {
+			next(request, deadline, result, done);
+		}
+		if (!done.await(durationMs + 120_000, TimeUnit.MILLISECONDS)) {
+			throw new IllegalStateException("Clients did not finish");
+		}
+		return result;
+	}
+
+	private void next(HttpRequest request, long deadline, Result result, CountDownLatch done) {
+		if (System.nanoTime() >= deadline) {
+			done.countDown();
+			return;
+		}
+		long start = System.nanoTime();
+		http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.whenComplete((res, error) -> {
+					if (error != null || res.statusCode() != 200) {
+						result.errors.incrementAndGet();
+					} else {
+						result.latencies.add(System.nanoTime() - start);
+					}
+					next(request, deadline, result, done);
+				});
+	}
+
+	private static URI uri(int port, String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private static final class Result {
+		final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+		final long durationMs;
+		final AtomicLong errors = new AtomicLong();
+
+		Result(long durationMs) {
+			this.durationMs = durationMs;
+		}
+
+		double throughput() {
+			return latencies.size() * 1000.0 / durationMs;
+		}
+
+		double percentile(int p) {
+			long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int index = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * p / 100.0) - 1);
+			return sorted[Math.max(index, 0)] / 1e6;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.logistics_company.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimiterTests {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	void rejectsOverTheLimitUntilASlotIsReleased() {
+		GradientLimiter limiter = new GradientLimiter(3, 1, 10);
+
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isFalse();
+		assertThat(limiter.getInFlight()).isEqualTo(3);
+
+		limiter.release(FAST);
+		assertThat(limiter.tryAcquire()).isTrue();
+	}
+
+	@Test
+	void growsWhileLatencyIsSteadyAndShrinksWhenRequestsStartQueueing() {
+		GradientLimiter limiter = new GradientLimiter(10, 1, 50);
+
+		saturate(limiter, FAST, 10);
+		int grown = limiter.getLimit();
+		assertThat(grown).isGreaterThan(10).isLessThanOrEqualTo(50);
+
+		saturate(limiter, SLOW, 5);
+		assertThat(limiter.getLimit()).isLessThan(grown);
+		assertThat(limiter.getLatency()).isEqualTo(SLOW / 1e9);
+	}
+
+	@Test
+	void doesNotGrowWhileTheCompartmentIsMostlyIdle() {
+		GradientLimiter limiter = new GradientLimiter(10, 1, 50);
+
+		// по една заявка наведнъж – далеч под лимита
+		for (int i = 0; i < GradientLimiter.WINDOW * 10; i++) {
+			assertThat(limiter.tryAcquire()).isTrue();
+			limiter.release(FAST);
+		}
+
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void cancelFreesTheSlotWithoutASample() {
+		GradientLimiter limiter = new GradientLimiter(10, 1, 50);
+		saturate(limiter, SLOW, 1);
+		int limit = limiter.getLimit();
+
+		// пълен прозорец от отменени заявки с нулева латентност би свалил базата и вдигнал лимита
+		for (int w = 0; w < 5; w++) {
+			int acquired = 0;
+			while (limiter.tryAcquire()) {
+				acquired++;
+			}
+			for (int i = 0; i < acquired; i++) {
+				limiter.cancel();
+			}
+		}
+
+		assertThat(limiter.getInFlight()).isZero();
+		assertThat(limiter.getLimit()).isEqualTo(limit);
+		assertThat(limiter.getLatency()).isEqualTo(SLOW / 1e9);
+		assertThat(limiter.getBaselineLatency()).isEqualTo(SLOW / 1e9);
+	}
+
+	/**
+	 * Изпълнява windows прозореца, в които отсекът е запълнен до лимита.
+	 */
+	private static void saturate(GradientLimiter limiter, long rtt, int windows) {
+		for (int w = 0; w < windows; w++) {
+			int samples = 0;
+			while (samples < GradientLimiter.WINDOW) {
+				int acquired = 0;
+				while (limiter.tryAcquire()) {
+					acquired++;
+				}
+				for (int i = 0; i < acquired; i++) {
+					limiter.release(rtt);
+				}
+				samples += acquired;
+			}
+		}
+	}
+}
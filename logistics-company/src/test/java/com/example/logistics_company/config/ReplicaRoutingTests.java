@@ -0,0 +1,187 @@
+package com.example.logistics_company.config;
+
+import com.example.logistics_company.models.Client;
+import com.example.logistics_company.models.Office;
+import com.example.logistics_company.services.ClientService;
+import com.example.logistics_company.services.EntityVersionService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Две вградени H2 бази: основната (spring.datasource) и „реплика“ със същата схема,
+ * в която репликацията се симулира ръчно – копира се heartbeat-ът и се вмъкват редове.
+ */
+@SpringBootTest(properties = {
+		"app.datasource.replicas=" + ReplicaRoutingTests.REPLICA_URL,
+		"app.datasource.replica-username=sa",
+		"app.datasource.replica-password=",
+		// тестът вика ReplicaHealthCheck.check() сам
+		"app.datasource.replica-check-interval=PT1H",
+		"app.datasource.replica-max-lag=PT10S",
+		"app.datasource.read-your-writes-window=PT1M"})
+class ReplicaRoutingTests {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:logistics_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	private static final long REPLICA_ONLY_CLIENT = 900_001L;
+
+	@Autowired
+	private ClientService clientService;
+
+	@Autowired
+	private ReplicaRoutingDataSource routingDataSource;
+
+	@Autowired
+	private ReplicaHealthCheck healthCheck;
+
+	@Autowired
+	private HikariDataSource primaryDataSource;
+
+	@Autowired
+	private EntityVersionService versions;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	private JdbcTemplate primary;
+	private JdbcTemplate replica;
+	private final List<Long> created = new ArrayList<>();
+
+	@BeforeAll
+	static void createReplicaSchema() {
+		Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+	}
+
+	@BeforeEach
+	void setUp() {
+		primary = new JdbcTemplate(primaryDataSource);
+		replica = new JdbcTemplate(routingDataSource.getReplicas().get(0).getDataSource());
+		replica.update("delete from clients");
+		replica.update("insert into clients (id, phone_number, name, email) values (?, '+359800000000', 'Само в репликата', 'replica@example.com')",
+				REPLICA_ONLY_CLIENT);
+		replicate();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		RequestContextHolder.resetRequestAttributes();
+		SecurityContextHolder.clearContext();
+		created.forEach(clientService::deleteClient);
+	}
+
+	@Test
+	void readOnlyWorkGoesToTheReplicaAndWritesToThePrimary() {
+		double replicaReads = routed("replica-1", "read-only");
+
+		assertThat(clientService.getAllClients()).extracting(Client::getId).containsExactly(REPLICA_ONLY_CLIENT);
+		Client saved = create();
+		assertThat(primary.queryForObject("select count(*) from clients where id = ?", Long.class, saved.getId())).isOne();
+		// репликата още не е получила новия клиент
+		assertThat(clientService.getClientById(saved.getId())).isEmpty();
+
+		assertThat(routed("replica-1", "read-only") - replicaReads).isEqualTo(2);
+	}
+
+	@Test
+	void readsOwnWritesFromThePrimaryWithinTheWindow() {
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken("writer", null, List.of()));
+		double sticky = routed("primary", "read-your-writes");
+
+		Client saved = create();
+
+		assertThat(clientService.getClientById(saved.getId())).isPresent();
+		assertThat(clientService.getAllClients()).extracting(Client::getId)
+				.contains(saved.getId()).doesNotContain(REPLICA_ONLY_CLIENT);
+		assertThat(routed("primary", "read-your-writes") - sticky).isEqualTo(2);
+
+		// друг потребител продължава да чете от репликата
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken("reader", null, List.of()));
+		assertThat(clientService.getClientById(saved.getId())).isEmpty();
+	}
+
+	@Test
+	void otherUsersReadRecentlyChangedTypesFromThePrimary() {
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken("writer", null, List.of()));
+		Client saved = create();
+		double recent = routed("primary", "recent-change");
+
+		// друг потребител зарежда списъка с клиенти, докато репликата още няма новия:
+		// ETag-ът вече е с новата версия, затова данните трябва да са от основната база
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken("reader", null, List.of()));
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		versions.etag(Client.class);
+		assertThat(clientService.getAllClients()).extracting(Client::getId)
+				.contains(saved.getId()).doesNotContain(REPLICA_ONLY_CLIENT);
+		assertThat(routed("primary", "recent-change") - recent).isEqualTo(1);
+
+		// заявка, която не зависи от клиентите, продължава към репликата
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		versions.reading(Office.class);
+		assertThat(clientService.getAllClients()).extracting(Client::getId).containsExactly(REPLICA_ONLY_CLIENT);
+		assertThat(routed("primary", "recent-change") - recent).isEqualTo(1);
+	}
+
+	@Test
+	void fallsBackToThePrimaryWhenTheReplicaLagsOrFails() {
+		replica.update("update replication_heartbeat set beat_at = ? where id = 1", LocalDateTime.now().minusHours(1));
+		healthCheck.check();
+
+		assertThat(routingDataSource.getReplicas().get(0).getLag()).isGreaterThan(Duration.ofMinutes(59));
+		assertThat(clientService.getAllClients()).extracting(Client::getId).doesNotContain(REPLICA_ONLY_CLIENT);
+
+		replicate();
+		assertThat(clientService.getAllClients()).extracting(Client::getId).containsExactly(REPLICA_ONLY_CLIENT);
+
+		replica.execute("alter table replication_heartbeat rename to replication_heartbeat_off");
+		try {
+			healthCheck.check();
+			assertThat(routingDataSource.getReplicas().get(0).isAvailable()).isFalse();
+			assertThat(clientService.getAllClients()).extracting(Client::getId).doesNotContain(REPLICA_ONLY_CLIENT);
+		} finally {
+			replica.execute("alter table replication_heartbeat_off rename to replication_heartbeat");
+		}
+	}
+
+	/**
+	 * Симулира репликацията на heartbeat-а и проверява репликата – след това тя е в крак с основната база.
+	 */
+	private void replicate() {
+		replica.update("update replication_heartbeat set beat_at = ? where id = 1",
+				primary.queryForObject("select beat_at from replication_heartbeat where id = 1", LocalDateTime.class));
+		healthCheck.check();
+	}
+
+	private Client create() {
+		Client saved = clientService.createClient(new Client(null, "Нов клиент", "new@example.com", "+359811111111"));
+		created.add(saved.getId());
+		return saved;
+	}
+
+	private double routed(String target, String reason) {
+		return registry.get("app.datasource.routed").tag("target", target).tag("reason", reason).counter().count();
+	}
+}
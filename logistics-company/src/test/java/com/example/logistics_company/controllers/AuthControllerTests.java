@@ -0,0 +1,109 @@
+package com.example.logistics_company.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthControllerTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	private JsonNode login(String username, String password) throws Exception {
+		String body = mvc.perform(post("/api/auth/login")
+						.param("username", username)
+						.param("password", password))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return mapper.readTree(body);
+	}
+
+	@Test
+	void loginReturnsTokenThatAuthenticatesRequests() throws Exception {
+		JsonNode tokens = login("georgi", "password123");
+
+		mvc.perform(get("/api/auth/me")
+						.header("Authorization", "Bearer " + tokens.get("accessToken").asText()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.username").value("georgi"))
+				.andExpect(jsonPath("$.userType").value("EMPLOYEE"))
+				.andExpect(jsonPath("$.employeeId").isNumber())
+				.andExpect(jsonPath("$.password").doesNotExist());
+	}
+
+	@Test
+	void wrongPasswordIsRejected() throws Exception {
+		mvc.perform(post("/api/auth/login")
+						.param("username", "georgi")
+						.param("password", "wrong"))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void credentialsInTheQueryStringAreRejected() throws Exception {
+		mvc.perform(post("/api/auth/login?username=georgi&password=password123"))
+				.andExpect(status().isBadRequest());
+		mvc.perform(post("/api/auth/login?password=password123")
+						.param("username", "georgi"))
+				.andExpect(status().isBadRequest());
+
+		JsonNode tokens = login("alex", "secret321");
+		mvc.perform(post("/api/auth/refresh?refreshToken=" + tokens.get("refreshToken").asText()))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void loginAcceptsAFormEncodedBody() throws Exception {
+		mvc.perform(post("/api/auth/login")
+						.contentType(MediaType.APPLICATION_FORM_URLENCODED)
+						.content("username=georgi&password=password123"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.accessToken").isString());
+	}
+
+	@Test
+	void tamperedOrRefreshTokenIsNotAcceptedAsAccessToken() throws Exception {
+		JsonNode tokens = login("alex", "secret321");
+
+		mvc.perform(get("/api/auth/me")
+						.header("Authorization", "Bearer " + tokens.get("accessToken").asText() + "x"))
+				.andExpect(status().isUnauthorized());
+		mvc.perform(get("/api/auth/me")
+						.header("Authorization", "Bearer " + tokens.get("refreshToken").asText()))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void refreshIssuesNewAccessToken() throws Exception {
+		JsonNode tokens = login("alex", "secret321");
+
+		String body = mvc.perform(post("/api/auth/refresh")
+						.param("refreshToken", tokens.get("refreshToken").asText()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String accessToken = mapper.readTree(body).get("accessToken").asText();
+
+		mvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.username").value("alex"));
+
+		mvc.perform(post("/api/auth/refresh")
+						.param("refreshToken", tokens.get("accessToken").asText()))
+				.andExpect(status().isUnauthorized());
+	}
+}
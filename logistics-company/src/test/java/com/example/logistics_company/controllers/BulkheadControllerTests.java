@@ -0,0 +1,128 @@
+package com.example.logistics_company.controllers;
+
+import com.example.logistics_company.config.BulkheadInterceptor;
+import com.example.logistics_company.config.Compartment;
+import com.example.logistics_company.config.GradientLimiter;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BulkheadControllerTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private BulkheadInterceptor bulkheads;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Test
+	void fullReportingCompartmentRejectsReportsButNotTrackingOrCrud() throws Exception {
+		String bearer = bearer();
+		Long shipmentId = shipmentRepository.findAll().get(0).getId();
+		GradientLimiter reporting = bulkheads.limiter(Compartment.REPORTING);
+		double rejected = registry.get("app.bulkhead.rejected").tag("compartment", "reporting").counter().count();
+
+		// справките, които вече се изпълняват, заемат целия отсек
+		int held = 0;
+		while (reporting.tryAcquire()) {
+			held++;
+		}
+		try {
+			mvc.perform(get("/api/shipments/all").header(HttpHeaders.AUTHORIZATION, bearer))
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+			mvc.perform(get("/api/shipments/revenue").header(HttpHeaders.AUTHORIZATION, bearer)
+							.param("startDate", "2000-01-01").param("endDate", "2100-01-01"))
+					.andExpect(status().isServiceUnavailable());
+
+			mvc.perform(get("/api/shipments/{id}", shipmentId).header(HttpHeaders.AUTHORIZATION, bearer))
+					.andExpect(status().isOk());
+			mvc.perform(get("/api/clients").header(HttpHeaders.AUTHORIZATION, bearer))
+					.andExpect(status().isOk());
+		} finally {
+			for (int i = 0; i < held; i++) {
+				reporting.cancel();
+			}
+		}
+
+		assertThat(registry.get("app.bulkhead.rejected").tag("compartment", "reporting").counter().count() - rejected)
+				.isEqualTo(2);
+		assertThat(reporting.getInFlight()).isZero();
+		mvc.perform(get("/api/shipments/all").header(HttpHeaders.AUTHORIZATION, bearer))
+				.andExpect(status().isOk());
+		assertThat(registry.get("app.bulkhead.in.flight").tag("compartment", "tracking").gauge().value()).isZero();
+	}
+
+	@Test
+	void exportsAndImportsShareASmallFixedCompartment() throws Exception {
+		String bearer = bearer();
+		GradientLimiter bulk = bulkheads.limiter(Compartment.BULK);
+		assertThat(bulk.getLimit()).isEqualTo(Compartment.BULK.getMaxLimit());
+
+		int held = 0;
+		while (bulk.tryAcquire()) {
+			held++;
+		}
+		try {
+			mvc.perform(get("/api/shipments/export").header(HttpHeaders.AUTHORIZATION, bearer))
+					.andExpect(status().isServiceUnavailable());
+			mvc.perform(multipart("/api/import/offices").file(new MockMultipartFile("file", "offices.csv",
+									"text/csv", "address,city\nул. Отсек 1,София\n".getBytes(StandardCharsets.UTF_8)))
+							.header(HttpHeaders.AUTHORIZATION, bearer))
+					.andExpect(status().isServiceUnavailable());
+			mvc.perform(get("/api/clients").header(HttpHeaders.AUTHORIZATION, bearer))
+					.andExpect(status().isOk());
+		} finally {
+			for (int i = 0; i < held; i++) {
+				bulk.cancel();
+			}
+		}
+
+		// поточният отговор държи мястото, докато асинхронната обработка не приключи
+		MvcResult export = mvc.perform(get("/api/shipments/export").header(HttpHeaders.AUTHORIZATION, bearer))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		assertThat(bulk.getInFlight()).isEqualTo(1);
+		mvc.perform(asyncDispatch(export)).andExpect(status().isOk());
+		assertThat(bulk.getInFlight()).isZero();
+		assertThat(bulk.getLimit()).isEqualTo(Compartment.BULK.getMaxLimit());
+	}
+
+	private String bearer() throws Exception {
+		String body = mvc.perform(post("/api/auth/login")
+						.param("username", "georgi")
+						.param("password", "password123"))
+				.andReturn().getResponse().getContentAsString();
+		return "Bearer " + mapper.readTree(body).get("accessToken").asText();
+	}
+}
@@ -0,0 +1,161 @@
+package com.example.logistics_company.controllers;
+
+import com.example.logistics_company.models.Office;
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import com.example.logistics_company.services.OfficeService;
+import com.example.logistics_company.services.ShipmentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ETagControllerTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private OfficeService officeService;
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private String bearer() throws Exception {
+		String body = mvc.perform(post("/api/auth/login")
+						.param("username", "georgi")
+						.param("password", "password123"))
+				.andReturn().getResponse().getContentAsString();
+		return "Bearer " + mapper.readTree(body).get("accessToken").asText();
+	}
+
+	@Test
+	void unchangedListIsNotModifiedWithoutQuery() throws Exception {
+		String auth = bearer();
+		String etag = mvc.perform(get("/api/offices").header("Authorization", auth))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).startsWith("\"");
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		mvc.perform(get("/api/offices").header("Authorization", auth).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+
+		Office office = officeService.createOffice(new Office(null, "ул. Версия 1", "Русе"));
+		try {
+			String changed = mvc.perform(get("/api/offices").header("Authorization", auth)
+							.header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+			assertThat(changed).isNotEqualTo(etag);
+		} finally {
+			officeService.deleteOffice(office.getId());
+		}
+	}
+
+	@Test
+	void detailETagFollowsRowVersion() throws Exception {
+		String auth = bearer();
+		Office office = officeService.createOffice(new Office(null, "ул. Версия 2", "Шумен"));
+		try {
+			String url = "/api/offices/" + office.getId();
+			String etag = mvc.perform(get(url).header("Authorization", auth))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+			mvc.perform(get(url).header("Authorization", auth).header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(status().isNotModified());
+
+			officeService.updateOffice(office.getId(), new Office(null, "ул. Версия 3", "Шумен"));
+			mvc.perform(get(url).header("Authorization", auth).header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(status().isOk());
+		} finally {
+			officeService.deleteOffice(office.getId());
+		}
+	}
+
+	@Test
+	void bulkDeliveryBumpsShipmentVersion() {
+		Shipment shipment = shipmentRepository.findAll().stream()
+				.filter(s -> s.getDeliveryDate() == null)
+				.findFirst().orElseThrow();
+		Long before = shipment.getVersion();
+
+		shipmentService.deliverShipments(List.of(shipment.getId()));
+
+		assertThat(shipmentRepository.findById(shipment.getId()).orElseThrow().getVersion()).isEqualTo(before + 1);
+	}
+
+	@Test
+	void registrationReferencesVersionedClientsById() throws Exception {
+		List<Long> clients = clientRepository.findAll().stream().map(c -> c.getId()).limit(2).toList();
+		String body = mvc.perform(post("/api/shipments/register")
+						.header("Authorization", bearer())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"sender\":{\"id\":" + clients.get(0) + "},\"receiver\":{\"id\":" + clients.get(1)
+								+ "},\"deliveryAddress\":\"ул. Версия 4\",\"weight\":2.0,\"toOffice\":true}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		shipmentService.deleteShipment(mapper.readTree(body).get("id").asLong());
+	}
+
+	@Test
+	void employeeReferencesVersionedOfficeById() throws Exception {
+		String auth = bearer();
+		Office office = officeService.createOffice(new Office(null, "ул. Версия 5", "Бургас"));
+		try {
+			String employee = "{\"name\":\"Версия\",\"role\":\"COURIER\",\"office\":{\"id\":" + office.getId() + "}}";
+			String body = mvc.perform(post("/api/employees")
+							.header("Authorization", auth)
+							.contentType(MediaType.APPLICATION_JSON)
+							.content(employee))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			long id = mapper.readTree(body).get("id").asLong();
+
+			mvc.perform(put("/api/employees/" + id)
+							.header("Authorization", auth)
+							.contentType(MediaType.APPLICATION_JSON)
+							.content(employee))
+					.andExpect(status().isOk());
+			mvc.perform(delete("/api/employees/" + id).header("Authorization", auth))
+					.andExpect(status().isNoContent());
+		} finally {
+			officeService.deleteOffice(office.getId());
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.example.logistics_company.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsControllerTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	private String bearer(String username, String password) throws Exception {
+		String body = mvc.perform(post("/api/auth/login")
+						.param("username", username)
+						.param("password", password))
+				.andReturn().getResponse().getContentAsString();
+		return "Bearer " + mapper.readTree(body).get("accessToken").asText();
+	}
+
+	@Test
+	void controllerTimersErrorsAndQueryCountsAreScraped() throws Exception {
+		mvc.perform(get("/api/shipments/all").header("Authorization", bearer("georgi", "password123")))
+				.andExpect(status().isOk());
+		mvc.perform(get("/api/admin/cache/stats").header("Authorization", bearer("alex", "secret321")))
+				.andExpect(status().isForbidden());
+
+		String scrape = mvc.perform(get("/actuator/prometheus").header("Authorization", bearer("georgi", "password123")))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(scrape)
+				.contains("app_controller_requests_seconds_bucket{")
+				.containsPattern("app_controller_requests_seconds_count\\{[^}]*controller=\"ShipmentController\",[^}]*method=\"getAllShipments\"")
+				.containsPattern("app_controller_errors_total\\{[^}]*controller=\"CacheController\",exception=\"AccessDeniedException\"")
+				.containsPattern("app_controller_statements_sum\\{[^}]*method=\"getAllShipments\"[^}]*} [1-9]")
+				.contains("hikaricp_connections_pending", "hibernate_", "app_shipments_not_delivered");
+	}
+
+	@Test
+	void metricsAreNotExposedBeyondScrapeEndpoint() throws Exception {
+		mvc.perform(get("/actuator/metrics")).andExpect(status().is4xxClientError());
+	}
+
+	@Test
+	void scrapeRequiresAnEmployee() throws Exception {
+		mvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+		mvc.perform(get("/actuator/prometheus").header("Authorization", bearer("alex", "secret321")))
+				.andExpect(status().isForbidden());
+		mvc.perform(get("/actuator/prometheus").with(httpBasic("georgi", "password123")))
+				.andExpect(status().isOk());
+		mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+	}
+}
@@ -0,0 +1,262 @@
+package com.example.logistics_company.controllers;
+
+import com.example.logistics_company.config.ControllerMetricsInterceptor;
+import com.example.logistics_company.config.QueryBudget;
+import com.example.logistics_company.config.RequestQueryStats;
+import com.example.logistics_company.services.ShipmentStatsService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Пазач срещу N+1 заявки: всеки метод на контролер има {@link QueryBudget}, а всяка крайна точка
+ * се изпълнява върху 1, 10 и 1000 пратки (всяка с различен получател и страница от 500 реда) –
+ * броят SQL заявки не бива да надвишава бюджета, т.е. не бива да расте с броя редове.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class QueryBudgetTests {
+
+	private static final String CONTROLLERS_PACKAGE = "com.example.logistics_company.controllers";
+	private static final long FIRST_ID = 30_000_000L;
+
+	// Не се изпълняват тук: работата им е в асинхронна нишка, която не се отчита към заявката
+	private static final Set<String> NOT_EXERCISED = Set.of("ShipmentController.export", "ShipmentController.stream");
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private ShipmentStatsService statsService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	@Qualifier("requestMappingHandlerMapping")
+	private RequestMappingHandlerMapping handlerMapping;
+
+	private final Set<String> exercised = new HashSet<>();
+	private final List<String> violations = new ArrayList<>();
+
+	@Test
+	void everyControllerMethodDeclaresBudget() {
+		List<String> missing = handlers().stream()
+				.filter(h -> !h.hasMethodAnnotation(QueryBudget.class))
+				.map(QueryBudgetTests::name)
+				.toList();
+		assertThat(missing).as("controller methods without @QueryBudget").isEmpty();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 10, 1000})
+	void endpointsStayWithinBudget(int rows) throws Exception {
+		Long employeeId = jdbc.queryForObject("SELECT min(id) FROM employees", Long.class);
+		Long officeId = jdbc.queryForObject("SELECT min(id) FROM offices", Long.class);
+		seed(rows, employeeId);
+		try {
+			String staff = bearer("georgi", "password123");
+			long sender = FIRST_ID;
+			long shipment = FIRST_ID + 1;
+			String limit = "?limit=500";
+
+			// четене
+			run(staff, get("/api/shipments/all" + limit));
+			run(staff, get("/api/shipments/" + shipment));
+			run(staff, get("/api/shipments/status/SHIPPED" + limit));
+			run(staff, get("/api/shipments/not-delivered" + limit));
+			run(staff, get("/api/shipments/revenue?startDate=" + LocalDate.now().minusYears(1) + "&endDate=" + LocalDate.now()));
+			run(staff, get("/api/shipments/employee/" + employeeId + limit));
+			run(staff, get("/api/shipments/client/" + sender + "/sent" + limit));
+			run(staff, get("/api/shipments/client/" + (FIRST_ID + 1) + "/received" + limit));
+			run(staff, get("/api/clients"));
+			run(staff, get("/api/offices"));
+			run(staff, get("/api/companies"));
+			run(staff, get("/api/employees"));
+			run(staff, get("/api/auth/me"));
+			run(staff, get("/api/admin/cache/stats"));
+			run(staff, get("/api/quote").param("weight", "2.5").param("toOffice", "true").param("city", "София"));
+			run(staff, get("/api/admin/stats/reconcile"));
+
+			// вход и потребители
+			JsonNode tokens = mapper.readTree(run(null, post("/api/auth/login")
+					.param("username", "georgi").param("password", "password123")));
+			run(null, post("/api/auth/refresh").param("refreshToken", tokens.get("refreshToken").asText()));
+			run(null, post("/api/users/register").param("username", "budget" + rows)
+					.param("password", "budget-" + rows).param("userType", "CLIENT").param("clientId", Long.toString(sender)));
+
+			// пратки
+			String shipmentJson = "{\"sender\":{\"id\":" + sender + "},\"receiver\":{\"id\":" + (FIRST_ID + 1)
+					+ "},\"deliveryAddress\":\"ул. Бюджет 1\",\"weight\":2.5,\"toOffice\":true}";
+			long registered = mapper.readTree(run(staff, json(post("/api/shipments/register"), shipmentJson)))
+					.get("id").asLong();
+			run(staff, json(post("/api/shipments"), shipmentJson.substring(0, shipmentJson.length() - 1)
+					+ ",\"registeredBy\":{\"id\":" + employeeId + "}}"));
+			// PUT замества всички полета, включително статуса
+			run(staff, json(put("/api/shipments/" + registered),
+					shipmentJson.substring(0, shipmentJson.length() - 1) + ",\"status\":\"SHIPPED\"}"));
+			run(staff, put("/api/shipments/" + registered + "/status").param("status", "AT_OFFICE"));
+			run(staff, put("/api/shipments/" + registered + "/deliver"));
+			run(staff, get("/api/shipments/" + registered + "/timeline"));
+			run(staff, delete("/api/shipments/" + registered));
+			List<String> batch = new ArrayList<>();
+			for (int i = 0; i < rows; i++) {
+				batch.add("{\"senderId\":" + sender + ",\"receiverId\":" + (FIRST_ID + 1 + i)
+						+ ",\"deliveryAddress\":\"ул. Пакет " + i + "\",\"weight\":1.0,\"toOffice\":false}");
+			}
+			run(staff, json(post("/api/shipments/register/batch"), "[" + String.join(",", batch) + "]"));
+			List<Long> shipped = jdbc.queryForList(
+					"SELECT id FROM shipments WHERE sender_id = ? AND status = 'SHIPPED'", Long.class, sender);
+			run(staff, json(post("/api/shipments/deliver/batch"), mapper.writeValueAsString(shipped)));
+			StringBuilder csv = new StringBuilder("senderEmail,receiverEmail,deliveryAddress,weight\n");
+			for (int i = 1; i <= rows; i++) {
+				csv.append("budget0@example.com,budget").append(i).append("@example.com,ул. Импорт ").append(i).append(",1.5\n");
+			}
+			run(staff, multipart("/api/import/shipments").file(new MockMultipartFile("file", "shipments.csv", "text/csv",
+					csv.toString().getBytes(StandardCharsets.UTF_8))));
+
+			// справочни данни
+			crud(staff, "/api/clients", "{\"name\":\"Бюджет\",\"email\":\"budget@example.com\",\"phoneNumber\":\"+359888999000\"}");
+			crud(staff, "/api/offices", "{\"address\":\"ул. Бюджет 2\",\"city\":\"Враца\"}");
+			crud(staff, "/api/companies", "{\"name\":\"Бюджет ООД\",\"address\":\"ул. Бюджет 3\",\"phone\":\"+35929999999\"}");
+			crud(staff, "/api/employees", "{\"name\":\"Бюджетен Служител\",\"office\":{\"id\":" + officeId
+					+ "},\"role\":\"COURIER\"}");
+			run(staff, post("/api/admin/stats/rebuild"));
+		} finally {
+			cleanUp();
+		}
+
+		assertThat(violations).as("endpoints over their query budget with %d rows", rows).isEmpty();
+		Set<String> unexercised = handlers().stream().map(QueryBudgetTests::name)
+				.filter(name -> !exercised.contains(name) && !NOT_EXERCISED.contains(name))
+				.collect(Collectors.toSet());
+		assertThat(unexercised).as("controller methods without a query budget scenario").isEmpty();
+	}
+
+	private void crud(String auth, String path, String body) throws Exception {
+		long id = mapper.readTree(run(auth, json(post(path), body))).get("id").asLong();
+		run(auth, get(path + "/" + id));
+		run(auth, json(put(path + "/" + id), body.replace("Бюджет", "Бюджетен")));
+		run(auth, delete(path + "/" + id));
+	}
+
+	/**
+	 * Изпълнява заявката при студен second-level cache (най-лошия случай)
+	 * и сравнява броя SQL заявки с бюджета на обработилия я метод.
+	 * @return тялото на отговора
+	 */
+	private String run(String auth, MockHttpServletRequestBuilder request) throws Exception {
+		if (auth != null) {
+			request.header("Authorization", auth);
+		}
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+		MvcResult result = mvc.perform(request).andReturn();
+		HandlerMethod handler = (HandlerMethod) result.getHandler();
+		String name = name(handler);
+		assertThat(result.getResponse().getStatus()).as(name + " status").isLessThan(300);
+		exercised.add(name);
+
+		RequestQueryStats stats = ControllerMetricsInterceptor.stats(result.getRequest());
+		long budget = stats.allowed(handler.getMethodAnnotation(QueryBudget.class));
+		if (stats.getStatements() > budget) {
+			violations.add(name + ": " + stats.getStatements() + " > " + budget + "\n\t"
+					+ String.join("\n\t", stats.getSql()));
+		}
+		return result.getResponse().getContentAsString();
+	}
+
+	private static MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, String body) {
+		return request.contentType(MediaType.APPLICATION_JSON).content(body);
+	}
+
+	private String bearer(String username, String password) throws Exception {
+		String body = mvc.perform(post("/api/auth/login")
+						.param("username", username)
+						.param("password", password))
+				.andReturn().getResponse().getContentAsString();
+		return "Bearer " + mapper.readTree(body).get("accessToken").asText();
+	}
+
+	/**
+	 * Един подател и rows получатели; всяка пратка е към различен получател,
+	 * така че всяко мързеливо зареждане на клиент по ред би се видяло като N+1.
+	 */
+	private void seed(int rows, Long employeeId) {
+		List<Object[]> clients = new ArrayList<>();
+		for (int i = 0; i <= rows; i++) {
+			clients.add(new Object[]{FIRST_ID + i, "Бюджет " + i, "budget" + i + "@example.com", String.format("+3597%08d", i)});
+		}
+		jdbc.batchUpdate("INSERT INTO clients (id, name, email, phone_number) VALUES (?, ?, ?, ?)", clients);
+
+		LocalDate today = LocalDate.now();
+		Long officeId = jdbc.queryForObject("SELECT office_id FROM employees WHERE id = ?", Long.class, employeeId);
+		List<Object[]> shipments = new ArrayList<>();
+		for (int i = 1; i <= rows; i++) {
+			boolean delivered = i % 2 == 0;
+			shipments.add(new Object[]{FIRST_ID + i, FIRST_ID, FIRST_ID + i, "ул. Бюджет " + i, 1.0, true,
+					delivered ? "DELIVERED" : "SHIPPED", Date.valueOf(today.minusDays(i % 300)),
+					delivered ? Date.valueOf(today) : null, 11.3, employeeId, officeId});
+		}
+		jdbc.batchUpdate("INSERT INTO shipments (id, sender_id, receiver_id, delivery_address, weight, to_office, " +
+				"status, registration_date, delivery_date, price, registered_by_employee_id, registered_office_id) " +
+				"VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", shipments);
+	}
+
+	private void cleanUp() {
+		jdbc.update("DELETE FROM users WHERE username LIKE 'budget%'");
+		jdbc.update("DELETE FROM shipment_events WHERE shipment_id IN (SELECT id FROM shipments " +
+				"WHERE sender_id >= ? OR receiver_id >= ?)", FIRST_ID, FIRST_ID);
+		jdbc.update("DELETE FROM shipments WHERE sender_id >= ? OR receiver_id >= ?", FIRST_ID, FIRST_ID);
+		jdbc.update("DELETE FROM clients WHERE id >= ?", FIRST_ID);
+		statsService.rebuild();
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+	}
+
+	private List<HandlerMethod> handlers() {
+		return handlerMapping.getHandlerMethods().values().stream()
+				.filter(h -> h.getBeanType().getPackageName().equals(CONTROLLERS_PACKAGE))
+				.toList();
+	}
+
+	private static String name(HandlerMethod handler) {
+		return handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+	}
+}
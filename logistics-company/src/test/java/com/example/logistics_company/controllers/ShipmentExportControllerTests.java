@@ -0,0 +1,62 @@
+package com.example.logistics_company.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ShipmentExportControllerTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	private String bearer(String username, String password) throws Exception {
+		String body = mvc.perform(post("/api/auth/login")
+						.param("username", username)
+						.param("password", password))
+				.andReturn().getResponse().getContentAsString();
+		return "Bearer " + mapper.readTree(body).get("accessToken").asText();
+	}
+
+	@Test
+	void employeeStreamsCsv() throws Exception {
+		MvcResult started = mvc.perform(get("/api/shipments/export")
+						.param("format", "csv")
+						.header("Authorization", bearer("georgi", "password123")))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Disposition", "attachment; filename=\"shipments.csv\""))
+				.andExpect(content().contentTypeCompatibleWith("text/csv"))
+				.andExpect(content().string(startsWith("id,status,registrationDate")));
+	}
+
+	@Test
+	void clientsAndUnknownFormatsAreRejected() throws Exception {
+		mvc.perform(get("/api/shipments/export").header("Authorization", bearer("alex", "secret321")))
+				.andExpect(status().isForbidden());
+		mvc.perform(get("/api/shipments/export").param("format", "xml")
+						.header("Authorization", bearer("georgi", "password123")))
+				.andExpect(status().isBadRequest());
+	}
+}
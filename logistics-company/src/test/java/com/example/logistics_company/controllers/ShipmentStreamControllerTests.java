@@ -0,0 +1,145 @@
+package com.example.logistics_company.controllers;
+
+import com.example.logistics_company.models.Client;
+import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.models.Shipment;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.services.ShipmentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+// Печатането на резултата обхожда хедърите, докато emitter-ът пише от друга нишка
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class ShipmentStreamControllerTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private String token(String username, String password) throws Exception {
+		String body = mvc.perform(post("/api/auth/login")
+						.param("username", username)
+						.param("password", password))
+				.andReturn().getResponse().getContentAsString();
+		return mapper.readTree(body).get("accessToken").asText();
+	}
+
+	private MvcResult subscribe(String token) throws Exception {
+		return mvc.perform(get("/api/shipments/stream").param("access_token", token))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+	}
+
+	@Test
+	void committedChangesReachOnlyVisibleSubscribers() throws Exception {
+		MvcResult staff = subscribe(token("georgi", "password123"));
+		MvcResult alex = subscribe(token("alex", "secret321"));
+
+		Client alexClient = client("alex@example.com");
+		Client misho = client("misho@example.com");
+		Employee employee = employeeRepository.findAll().get(0);
+		Client other = clientRepository.save(new Client(null, "Поток Тестов", "stream@example.com", "+359888000000"));
+		List<Long> created = new ArrayList<>();
+		try {
+			Shipment rolledBack = transactionTemplate.execute(tx -> {
+				tx.setRollbackOnly();
+				return shipmentService.registerShipment(shipment(alexClient, misho, employee));
+			});
+			Shipment visible = shipmentService.registerShipment(shipment(alexClient, misho, employee));
+			created.add(visible.getId());
+			Shipment hidden = shipmentService.registerShipment(shipment(misho, other, employee));
+			created.add(hidden.getId());
+
+			String employeeEvents = awaitContent(staff, event(hidden.getId()));
+			assertThat(employeeEvents).contains("event:shipment", event(visible.getId()), "\"type\":\"REGISTERED\"");
+			assertThat(employeeEvents).doesNotContain(event(rolledBack.getId()));
+
+			String alexEvents = awaitContent(alex, event(visible.getId()));
+			assertThat(alexEvents).doesNotContain(event(hidden.getId()), event(rolledBack.getId()));
+		} finally {
+			created.forEach(shipmentService::deleteShipment);
+			clientRepository.delete(other);
+		}
+	}
+
+	@Test
+	void tokenInQueryIsAcceptedOnlyForTheStream() throws Exception {
+		String token = token("georgi", "password123");
+		mvc.perform(get("/api/shipments/not-delivered").param("access_token", token))
+				.andExpect(status().isUnauthorized());
+		mvc.perform(get("/api/shipments/stream").param("access_token", token + "x"))
+				.andExpect(status().isUnauthorized());
+
+		// потокът не надживява токена (15 минути), въпреки че app.shipments.stream.timeout е 30
+		MvcResult stream = subscribe(token);
+		assertThat(stream.getRequest().getAsyncContext().getTimeout())
+				.isPositive().isLessThanOrEqualTo(Duration.ofMinutes(15).toMillis());
+	}
+
+	private Client client(String email) {
+		return clientRepository.findAll().stream()
+				.filter(c -> email.equals(c.getEmail()))
+				.findFirst().orElseThrow();
+	}
+
+	private static Shipment shipment(Client sender, Client receiver, Employee registeredBy) {
+		Shipment shipment = new Shipment();
+		shipment.setRegisteredBy(registeredBy);
+		shipment.setSender(sender);
+		shipment.setReceiver(receiver);
+		shipment.setDeliveryAddress("ул. Поток 1");
+		shipment.setWeight(1.0);
+		return shipment;
+	}
+
+	private static String event(Long shipmentId) {
+		return "\"shipmentId\":" + shipmentId + ",";
+	}
+
+	/**
+	 * Събитията се изпращат асинхронно след commit – чака, докато очакваният текст пристигне.
+	 */
+	private static String awaitContent(MvcResult result, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5_000;
+		String content = result.getResponse().getContentAsString();
+		while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			content = result.getResponse().getContentAsString();
+		}
+		assertThat(content).contains(expected);
+		return content;
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.logistics_company.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Прилага миграциите до V7 върху отделна база в паметта, добавя пратки и проверява,
+ * че V8 създава по едно начално събитие за всяка от тях и оставя генератора след тях,
+ * а auto_increment – над блоковете му.
+ */
+class ShipmentEventsBackfillTests {
+
+	@Test
+	void existingShipmentsGetTheirInitialEvent() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:events_backfill;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		migrate(dataSource, "7");
+
+		jdbc.update("INSERT INTO offices (id, city, address) VALUES (1, 'София', 'ул. 1')");
+		jdbc.update("INSERT INTO employees (id, office_id, name, role) VALUES (1, 1, 'Служител', 'OFFICE_STAFF')");
+		jdbc.update("INSERT INTO clients (id, name, email, phone_number) VALUES (1, 'А', 'a@x.bg', '+1'), (2, 'Б', 'b@x.bg', '+2')");
+		LocalDate day = LocalDate.of(2024, 5, 1);
+		for (String status : List.of("SHIPPED", "DELIVERED")) {
+			jdbc.update("INSERT INTO shipments (sender_id, receiver_id, registered_by_employee_id, delivery_address, " +
+					"weight, to_office, status, registration_date) VALUES (1, 2, 1, 'адрес', 1.0, FALSE, ?, ?)",
+					status, Date.valueOf(day));
+		}
+
+		migrate(dataSource, "8");
+
+		List<Map<String, Object>> events = jdbc.queryForList(
+				"SELECT e.id, e.from_status, e.to_status, e.ts, e.employee_id, e.office_id FROM shipment_events e " +
+						"JOIN shipments s ON s.id = e.shipment_id ORDER BY e.id");
+		assertThat(events).extracting(e -> e.get("to_status")).containsExactly("SHIPPED", "DELIVERED");
+		assertThat(events).allSatisfy(e -> {
+			assertThat(e.get("from_status")).isNull();
+			assertThat(e.get("employee_id")).isEqualTo(1L);
+			assertThat(e.get("office_id")).isEqualTo(1L);
+			assertThat(e.get("ts").toString()).startsWith(day.toString());
+		});
+		assertThat(jdbc.queryForObject("SELECT next_val FROM id_generators WHERE name = 'shipment_events'", Long.class))
+				.isEqualTo(2 + 101);
+
+		// редове извън приложението не попадат в блоковете на генератора
+		jdbc.update("INSERT INTO shipment_events (shipment_id, to_status, ts) VALUES (1, 'SHIPPED', CURRENT_TIMESTAMP)");
+		assertThat(jdbc.queryForObject("SELECT MAX(id) FROM shipment_events", Long.class))
+				.isGreaterThanOrEqualTo(1_000_000_000_000L);
+	}
+
+	private static void migrate(DriverManagerDataSource dataSource, String target) {
+		Flyway.configure()
+				.dataSource(dataSource)
+				.locations("classpath:db/migration")
+				.target(target)
+				.load()
+				.migrate();
+	}
+}
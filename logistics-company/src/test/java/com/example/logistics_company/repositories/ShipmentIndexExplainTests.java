@@ -0,0 +1,90 @@
+package com.example.logistics_company.repositories;
+
+import com.example.logistics_company.config.RequestQueryStats;
+import com.example.logistics_company.models.ShipmentStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверява с EXPLAIN, че заявките от ShipmentRepository и съседните репозиторита върху
+ * мигрираната схема (H2 в MySQL режим) използват индекса, предвиден за тях в db/migration.
+ * Обяснява се SQL-ът, който Hibernate действително генерира: методът се изпълнява,
+ * заявката се прихваща от RequestQueryStats и се подава на EXPLAIN с непопълнени параметри.
+ */
+@SpringBootTest
+@Transactional
+class ShipmentIndexExplainTests {
+
+	private static final LocalDate DATE = LocalDate.of(2100, 1, 1);
+	private static final Limit LIMIT = Limit.of(51);
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private ArchivedShipmentRepository archiveRepository;
+
+	@Autowired
+	private DailyShipmentStatsRepository statsRepository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void keysetPagesUseTheirIndex() {
+		assertThat(explain(() -> shipmentRepository.findPage(DATE, 1000L, LIMIT)))
+				.contains("idx_shipments_registration");
+		assertThat(explain(() -> shipmentRepository.findNotDeliveredPage(DATE, 1000L, LIMIT)))
+				.contains("idx_shipments_registration");
+		assertThat(explain(() -> shipmentRepository.findPageByStatus(ShipmentStatus.SHIPPED, DATE, 1000L, LIMIT)))
+				.contains("idx_shipments_status_registration");
+		assertThat(explain(() -> shipmentRepository.findPageSentByClient(1L, DATE, 1000L, LIMIT)))
+				.contains("idx_shipments_sender_registration");
+		assertThat(explain(() -> shipmentRepository.findPageReceivedByClient(1L, DATE, 1000L, LIMIT)))
+				.contains("idx_shipments_receiver_registration");
+		assertThat(explain(() -> shipmentRepository.findPageRegisteredByEmployee(1L, DATE, 1000L, LIMIT)))
+				.contains("idx_shipments_employee_registration");
+	}
+
+	@Test
+	void archivePagesUseTheirIndex() {
+		assertThat(explain(() -> archiveRepository.findPageSentByClient(1L, DATE, 1000L, LIMIT)))
+				.contains("idx_shipments_archive_sender_registration");
+		assertThat(explain(() -> archiveRepository.findPageReceivedByClient(1L, DATE, 1000L, LIMIT)))
+				.contains("idx_shipments_archive_receiver_registration");
+	}
+
+	@Test
+	void deliveredTotalsAndArchiveCandidatesUseStatusDeliveryIndex() {
+		assertThat(explain(() -> shipmentRepository.sumDeliveredByDayAndOffice(ShipmentStatus.DELIVERED)))
+				.contains("idx_shipments_status_delivery");
+		assertThat(explain(() -> shipmentRepository.lockArchivable(DATE, 1000)))
+				.contains("idx_shipments_status_delivery");
+	}
+
+	@Test
+	void revenueRangeUsesDailyStatsKey() {
+		assertThat(explain(() -> statsRepository.sumRevenueBetween(DATE.minusYears(1), DATE)))
+				.contains("uk_daily_stats_day_office");
+	}
+
+	/**
+	 * Изпълнява заявката и връща плана на единствения SQL, който Hibernate е изпратил за нея.
+	 */
+	private String explain(Runnable query) {
+		RequestQueryStats.reset(true);
+		query.run();
+		List<String> sql = List.copyOf(RequestQueryStats.current().getSql());
+		assertThat(sql).as("SQL statements of the query").hasSize(1);
+		return String.join("\n", jdbc.queryForList("EXPLAIN " + sql.get(0), String.class)).toLowerCase();
+	}
+}
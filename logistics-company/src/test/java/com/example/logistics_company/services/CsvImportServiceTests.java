@@ -0,0 +1,213 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.ImportReport;
+import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Малки порции, за да минат няколко транзакции и таблиците за съответствие да се пълнят на части
+@SpringBootTest(properties = "app.import.chunk-size=3")
+@AutoConfigureMockMvc
+class CsvImportServiceTests {
+
+	@Autowired
+	private CsvImportService importService;
+
+	@Autowired
+	private ShipmentStatsService statsService;
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	private Employee employee;
+	private String suffix;
+
+	@BeforeEach
+	void setUp() {
+		shipmentRepository.deleteAll();
+		statsService.rebuild();
+		employee = employeeRepository.findAll().get(0);
+		suffix = Long.toString(System.nanoTime() % 1_000_000_000L);
+	}
+
+	@Test
+	void importsValidClientsAndReportsRejectedRows() throws Exception {
+		String existing = clientRepository.findAll().get(0).getEmail();
+		ImportReport report = importCsv(CsvImportService.Type.CLIENTS, String.join("\n",
+				"name,email,phoneNumber",
+				"\"Фирма, ООД\",a" + suffix + "@x.bg,+1" + suffix,
+				"Иван,b" + suffix + "@x.bg,+2" + suffix,
+				"Петър,not-an-email,+3" + suffix,
+				"Мария,b" + suffix + "@x.bg,+4" + suffix,
+				"Стар,"+ existing + ",+5" + suffix,
+				",c" + suffix + "@x.bg,+6" + suffix,
+				"Нов,d" + suffix + "@x.bg,+7" + suffix));
+
+		assertThat(report.getRowsRead()).isEqualTo(7);
+		assertThat(report.getImported()).isEqualTo(3);
+		assertThat(report.getRejected()).isEqualTo(4);
+		assertThat(report.getRejectedRows()).extracting("line").containsExactly(4, 5, 6, 7);
+		assertThat(report.getRejectedRows().get(1).getError()).startsWith("Duplicate email");
+		assertThat(report.getRowsPerSecond()).isPositive();
+		assertThat(clientRepository.findByEmailIn(List.of("a" + suffix + "@x.bg")))
+				.singleElement().satisfies(c -> assertThat(c.getId()).isNotNull());
+	}
+
+	@Test
+	void importsHistoricalShipmentsResolvingClientsAndKeepingRollupConsistent() throws Exception {
+		importCsv(CsvImportService.Type.CLIENTS, String.join("\n",
+				"name,email,phoneNumber",
+				"A,s" + suffix + "@x.bg,+8" + suffix,
+				"B,r" + suffix + "@x.bg,+9" + suffix));
+		String s = "s" + suffix + "@x.bg";
+		String r = "r" + suffix + "@x.bg";
+		LocalDate day = LocalDate.of(2024, 3, 1);
+
+		ImportReport report = importCsv(CsvImportService.Type.SHIPMENTS, String.join("\n",
+				"senderEmail,receiverEmail,deliveryAddress,weight,toOffice,status,registrationDate,deliveryDate,employeeId,price",
+				s + "," + r + ",адрес 1,2,false,DELIVERED," + day + "," + day.plusDays(2) + ",,",
+				s + "," + r + ",адрес 2,3,true,SHIPPED," + day + ",," + employee.getId() + ",50",
+				r + "," + s + ",адрес 3,1,false,,,,,",
+				"unknown@x.bg," + r + ",адрес 4,1,false,,,,,",
+				s + "," + r + ",адрес 5,-1,false,,,,,",
+				s + "," + r + ",адрес 6,1,false,DELIVERED," + day + ",,,",
+				s + "," + r + ",адрес 7,1,false,,,,999999,",
+				s + "," + r + ",адрес 8,,false,,,,,"));
+
+		assertThat(report.getImported()).isEqualTo(3);
+		assertThat(report.getRejectedRows()).extracting("line").containsExactly(5, 6, 7, 8, 9);
+		assertThat(report.getRejectedRows().get(0).getError()).startsWith("Unknown client");
+		assertThat(report.getRejectedRows().get(4).getError()).isEqualTo("weight is required");
+		assertThat(shipmentRepository.count()).isEqualTo(3);
+		// 10 + 2 * 1.8 = 13.6, доставена на day + 2
+		assertThat(shipmentService.calculateRevenue(day.plusDays(2), day.plusDays(2))).isEqualTo(13.6);
+		assertThat(statsService.reconcile().getDriftCount()).isZero();
+	}
+
+	@Test
+	void rowsOfARolledBackChunkAreNotDuplicatesLater() throws Exception {
+		// базата отказва името "Отказан" – първата порция (3 реда) се отменя изцяло
+		jdbc.execute("ALTER TABLE clients ADD CONSTRAINT csv_test_rejected_name CHECK (name <> 'Отказан')");
+		ImportReport report;
+		try {
+			report = importCsv(CsvImportService.Type.CLIENTS, String.join("\n",
+					"name,email,phoneNumber",
+					"A,v" + suffix + "@x.bg,+16" + suffix,
+					"Отказан,w" + suffix + "@x.bg,+17" + suffix,
+					"B,x" + suffix + "@x.bg,+18" + suffix,
+					"A,v" + suffix + "@x.bg,+16" + suffix));
+		} finally {
+			jdbc.execute("ALTER TABLE clients DROP CONSTRAINT csv_test_rejected_name");
+		}
+
+		assertThat(report.getImported()).isEqualTo(1);
+		assertThat(report.getRejectedRows()).extracting("line").containsExactly(2, 3, 4);
+		assertThat(report.getRejectedRows()).allSatisfy(row -> assertThat(row.getError()).startsWith("Chunk rolled back"));
+		assertThat(clientRepository.findByEmailIn(List.of("v" + suffix + "@x.bg"))).hasSize(1);
+	}
+
+	@Test
+	void shipmentsOutsideTheTariffAreRejectedWithoutAbortingTheImport() throws Exception {
+		importCsv(CsvImportService.Type.CLIENTS, String.join("\n",
+				"name,email,phoneNumber",
+				"A,t" + suffix + "@x.bg,+14" + suffix,
+				"B,u" + suffix + "@x.bg,+15" + suffix));
+		String s = "t" + suffix + "@x.bg";
+		String r = "u" + suffix + "@x.bg";
+
+		// първата тарифа е в сила от 2000-01-01; редът с price не се изчислява по тарифата
+		ImportReport report = importCsv(CsvImportService.Type.SHIPMENTS, String.join("\n",
+				"senderEmail,receiverEmail,deliveryAddress,weight,toOffice,status,registrationDate,deliveryDate,employeeId,price",
+				s + "," + r + ",адрес 1,2,false,SHIPPED,2024-03-01,,,",
+				s + "," + r + ",адрес 2,2,false,SHIPPED,1999-12-31,,,",
+				s + "," + r + ",адрес 3,2,false,SHIPPED,1999-12-31,,,25",
+				s + "," + r + ",адрес 4,2,false,SHIPPED,2024-03-02,,,"));
+
+		assertThat(report.getImported()).isEqualTo(3);
+		assertThat(report.getRejectedRows()).singleElement().satisfies(row -> {
+			assertThat(row.getLine()).isEqualTo(3);
+			assertThat(row.getError()).isEqualTo("No tariff in effect on 1999-12-31");
+		});
+		assertThat(shipmentRepository.count()).isEqualTo(3);
+	}
+
+	@Test
+	void clientsInsertedOutsideTheApplicationDoNotTakeGeneratedIds() throws Exception {
+		// първият импорт заема блок от id_generators, вторият продължава от същия блок
+		importCsv(CsvImportService.Type.CLIENTS, "name,email,phoneNumber\nA,e" + suffix + "@x.bg,+10" + suffix);
+		jdbc.update("INSERT INTO clients (name, email, phone_number) VALUES ('Външен', ?, ?)",
+				"f" + suffix + "@x.bg", "+11" + suffix);
+
+		ImportReport report = importCsv(CsvImportService.Type.CLIENTS, String.join("\n",
+				"name,email,phoneNumber",
+				"B,g" + suffix + "@x.bg,+12" + suffix,
+				"C,h" + suffix + "@x.bg,+13" + suffix));
+
+		assertThat(report.getImported()).isEqualTo(2);
+		assertThat(clientRepository.findByEmailIn(List.of("f" + suffix + "@x.bg")))
+				.singleElement().satisfies(c -> assertThat(c.getId()).isGreaterThanOrEqualTo(1_000_000_000_000L));
+	}
+
+	@Test
+	void missingColumnIsRejectedAsBadRequest() throws Exception {
+		assertThatThrownBy(() -> importCsv(CsvImportService.Type.OFFICES, "address\nул. 1"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Missing column: city");
+
+		String login = mvc.perform(post("/api/auth/login").param("username", "georgi").param("password", "password123"))
+				.andReturn().getResponse().getContentAsString();
+		String bearer = "Bearer " + mapper.readTree(login).get("accessToken").asText();
+		MockMultipartFile file = new MockMultipartFile("file", "offices.csv", "text/csv",
+				"address,city\nул. Шипка 1,София\n,Пловдив\n".getBytes(StandardCharsets.UTF_8));
+		mvc.perform(multipart("/api/import/offices").file(file).header("Authorization", bearer))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(1))
+				.andExpect(jsonPath("$.rejectedRows[0].line").value(3));
+		mvc.perform(multipart("/api/import/employees").file(file).header("Authorization", bearer))
+				.andExpect(status().isBadRequest());
+	}
+
+	private ImportReport importCsv(CsvImportService.Type type, String csv) throws Exception {
+		return importService.importCsv(type, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), employee);
+	}
+}
@@ -0,0 +1,39 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.models.AuthenticatedUser;
+import com.example.logistics_company.models.UserType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CustomUserDetailsServiceTests {
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private UserService userService;
+
+	@Test
+	void principalCarriesIdsAndIsCached() {
+		AuthenticatedUser first = userDetailsService.loadUserByUsername("alex");
+
+		assertThat(first.getUserType()).isEqualTo(UserType.CLIENT);
+		assertThat(first.getClientId()).isNotNull();
+		assertThat(first.getEmployeeId()).isNull();
+		assertThat(first.getPassword()).isNotBlank();
+		assertThat(userDetailsService.loadUserByUsername("alex")).isSameAs(first);
+	}
+
+	@Test
+	void registeredUserIsVisibleImmediately() {
+		userService.registerUser("new-employee", "pass", UserType.EMPLOYEE, null, null);
+		AuthenticatedUser created = userDetailsService.loadUserByUsername("new-employee");
+
+		assertThat(created.getUserType()).isEqualTo(UserType.EMPLOYEE);
+		assertThat(created.getEmployeeId()).isNull();
+	}
+}
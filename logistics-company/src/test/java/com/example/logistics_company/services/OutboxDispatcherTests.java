@@ -0,0 +1,250 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.BatchItemResult;
+import com.example.logistics_company.dto.ShipmentRegistrationRequest;
+import com.example.logistics_company.models.*;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.OutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"app.outbox.backoff=PT1M", "app.outbox.max-attempts=2"})
+@Import(OutboxDispatcherTests.RecordingHandlerConfig.class)
+class OutboxDispatcherTests {
+
+	@Autowired
+	private OutboxDispatcher dispatcher;
+
+	@Autowired
+	private OutboxRepository outboxRepository;
+
+	@Autowired
+	private RecordingHandler handler;
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	private Client sender;
+	private Client receiver;
+	private Employee employee;
+	private final List<Long> created = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		// събития, останали от други тестове в същата база
+		dispatcher.dispatchPending();
+		handler.received.clear();
+		sender = clientRepository.findAll().get(0);
+		receiver = clientRepository.findAll().get(1);
+		employee = employeeRepository.findAll().get(0);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		handler.failing.clear();
+		jdbc.update("DELETE FROM outbox");
+		created.forEach(shipmentService::deleteShipment);
+	}
+
+	@Test
+	void committedLifecycleEventsAreDispatchedOnce() {
+		Shipment single = register();
+		Shipment rolledBack = transactionTemplate.execute(tx -> {
+			tx.setRollbackOnly();
+			return shipmentService.registerShipment(shipment());
+		});
+		shipmentService.deliverShipment(single.getId());
+		List<Long> batch = shipmentService.registerShipments(List.of(request(), request(), request()), employee)
+				.getItems().stream().map(BatchItemResult::getShipmentId).toList();
+		created.addAll(batch);
+		shipmentService.deliverShipments(batch);
+
+		assertThat(dispatcher.dispatchPending()).isEqualTo(8);
+
+		assertThat(handler.events(single.getId())).containsExactly("REGISTERED", "DELIVERED");
+		batch.forEach(id -> assertThat(handler.events(id)).containsExactly("REGISTERED", "DELIVERED"));
+		assertThat(handler.events(rolledBack.getId())).isEmpty();
+		assertThat(handler.received).anySatisfy(m ->
+				assertThat(m.getPayload()).contains("\"shipmentId\":" + single.getId(), "\"type\":\"DELIVERED\""));
+		assertThat(outboxRepository.count()).isZero();
+		assertThat(dispatcher.dispatchPending()).isZero();
+	}
+
+	@Test
+	void failedEventsBackOffAndAreAbandonedAfterMaxAttempts() {
+		Shipment shipment = register();
+		handler.failing.add(shipment.getId());
+		double deadBefore = registry.get("app.outbox.dead").counter().count();
+
+		assertThat(dispatcher.dispatchPending()).isZero();
+		OutboxMessage message = outboxRepository.findAll().get(0);
+		assertThat(message.getStatus()).isEqualTo(OutboxStatus.PENDING);
+		assertThat(message.getAttempts()).isEqualTo(1);
+		assertThat(message.getAvailableAt()).isAfter(LocalDateTime.now().plusSeconds(50));
+		assertThat(message.getLastError()).contains("recording", "boom");
+		assertThat(dispatcher.backoff(2)).isEqualTo(Duration.ofMinutes(2));
+
+		// backoff-ът не е изтекъл – редът не се заявява
+		assertThat(dispatcher.dispatchPending()).isZero();
+		assertThat(handler.events(shipment.getId())).hasSize(1);
+
+		makeAvailable();
+		dispatcher.dispatchPending();
+		assertThat(outboxRepository.findAll().get(0).getStatus()).isEqualTo(OutboxStatus.DEAD);
+		assertThat(registry.get("app.outbox.dead").counter().count()).isEqualTo(deadBefore + 1);
+
+		handler.failing.clear();
+		makeAvailable();
+		assertThat(dispatcher.dispatchPending()).isZero();
+		assertThat(handler.events(shipment.getId())).hasSize(2);
+	}
+
+	@Test
+	void concurrentClaimsSkipLockedRows() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			register();
+		}
+		CountDownLatch claimed = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<List<Long>> first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(tx -> {
+			List<Long> ids = ids(outboxRepository.claim(LocalDateTime.now(), 2));
+			claimed.countDown();
+			await(release);
+			return ids;
+		}));
+		try {
+			assertThat(claimed.await(5, TimeUnit.SECONDS)).isTrue();
+			List<Long> second = transactionTemplate.execute(tx -> ids(outboxRepository.claim(LocalDateTime.now(), 10)));
+			assertThat(second).hasSize(2);
+			release.countDown();
+			assertThat(first.get(5, TimeUnit.SECONDS)).hasSize(2).doesNotContainAnyElementsOf(second);
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void messagesInsertedOutsideTheApplicationDoNotTakeGeneratedIds() {
+		// първата регистрация заема блок от id_generators за outbox, втората продължава от него
+		Shipment first = register();
+		jdbc.update("INSERT INTO outbox (event_type, shipment_id, payload, created_at, available_at) " +
+						"VALUES ('UPDATED', ?, '{}', ?, ?)",
+				first.getId(), LocalDateTime.now(), LocalDateTime.now());
+		Shipment second = register();
+
+		assertThat(jdbc.queryForObject("SELECT id FROM outbox WHERE event_type = 'UPDATED'", Long.class))
+				.isGreaterThanOrEqualTo(1_000_000_000_000L);
+		assertThat(dispatcher.dispatchPending()).isEqualTo(3);
+		assertThat(handler.events(first.getId())).containsExactly("REGISTERED", "UPDATED");
+		assertThat(handler.events(second.getId())).containsExactly("REGISTERED");
+	}
+
+	private Shipment register() {
+		Shipment shipment = shipmentService.registerShipment(shipment());
+		created.add(shipment.getId());
+		return shipment;
+	}
+
+	private Shipment shipment() {
+		return new Shipment(null, sender, receiver, "ул. Изходяща 1", 1.5, true, null, null, null, employee);
+	}
+
+	private ShipmentRegistrationRequest request() {
+		ShipmentRegistrationRequest request = new ShipmentRegistrationRequest();
+		request.setSenderId(sender.getId());
+		request.setReceiverId(receiver.getId());
+		request.setDeliveryAddress("ул. Изходяща 2");
+		request.setWeight(2.0);
+		return request;
+	}
+
+	private void makeAvailable() {
+		jdbc.update("UPDATE outbox SET available_at = ?", LocalDateTime.now().minusSeconds(1));
+	}
+
+	private static List<Long> ids(List<OutboxMessage> messages) {
+		return messages.stream().map(OutboxMessage::getId).toList();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Handler в паметта: пази получените събития и хвърля изключение за пратките във failing.
+	 */
+	static class RecordingHandler implements OutboxHandler {
+
+		final List<OutboxMessage> received = new CopyOnWriteArrayList<>();
+		final Set<Long> failing = ConcurrentHashMap.newKeySet();
+
+		@Override
+		public String getName() {
+			return "recording";
+		}
+
+		@Override
+		public void handle(OutboxMessage message) {
+			received.add(message);
+			if (failing.contains(message.getShipmentId())) {
+				throw new IllegalStateException("boom");
+			}
+		}
+
+		List<String> events(Long shipmentId) {
+			return received.stream().filter(m -> m.getShipmentId().equals(shipmentId))
+					.map(OutboxMessage::getEventType).toList();
+		}
+	}
+
+	@TestConfiguration
+	static class RecordingHandlerConfig {
+
+		@Bean
+		RecordingHandler recordingHandler() {
+			return new RecordingHandler();
+		}
+	}
+}
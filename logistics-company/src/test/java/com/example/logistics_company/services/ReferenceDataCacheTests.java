@@ -0,0 +1,82 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.CacheRegionStats;
+import com.example.logistics_company.models.Office;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверява second-level cache-а на офисите: повторното четене не стига до базата,
+ * а update/delete изчистват записа, така че следващото четене връща новите данни.
+ */
+@SpringBootTest
+class ReferenceDataCacheTests {
+
+	@Autowired
+	private OfficeService officeService;
+
+	@Autowired
+	private ReferenceDataCacheService cacheService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Long officeId;
+
+	@BeforeEach
+	void setUp() {
+		officeId = officeService.createOffice(new Office(null, "ул. Кешна 1", "Варна")).getId();
+	}
+
+	@AfterEach
+	void tearDown() {
+		officeService.deleteOffice(officeId);
+	}
+
+	@Test
+	void repeatedReadIsServedFromCache() {
+		officeService.getOfficeById(officeId);
+		long hits = offices().getHits();
+
+		officeService.getOfficeById(officeId);
+
+		assertThat(offices().getHits()).isEqualTo(hits + 1);
+		assertThat(entityManagerFactory.getCache().contains(Office.class, officeId)).isTrue();
+	}
+
+	@Test
+	void updateAndDeleteEvictTheOffice() {
+		officeService.getOfficeById(officeId);
+
+		officeService.updateOffice(officeId, new Office(null, "ул. Нова 2", "Бургас"));
+		assertThat(entityManagerFactory.getCache().contains(Office.class, officeId)).isFalse();
+		assertThat(officeService.getOfficeById(officeId)).get()
+				.extracting(Office::getCity).isEqualTo("Бургас");
+
+		officeService.deleteOffice(officeId);
+		assertThat(entityManagerFactory.getCache().contains(Office.class, officeId)).isFalse();
+		assertThat(officeService.getOfficeById(officeId)).isEmpty();
+		officeId = officeService.createOffice(new Office(null, "ул. Кешна 1", "Варна")).getId();
+	}
+
+	@Test
+	void allOfficesComeFromQueryCache() {
+		officeService.getAllOffices();
+		long hits = cacheService.getStats().getQueries().getHits();
+
+		assertThat(officeService.getAllOffices()).extracting(Office::getId).contains(officeId);
+		assertThat(cacheService.getStats().getQueries().getHits()).isEqualTo(hits + 1);
+	}
+
+	private CacheRegionStats offices() {
+		return cacheService.getStats().getRegions().stream()
+				.filter(r -> r.getRegion().equals("offices"))
+				.findFirst().orElseThrow();
+	}
+}
@@ -0,0 +1,150 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.CursorPage;
+import com.example.logistics_company.jobs.ShipmentArchiveJob;
+import com.example.logistics_company.models.*;
+import com.example.logistics_company.repositories.ArchivedShipmentRepository;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest(properties = {"app.archive.min-age=P30D", "app.archive.chunk-size=2"})
+@Transactional
+class ShipmentArchiveTests {
+
+	@Autowired
+	private ShipmentArchiveJob archiveJob;
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ShipmentStatsService statsService;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private ArchivedShipmentRepository archiveRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private final LocalDate today = LocalDate.now();
+	private Client sender;
+	private Client receiver;
+	private Employee employee;
+
+	@BeforeEach
+	void seed() {
+		shipmentRepository.deleteAll();
+		sender = clientRepository.findAll().get(0);
+		receiver = clientRepository.findAll().get(1);
+		employee = employeeRepository.findAll().get(0);
+		// пет стари доставени пратки – за архива
+		for (int i = 0; i < 5; i++) {
+			save(ShipmentStatus.DELIVERED, today.minusDays(100 - i), today.minusDays(95 - i));
+		}
+		// скоро доставена, стара недоставена и две нови – остават в shipments
+		save(ShipmentStatus.DELIVERED, today.minusDays(40), today.minusDays(5));
+		save(ShipmentStatus.SHIPPED, today.minusDays(200), null);
+		save(ShipmentStatus.SHIPPED, today.minusDays(1), null);
+		save(ShipmentStatus.IN_TRANSIT, today, null);
+		entityManager.flush();
+		statsService.rebuild();
+	}
+
+	@Test
+	void movesOldDeliveredShipmentsInChunksWithoutChangingStats() {
+		double revenue = shipmentService.calculateRevenue(today.minusYears(1), today);
+
+		assertThat(archiveJob.archive()).isEqualTo(5);
+
+		assertThat(shipmentRepository.count()).isEqualTo(4);
+		assertThat(archiveRepository.count()).isEqualTo(5);
+		assertThat(archiveRepository.findAll()).allSatisfy(archived ->
+				assertThat(archived.getDeliveryDate()).isBefore(today.minusDays(30)));
+		// нищо не остава за следващото изпълнение
+		assertThat(archiveJob.archive()).isZero();
+
+		assertThat(shipmentService.calculateRevenue(today.minusYears(1), today)).isCloseTo(revenue, within(1e-9));
+		assertThat(statsService.reconcile().getDriftCount()).isZero();
+		assertThat(statsService.rebuild().getDriftCount()).isZero();
+		assertThat(shipmentService.calculateRevenue(today.minusYears(1), today)).isCloseTo(revenue, within(1e-9));
+	}
+
+	@Test
+	void archivedShipmentsStayReadableByIdButReadOnly() {
+		// най-старата доставена пратка е сред архивираните
+		Shipment oldest = shipmentRepository.findAll().stream()
+				.filter(s -> s.getStatus() == ShipmentStatus.DELIVERED)
+				.min(Comparator.comparing(Shipment::getRegistrationDate)).orElseThrow();
+		archiveJob.archive();
+		entityManager.clear();
+
+		Shipment archived = shipmentService.getShipmentById(oldest.getId());
+		assertThat(archived).isNotNull();
+		assertThat(archived.getStatus()).isEqualTo(ShipmentStatus.DELIVERED);
+		assertThat(archived.getSender().getId()).isEqualTo(sender.getId());
+		assertThat(archived.getRegisteredBy().getId()).isEqualTo(employee.getId());
+		assertThat(shipmentService.isArchived(oldest.getId())).isTrue();
+
+		assertThat(shipmentService.updateShipment(oldest.getId(), archived)).isNull();
+		assertThat(shipmentService.deleteShipment(oldest.getId())).isFalse();
+		assertThat(archiveRepository.existsById(oldest.getId())).isTrue();
+		assertThat(shipmentService.getShipmentById(-1L)).isNull();
+		assertThat(shipmentService.isArchived(-1L)).isFalse();
+	}
+
+	@Test
+	void clientPagesMergeActiveAndArchivedShipments() {
+		List<Long> expected = shipmentRepository.findAll().stream()
+				.sorted(Comparator.comparing(Shipment::getRegistrationDate).thenComparing(Shipment::getId).reversed())
+				.map(Shipment::getId).toList();
+		archiveJob.archive();
+
+		List<Shipment> seen = new ArrayList<>();
+		String cursor = null;
+		do {
+			CursorPage<Shipment> page = shipmentService.getShipmentsSentByClient(sender.getId(), cursor, 2);
+			assertThat(page.getItems()).hasSizeLessThanOrEqualTo(2);
+			seen.addAll(page.getItems());
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+
+		assertThat(seen).extracting(Shipment::getId).containsExactlyElementsOf(expected);
+		assertThat(seen.subList(3, 8)).allSatisfy(archived -> {
+			assertThat(archived.getStatus()).isEqualTo(ShipmentStatus.DELIVERED);
+			assertThat(archived.getVersion()).isNotNull();
+			assertThat(archived.getSender().getId()).isEqualTo(sender.getId());
+		});
+		assertThat(shipmentService.getShipmentsReceivedByClient(receiver.getId(), null, 50).getItems()).hasSize(9);
+	}
+
+	private void save(ShipmentStatus status, LocalDate registered, LocalDate delivered) {
+		Shipment shipment = new Shipment(null, sender, receiver, "ул. Архивна 1", 2.0, true,
+				status, registered, delivered, employee);
+		shipment.setPrice(12.5);
+		shipmentRepository.save(shipment);
+	}
+}
@@ -0,0 +1,124 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.BatchRegistrationResponse;
+import com.example.logistics_company.dto.ShipmentRegistrationRequest;
+import com.example.logistics_company.models.Client;
+import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ShipmentBatchRegistrationTests {
+
+	private static final int ROWS = 250;
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ShipmentStatsService statsService;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private Client sender;
+	private Client receiver;
+	private Employee employee;
+
+	@BeforeEach
+	void setUp() {
+		shipmentRepository.deleteAll();
+		statsService.rebuild();
+		sender = clientRepository.findAll().get(0);
+		receiver = clientRepository.findAll().get(1);
+		employee = employeeRepository.findAll().get(0);
+	}
+
+	@Test
+	void registersValidItemsInJdbcBatchesAndRejectsInvalidOnes() {
+		List<ShipmentRegistrationRequest> items = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			items.add(item(sender.getId(), receiver.getId(), 1.0 + i % 5));
+		}
+		items.add(item(-1L, receiver.getId(), 2.0));
+		items.add(item(sender.getId(), receiver.getId(), 0.0));
+
+		Statistics statistics = entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		BatchRegistrationResponse response = shipmentService.registerShipments(items, employee);
+
+		assertThat(response.getRegistered()).isEqualTo(ROWS);
+		assertThat(response.getRejected()).isEqualTo(2);
+		assertThat(response.getItems()).hasSize(ROWS + 2);
+		assertThat(response.getItems().get(0).getShipmentId()).isNotNull();
+		assertThat(response.getItems().get(ROWS).getError()).startsWith("Sender not found");
+		assertThat(response.getItems().get(ROWS + 1).getError()).startsWith("Weight");
+
+		assertThat(shipmentRepository.count()).isEqualTo(ROWS);
+		// пратките и по един ред в историята и в outbox за всяка
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(3 * ROWS);
+		// 3 x 250 INSERT-а в 3 batch-а + IN заявка за клиентите + ID блокове + upsert в агрегата
+		assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+
+		assertThat(statsService.reconcile().getDriftCount()).isZero();
+	}
+
+	@Test
+	void rowsInsertedOutsideTheApplicationDoNotTakeGeneratedIds() {
+		// първата пратка заема блок от id_generators, следващите идват от същия блок
+		Long first = shipmentService.registerShipments(List.of(item(sender.getId(), receiver.getId(), 1.0)), employee)
+				.getItems().get(0).getShipmentId();
+
+		jdbc.update("INSERT INTO shipments (sender_id, receiver_id, delivery_address, weight, to_office, status, " +
+						"registration_date, registered_by_employee_id) VALUES (?, ?, 'външен', 1.0, FALSE, 'SHIPPED', ?, ?)",
+				sender.getId(), receiver.getId(), LocalDate.now(), employee.getId());
+		Long external = jdbc.queryForObject("SELECT id FROM shipments WHERE delivery_address = 'външен'", Long.class);
+
+		BatchRegistrationResponse next = shipmentService.registerShipments(
+				List.of(item(sender.getId(), receiver.getId(), 1.0), item(sender.getId(), receiver.getId(), 1.0)),
+				employee);
+
+		assertThat(next.getRegistered()).isEqualTo(2);
+		assertThat(next.getItems()).allSatisfy(item -> assertThat(item.getShipmentId()).isGreaterThan(first));
+		assertThat(external).isGreaterThanOrEqualTo(1_000_000_000_000L);
+		assertThat(shipmentRepository.count()).isEqualTo(4);
+	}
+
+	private static ShipmentRegistrationRequest item(Long senderId, Long receiverId, double weight) {
+		ShipmentRegistrationRequest item = new ShipmentRegistrationRequest();
+		item.setSenderId(senderId);
+		item.setReceiverId(receiverId);
+		item.setDeliveryAddress("адрес");
+		item.setWeight(weight);
+		return item;
+	}
+}
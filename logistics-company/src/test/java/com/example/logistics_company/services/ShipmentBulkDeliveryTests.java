@@ -0,0 +1,92 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.BulkDeliveryResponse;
+import com.example.logistics_company.models.*;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class ShipmentBulkDeliveryTests {
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ShipmentStatsService statsService;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private Client sender;
+	private Client receiver;
+	private Employee employee;
+
+	@BeforeEach
+	void setUp() {
+		shipmentRepository.deleteAll();
+		statsService.rebuild();
+		sender = clientRepository.findAll().get(0);
+		receiver = clientRepository.findAll().get(1);
+		employee = employeeRepository.findAll().get(0);
+	}
+
+	@Test
+	void deliversShippedAndReportsAlreadyDeliveredAndMissing() {
+		Shipment a = shipmentService.registerShipment(shipment(2.0));   // 13.6
+		Shipment b = shipmentService.registerShipment(shipment(3.0));   // 15.4
+		Shipment c = shipmentService.registerShipment(shipment(1.0));   // 11.8
+		shipmentService.deliverShipment(c.getId());
+		long missingId = c.getId() + 1_000_000;
+
+		Statistics statistics = entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		BulkDeliveryResponse response = shipmentService.deliverShipments(
+				List.of(a.getId(), b.getId(), c.getId(), missingId, a.getId()));
+
+		assertThat(response.getDelivered()).containsExactly(a.getId(), b.getId());
+		assertThat(response.getAlreadyDelivered()).containsExactly(c.getId());
+		assertThat(response.getMissing()).containsExactly(missingId);
+		// SELECT на състоянието + един UPDATE + един upsert в агрегата + по един batch в историята и в outbox
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+
+		assertThat(shipmentRepository.findById(b.getId()).orElseThrow().getStatus()).isEqualTo(ShipmentStatus.DELIVERED);
+		assertThat(shipmentService.calculateRevenue(LocalDate.now(), LocalDate.now())).isCloseTo(40.8, within(1e-9));
+		assertThat(statsService.reconcile().getDriftCount()).isZero();
+
+		// повторно потвърждение не променя нищо
+		BulkDeliveryResponse again = shipmentService.deliverShipments(List.of(a.getId()));
+		assertThat(again.getDelivered()).isEmpty();
+		assertThat(again.getAlreadyDelivered()).containsExactly(a.getId());
+		assertThat(statsService.reconcile().getDriftCount()).isZero();
+	}
+
+	private Shipment shipment(double weight) {
+		return new Shipment(null, sender, receiver, "адрес", weight, false, null, null, null, employee);
+	}
+}
@@ -0,0 +1,186 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.ShipmentRegistrationRequest;
+import com.example.logistics_company.models.Client;
+import com.example.logistics_company.models.Employee;
+import com.example.logistics_company.models.ShipmentStatus;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ShipmentExportTests {
+
+	@Autowired
+	private ShipmentExportService exportService;
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ShipmentStatsService statsService;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private Client sender;
+	private Client receiver;
+	private Employee employee;
+
+	@BeforeEach
+	void setUp() {
+		shipmentRepository.deleteAll();
+		statsService.rebuild();
+		sender = clientRepository.findAll().get(0);
+		receiver = clientRepository.findAll().get(1);
+		employee = employeeRepository.findAll().get(0);
+	}
+
+	@Test
+	void writesCsvAndNdjsonWithFilters() throws Exception {
+		seed(3, "ул. \"Витоша\", 1");
+		Long delivered = shipmentRepository.findAll().get(0).getId();
+		shipmentService.deliverShipment(delivered);
+
+		ByteArrayOutputStream csv = new ByteArrayOutputStream();
+		long rows = exportService.export(ShipmentExportService.Format.CSV, null, null, null, csv);
+		String[] lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+		assertThat(rows).isEqualTo(3);
+		assertThat(lines).hasSize(4);
+		assertThat(lines[0]).startsWith("id,status,");
+		assertThat(lines[1]).contains(",\"ул. \"\"Витоша\"\", 1\",");
+
+		ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+		rows = exportService.export(ShipmentExportService.Format.NDJSON,
+				ShipmentStatus.DELIVERED,
+				LocalDate.now(), LocalDate.now(), ndjson);
+		assertThat(rows).isEqualTo(1);
+		assertThat(ndjson.toString(StandardCharsets.UTF_8).trim())
+				.startsWith("{\"id\":" + delivered + ",\"status\":\"DELIVERED\"")
+				.doesNotContain("\n");
+
+		ByteArrayOutputStream none = new ByteArrayOutputStream();
+		assertThat(exportService.export(ShipmentExportService.Format.NDJSON, null,
+				LocalDate.now().plusDays(1), null, none)).isZero();
+	}
+
+	@Test
+	void ndjsonHasOneLinePerRecordAndNothingWhenEmpty() throws Exception {
+		ByteArrayOutputStream empty = new ByteArrayOutputStream();
+		assertThat(exportService.export(ShipmentExportService.Format.NDJSON, null, null, null, empty)).isZero();
+		assertThat(empty.size()).isZero();
+
+		seed(2, "адрес");
+		ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+		assertThat(exportService.export(ShipmentExportService.Format.NDJSON, null, null, null, ndjson)).isEqualTo(2);
+		String body = ndjson.toString(StandardCharsets.UTF_8);
+		assertThat(body).endsWith("}\n").doesNotContain("\n\n");
+		assertThat(body.split("\n")).hasSize(2).allSatisfy(line -> assertThat(line).startsWith("{\"id\":"));
+	}
+
+	/**
+	 * Паметта, задържана по време на експорта, не расте с броя редове:
+	 * 20 пъти повече редове не задържат забележимо повече памет, а в persistence
+	 * context-а не се зарежда нито едно entity.
+	 */
+	@Test
+	void heapStaysFlatAsRowCountGrows() throws Exception {
+		seed(1_000, "адрес");
+		long small = retainedDuringExport(1_000);
+
+		seed(19_000, "адрес");
+		Statistics statistics = entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		long large = retainedDuringExport(20_000);
+
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		// само събирането на 20 000 реда в List задържа ~3 MB, а заредените entity-та – много повече
+		assertThat(large - small).isLessThan(1536L * 1024);
+	}
+
+	private long retainedDuringExport(int expectedRows) throws Exception {
+		long baseline = usedHeapAfterGc();
+		HeapSamplingOutputStream out = new HeapSamplingOutputStream(expectedRows / 4);
+		long rows = exportService.export(ShipmentExportService.Format.NDJSON, null, null, null, out);
+		assertThat(rows).isEqualTo(expectedRows);
+		return Math.max(0, out.peak - baseline);
+	}
+
+	private void seed(int count, String address) {
+		List<ShipmentRegistrationRequest> items = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			ShipmentRegistrationRequest item = new ShipmentRegistrationRequest();
+			item.setSenderId(sender.getId());
+			item.setReceiverId(receiver.getId());
+			item.setDeliveryAddress(address);
+			item.setWeight(1.0 + i % 10);
+			items.add(item);
+			if (items.size() == 10_000) {
+				shipmentService.registerShipments(items, employee);
+				items.clear();
+			}
+		}
+		if (!items.isEmpty()) {
+			shipmentService.registerShipments(items, employee);
+		}
+	}
+
+	private static long usedHeapAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/** Изхвърля изхода и през няколко реда измерва задържаната памет. */
+	private static class HeapSamplingOutputStream extends OutputStream {
+		private final int sampleEvery;
+		private long lines;
+		private long peak;
+
+		HeapSamplingOutputStream(int sampleEvery) {
+			this.sampleEvery = Math.max(1, sampleEvery);
+		}
+
+		@Override
+		public void write(int b) {
+			if (b == '\n' && ++lines % sampleEvery == 0) {
+				peak = Math.max(peak, usedHeapAfterGc());
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			for (int i = off; i < off + len; i++) {
+				write(b[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.CursorPage;
+import com.example.logistics_company.models.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.transaction.BeforeTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверява, че всеки списък с пратки изпълнява постоянен брой SQL заявки,
+ * независимо колко реда и колко различни клиенти/служители/офиси съдържа,
+ * включително по време на JSON сериализацията – с топъл и със студен second-level cache.
+ */
+@SpringBootTest
+@Transactional
+class ShipmentFetchPlanTests {
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private Statistics statistics;
+
+	private Client firstSender;
+	private Employee firstEmployee;
+	private Long firstShipmentId;
+
+	/**
+	 * Затопля second-level cache-а със служителите от началните данни в отделна транзакция –
+	 * транзакцията на теста вижда само записи, сложени в кеша преди нейното начало.
+	 */
+	@BeforeTransaction
+	void warmReferenceCache() {
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+		employeeService.getAllEmployees();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 10, 40})
+	void listEndpointsRunOneStatement(int rows) throws Exception {
+		// Пратките са на служителите от началните данни, които вече са в кеша
+		seed(rows, false);
+
+		// Списъкът идва от query cache-а, а служителите и офисите – от second-level cache-а
+		assertStatements(0, () -> employeeService.getAllEmployees());
+
+		assertStatements(1, () -> shipmentService.getAllShipments(null, 100));
+		assertStatements(1, () -> shipmentService.getShipmentsByStatus(ShipmentStatus.SHIPPED, null, 100));
+		assertStatements(1, () -> shipmentService.getNotDeliveredShipments(null, 100));
+		assertStatements(1, () -> shipmentService.getShipmentsRegisteredByEmployee(firstEmployee.getId(), null, 100));
+		// страницата не е пълна, затова се чете и архивът – по една заявка за всяка таблица
+		assertStatements(2, () -> shipmentService.getShipmentsSentByClient(firstSender.getId(), null, 100));
+		assertStatements(2, () -> shipmentService.getShipmentsReceivedByClient(firstSender.getId(), null, 100));
+		assertStatements(1, () -> shipmentService.getShipmentById(firstShipmentId));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 10, 40})
+	void coldCacheLoadsEmployeesWithOneBatch(int rows) throws Exception {
+		// Нови служители и офиси – още не са в кеша
+		seed(rows, true);
+
+		// Пратките + една IN заявка за всички служители на страницата
+		assertStatements(2, () -> shipmentService.getAllShipments(null, 100));
+		// Пратката + служителят + офисът му
+		assertStatements(3, () -> shipmentService.getShipmentById(firstShipmentId));
+	}
+
+	private void assertStatements(long expected, Supplier<Object> call) throws Exception {
+		entityManager.clear();
+		statistics.clear();
+
+		Object result = call.get();
+		objectMapper.writeValueAsString(result);
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+		if (result instanceof CursorPage<?> page) {
+			assertThat(page.getItems()).isNotEmpty();
+		}
+	}
+
+	/**
+	 * @param newEmployees true – всяка пратка е на нов служител в нов офис;
+	 *                     false – пратките се разпределят между съществуващите служители
+	 */
+	private void seed(int rows, boolean newEmployees) {
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		List<Employee> existing = employeeService.getAllEmployees();
+		for (int i = 0; i < rows; i++) {
+			Employee employee = existing.get(i % existing.size());
+			if (newEmployees) {
+				Office office = new Office(null, "адрес " + i, "град " + i);
+				entityManager.persist(office);
+				employee = new Employee(null, "служител " + i, office, Role.COURIER);
+				entityManager.persist(employee);
+			}
+			Client sender = new Client(null, "подател " + i, "s" + i + "@fetch.test", "+3591" + i);
+			Client receiver = new Client(null, "получател " + i, "r" + i + "@fetch.test", "+3592" + i);
+			entityManager.persist(sender);
+			entityManager.persist(receiver);
+			Shipment shipment = new Shipment(null, sender, i == 0 ? sender : receiver, "адрес", 1.5, false,
+					ShipmentStatus.SHIPPED, LocalDate.now(), null, employee);
+			entityManager.persist(shipment);
+			if (i == 0) {
+				firstSender = sender;
+				firstEmployee = employee;
+				firstShipmentId = shipment.getId();
+			}
+		}
+		entityManager.flush();
+	}
+}
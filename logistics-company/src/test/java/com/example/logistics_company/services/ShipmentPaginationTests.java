@@ -0,0 +1,98 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.CursorPage;
+import com.example.logistics_company.models.*;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "app.shipments.max-page-size=" + ShipmentPaginationTests.MAX_PAGE_SIZE)
+@Transactional
+class ShipmentPaginationTests {
+
+	static final int MAX_PAGE_SIZE = 4;
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	private Client sender;
+
+	@BeforeEach
+	void seed() {
+		shipmentRepository.deleteAll();
+		sender = clientRepository.findAll().get(0);
+		Client receiver = clientRepository.findAll().get(1);
+		Employee employee = employeeRepository.findAll().get(0);
+		// по три пратки на ден, за да има равни дати и подредбата да зависи и от id
+		for (int i = 0; i < 10; i++) {
+			shipmentRepository.save(new Shipment(null, sender, receiver, "адрес " + i, 1.0 + i, i % 2 == 0,
+					ShipmentStatus.SHIPPED, LocalDate.of(2024, 1, 1).plusDays(i / 3), null, employee));
+		}
+	}
+
+	@Test
+	void walksAllRowsNewestFirstWithoutDuplicates() {
+		List<Shipment> seen = new ArrayList<>();
+		String cursor = null;
+		do {
+			CursorPage<Shipment> page = shipmentService.getShipmentsSentByClient(sender.getId(), cursor, 4);
+			assertThat(page.getItems()).hasSizeLessThanOrEqualTo(4);
+			seen.addAll(page.getItems());
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+
+		assertThat(seen).hasSize(10);
+		assertThat(seen).extracting(Shipment::getId).doesNotHaveDuplicates();
+		for (int i = 1; i < seen.size(); i++) {
+			Shipment prev = seen.get(i - 1), cur = seen.get(i);
+			assertThat(prev.getRegistrationDate().isAfter(cur.getRegistrationDate())
+					|| (prev.getRegistrationDate().equals(cur.getRegistrationDate()) && prev.getId() > cur.getId()))
+					.isTrue();
+		}
+	}
+
+	@Test
+	void pageSizeIsCappedByServer() {
+		List<Shipment> seen = new ArrayList<>();
+		CursorPage<Shipment> page = shipmentService.getAllShipments(null, 1_000_000);
+		assertThat(page.getItems()).hasSize(MAX_PAGE_SIZE);
+		assertThat(page.getNextCursor()).isNotNull();
+		seen.addAll(page.getItems());
+
+		// курсорът продължава точно след последния върнат ред, въпреки че е поискан по-голям лимит
+		while (page.getNextCursor() != null) {
+			page = shipmentService.getAllShipments(page.getNextCursor(), 1_000_000);
+			assertThat(page.getItems()).hasSizeLessThanOrEqualTo(MAX_PAGE_SIZE);
+			seen.addAll(page.getItems());
+		}
+		assertThat(seen).hasSize(10);
+		assertThat(seen).extracting(Shipment::getId).doesNotHaveDuplicates();
+	}
+
+	@Test
+	void invalidCursorIsRejected() {
+		assertThatThrownBy(() -> shipmentService.getAllShipments("not-a-cursor", 10))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
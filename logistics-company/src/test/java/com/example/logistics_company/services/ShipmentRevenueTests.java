@@ -0,0 +1,129 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.jobs.ShipmentPriceBackfillJob;
+import com.example.logistics_company.models.*;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class ShipmentRevenueTests {
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private ShipmentStatsService statsService;
+
+	@Autowired
+	private ShipmentPriceBackfillJob backfillJob;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private Client sender;
+	private Client receiver;
+	private Employee employee;
+
+	@BeforeEach
+	void setUp() {
+		shipmentRepository.deleteAll();
+		statsService.rebuild();
+		sender = clientRepository.findAll().get(0);
+		receiver = clientRepository.findAll().get(1);
+		employee = employeeRepository.findAll().get(0);
+	}
+
+	@Test
+	void registrationStoresPriceAndRevenueSumsInDatabase() {
+		// 10 + 2 * 1.8 = 13.6 и 10 + 4 * 1.3 = 15.2
+		deliver(shipmentService.registerShipment(shipment(2.0, false)));
+		deliver(shipmentService.registerShipment(shipment(4.0, true)));
+		shipmentService.registerShipment(shipment(100.0, false)); // не е доставена
+
+		Statistics statistics = entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		double revenue = shipmentService.calculateRevenue(LocalDate.now().minusDays(1), LocalDate.now());
+
+		assertThat(revenue).isCloseTo(28.8, within(1e-9));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void backfillPricesLegacyRows() {
+		jdbc.update("INSERT INTO shipments (sender_id, receiver_id, delivery_address, weight, to_office, status, " +
+						"registration_date, delivery_date, registered_by_employee_id) VALUES (?, ?, 'стар', 5.0, FALSE, " +
+						"'DELIVERED', ?, ?, ?)",
+				sender.getId(), receiver.getId(), LocalDate.now(), LocalDate.now(), employee.getId());
+
+		assertThat(shipmentService.calculateRevenue(LocalDate.now(), LocalDate.now())).isZero();
+		assertThat(backfillJob.backfill()).isEqualTo(1);
+		assertThat(backfillJob.backfill()).isZero();
+		assertThat(shipmentService.calculateRevenue(LocalDate.now(), LocalDate.now()))
+				.isCloseTo(19.0, within(1e-9));
+	}
+
+	@Test
+	void backfillSkipsTheGapBeforeExternallyInsertedIds() {
+		String insert = "INSERT INTO shipments (id, sender_id, receiver_id, delivery_address, weight, to_office, " +
+				"status, registration_date, registered_by_employee_id) VALUES (?, ?, ?, 'стар', 5.0, FALSE, " +
+				"'SHIPPED', ?, ?)";
+		// ред от pooled блоковете и ред, вмъкнат извън приложението (auto_increment от 10^12)
+		jdbc.update(insert, 5L, sender.getId(), receiver.getId(), LocalDate.now(), employee.getId());
+		jdbc.update(insert, 1_000_000_000_001L, sender.getId(), receiver.getId(), LocalDate.now(), employee.getId());
+
+		assertThat(backfillJob.backfill()).isEqualTo(2);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM shipments WHERE price IS NULL", Long.class)).isZero();
+	}
+
+	@Test
+	void backfillSkipsRowsTheTariffDoesNotCover() {
+		String insert = "INSERT INTO shipments (sender_id, receiver_id, delivery_address, weight, to_office, " +
+				"status, registration_date, registered_by_employee_id) VALUES (?, ?, 'стар', 5.0, FALSE, " +
+				"'SHIPPED', ?, ?)";
+		// първата тарифа е в сила от 2000-01-01
+		jdbc.update(insert, sender.getId(), receiver.getId(), LocalDate.of(1999, 6, 1), employee.getId());
+		jdbc.update(insert, sender.getId(), receiver.getId(), LocalDate.now(), employee.getId());
+
+		assertThat(backfillJob.backfill()).isEqualTo(1);
+		assertThat(jdbc.queryForList("SELECT registration_date FROM shipments WHERE price IS NULL", LocalDate.class))
+				.containsExactly(LocalDate.of(1999, 6, 1));
+		assertThat(backfillJob.backfill()).isZero();
+	}
+
+	private Shipment shipment(double weight, boolean toOffice) {
+		return new Shipment(null, sender, receiver, "адрес", weight, toOffice, null, null, null, employee);
+	}
+
+	private void deliver(Shipment shipment) {
+		shipmentService.deliverShipment(shipment.getId());
+	}
+}
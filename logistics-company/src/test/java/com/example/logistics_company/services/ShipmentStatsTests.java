@@ -0,0 +1,183 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.StatsReconcileReport;
+import com.example.logistics_company.models.*;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.DailyShipmentStatsRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.OfficeRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class ShipmentStatsTests {
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ShipmentStatsService statsService;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private DailyShipmentStatsRepository statsRepository;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private OfficeRepository officeRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Client sender;
+	private Client receiver;
+	private Employee employee;
+
+	@BeforeEach
+	void setUp() {
+		shipmentRepository.deleteAll();
+		statsService.rebuild();
+		sender = clientRepository.findAll().get(0);
+		receiver = clientRepository.findAll().get(1);
+		employee = employeeRepository.findAll().get(0);
+	}
+
+	@Test
+	void rollupFollowsRegisterDeliverUpdateAndDelete() {
+		Shipment a = shipmentService.registerShipment(shipment(2.0, false));   // 13.6
+		Shipment b = shipmentService.registerShipment(shipment(4.0, true));    // 15.2
+		Shipment c = shipmentService.registerShipment(shipment(1.0, false));   // 11.8
+		shipmentService.deliverShipment(a.getId());
+		shipmentService.deliverShipment(b.getId());
+		shipmentService.deliverShipment(c.getId());
+
+		// b: 4 кг до офис -> 6 кг до адрес = 10 + 6 * 1.8 = 20.8
+		Shipment changed = shipment(6.0, false);
+		changed.setStatus(ShipmentStatus.DELIVERED);
+		shipmentService.updateShipment(b.getId(), changed);
+		shipmentService.deleteShipment(c.getId());
+
+		DailyShipmentStats row = statsRepository.findAll().get(0);
+		assertThat(statsRepository.count()).isEqualTo(1);
+		assertThat(row.getOfficeId()).isEqualTo(employee.getOffice().getId());
+		assertThat(row.getRegisteredCount()).isEqualTo(2);
+		assertThat(row.getRegisteredWeight()).isCloseTo(8.0, within(1e-9));
+		assertThat(row.getDeliveredCount()).isEqualTo(2);
+		assertThat(row.getRevenue()).isCloseTo(34.4, within(1e-9));
+		assertThat(shipmentService.calculateRevenue(LocalDate.now(), LocalDate.now()))
+				.isCloseTo(34.4, within(1e-9));
+
+		assertThat(statsService.reconcile().getDriftCount()).isZero();
+	}
+
+	@Test
+	void reconcileReportsDriftAndRebuildRepairsIt() {
+		Shipment a = shipmentService.registerShipment(shipment(2.0, false));
+		shipmentService.deliverShipment(a.getId());
+		jdbc.update("UPDATE daily_shipment_stats SET revenue = revenue + 5");
+
+		StatsReconcileReport report = statsService.reconcile();
+		assertThat(report.getDriftCount()).isEqualTo(1);
+		assertThat(report.getDrift().get(0).getField()).isEqualTo("revenue");
+		assertThat(report.getDrift().get(0).getActual() - report.getDrift().get(0).getExpected())
+				.isCloseTo(5.0, within(1e-9));
+
+		assertThat(statsService.rebuild().getDriftCount()).isEqualTo(1);
+		assertThat(statsService.reconcile().getDriftCount()).isZero();
+		assertThat(shipmentService.calculateRevenue(LocalDate.now(), LocalDate.now()))
+				.isCloseTo(13.6, within(1e-9));
+	}
+
+	@Test
+	void shipmentStaysInTheOfficeItWasRegisteredInAfterTheEmployeeMoves() {
+		Office registeredIn = employee.getOffice();
+		Office other = officeRepository.findAll().stream()
+				.filter(o -> !o.getId().equals(registeredIn.getId())).findFirst().orElseThrow();
+		Shipment a = shipmentService.registerShipment(shipment(2.0, false));
+
+		employeeService.updateEmployee(employee.getId(),
+				new Employee(null, employee.getName(), other, employee.getRole()));
+		try {
+			shipmentService.deliverShipment(a.getId());
+		} finally {
+			employeeService.updateEmployee(employee.getId(),
+					new Employee(null, employee.getName(), registeredIn, employee.getRole()));
+		}
+
+		assertThat(statsRepository.findAll()).singleElement().satisfies(row -> {
+			assertThat(row.getOfficeId()).isEqualTo(registeredIn.getId());
+			assertThat(row.getRegisteredCount()).isEqualTo(1);
+			assertThat(row.getDeliveredCount()).isEqualTo(1);
+		});
+		assertThat(statsService.reconcile().getDriftCount()).isZero();
+	}
+
+	@Test
+	void deliveredShipmentWithoutDeliveryDateIsCountedOnItsRegistrationDay() {
+		Shipment a = shipmentService.registerShipment(shipment(2.0, false));
+		// стар запис: доставен, но без дата на доставка
+		jdbc.update("UPDATE shipments SET status = 'DELIVERED', delivery_date = NULL WHERE id = ?", a.getId());
+		// доставката се брои в деня на регистрация: deliveredCount, deliveredWeight и revenue
+		assertThat(statsService.rebuild().getDriftCount()).isEqualTo(3);
+		assertThat(shipmentService.calculateRevenue(LocalDate.now(), LocalDate.now()))
+				.isCloseTo(13.6, within(1e-9));
+
+		shipmentService.deleteShipment(a.getId());
+
+		assertThat(statsService.reconcile().getDriftCount()).isZero();
+		assertThat(shipmentService.calculateRevenue(LocalDate.now(), LocalDate.now())).isZero();
+	}
+
+	@Test
+	void rebuildDoesNotLoseARegistrationCommittedDuringIt() throws Exception {
+		shipmentService.registerShipment(shipment(2.0, false));
+		// разминаване в друг ден, което rebuild трябва да поправи
+		jdbc.update("INSERT INTO daily_shipment_stats (stats_day, office_id, registered_count, registered_weight, " +
+				"delivered_count, delivered_weight, revenue) VALUES (?, ?, 1, 1.0, 0, 0.0, 0.0)",
+				LocalDate.now().minusDays(1), employee.getOffice().getId());
+
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+		tx.executeWithoutResult(status -> {
+			// snapshot-ът на rebuild е взет преди паралелната регистрация
+			shipmentRepository.count();
+			statsRepository.count();
+			CompletableFuture.runAsync(() -> shipmentService.registerShipment(shipment(1.0, false))).join();
+			assertThat(statsService.rebuild().getDriftCount()).isEqualTo(2);
+		});
+
+		assertThat(statsService.reconcile().getDriftCount()).isZero();
+		assertThat(statsRepository.findAll()).singleElement()
+				.satisfies(row -> assertThat(row.getRegisteredCount()).isEqualTo(2));
+	}
+
+	private Shipment shipment(double weight, boolean toOffice) {
+		return new Shipment(null, sender, receiver, "адрес", weight, toOffice, null, null, null, employee);
+	}
+}
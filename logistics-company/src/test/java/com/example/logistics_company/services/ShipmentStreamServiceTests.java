@@ -0,0 +1,79 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.models.AuthenticatedUser;
+import com.example.logistics_company.models.UserType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShipmentStreamServiceTests {
+
+	private static final int MAX_SUBSCRIBERS = 5;
+
+	private final AuthenticatedUser user =
+			new AuthenticatedUser(1L, "georgi", "", UserType.EMPLOYEE, 1L, null, 1L);
+
+	private ShipmentStreamService streamService;
+
+	@BeforeEach
+	void setUp() {
+		streamService = new ShipmentStreamService();
+		ReflectionTestUtils.setField(streamService, "executor", new SyncTaskExecutor());
+		ReflectionTestUtils.setField(streamService, "maxSubscribers", MAX_SUBSCRIBERS);
+		ReflectionTestUtils.setField(streamService, "queueCapacity", 16);
+		ReflectionTestUtils.setField(streamService, "timeout", Duration.ofMinutes(30));
+		streamService.createSlots();
+	}
+
+	@Test
+	void concurrentSubscriptionsDoNotExceedTheLimit() throws Exception {
+		int threads = 32;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<CompletableFuture<SseEmitter>> attempts = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				attempts.add(CompletableFuture.supplyAsync(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return streamService.subscribe(user, null);
+				}, pool));
+			}
+			start.countDown();
+
+			long accepted = attempts.stream().map(CompletableFuture::join).filter(Objects::nonNull).count();
+			assertThat(accepted).isEqualTo(MAX_SUBSCRIBERS);
+			assertThat(streamService.getSubscriberCount()).isEqualTo(MAX_SUBSCRIBERS);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void streamClosesWhenTheTokenExpires() {
+		SseEmitter shortLived = streamService.subscribe(user, Instant.now().plus(Duration.ofMinutes(15)));
+		SseEmitter basic = streamService.subscribe(user, null);
+		SseEmitter longLived = streamService.subscribe(user, Instant.now().plus(Duration.ofHours(2)));
+
+		assertThat(shortLived.getTimeout()).isBetween(Duration.ofMinutes(14).toMillis(), Duration.ofMinutes(15).toMillis());
+		assertThat(basic.getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+		assertThat(longLived.getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+	}
+}
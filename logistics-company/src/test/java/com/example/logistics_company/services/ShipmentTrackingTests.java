@@ -0,0 +1,166 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.BulkDeliveryResponse;
+import com.example.logistics_company.models.*;
+import com.example.logistics_company.repositories.ClientRepository;
+import com.example.logistics_company.repositories.EmployeeRepository;
+import com.example.logistics_company.repositories.ShipmentRepository;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ShipmentTrackingTests {
+
+	private static final long COURIER_ID = 77L;
+	private static final long COURIER_OFFICE_ID = 7L;
+
+	@Autowired
+	private ShipmentService shipmentService;
+
+	@Autowired
+	private ShipmentTrackingService trackingService;
+
+	@Autowired
+	private ClientRepository clientRepository;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	private Client sender;
+	private Client receiver;
+	private Employee employee;
+	private final List<Long> created = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		sender = clientRepository.findAll().get(0);
+		receiver = clientRepository.findAll().get(1);
+		employee = employeeRepository.findAll().get(0);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		SecurityContextHolder.clearContext();
+		created.forEach(shipmentService::deleteShipment);
+	}
+
+	@Test
+	void recordsEveryTransitionWithEmployeeAndOffice() {
+		Shipment shipment = register();
+		// оттук нататък действа служителят от principal-а, а не регистриралият пратката
+		signIn();
+		shipmentService.changeStatus(shipment.getId(), ShipmentStatus.IN_TRANSIT);
+		shipmentService.changeStatus(shipment.getId(), ShipmentStatus.AT_OFFICE);
+		shipmentService.changeStatus(shipment.getId(), ShipmentStatus.OUT_FOR_DELIVERY);
+		Shipment delivered = shipmentService.deliverShipment(shipment.getId());
+
+		assertThat(delivered.getDeliveryDate()).isNotNull();
+		List<ShipmentTrackingEvent> timeline = trackingService.getTimeline(shipment.getId());
+		assertThat(timeline).extracting(ShipmentTrackingEvent::getFromStatus, ShipmentTrackingEvent::getToStatus)
+				.containsExactly(
+						tuple(null, ShipmentStatus.SHIPPED),
+						tuple(ShipmentStatus.SHIPPED, ShipmentStatus.IN_TRANSIT),
+						tuple(ShipmentStatus.IN_TRANSIT, ShipmentStatus.AT_OFFICE),
+						tuple(ShipmentStatus.AT_OFFICE, ShipmentStatus.OUT_FOR_DELIVERY),
+						tuple(ShipmentStatus.OUT_FOR_DELIVERY, ShipmentStatus.DELIVERED));
+		assertThat(timeline.get(0).getEmployeeId()).isEqualTo(employee.getId());
+		assertThat(timeline.get(0).getOfficeId()).isEqualTo(employee.getOffice().getId());
+		assertThat(timeline.subList(1, 5)).allSatisfy(event -> {
+			assertThat(event.getEmployeeId()).isEqualTo(COURIER_ID);
+			assertThat(event.getOfficeId()).isEqualTo(COURIER_OFFICE_ID);
+		});
+		assertThat(timeline).isSortedAccordingTo((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()));
+	}
+
+	@Test
+	void rejectsTransitionsOutsideTheStateMachine() {
+		Shipment shipment = register();
+		shipmentService.changeStatus(shipment.getId(), ShipmentStatus.IN_TRANSIT);
+
+		// от път пратката не може да бъде доставена, без да мине през офис или куриер
+		assertThatThrownBy(() -> shipmentService.deliverShipment(shipment.getId()))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("IN_TRANSIT to DELIVERED");
+		shipmentService.changeStatus(shipment.getId(), ShipmentStatus.RETURNED);
+		assertThatThrownBy(() -> shipmentService.changeStatus(shipment.getId(), ShipmentStatus.AT_OFFICE))
+				.isInstanceOf(IllegalArgumentException.class);
+		Shipment update = shipment();
+		update.setStatus(ShipmentStatus.SHIPPED);
+		assertThatThrownBy(() -> shipmentService.updateShipment(shipment.getId(), update))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(shipmentService.getShipmentById(shipment.getId()).getStatus()).isEqualTo(ShipmentStatus.RETURNED);
+		assertThat(trackingService.getTimeline(shipment.getId())).extracting(ShipmentTrackingEvent::getToStatus)
+				.containsExactly(ShipmentStatus.SHIPPED, ShipmentStatus.IN_TRANSIT, ShipmentStatus.RETURNED);
+	}
+
+	@Test
+	void bulkDeliveryRecordsThePreviousStateOfEachShipment() {
+		Shipment shipped = register();
+		Shipment withCourier = register();
+		Shipment returned = register();
+		shipmentService.changeStatus(withCourier.getId(), ShipmentStatus.OUT_FOR_DELIVERY);
+		shipmentService.changeStatus(returned.getId(), ShipmentStatus.RETURNED);
+
+		BulkDeliveryResponse response = shipmentService.deliverShipments(
+				List.of(shipped.getId(), withCourier.getId(), returned.getId()));
+
+		assertThat(response.getDelivered()).containsExactly(shipped.getId(), withCourier.getId());
+		assertThat(response.getAlreadyDelivered()).containsExactly(returned.getId());
+		assertThat(last(shipped)).isEqualTo(tuple(ShipmentStatus.SHIPPED, ShipmentStatus.DELIVERED));
+		assertThat(last(withCourier)).isEqualTo(tuple(ShipmentStatus.OUT_FOR_DELIVERY, ShipmentStatus.DELIVERED));
+		assertThat(last(returned)).isEqualTo(tuple(ShipmentStatus.SHIPPED, ShipmentStatus.RETURNED));
+	}
+
+	@Test
+	void returnedShipmentsAreNotListedAsNotDelivered() {
+		Shipment open = register();
+		Shipment returned = register();
+		long before = shipmentRepository.countNotDelivered();
+
+		shipmentService.changeStatus(returned.getId(), ShipmentStatus.RETURNED);
+
+		assertThat(shipmentRepository.countNotDelivered()).isEqualTo(before - 1);
+		assertThat(shipmentService.getNotDeliveredShipments(null, 500).getItems()).extracting(Shipment::getId)
+				.contains(open.getId())
+				.doesNotContain(returned.getId());
+	}
+
+	private Tuple last(Shipment shipment) {
+		List<ShipmentTrackingEvent> timeline = trackingService.getTimeline(shipment.getId());
+		ShipmentTrackingEvent event = timeline.get(timeline.size() - 1);
+		return tuple(event.getFromStatus(), event.getToStatus());
+	}
+
+	private Shipment register() {
+		Shipment shipment = shipmentService.registerShipment(shipment());
+		created.add(shipment.getId());
+		return shipment;
+	}
+
+	private Shipment shipment() {
+		return new Shipment(null, sender, receiver, "ул. Проследяване 1", 1.5, true, null, null, null, employee);
+	}
+
+	private static void signIn() {
+		AuthenticatedUser courier = new AuthenticatedUser(1000L, "courier", null, UserType.EMPLOYEE,
+				COURIER_ID, null, COURIER_OFFICE_ID);
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(courier, null, courier.getAuthorities()));
+	}
+}
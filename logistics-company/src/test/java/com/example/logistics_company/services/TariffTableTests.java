@@ -0,0 +1,95 @@
+package com.example.logistics_company.services;
+
+import com.example.logistics_company.dto.TariffDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TariffTableTests {
+
+	private static final LocalDate JANUARY = LocalDate.of(2025, 1, 1);
+	private static final LocalDate JULY = LocalDate.of(2025, 7, 1);
+
+	// Подадени в обратен ред – compile ги подрежда по дата
+	private final TariffTable table = TariffTable.compile(List.of(
+			tariff("2025-07", JULY, Map.of("София", 2.5, "Варна", 1.0),
+					new TariffDefinition.WeightBand(2.0, 5.0, 0.0, 7.0, 0.0),
+					new TariffDefinition.WeightBand(null, 6.0, 1.5, 8.0, 2.0)),
+			tariff("2025-01", JANUARY, Map.of("София", 2.0),
+					new TariffDefinition.WeightBand(2.0, 4.0, 0.0, 6.0, 0.0),
+					new TariffDefinition.WeightBand(30.0, 5.0, 1.2, 7.0, 1.7))));
+
+	@Test
+	void pricesByEffectiveVersionWeightBandDeliveryAndCity() {
+		long june = JULY.minusDays(1).toEpochDay();
+		long july = JULY.toEpochDay();
+
+		assertThat(table.version(june)).isEqualTo("2025-01");
+		assertThat(table.version(july)).isEqualTo("2025-07");
+
+		// граница на диапазона е включително в по-малкия
+		assertThat(table.price(2.0, true, null, june)).isEqualTo(4.0);
+		assertThat(table.price(2.5, true, null, june)).isEqualTo(8.0);
+		assertThat(table.price(2.5, false, null, june)).isEqualTo(11.25);
+		assertThat(table.price(1.0, false, "София", june)).isEqualTo(8.0);
+		// Варна няма добавка в първата версия, градовете без запис нямат добавка
+		assertThat(table.price(1.0, false, "Варна", june)).isEqualTo(6.0);
+		assertThat(table.price(1.0, false, "Русе", july)).isEqualTo(7.0);
+
+		assertThat(table.price(40.0, true, "Варна", july)).isEqualTo(67.0);
+		// 6 + 3.336 * 1.5 = 11.004 – закръгля се до стотинка
+		assertThat(table.price(3.336, true, null, july)).isEqualTo(11.0);
+	}
+
+	@Test
+	void rejectsWeightsAndDaysOutsideTheTariff() {
+		long june = JULY.minusDays(1).toEpochDay();
+		assertThatThrownBy(() -> table.price(31.0, true, null, june))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("exceeds tariff 2025-01");
+		assertThatThrownBy(() -> table.price(0.0, true, null, june)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> table.price(Double.NaN, true, null, june)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> table.price(1.0, true, null, JANUARY.minusDays(1).toEpochDay()))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("No tariff in effect");
+
+		assertThatThrownBy(() -> TariffTable.compile(List.of(tariff("x", JANUARY, Map.of(),
+				new TariffDefinition.WeightBand(5.0, 1, 1, 1, 1),
+				new TariffDefinition.WeightBand(3.0, 1, 1, 1, 1)))))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("increasing");
+	}
+
+	@Test
+	void pricingDoesNotAllocate() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long july = JULY.toEpochDay();
+		double sum = 0;
+		// загрявка, за да се компилира методът и да се заредят класовете
+		for (int i = 0; i < 100_000; i++) {
+			sum += table.price(0.5 + i % 50, i % 2 == 0, i % 3 == 0 ? "София" : null, july);
+		}
+		long before = threads.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < 100_000; i++) {
+			sum += table.price(0.5 + i % 50, i % 2 == 0, i % 3 == 0 ? "София" : null, july);
+		}
+		long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+		assertThat(sum).isPositive();
+		// допуск за самото измерване; една заделена Double/Integer на цена би била > 1 MB
+		assertThat(allocated).isLessThan(1_024);
+	}
+
+	private static TariffDefinition tariff(String version, LocalDate effectiveFrom, Map<String, Double> surcharges,
+										   TariffDefinition.WeightBand... bands) {
+		TariffDefinition definition = new TariffDefinition();
+		definition.setVersion(version);
+		definition.setEffectiveFrom(effectiveFrom);
+		definition.setBands(List.of(bands));
+		definition.setCitySurcharges(surcharges);
+		return definition;
+	}
+}